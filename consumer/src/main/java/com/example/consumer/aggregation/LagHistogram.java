@@ -0,0 +1,176 @@
+package com.example.consumer.aggregation;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * HDR-style histogram of event lag (processing time - event time) in milliseconds,
+ * over rotating intervals
+ * <p>
+ * Buckets are log-linear: values below 2^(precisionBits + 1) ms have a bucket each, and
+ * every further power of two is split into 2^precisionBits buckets, so a percentile is
+ * off by at most 1 / 2^precisionBits of its value (1/16 at 4 bits, 1/128 at 7 bits).
+ * Values up to HIGHEST_TRACKABLE (about 37 hours) are bucketed; larger ones count in
+ * the last bucket, while max stays exact.
+ * <p>
+ * Counts are kept per interval, aligned to multiples of the interval since the epoch:
+ * the current one and the one before it. Snapshots merge both, so they cover between
+ * one and two intervals and never go empty right after a rotation. Rotation swaps and
+ * clears the two bucket arrays, so the memory is fixed at two arrays and recording
+ * allocates nothing.
+ * <p>
+ * Guarded by its own monitor; recording is a few array writes, snapshots walk the buckets.
+ */
+public class LagHistogram {
+
+    static final long HIGHEST_TRACKABLE = (1L << 27) - 1;
+
+    private final int precisionBits;
+    private final long intervalMillis;
+    private final LongSupplier clock;
+
+    private long[] current;
+    private long[] previous;
+    private long currentCount;
+    private long previousCount;
+    private long currentMax;
+    private long previousMax;
+    private long currentStart;
+
+    /**
+     * @param precisionBits 1 to 10; each power of two is split into 2^precisionBits buckets
+     * @param interval      length of an interval, at least 1 ms
+     */
+    public LagHistogram(int precisionBits, Duration interval) {
+        this(precisionBits, interval, System::currentTimeMillis);
+    }
+
+    LagHistogram(int precisionBits, Duration interval, LongSupplier clock) {
+        if (precisionBits < 1 || precisionBits > 10 || interval.toMillis() < 1) {
+            throw new IllegalArgumentException("Need 1 to 10 precision bits and an interval of at least 1 ms");
+        }
+        this.precisionBits = precisionBits;
+        this.intervalMillis = interval.toMillis();
+        this.clock = clock;
+        int buckets = index(HIGHEST_TRACKABLE) + 1;
+        this.current = new long[buckets];
+        this.previous = new long[buckets];
+        this.currentStart = Math.floorDiv(clock.getAsLong(), intervalMillis) * intervalMillis;
+    }
+
+    public void record(long lagMillis) {
+        record(lagMillis, clock.getAsLong());
+    }
+
+    /**
+     * Record a lag at a point in time, for callers that already read the clock
+     */
+    synchronized void record(long lagMillis, long nowMillis) {
+        rotate(nowMillis);
+        long value = Math.max(0, lagMillis);
+        current[index(Math.min(value, HIGHEST_TRACKABLE))]++;
+        currentCount++;
+        currentMax = Math.max(currentMax, value);
+    }
+
+    /**
+     * Percentiles over the previous and the current interval
+     */
+    public synchronized LagSnapshot snapshot() {
+        rotate(clock.getAsLong());
+        long count = currentCount + previousCount;
+        if (count == 0) {
+            return LagSnapshot.EMPTY;
+        }
+        long max = Math.max(currentMax, previousMax);
+        long p50Rank = rank(0.5, count);
+        long p99Rank = rank(0.99, count);
+        long p999Rank = rank(0.999, count);
+        long p50 = -1;
+        long p99 = -1;
+        long p999 = -1;
+        long seen = 0;
+        for (int index = 0; index < current.length && p999 < 0; index++) {
+            seen += current[index] + previous[index];
+            if (p50 < 0 && seen >= p50Rank) {
+                p50 = Math.min(highestEquivalentValue(index), max);
+            }
+            if (p99 < 0 && seen >= p99Rank) {
+                p99 = Math.min(highestEquivalentValue(index), max);
+            }
+            if (seen >= p999Rank) {
+                p999 = Math.min(highestEquivalentValue(index), max);
+            }
+        }
+        return LagSnapshot.builder()
+                .count(count)
+                .p50(p50)
+                .p99(p99)
+                .p999(p999)
+                .max(max)
+                .build();
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(current, 0);
+        Arrays.fill(previous, 0);
+        currentCount = 0;
+        previousCount = 0;
+        currentMax = 0;
+        previousMax = 0;
+    }
+
+    /**
+     * Start a new interval once the current one has ended; after more than one idle
+     * interval the previous one is stale too
+     */
+    private void rotate(long nowMillis) {
+        if (nowMillis - currentStart < intervalMillis) {
+            return;
+        }
+        if (nowMillis - currentStart < 2 * intervalMillis) {
+            long[] recycled = previous;
+            previous = current;
+            previousCount = currentCount;
+            previousMax = currentMax;
+            current = recycled;
+        } else {
+            Arrays.fill(previous, 0);
+            previousCount = 0;
+            previousMax = 0;
+        }
+        Arrays.fill(current, 0);
+        currentCount = 0;
+        currentMax = 0;
+        currentStart = Math.floorDiv(nowMillis, intervalMillis) * intervalMillis;
+    }
+
+    /**
+     * Bucket of a value: exact below 2^(precisionBits + 1), then 2^precisionBits
+     * buckets per power of two
+     */
+    int index(long value) {
+        if (value < 2L << precisionBits) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - precisionBits;
+        return (shift << precisionBits) + (int) (value >>> shift);
+    }
+
+    /**
+     * Largest value that falls into a bucket
+     */
+    long highestEquivalentValue(int index) {
+        if (index < 2 << precisionBits) {
+            return index;
+        }
+        int shift = (index >>> precisionBits) - 1;
+        long subBucket = index - ((long) shift << precisionBits);
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static long rank(double quantile, long count) {
+        return Math.max(1, (long) Math.ceil(quantile * count));
+    }
+}
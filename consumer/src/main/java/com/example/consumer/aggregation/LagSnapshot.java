@@ -0,0 +1,31 @@
+package com.example.consumer.aggregation;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Lag percentiles of a LagHistogram, in milliseconds
+ * Percentiles are the upper bound of their histogram bucket, never above max.
+ */
+@Value
+@Builder
+public class LagSnapshot {
+
+    public static final LagSnapshot EMPTY = LagSnapshot.builder().build();
+
+    /**
+     * Events recorded in the reported intervals
+     */
+    long count;
+
+    long p50;
+
+    long p99;
+
+    long p999;
+
+    /**
+     * Exact largest lag, also when above the histogram's trackable range
+     */
+    long max;
+}
@@ -0,0 +1,64 @@
+package com.example.consumer.aggregation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent table of primitive long counters, one per queue
+ * <p>
+ * Each queue gets a LongAdder cell on its first update; the map keeps the first key
+ * instance, so every later event of the queue resolves to that cell with a plain
+ * lookup. Updates after that are lock-free and allocate nothing (the adder only
+ * grows stripes under contention), unlike a synchronized map of boxed Integers.
+ * Counts are 64-bit and cannot overflow in practice.
+ * <p>
+ * Reads never block writers. A snapshot reads every cell once, so each count is one
+ * the cell actually held; callers that serialize their updates into batches can make
+ * the snapshot consistent across queues with a sequence check around it (see
+ * EventConsumerService.getQueueMetrics).
+ */
+public class QueueCounters {
+
+    private final ConcurrentHashMap<String, LongAdder> cells = new ConcurrentHashMap<>();
+
+    /**
+     * Add to a queue's count
+     */
+    public void add(String queueId, long delta) {
+        LongAdder cell = cells.get(queueId);
+        if (cell == null) {
+            cell = cells.computeIfAbsent(queueId, ignored -> new LongAdder());
+        }
+        cell.add(delta);
+    }
+
+    /**
+     * Current count of a queue, 0 if it has none
+     */
+    public long get(String queueId) {
+        LongAdder cell = cells.get(queueId);
+        return cell == null ? 0 : cell.sum();
+    }
+
+    /**
+     * Copy of every queue's count
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new HashMap<>(Math.max(16, cells.size() * 4 / 3 + 1));
+        cells.forEach((queueId, cell) -> snapshot.put(queueId, cell.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Number of queues with a cell
+     */
+    public int size() {
+        return cells.size();
+    }
+
+    public void clear() {
+        cells.clear();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.consumer.aggregation;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Lag histograms of all events and of each queue
+ * <p>
+ * The global histogram uses 7 precision bits (percentiles within 1%); per-queue ones
+ * use 4 bits (within 7%) to keep each queue at two arrays of 384 longs (6 KB) however
+ * many events it sees. Recording reads the clock once for both histograms and
+ * allocates nothing after a queue's first event.
+ */
+public class QueueLagHistograms {
+
+    static final int GLOBAL_PRECISION_BITS = 7;
+    static final int QUEUE_PRECISION_BITS = 4;
+
+    private final Duration interval;
+    private final LongSupplier clock;
+    private final LagHistogram global;
+    private final ConcurrentHashMap<String, LagHistogram> queues = new ConcurrentHashMap<>();
+
+    /**
+     * @param interval length of a histogram interval; snapshots cover one to two intervals
+     */
+    public QueueLagHistograms(Duration interval) {
+        this(interval, System::currentTimeMillis);
+    }
+
+    QueueLagHistograms(Duration interval, LongSupplier clock) {
+        this.interval = interval;
+        this.clock = clock;
+        this.global = new LagHistogram(GLOBAL_PRECISION_BITS, interval, clock);
+    }
+
+    public void record(String queueId, long lagMillis) {
+        long now = clock.getAsLong();
+        global.record(lagMillis, now);
+        LagHistogram histogram = queues.get(queueId);
+        if (histogram == null) {
+            histogram = queues.computeIfAbsent(queueId, ignored -> new LagHistogram(QUEUE_PRECISION_BITS, interval, clock));
+        }
+        histogram.record(lagMillis, now);
+    }
+
+    /**
+     * Lag of all events
+     */
+    public LagSnapshot global() {
+        return global.snapshot();
+    }
+
+    /**
+     * Lag of a queue's events, empty for an unknown queue
+     */
+    public LagSnapshot queue(String queueId) {
+        LagHistogram histogram = queues.get(queueId);
+        return histogram == null ? LagSnapshot.EMPTY : histogram.snapshot();
+    }
+
+    /**
+     * Lag of every queue
+     */
+    public Map<String, LagSnapshot> queues() {
+        Map<String, LagSnapshot> snapshots = new HashMap<>();
+        queues.forEach((queueId, histogram) -> snapshots.put(queueId, histogram.snapshot()));
+        return snapshots;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void clear() {
+        queues.clear();
+        global.reset();
+    }
+}
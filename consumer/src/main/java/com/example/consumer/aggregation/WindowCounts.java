@@ -0,0 +1,30 @@
+package com.example.consumer.aggregation;
+
+import com.example.consumer.model.EventType;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Events of one queue per EventType within a time window, by event timestamp
+ */
+@Value
+@Builder
+public class WindowCounts {
+
+    Instant start;
+
+    /**
+     * Exclusive; for a sliding window the current time, so the newest bucket is partial
+     */
+    Instant end;
+
+    Map<EventType, Long> counts;
+
+    /**
+     * Events per second over the window (counts divided by end - start)
+     */
+    Map<EventType, Double> ratesPerSecond;
+}
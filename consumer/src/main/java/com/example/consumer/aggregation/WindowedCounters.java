@@ -0,0 +1,237 @@
+package com.example.consumer.aggregation;
+
+import com.example.consumer.model.EventType;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-queue event counts by EventType in fixed-size time buckets, for tumbling and
+ * sliding window queries
+ * <p>
+ * Each queue has a ring of bucketCount buckets covering the last bucketCount ×
+ * bucketSize (the horizon). Events land in the bucket of their timestamp, not of their
+ * arrival, so a late page or a replay counts in the right window; events older than
+ * the horizon are dropped (counted in lateEvents) and timestamps ahead of the local
+ * clock count in the current bucket. A ring slot is reused by the next bucket that maps
+ * to it, so memory per queue is fixed at bucketCount × (EventType count + 1) longs
+ * whatever the event volume, and recording allocates nothing after a queue's first event.
+ * <p>
+ * Each ring is guarded by its own monitor: recording and reading one queue never
+ * wait on another queue.
+ */
+public class WindowedCounters {
+
+    private static final EventType[] TYPES = EventType.values();
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Ring> rings = new ConcurrentHashMap<>();
+    private final LongAdder lateEvents = new LongAdder();
+
+    /**
+     * @param bucketSize  granularity of the windows, at least 1 ms
+     * @param bucketCount buckets kept per queue; the horizon is bucketCount × bucketSize
+     */
+    public WindowedCounters(Duration bucketSize, int bucketCount) {
+        this(bucketSize, bucketCount, System::currentTimeMillis);
+    }
+
+    WindowedCounters(Duration bucketSize, int bucketCount, LongSupplier clock) {
+        if (bucketSize.toMillis() < 1 || bucketCount < 1) {
+            throw new IllegalArgumentException("Need a bucket size of at least 1 ms and at least one bucket");
+        }
+        this.bucketMillis = bucketSize.toMillis();
+        this.bucketCount = bucketCount;
+        this.clock = clock;
+    }
+
+    /**
+     * Count an event in the bucket of its timestamp
+     *
+     * @return false if the event is older than the horizon and was dropped
+     */
+    public boolean record(String queueId, EventType type, long timestampMillis) {
+        long now = Math.floorDiv(clock.getAsLong(), bucketMillis);
+        long bucket = Math.min(Math.floorDiv(timestampMillis, bucketMillis), now);
+        if (bucket <= now - bucketCount) {
+            lateEvents.increment();
+            return false;
+        }
+        Ring ring = rings.get(queueId);
+        if (ring == null) {
+            ring = rings.computeIfAbsent(queueId, ignored -> new Ring(bucketCount));
+        }
+        if (!ring.add(bucket, type.ordinal())) {
+            lateEvents.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Events of a queue over the last window, ending now (zero counts for an unknown queue)
+     *
+     * @param window rounded up to whole buckets, at most the horizon
+     */
+    public WindowCounts sliding(String queueId, Duration window) {
+        long nowMillis = clock.getAsLong();
+        long buckets = slidingBuckets(window);
+        long now = Math.floorDiv(nowMillis, bucketMillis);
+        return counts(rings.get(queueId), now - buckets + 1, now, nowMillis);
+    }
+
+    /**
+     * Sliding window of every queue
+     */
+    public Map<String, WindowCounts> slidingAll(Duration window) {
+        long nowMillis = clock.getAsLong();
+        long buckets = slidingBuckets(window);
+        long now = Math.floorDiv(nowMillis, bucketMillis);
+        Map<String, WindowCounts> all = new HashMap<>();
+        rings.forEach((queueId, ring) -> all.put(queueId, counts(ring, now - buckets + 1, now, nowMillis)));
+        return all;
+    }
+
+    /**
+     * The last complete tumbling windows of a queue, oldest first. Windows are aligned
+     * to multiples of size since the epoch, so consecutive calls return the same windows.
+     *
+     * @param size  a whole number of buckets
+     * @param count windows to return; fewer if they would reach past the horizon
+     */
+    public List<WindowCounts> tumbling(String queueId, Duration size, int count) {
+        long sizeMillis = size.toMillis();
+        if (sizeMillis < bucketMillis || sizeMillis % bucketMillis != 0) {
+            throw new IllegalArgumentException("Window size must be a multiple of the bucket size of " + bucketMillis + " ms");
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException("Window count must be positive");
+        }
+        long bucketsPerWindow = sizeMillis / bucketMillis;
+        long nowMillis = clock.getAsLong();
+        long oldestBucket = Math.floorDiv(nowMillis, bucketMillis) - bucketCount + 1;
+        long end = Math.floorDiv(nowMillis, sizeMillis) * sizeMillis;
+        Ring ring = rings.get(queueId);
+        List<WindowCounts> windows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long fromBucket = Math.floorDiv(end - sizeMillis, bucketMillis);
+            if (fromBucket < oldestBucket) {
+                break;
+            }
+            windows.add(counts(ring, fromBucket, fromBucket + bucketsPerWindow - 1, end));
+            end -= sizeMillis;
+        }
+        return windows.reversed();
+    }
+
+    /**
+     * Time covered by each queue's ring
+     */
+    public Duration getHorizon() {
+        return Duration.ofMillis(bucketMillis * bucketCount);
+    }
+
+    public Duration getBucketSize() {
+        return Duration.ofMillis(bucketMillis);
+    }
+
+    /**
+     * Events dropped because their timestamp was older than the horizon
+     */
+    public long getLateEvents() {
+        return lateEvents.sum();
+    }
+
+    /**
+     * Number of queues with a ring
+     */
+    public int size() {
+        return rings.size();
+    }
+
+    public void clear() {
+        rings.clear();
+    }
+
+    private long slidingBuckets(Duration window) {
+        long windowMillis = window.toMillis();
+        if (windowMillis < 1) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        return Math.min(bucketCount, (windowMillis + bucketMillis - 1) / bucketMillis);
+    }
+
+    private WindowCounts counts(Ring ring, long fromBucket, long toBucket, long endMillis) {
+        long[] sums = new long[TYPES.length];
+        if (ring != null) {
+            ring.sum(fromBucket, toBucket, sums);
+        }
+        long startMillis = fromBucket * bucketMillis;
+        double seconds = Math.max(1, endMillis - startMillis) / 1000.0;
+        Map<EventType, Long> counts = new EnumMap<>(EventType.class);
+        Map<EventType, Double> rates = new EnumMap<>(EventType.class);
+        for (EventType type : TYPES) {
+            counts.put(type, sums[type.ordinal()]);
+            rates.put(type, sums[type.ordinal()] / seconds);
+        }
+        return WindowCounts.builder()
+                .start(Instant.ofEpochMilli(startMillis))
+                .end(Instant.ofEpochMilli(endMillis))
+                .counts(counts)
+                .ratesPerSecond(rates)
+                .build();
+    }
+
+    /**
+     * Fixed ring of buckets; slot i holds bucket ids[i] and its counts at i × TYPES.length
+     */
+    private static final class Ring {
+
+        private final long[] ids;
+        private final long[] counts;
+
+        private Ring(int bucketCount) {
+            ids = new long[bucketCount];
+            Arrays.fill(ids, Long.MIN_VALUE);
+            counts = new long[bucketCount * TYPES.length];
+        }
+
+        /**
+         * @return false if the slot already holds a newer bucket
+         */
+        private synchronized boolean add(long bucket, int type) {
+            int slot = (int) Math.floorMod(bucket, (long) ids.length);
+            if (ids[slot] > bucket) {
+                return false;
+            }
+            if (ids[slot] < bucket) {
+                ids[slot] = bucket;
+                Arrays.fill(counts, slot * TYPES.length, (slot + 1) * TYPES.length, 0);
+            }
+            counts[slot * TYPES.length + type]++;
+            return true;
+        }
+
+        private synchronized void sum(long fromBucket, long toBucket, long[] into) {
+            for (long bucket = fromBucket; bucket <= toBucket; bucket++) {
+                int slot = (int) Math.floorMod(bucket, (long) ids.length);
+                if (ids[slot] == bucket) {
+                    for (int type = 0; type < TYPES.length; type++) {
+                        into[type] += counts[slot * TYPES.length + type];
+                    }
+                }
+            }
+        }
+    }
+}
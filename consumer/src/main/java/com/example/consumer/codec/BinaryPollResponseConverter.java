@@ -0,0 +1,46 @@
+package com.example.consumer.codec;
+
+import com.example.consumer.service.PollResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * HTTP message converter for the binary poll response format
+ * Registered ahead of JSON on the RestTemplate, so poll requests advertise
+ * {@value PollResponseBinaryCodec#MEDIA_TYPE} first and decode it when the producer answers with it.
+ */
+public class BinaryPollResponseConverter extends AbstractHttpMessageConverter<PollResponse> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(PollResponseBinaryCodec.MEDIA_TYPE);
+
+    public BinaryPollResponseConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return PollResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected PollResponse readInternal(Class<? extends PollResponse> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        try {
+            return PollResponseBinaryCodec.decode(inputMessage.getBody().readAllBytes());
+        } catch (RuntimeException e) {
+            throw new HttpMessageNotReadableException("Invalid binary poll response", e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(PollResponse response, HttpOutputMessage outputMessage) throws IOException {
+        byte[] bytes = PollResponseBinaryCodec.encode(response);
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+}
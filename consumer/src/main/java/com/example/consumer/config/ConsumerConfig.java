@@ -1,17 +1,108 @@
 package com.example.consumer.config;
 
+import com.example.consumer.aggregation.QueueLagHistograms;
+import com.example.consumer.aggregation.WindowedCounters;
+import com.example.consumer.codec.BinaryPollResponseConverter;
+import com.example.consumer.service.AdaptivePollController;
+import com.example.consumer.service.PollTuning;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
 /**
  * Configuration for consumer service
  */
 @Configuration
 public class ConsumerConfig {
 
+    /**
+     * Wire format requested from the producer's poll endpoint: binary or json
+     */
+    @Value("${consumer.poll.format:json}")
+    private String pollFormat;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${consumer.poll.min-interval-ms:50}")
+    private long minIntervalMs;
+
+    @Value("${consumer.poll.max-interval-ms:5000}")
+    private long maxIntervalMs;
+
+    @Value("${consumer.poll.min-limit:100}")
+    private int minLimit;
+
+    @Value("${consumer.poll.max-limit:1000}")
+    private int maxLimit;
+
+    @Value("${consumer.poll.target-lag-ms:1000}")
+    private long targetLagMs;
+
+    @Value("${consumer.poll.max-page-ms:200}")
+    private long maxPageMs;
+
+    @Value("${consumer.window.bucket-ms:1000}")
+    private long windowBucketMs;
+
+    @Value("${consumer.window.buckets:120}")
+    private int windowBuckets;
+
+    @Value("${consumer.lag.interval-ms:60000}")
+    private long lagIntervalMs;
+
+    /**
+     * Poll interval and page size controller, tuned within the consumer.poll.* bounds
+     */
+    @Bean
+    public AdaptivePollController adaptivePollController() {
+        return new AdaptivePollController(PollTuning.builder()
+                .minInterval(Duration.ofMillis(minIntervalMs))
+                .maxInterval(Duration.ofMillis(maxIntervalMs))
+                .minPageSize(minLimit)
+                .maxPageSize(maxLimit)
+                .targetLag(Duration.ofMillis(targetLagMs))
+                .maxPageTime(Duration.ofMillis(maxPageMs))
+                .build());
+    }
+
+    /**
+     * Per-queue time buckets behind the window endpoints; each queue keeps
+     * consumer.window.buckets buckets of consumer.window.bucket-ms
+     */
+    @Bean
+    public WindowedCounters windowedCounters() {
+        return new WindowedCounters(Duration.ofMillis(windowBucketMs), windowBuckets);
+    }
+
+    /**
+     * Lag histograms, rotated every consumer.lag.interval-ms
+     */
+    @Bean
+    public QueueLagHistograms queueLagHistograms() {
+        return new QueueLagHistograms(Duration.ofMillis(lagIntervalMs));
+    }
+
     @Bean
     public RestTemplate restTemplate() {
-        return new RestTemplate();
+        RestTemplate restTemplate = new RestTemplate();
+        if (virtualThreads) {
+            // HttpURLConnection pins virtual threads while blocked; the JDK client parks them
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            restTemplate.setRequestFactory(new JdkClientHttpRequestFactory(httpClient));
+        }
+        if ("binary".equalsIgnoreCase(pollFormat)) {
+            // First in the list, so its media type leads the Accept header; JSON stays as fallback
+            restTemplate.getMessageConverters().addFirst(new BinaryPollResponseConverter());
+        }
+        return restTemplate;
     }
 }
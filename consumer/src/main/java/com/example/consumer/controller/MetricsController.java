@@ -1,13 +1,23 @@
 package com.example.consumer.controller;
 
+import com.example.consumer.aggregation.QueueLagHistograms;
+import com.example.consumer.aggregation.WindowCounts;
+import com.example.consumer.aggregation.WindowedCounters;
+import com.example.consumer.service.AdaptivePollController;
 import com.example.consumer.service.EventConsumerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Metrics API controller for consumer service
@@ -20,6 +30,9 @@ import java.util.Map;
 public class MetricsController {
 
     private final EventConsumerService eventConsumerService;
+    private final AdaptivePollController pollController;
+    private final WindowedCounters windowedCounters;
+    private final QueueLagHistograms lagHistograms;
 
     /**
      * Get metrics for a specific queue
@@ -27,10 +40,58 @@ public class MetricsController {
      */
     @GetMapping("/queues/{queueId}")
     public ResponseEntity<Map<String, Object>> getQueueMetric(@PathVariable String queueId) {
-        int count = eventConsumerService.getQueueCount(queueId);
+        long count = eventConsumerService.getQueueCount(queueId);
         Map<String, Object> response = new HashMap<>();
         response.put("queueId", queueId);
         response.put("waitingCount", count);
+        response.put("lag", lagHistograms.queue(queueId));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Events of a queue per type over a sliding window ending now, by event timestamp
+     * GET /v1/metrics/queues/{queueId}/rates?window=PT1M
+     * The window is rounded up to whole buckets and capped at the horizon.
+     */
+    @GetMapping("/queues/{queueId}/rates")
+    public ResponseEntity<Map<String, Object>> getQueueRates(@PathVariable("queueId") String queueId,
+                                                             @RequestParam(value = "window", defaultValue = "PT1M") Duration window) {
+        WindowCounts counts = windowed(() -> windowedCounters.sliding(queueId, window));
+        Map<String, Object> response = new HashMap<>();
+        response.put("queueId", queueId);
+        response.put("window", counts);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * The last complete tumbling windows of a queue, oldest first
+     * GET /v1/metrics/queues/{queueId}/windows?size=PT5S&count=12
+     * size must be a whole number of buckets; windows past the horizon are left out.
+     */
+    @GetMapping("/queues/{queueId}/windows")
+    public ResponseEntity<Map<String, Object>> getQueueWindows(@PathVariable("queueId") String queueId,
+                                                               @RequestParam(value = "size", defaultValue = "PT5S") Duration size,
+                                                               @RequestParam(value = "count", defaultValue = "12") int count) {
+        List<WindowCounts> windows = windowed(() -> windowedCounters.tumbling(queueId, size, count));
+        Map<String, Object> response = new HashMap<>();
+        response.put("queueId", queueId);
+        response.put("size", size.toString());
+        response.put("windows", windows);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Sliding window of every queue
+     * GET /v1/metrics/rates?window=PT1M
+     */
+    @GetMapping("/rates")
+    public ResponseEntity<Map<String, Object>> getAllQueueRates(@RequestParam(value = "window", defaultValue = "PT1M") Duration window) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("queues", windowed(() -> windowedCounters.slidingAll(window)));
+        response.put("bucketSize", windowedCounters.getBucketSize().toString());
+        response.put("horizon", windowedCounters.getHorizon().toString());
+        response.put("lateEvents", windowedCounters.getLateEvents());
+        response.put("timestamp", System.currentTimeMillis());
         return ResponseEntity.ok(response);
     }
 
@@ -44,12 +105,71 @@ public class MetricsController {
         response.put("queues", eventConsumerService.getQueueMetrics());
         response.put("totalConsumed", eventConsumerService.getTotalConsumed());
         response.put("lastCursor", eventConsumerService.getLastCursor());
+        response.put("cursors", eventConsumerService.getCursors());
         response.put("lastLagMs", eventConsumerService.getLastLagMillis());
+        response.put("lag", lagHistograms.global());
+        response.put("queueLag", lagHistograms.queues());
+        response.put("lagInterval", lagHistograms.getInterval().toString());
+        response.put("skippedEvents", eventConsumerService.getSkippedEvents());
+        response.put("epoch", eventConsumerService.getEpoch());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Replay from a point in time: move every partition's cursor to the first event at or after time
+     * POST /v1/metrics/cursor/reset?time=<ISO-8601 instant>
+     * Queue counts are cleared and rebuilt from the replayed events.
+     */
+    @PostMapping("/cursor/reset")
+    public ResponseEntity<Map<String, Object>> resetCursor(@RequestParam("time") Instant time) {
+        Map<Integer, Long> cursors = eventConsumerService.resetCursorToTime(time);
+        Map<String, Object> response = new HashMap<>();
+        response.put("time", time.toString());
+        response.put("cursors", cursors);
         response.put("epoch", eventConsumerService.getEpoch());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Decisions of the adaptive poll controller, to check that it converges
+     * GET /v1/metrics/poll
+     * Under a backlog pageSize should reach maxPageSize at minIntervalMs; while idle,
+     * intervalMs should back off and pageSize shrink towards the minimum.
+     */
+    @GetMapping("/poll")
+    public ResponseEntity<Map<String, Object>> getPollMetrics() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("pageSize", pollController.getPageSize());
+        response.put("intervalMs", pollController.getIntervalMillis());
+        response.put("pages", pollController.getPages());
+        response.put("polledEvents", pollController.getPolledEvents());
+        response.put("avgPageEvents", pollController.getAveragePageEvents());
+        response.put("avgPageMs", pollController.getAveragePageMillis());
+        response.put("pageSizeIncreases", pollController.getPageSizeIncreases());
+        response.put("pageSizeDecreases", pollController.getPageSizeDecreases());
+        response.put("backoffs", pollController.getBackoffs());
+        response.put("errors", pollController.getErrors());
+        response.put("minPageSize", pollController.getTuning().getMinPageSize());
+        response.put("maxPageSize", pollController.getTuning().getMaxPageSize());
+        response.put("minIntervalMs", pollController.getTuning().getMinInterval().toMillis());
+        response.put("maxIntervalMs", pollController.getTuning().getMaxInterval().toMillis());
+        response.put("lastLagMs", eventConsumerService.getLastLagMillis());
         response.put("timestamp", System.currentTimeMillis());
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Invalid window parameters are a bad request
+     */
+    private static <T> T windowed(Supplier<T> query) {
+        try {
+            return query.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
     /**
      * Health check
      * GET /v1/metrics/health
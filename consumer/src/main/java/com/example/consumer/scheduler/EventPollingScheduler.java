@@ -1,28 +1,49 @@
 package com.example.consumer.scheduler;
 
+import com.example.consumer.service.AdaptivePollController;
 import com.example.consumer.service.EventConsumerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+
 /**
  * Scheduler for polling events from producer
- * Runs every 5 seconds by default
+ * The delay after each poll comes from the AdaptivePollController: minimal while
+ * the consumer is behind, backing off towards consumer.poll.max-interval-ms while
+ * idle. With long-polling the producer does the waiting, so the delay stays short.
+ * Disabled when consumer.mode=stream (see EventStreamClient).
  */
 @Slf4j
 @Component
 @EnableScheduling
+@ConditionalOnProperty(name = "consumer.mode", havingValue = "poll", matchIfMissing = true)
 @RequiredArgsConstructor
-public class EventPollingScheduler {
+public class EventPollingScheduler implements SchedulingConfigurer {
+
+    private static final long INITIAL_DELAY_MS = 2000;
 
     private final EventConsumerService eventConsumerService;
+    private final AdaptivePollController pollController;
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+        taskRegistrar.addTriggerTask(this::pollProducer, context -> {
+            Instant lastCompletion = context.lastCompletion();
+            return lastCompletion == null
+                    ? Instant.now().plusMillis(INITIAL_DELAY_MS)
+                    : lastCompletion.plusMillis(pollController.getIntervalMillis());
+        });
+    }
 
     /**
-     * Poll producer every 5 seconds
+     * Poll producer, then wait the controller's current interval
      */
-    @Scheduled(fixedDelay = 5000, initialDelay = 2000)
     public void pollProducer() {
         log.debug("Starting scheduled poll...");
         eventConsumerService.pollOnce();
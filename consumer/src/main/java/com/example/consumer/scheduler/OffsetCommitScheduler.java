@@ -0,0 +1,25 @@
+package com.example.consumer.scheduler;
+
+import com.example.consumer.service.GroupOffsetCommitter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduler for consumer group offset commits
+ * Commits in batches every consumer.group.commit-interval-ms in both poll and stream
+ * mode; a crash replays at most one interval of events.
+ */
+@Component
+@EnableScheduling
+@RequiredArgsConstructor
+public class OffsetCommitScheduler {
+
+    private final GroupOffsetCommitter groupOffsetCommitter;
+
+    @Scheduled(fixedDelayString = "${consumer.group.commit-interval-ms:1000}", initialDelay = 2000)
+    public void commitOffsets() {
+        groupOffsetCommitter.commit();
+    }
+}
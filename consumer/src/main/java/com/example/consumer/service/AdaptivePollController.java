@@ -0,0 +1,180 @@
+package com.example.consumer.service;
+
+/**
+ * Tunes the poll interval and page size from what each poll observes
+ * <p>
+ * After every page:
+ * <ul>
+ *     <li>behind (hasMore, a full page, or event lag above targetLag): the page size
+ *     doubles and the next poll follows after minInterval</li>
+ *     <li>a page slower to aggregate than maxPageTime halves the page size first, so
+ *     a page never holds the consumer for long</li>
+ *     <li>caught up with events: the interval halves; a mostly empty page shrinks the
+ *     page size by a quarter</li>
+ *     <li>empty: the interval doubles up to maxInterval; after a long-poll the producer
+ *     already waited, so the interval drops to minInterval instead</li>
+ * </ul>
+ * Failed polls double the interval as well. Under a backlog this converges to
+ * maxPageSize at minInterval; when idle, to minPageSize at maxInterval (or at
+ * minInterval with long-polling). With several partitions the observations of all
+ * partitions feed one controller.
+ */
+public class AdaptivePollController {
+
+    private final PollTuning tuning;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final long targetLagMillis;
+    private final long maxPageNanos;
+
+    private int pageSize;
+    private long intervalMillis;
+
+    private long pages;
+    private long polledEvents;
+    private long pageSizeIncreases;
+    private long pageSizeDecreases;
+    private long backoffs;
+    private long errors;
+    private double averagePageEvents;
+    private double averagePageMillis;
+
+    public AdaptivePollController(PollTuning tuning) {
+        if (tuning.getMinPageSize() <= 0 || tuning.getMaxPageSize() < tuning.getMinPageSize()) {
+            throw new IllegalArgumentException("Page size bounds must satisfy 0 < min <= max");
+        }
+        if (tuning.getMinInterval().isNegative() || tuning.getMaxInterval().compareTo(tuning.getMinInterval()) < 0) {
+            throw new IllegalArgumentException("Poll interval bounds must satisfy 0 <= min <= max");
+        }
+        this.tuning = tuning;
+        this.minIntervalMillis = tuning.getMinInterval().toMillis();
+        this.maxIntervalMillis = tuning.getMaxInterval().toMillis();
+        this.targetLagMillis = tuning.getTargetLag().toMillis();
+        this.maxPageNanos = tuning.getMaxPageTime().toNanos();
+        this.pageSize = tuning.getMinPageSize();
+        this.intervalMillis = minIntervalMillis;
+    }
+
+    /**
+     * Record a poll that returned a page
+     *
+     * @param requested       page size requested
+     * @param events          events returned
+     * @param hasMore         whether the producer has more events after the page
+     * @param processingNanos time spent applying the page
+     * @param lagMillis       age of the newest event of this page, 0 for an empty page
+     * @param longPoll        whether the producer was asked to wait for events
+     */
+    public synchronized void onPage(int requested, int events, boolean hasMore, long processingNanos,
+                                    long lagMillis, boolean longPoll) {
+        pages++;
+        polledEvents += events;
+        averagePageEvents = average(averagePageEvents, events);
+        averagePageMillis = average(averagePageMillis, processingNanos / 1e6);
+
+        boolean behind = hasMore || events >= requested || lagMillis > targetLagMillis;
+        if (processingNanos > maxPageNanos && pageSize > tuning.getMinPageSize()) {
+            resizePage(Math.max(tuning.getMinPageSize(), pageSize / 2));
+        } else if (behind) {
+            resizePage(Math.min(tuning.getMaxPageSize(), pageSize * 2));
+        } else if (events < requested / 4) {
+            resizePage(Math.max(tuning.getMinPageSize(), pageSize - pageSize / 4));
+        }
+
+        if (behind || (events == 0 && longPoll)) {
+            intervalMillis = minIntervalMillis;
+        } else if (events > 0) {
+            intervalMillis = Math.max(minIntervalMillis, intervalMillis / 2);
+        } else {
+            backOff();
+        }
+    }
+
+    /**
+     * Record a poll that failed
+     */
+    public synchronized void onError() {
+        errors++;
+        backOff();
+    }
+
+    private void resizePage(int size) {
+        if (size > pageSize) {
+            pageSizeIncreases++;
+        } else if (size < pageSize) {
+            pageSizeDecreases++;
+        }
+        pageSize = size;
+    }
+
+    private void backOff() {
+        long backedOff = Math.min(maxIntervalMillis, Math.max(1, intervalMillis) * 2);
+        if (backedOff > intervalMillis) {
+            backoffs++;
+        }
+        intervalMillis = Math.max(minIntervalMillis, backedOff);
+    }
+
+    /**
+     * Exponentially weighted moving average over roughly the last 8 pages
+     */
+    private static double average(double average, double sample) {
+        return average + (sample - average) / 8;
+    }
+
+    /**
+     * Page size to request next
+     */
+    public synchronized int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Delay before the next poll
+     */
+    public synchronized long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public synchronized long getPages() {
+        return pages;
+    }
+
+    public synchronized long getPolledEvents() {
+        return polledEvents;
+    }
+
+    public synchronized long getPageSizeIncreases() {
+        return pageSizeIncreases;
+    }
+
+    public synchronized long getPageSizeDecreases() {
+        return pageSizeDecreases;
+    }
+
+    /**
+     * Times the interval was lengthened (idle or failed polls)
+     */
+    public synchronized long getBackoffs() {
+        return backoffs;
+    }
+
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+    public synchronized double getAveragePageEvents() {
+        return averagePageEvents;
+    }
+
+    /**
+     * Average time to apply a page
+     */
+    public synchronized double getAveragePageMillis() {
+        return averagePageMillis;
+    }
+
+    public PollTuning getTuning() {
+        return tuning;
+    }
+}
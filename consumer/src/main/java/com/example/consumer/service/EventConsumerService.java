@@ -1,5 +1,8 @@
 package com.example.consumer.service;
 
+import com.example.consumer.aggregation.QueueCounters;
+import com.example.consumer.aggregation.QueueLagHistograms;
+import com.example.consumer.aggregation.WindowedCounters;
 import com.example.consumer.model.Event;
 import com.example.consumer.model.EventType;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -16,20 +20,33 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service for consuming events from producer
- * Periodically polls events and aggregates them
+ * Periodically polls events and aggregates them. The producer is hash-partitioned
+ * by queueId, so the consumer keeps one cursor per partition and polls partitions
+ * independently; per-queue order holds because a queue lives in one partition.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class EventConsumerService {
 
+    // Lock-free attempts at a queue metrics snapshot before falling back to the monitor
+    private static final int SNAPSHOT_ATTEMPTS = 4;
+
     private final RestTemplate restTemplate;
+    private final AdaptivePollController pollController;
+    // Per-queue counts by EventType in time buckets, for rates over windows
+    private final WindowedCounters queueWindows;
+    // Event time to processing time lag, globally and per queue
+    private final QueueLagHistograms lagHistograms;
 
     @Value("${producer.url:http://localhost:8080}")
     private String producerUrl;
@@ -37,74 +54,408 @@ public class EventConsumerService {
     @Value("${consumer.cursor.file:data/consumer-cursor.txt}")
     private String cursorFilePath;
 
-    // Cursor to track last consumed event
-    private final AtomicInteger lastCursor = new AtomicInteger(-1);
+    // Long-poll wait passed to the producer; 0 disables long-polling
+    @Value("${consumer.poll.wait-ms:0}")
+    private long pollWaitMs;
+
+    // Drain a backlog page after page while the producer reports hasMore
+    @Value("${consumer.drain.enabled:true}")
+    private boolean drainEnabled;
+
+    // Pages drained per poll before returning to the scheduler
+    @Value("${consumer.drain.max-pages:100}")
+    private int drainMaxPages;
+
+    // Drain pages applied between cursor file writes
+    @Value("${consumer.drain.commit-pages:10}")
+    private int drainCommitPages;
+
+    // Comma-separated queues to consume, filtered on the producer; empty for all queues
+    @Value("${consumer.poll.queue-ids:}")
+    private String pollQueueIds;
+
+    // Poll partitions on virtual threads instead of a platform thread pool
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Cursor per producer partition (offsets are per partition), -1 until consumed
+    private final Map<Integer, AtomicLong> cursors = new ConcurrentHashMap<>();
     private final AtomicReference<String> lastEpoch = new AtomicReference<>(null);
 
+    // Producer partition count, 0 until discovered (again after an epoch change)
+    private volatile int partitionCount;
+    private final Set<Integer> partitionsInFlight = ConcurrentHashMap.newKeySet();
+    private ExecutorService pollExecutor;
+
     // Simple aggregation: count events per queue
-    private final Map<String, Integer> eventCountByQueue = Collections.synchronizedMap(new HashMap<>());
+    private final QueueCounters eventCountByQueue = new QueueCounters();
+    // Seqlock over the aggregates: odd while a page or reset is applied (always under
+    // the monitor), so readers can take a page-consistent snapshot without locking
+    private volatile long aggregateVersion;
 
     // Observability counters
     private final AtomicLong totalConsumed = new AtomicLong(0);
     private final AtomicLong lastLagMillis = new AtomicLong(0);
+    private final AtomicLong skippedEvents = new AtomicLong(0);
+
+    // Partitions repositioned by resetCursorToTime, so their open push streams reconnect
+    private final Set<Integer> streamRepositioned = new HashSet<>();
 
     @PostConstruct
     public void initCursor() {
         CursorState state = loadCursorFromFile();
-        lastCursor.set(state.cursor);
+        state.cursors.forEach((partition, cursor) -> cursor(partition).set(cursor));
         lastEpoch.set(state.epoch);
-        log.info("Loaded cursor: {}, epoch: {} from {}", state.cursor, state.epoch, cursorFilePath);
+        log.info("Loaded cursors: {}, epoch: {} from {}", state.cursors, state.epoch, cursorFilePath);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (pollExecutor != null) {
+            pollExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Poll every producer partition once
+     * With one partition the poll runs on the calling thread. With several, each
+     * partition is polled on its own thread and a partition whose previous poll is
+     * still parked is skipped, so an idle partition never delays the others.
+     * With consumer.poll.wait-ms > 0 the producer holds the request until events
+     * arrive, so a poll returns as soon as there is something to process.
+     */
+    public void pollOnce() {
+        int partitions = getPartitionCount();
+        if (partitions == 1) {
+            pollPartition(0);
+            return;
+        }
+        for (int p = 0; p < partitions; p++) {
+            int partition = p;
+            if (partitionsInFlight.add(partition)) {
+                pollExecutor().execute(() -> {
+                    try {
+                        pollPartition(partition);
+                    } finally {
+                        partitionsInFlight.remove(partition);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Poll one partition; requests run unlocked, responses are applied under this
+     * service's monitor so aggregates and the cursor file stay consistent
+     * <p>
+     * While the producer reports hasMore, the partition is drained without waiting for
+     * the next tick: page N+1 is requested (on the poll executor) as soon as page N
+     * arrives, so the fetch overlaps aggregating page N. Drain pages persist the
+     * cursor every consumer.drain.commit-pages pages (and when the drain ends); a drain
+     * stops after consumer.drain.max-pages so other scheduled work still gets the
+     * scheduler thread.
+     * <p>
+     * Every page is requested with the AdaptivePollController's page size and reported
+     * back to it, together with how long it took to apply.
+     */
+    void pollPartition(int partition) {
+        long cursor = cursor(partition).get();
+        int limit = pollController.getPageSize();
+        PollResponse response = fetch(partition, cursor, limit, pollWaitMs);
+        boolean longPoll = pollWaitMs > 0;
+        int pages = 0;
+        boolean unsaved = false;
+        while (response != null) {
+            pages++;
+            CompletableFuture<PollResponse> next = null;
+            int nextLimit = pollController.getPageSize();
+            if (isDrainable(response) && pages < drainMaxPages) {
+                long nextCursor = response.getNextCursor();
+                next = CompletableFuture.supplyAsync(() -> fetch(partition, nextCursor, nextLimit, 0), pollExecutor());
+            }
+            boolean persist = next == null || pages % Math.max(1, drainCommitPages) == 0;
+            long applyStart = System.nanoTime();
+            boolean applied = applyPollResponse(partition, cursor, response, persist);
+            pollController.onPage(limit, response.getEvents() == null ? 0 : response.getEvents().size(),
+                    response.isHasMore(), System.nanoTime() - applyStart, applied ? pageLagMillis(response) : 0,
+                    longPoll);
+            unsaved = applied && !persist;
+            if (next == null || !applied) {
+                if (next != null) {
+                    next.cancel(false);
+                }
+                break;
+            }
+            cursor = response.getNextCursor();
+            limit = nextLimit;
+            longPoll = false;
+            response = next.join();
+        }
+        if (response == null) {
+            pollController.onError();
+        }
+        if (unsaved) {
+            saveCursorToFile();
+        }
     }
 
     /**
-     * Poll events from producer once
+     * Request one page; errors are logged and yield null
      */
-    public synchronized void pollOnce() {
-        int cursor = lastCursor.get();
-        String pollUrl = String.format("%s/v1/events/poll?after=%d&limit=100", producerUrl, cursor);
+    private PollResponse fetch(int partition, long cursor, int limit, long waitMs) {
+        String pollUrl = String.format("%s/v1/events/poll?partition=%d&after=%d&limit=%d",
+                producerUrl, partition, cursor, limit);
+        if (waitMs > 0) {
+            pollUrl += "&waitMs=" + waitMs;
+        }
+        if (isFiltered()) {
+            pollUrl += "&queueIds=" + pollQueueIds.replace(" ", "");
+        }
 
         try {
-            log.info("Polling producer at: {}", pollUrl);
+            log.debug("Polling producer at: {}", pollUrl);
             PollResponse response = restTemplate.getForObject(pollUrl, PollResponse.class);
-
             if (response == null) {
                 log.info("No response from producer");
-                return;
             }
+            return response;
+        } catch (Exception e) {
+            log.error("Failed to poll events from producer", e);
+            return null;
+        }
+    }
 
-            String responseEpoch = response.getEpoch();
-            if (responseEpoch != null) {
-                String currentEpoch = lastEpoch.get();
-                if (currentEpoch == null) {
-                    lastEpoch.set(responseEpoch);
-                } else if (!currentEpoch.equals(responseEpoch)) {
-                    resetForNewEpoch(currentEpoch, responseEpoch);
-                    return;
-                }
+    /**
+     * Age of the newest event of a page, 0 when none carries a timestamp
+     * lastLagMillis is not used: it keeps the last processed event's lag through empty polls.
+     */
+    private static long pageLagMillis(PollResponse response) {
+        List<Event> events = response.getEvents();
+        for (int i = events.size() - 1; i >= 0; i--) {
+            Instant timestamp = events.get(i).getTimestamp();
+            if (timestamp != null) {
+                return Math.max(0, Instant.now().toEpochMilli() - timestamp.toEpochMilli());
             }
+        }
+        return 0;
+    }
+
+    /**
+     * Whether more events are waiting right after this page
+     */
+    private boolean isDrainable(PollResponse response) {
+        return drainEnabled && response.isHasMore() && !response.isCursorExpired()
+                && response.getEvents() != null && !response.getEvents().isEmpty();
+    }
 
-            if (response.getEvents() == null || response.getEvents().isEmpty()) {
-                log.info("No new events from producer");
-                return;
+    /**
+     * @param persist whether to write the cursor file after applying events
+     * @return whether the page's events were applied and the cursor advanced to nextCursor
+     */
+    private synchronized boolean applyPollResponse(int partition, long requestedCursor, PollResponse response,
+                                                   boolean persist) {
+        if (!checkEpoch(response.getEpoch())) {
+            return false;
+        }
+
+        if (cursor(partition).get() != requestedCursor) {
+            log.info("Cursor of partition {} moved while polling, dropping response", partition);
+            return false;
+        }
+
+        if (response.isCursorExpired()) {
+            skipToEarliest(partition, response.getEarliestOffset());
+            return false;
+        }
+
+        if (response.getEvents() == null || response.getEvents().isEmpty()) {
+            // A filtered poll moves the cursor past events of other queues
+            if (isFiltered() && response.getNextCursor() > requestedCursor) {
+                cursor(partition).set(response.getNextCursor());
+                saveCursorToFile();
             }
+            log.info("No new events from producer");
+            return false;
+        }
 
-            // Process each event
-            for (Event event : response.getEvents()) {
+        applyEvents(partition, response.getEvents(), response.getNextCursor(), persist);
+        log.info("Polled {} events from partition {}, new cursor: {}, totalConsumed: {}, lastLagMs: {}",
+                response.getEvents().size(),
+                partition,
+                response.getNextCursor(),
+                totalConsumed.get(),
+                lastLagMillis.get());
+        return true;
+    }
+
+    /**
+     * Number of producer partitions, discovered from the producer on first use
+     * A producer without the partitions endpoint counts as one partition.
+     *
+     * @return the count, or 0 if the producer could not be reached
+     */
+    public int getPartitionCount() {
+        int count = partitionCount;
+        if (count > 0) {
+            return count;
+        }
+        try {
+            PartitionsResponse response = restTemplate.getForObject(
+                    producerUrl + "/v1/events/partitions", PartitionsResponse.class);
+            count = response == null ? 1 : Math.max(1, response.getPartitionCount());
+            partitionCount = count;
+            log.info("Producer has {} partition(s)", count);
+            return count;
+        } catch (Exception e) {
+            log.warn("Failed to discover producer partitions: {}", e.toString());
+            return 0;
+        }
+    }
+
+    /**
+     * Handle the epoch announced at the start of a push stream
+     *
+     * @return false if the epoch changed and the cursors were reset, in which case the
+     * stream must be reopened from the new cursor
+     */
+    public synchronized boolean acceptStreamEpoch(String epoch) {
+        return checkEpoch(epoch);
+    }
+
+    /**
+     * Apply events received on a partition's push stream
+     *
+     * @param partition  partition the stream follows
+     * @param events     events in stream order
+     * @param lastOffset offset of the last event in the list
+     * @return false if the cursor was reset by time while streaming, in which case the
+     * events are dropped and the stream must be reopened from the new cursor
+     */
+    public synchronized boolean acceptStreamedEvents(int partition, List<Event> events, long lastOffset) {
+        if (events.isEmpty()) {
+            return true;
+        }
+        if (streamRepositioned.remove(partition)) {
+            log.info("Cursor of partition {} was reset to {}, dropping streamed events up to {}",
+                    partition, cursor(partition).get(), lastOffset);
+            return false;
+        }
+        applyEvents(partition, events, lastOffset, true);
+        log.debug("Streamed {} events from partition {}, new cursor: {}, totalConsumed: {}", events.size(),
+                partition, lastOffset, totalConsumed.get());
+        return true;
+    }
+
+    /**
+     * Move every partition's cursor to the first event at or after a point in time
+     * (targeted backfill). The producer resolves the time through its time index.
+     * Queue counts are cleared because replayed events would otherwise be counted
+     * twice; they rebuild from the replayed events.
+     *
+     * @return the new cursor of each partition
+     */
+    public synchronized Map<Integer, Long> resetCursorToTime(Instant time) {
+        int partitions = getPartitionCount();
+        if (partitions == 0) {
+            throw new IllegalStateException("Producer partitions are unknown, is the producer reachable?");
+        }
+        Map<Integer, Long> resetCursors = new TreeMap<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            String seekUrl = String.format("%s/v1/events/seek?partition=%d&time=%s", producerUrl, partition, time);
+            SeekResponse response = restTemplate.getForObject(seekUrl, SeekResponse.class);
+            if (response == null) {
+                throw new IllegalStateException("No response from producer seek endpoint");
+            }
+            checkEpoch(response.getEpoch());
+            resetCursors.put(partition, response.getCursor());
+        }
+
+        resetCursors.forEach((partition, cursor) -> cursor(partition).set(cursor));
+        clearAggregates();
+        streamRepositioned.addAll(resetCursors.keySet());
+        saveCursorToFile();
+        log.warn("Cursors reset to {} to replay from {}", resetCursors, time);
+        return resetCursors;
+    }
+
+    /**
+     * Handle an "expired" notice on a partition's push stream; the producer already
+     * continues the stream from the earliest retained event
+     */
+    public synchronized void acceptStreamCursorExpired(int partition, long earliestOffset) {
+        skipToEarliest(partition, earliestOffset);
+    }
+
+    /**
+     * The producer evicted events this consumer had not read yet: record the gap and
+     * continue from the earliest retained event
+     */
+    private void skipToEarliest(int partition, long earliestOffset) {
+        long cursor = cursor(partition).get();
+        long resumeCursor = earliestOffset - 1;
+        if (resumeCursor <= cursor) {
+            return;
+        }
+        skippedEvents.addAndGet(resumeCursor - cursor);
+        cursor(partition).set(resumeCursor);
+        saveCursorToFile();
+        log.warn("Cursor {} of partition {} expired on the producer, skipped {} evicted events, resuming after {}",
+                cursor, partition, resumeCursor - cursor, resumeCursor);
+    }
+
+    /**
+     * Track the producer epoch; a change resets cursors and aggregates
+     *
+     * @return false if the epoch changed and nothing from this response should be applied
+     */
+    private boolean checkEpoch(String responseEpoch) {
+        if (responseEpoch != null) {
+            String currentEpoch = lastEpoch.get();
+            if (currentEpoch == null) {
+                lastEpoch.set(responseEpoch);
+            } else if (!currentEpoch.equals(responseEpoch)) {
+                resetForNewEpoch(currentEpoch, responseEpoch);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Aggregate a page of events and advance the partition's cursor
+     *
+     * @param persist whether to write the cursor file now (drains batch the writes)
+     */
+    private void applyEvents(int partition, List<Event> events, long nextCursor, boolean persist) {
+        aggregateVersion++;
+        try {
+            for (Event event : events) {
                 processEvent(event);
             }
+        } finally {
+            aggregateVersion++;
+        }
+        cursor(partition).set(nextCursor);
+        if (persist) {
+            saveCursorToFile();
+        }
+    }
 
-            // Update cursor
-            lastCursor.set(response.getNextCursor());
-            saveCursorToFile(response.getNextCursor(), lastEpoch.get());
-            log.info("Polled {} events, new cursor: {}, totalConsumed: {}, lastLagMs: {}",
-                    response.getEvents().size(),
-                    response.getNextCursor(),
-                    totalConsumed.get(),
-                    lastLagMillis.get());
+    private AtomicLong cursor(int partition) {
+        return cursors.computeIfAbsent(partition, ignored -> new AtomicLong(-1));
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to poll events from producer", e);
+    private boolean isFiltered() {
+        return pollQueueIds != null && !pollQueueIds.isBlank();
+    }
+
+    private synchronized ExecutorService pollExecutor() {
+        if (pollExecutor == null) {
+            pollExecutor = virtualThreads
+                    ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("partition-poller-", 0).factory())
+                    : Executors.newCachedThreadPool(Thread.ofPlatform().name("partition-poller-", 0).daemon().factory());
         }
+        return pollExecutor;
     }
 
     /**
@@ -113,38 +464,104 @@ public class EventConsumerService {
     private void processEvent(Event event) {
         totalConsumed.incrementAndGet();
         if (event.getTimestamp() != null) {
-            long lagMs = Math.max(0, Instant.now().toEpochMilli() - event.getTimestamp().toEpochMilli());
+            long timestampMillis = event.getTimestamp().toEpochMilli();
+            long lagMs = Math.max(0, Instant.now().toEpochMilli() - timestampMillis);
             lastLagMillis.set(lagMs);
+            if (event.getQueueId() != null) {
+                lagHistograms.record(event.getQueueId(), lagMs);
+                if (event.getEventType() != null) {
+                    queueWindows.record(event.getQueueId(), event.getEventType(), timestampMillis);
+                }
+            }
         }
-        if (event.getEventType() == EventType.ENQUEUED) {
-            eventCountByQueue.merge(event.getQueueId(), 1, Integer::sum);
+        if (event.getQueueId() == null) {
+            // Queueless events are accepted by the producer; they count as consumed only
+            log.debug("{} event without a queue", event.getEventType());
+        } else if (event.getEventType() == EventType.ENQUEUED) {
+            eventCountByQueue.add(event.getQueueId(), 1);
             log.debug("ENQUEUED event for queue: {}", event.getQueueId());
         } else if (event.getEventType() == EventType.DEQUEUED) {
-            eventCountByQueue.merge(event.getQueueId(), -1, Integer::sum);
+            eventCountByQueue.add(event.getQueueId(), -1);
             log.debug("DEQUEUED event for queue: {}", event.getQueueId());
         }
     }
 
     /**
      * Get current queue metrics
+     * Lock-free while no page is being applied: the snapshot is kept only if no page or
+     * reset started or ended while it was taken, so it never shows half a page. After a
+     * few failed attempts (a drain applying pages back to back) it is taken under the
+     * monitor, between pages.
      */
-    public Map<String, Integer> getQueueMetrics() {
-        return new HashMap<>(eventCountByQueue);
+    public Map<String, Long> getQueueMetrics() {
+        for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+            long version = aggregateVersion;
+            if ((version & 1) == 0) {
+                Map<String, Long> snapshot = eventCountByQueue.snapshot();
+                if (aggregateVersion == version) {
+                    return snapshot;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        synchronized (this) {
+            return eventCountByQueue.snapshot();
+        }
     }
 
     /**
      * Get metric for a specific queue
      */
-    public int getQueueCount(String queueId) {
-        return eventCountByQueue.getOrDefault(queueId, 0);
+    public long getQueueCount(String queueId) {
+        return eventCountByQueue.get(queueId);
     }
 
     public long getTotalConsumed() {
         return totalConsumed.get();
     }
 
-    public int getLastCursor() {
-        return lastCursor.get();
+    /**
+     * Cursor of partition 0 (the only cursor when the producer is not partitioned)
+     */
+    public long getLastCursor() {
+        return cursor(0).get();
+    }
+
+    /**
+     * Epoch and cursors to commit for the consumer group, captured together so an epoch
+     * change cannot pair new-epoch offsets with the old epoch
+     *
+     * @return null before the first poll
+     */
+    public synchronized GroupOffsets getGroupOffsets() {
+        String epoch = lastEpoch.get();
+        return epoch == null ? null : new GroupOffsets(epoch, getCursors());
+    }
+
+    /**
+     * Start from the consumer group's committed offsets; only applies without local
+     * cursors (first start or a lost cursor file), which take precedence otherwise
+     *
+     * @return whether the offsets were applied
+     */
+    public synchronized boolean resumeFrom(String epoch, Map<Integer, Long> offsets) {
+        if (!cursors.isEmpty() || lastEpoch.get() != null) {
+            return false;
+        }
+        offsets.forEach((partition, cursor) -> cursor(partition).set(cursor));
+        lastEpoch.set(epoch);
+        saveCursorToFile();
+        log.info("Resuming from consumer group offsets {}, epoch: {}", offsets, epoch);
+        return true;
+    }
+
+    /**
+     * Cursor of every partition consumed so far
+     */
+    public Map<Integer, Long> getCursors() {
+        Map<Integer, Long> snapshot = new TreeMap<>();
+        cursors.forEach((partition, cursor) -> snapshot.put(partition, cursor.get()));
+        return snapshot;
     }
 
     public long getLastLagMillis() {
@@ -155,58 +572,93 @@ public class EventConsumerService {
         return lastEpoch.get();
     }
 
+    /**
+     * Events evicted by the producer before this consumer read them
+     */
+    public long getSkippedEvents() {
+        return skippedEvents.get();
+    }
+
     private void resetForNewEpoch(String oldEpoch, String newEpoch) {
-        lastCursor.set(-1);
+        cursors.clear();
+        partitionCount = 0;
         lastEpoch.set(newEpoch);
-        eventCountByQueue.clear();
+        clearAggregates();
         totalConsumed.set(0);
         lastLagMillis.set(0);
-        saveCursorToFile(-1, newEpoch);
-        log.warn("Producer epoch changed from {} to {}, reset cursor and metrics", oldEpoch, newEpoch);
+        lagHistograms.clear();
+        skippedEvents.set(0);
+        saveCursorToFile();
+        log.warn("Producer epoch changed from {} to {}, reset cursors and metrics", oldEpoch, newEpoch);
+    }
+
+    private void clearAggregates() {
+        aggregateVersion++;
+        try {
+            eventCountByQueue.clear();
+            queueWindows.clear();
+        } finally {
+            aggregateVersion++;
+        }
     }
 
     private CursorState loadCursorFromFile() {
         Path path = Paths.get(cursorFilePath);
         if (!Files.exists(path)) {
-            return new CursorState(-1, null);
+            return new CursorState(Map.of(), null);
         }
         try {
             String content = Files.readString(path, StandardCharsets.UTF_8).trim();
             if (content.isEmpty()) {
-                return new CursorState(-1, null);
+                return new CursorState(Map.of(), null);
             }
             String[] lines = content.split("\\R");
-            Integer cursor = null;
+            Map<Integer, Long> cursors = new TreeMap<>();
             String epoch = null;
             for (String line : lines) {
                 String trimmed = line.trim();
                 if (trimmed.startsWith("cursor=")) {
-                    cursor = Integer.parseInt(trimmed.substring("cursor=".length()));
+                    cursors.put(0, Long.parseLong(trimmed.substring("cursor=".length())));
+                } else if (trimmed.startsWith("cursor.")) {
+                    int separator = trimmed.indexOf('=');
+                    cursors.put(Integer.parseInt(trimmed.substring("cursor.".length(), separator)),
+                            Long.parseLong(trimmed.substring(separator + 1)));
                 } else if (trimmed.startsWith("epoch=")) {
                     epoch = trimmed.substring("epoch=".length());
                 } else if (trimmed.matches("-?\\d+")) {
-                    cursor = Integer.parseInt(trimmed);
+                    cursors.put(0, Long.parseLong(trimmed));
                 }
             }
-            return new CursorState(cursor != null ? cursor : -1, epoch);
+            return new CursorState(cursors, epoch);
         } catch (Exception e) {
             log.warn("Failed to read cursor file {}, defaulting to -1", cursorFilePath, e);
-            return new CursorState(-1, null);
+            return new CursorState(Map.of(), null);
         }
     }
 
-    private void saveCursorToFile(int cursor, String epoch) {
+    /**
+     * Write every partition's cursor: "cursor=" holds partition 0 (the format before
+     * partitioning), "cursor.N=" partition N
+     */
+    private synchronized void saveCursorToFile() {
         Path path = Paths.get(cursorFilePath);
         try {
             Path parent = path.getParent();
             if (parent != null) {
                 Files.createDirectories(parent);
             }
+            String epoch = lastEpoch.get();
             StringBuilder content = new StringBuilder();
             if (epoch != null && !epoch.isBlank()) {
                 content.append("epoch=").append(epoch).append(System.lineSeparator());
             }
-            content.append("cursor=").append(cursor).append(System.lineSeparator());
+            content.append("cursor=").append(getLastCursor()).append(System.lineSeparator());
+            getCursors().forEach((partition, cursor) -> {
+                if (partition > 0) {
+                    content.append("cursor.").append(partition).append('=').append(cursor)
+                            .append(System.lineSeparator());
+                }
+            });
             Files.writeString(path, content.toString(), StandardCharsets.UTF_8);
         } catch (IOException e) {
             log.warn("Failed to write cursor file {}", cursorFilePath, e);
@@ -214,11 +666,11 @@ public class EventConsumerService {
     }
 
     private static class CursorState {
-        private final int cursor;
+        private final Map<Integer, Long> cursors;
         private final String epoch;
 
-        private CursorState(int cursor, String epoch) {
-            this.cursor = cursor;
+        private CursorState(Map<Integer, Long> cursors, String epoch) {
+            this.cursors = cursors;
             this.epoch = epoch;
         }
     }
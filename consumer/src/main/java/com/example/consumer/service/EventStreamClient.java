@@ -0,0 +1,279 @@
+package com.example.consumer.service;
+
+import com.example.consumer.model.Event;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming alternative to EventPollingScheduler (consumer.mode=stream)
+ * <p>
+ * Keeps one Server-Sent Events connection per producer partition open against
+ * /v1/events/stream, applies events in small batches as they arrive and reconnects
+ * from the partition's last applied cursor with exponential backoff. A watchdog
+ * drops a connection if neither events nor heartbeats arrive within
+ * consumer.stream.stale-ms. The partition count is discovered once at startup.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "consumer.mode", havingValue = "stream")
+@RequiredArgsConstructor
+public class EventStreamClient {
+
+    private static final long INITIAL_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final EventConsumerService eventConsumerService;
+    private final JsonMapper jsonMapper;
+
+    @Value("${producer.url:http://localhost:8080}")
+    private String producerUrl;
+
+    @Value("${consumer.stream.max-batch:500}")
+    private int maxBatch;
+
+    @Value("${consumer.stream.stale-ms:45000}")
+    private long staleMs;
+
+    // Read each partition's stream on a virtual thread instead of a platform thread
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(
+            runnable -> Thread.ofPlatform().name("event-stream-watchdog").daemon().unstarted(runnable));
+    private final List<PartitionStream> streams = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread starter;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        starter = Thread.ofPlatform().name("event-stream-client").daemon().start(this::openStreams);
+        watchdog.scheduleWithFixedDelay(this::closeIfStale, staleMs, staleMs / 3, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        watchdog.shutdownNow();
+        starter.interrupt();
+        streams.forEach(PartitionStream::stop);
+    }
+
+    /**
+     * Discover the partition count (retrying until the producer answers), then start
+     * one stream per partition
+     */
+    private void openStreams() {
+        long backoffMs = INITIAL_BACKOFF_MS;
+        int partitions;
+        while ((partitions = eventConsumerService.getPartitionCount()) == 0) {
+            if (!sleep(backoffMs)) {
+                return;
+            }
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+        for (int partition = 0; partition < partitions && running; partition++) {
+            streams.add(new PartitionStream(partition));
+        }
+    }
+
+    private void closeIfStale() {
+        long now = System.currentTimeMillis();
+        for (PartitionStream stream : streams) {
+            if (stream.currentStream != null && now - stream.lastActivityAt > staleMs) {
+                log.warn("No events or heartbeats on partition {} for {} ms, reconnecting", stream.partition, staleMs);
+                stream.closeCurrentStream();
+            }
+        }
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return running;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Connection loop for one partition
+     */
+    private final class PartitionStream {
+
+        private final int partition;
+        private final Thread reader;
+        private volatile InputStream currentStream;
+        private volatile long lastActivityAt;
+
+        private PartitionStream(int partition) {
+            this.partition = partition;
+            String name = "event-stream-client-" + partition;
+            this.reader = virtualThreads
+                    ? Thread.ofVirtual().name(name).start(this::runLoop)
+                    : Thread.ofPlatform().name(name).daemon().start(this::runLoop);
+        }
+
+        private void stop() {
+            closeCurrentStream();
+            reader.interrupt();
+        }
+
+        private void runLoop() {
+            long backoffMs = INITIAL_BACKOFF_MS;
+            while (running) {
+                try {
+                    if (streamOnce()) {
+                        backoffMs = INITIAL_BACKOFF_MS;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    if (running) {
+                        log.warn("Event stream of partition {} failed: {}", partition, e.toString());
+                    }
+                }
+                if (!sleep(backoffMs)) {
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+            }
+        }
+
+        /**
+         * Open one stream and consume it until it ends
+         *
+         * @return true if the connection was established
+         */
+        private boolean streamOnce() throws IOException, InterruptedException {
+            long cursor = eventConsumerService.getCursors().getOrDefault(partition, -1L);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(String.format(
+                            "%s/v1/events/stream?partition=%d&after=%d", producerUrl, partition, cursor)))
+                    .header("Accept", "text/event-stream")
+                    .build();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                response.body().close();
+                throw new IOException("Producer stream returned HTTP " + response.statusCode());
+            }
+            log.info("Connected to producer event stream of partition {} after cursor {}", partition, cursor);
+            currentStream = response.body();
+            lastActivityAt = System.currentTimeMillis();
+            try (BufferedReader lines = new BufferedReader(
+                    new InputStreamReader(currentStream, StandardCharsets.UTF_8))) {
+                consume(lines);
+            } finally {
+                currentStream = null;
+            }
+            return true;
+        }
+
+        /**
+         * Parse SSE frames (id/event/data fields terminated by a blank line)
+         */
+        private void consume(BufferedReader lines) throws IOException {
+            List<Event> batch = new ArrayList<>();
+            long batchLastOffset = -1;
+            String id = null;
+            String name = null;
+            StringBuilder data = new StringBuilder();
+
+            String line;
+            while (running && (line = lines.readLine()) != null) {
+                lastActivityAt = System.currentTimeMillis();
+                if (!line.isEmpty()) {
+                    if (line.startsWith(":")) {
+                        continue; // comment / heartbeat
+                    }
+                    int colon = line.indexOf(':');
+                    String field = colon < 0 ? line : line.substring(0, colon);
+                    String value = colon < 0 ? "" : line.substring(colon + 1);
+                    if (value.startsWith(" ")) {
+                        value = value.substring(1);
+                    }
+                    switch (field) {
+                        case "id" -> id = value;
+                        case "event" -> name = value;
+                        case "data" -> data.append(data.isEmpty() ? "" : "\n").append(value);
+                        default -> {
+                            // retry and unknown fields are ignored
+                        }
+                    }
+                    continue;
+                }
+
+                // Blank line: dispatch the frame
+                if ("epoch".equals(name)) {
+                    if (!flush(batch, batchLastOffset) || !eventConsumerService.acceptStreamEpoch(data.toString())) {
+                        return; // cursor was reset, reconnect from it
+                    }
+                } else if ("expired".equals(name)) {
+                    if (!flush(batch, batchLastOffset)) {
+                        return;
+                    }
+                    eventConsumerService.acceptStreamCursorExpired(partition, Long.parseLong(data.toString().trim()));
+                } else if ("event".equals(name) && id != null) {
+                    batch.add(jsonMapper.readValue(data.toString(), Event.class));
+                    batchLastOffset = Long.parseLong(id);
+                }
+                id = null;
+                name = null;
+                data.setLength(0);
+
+                if ((batch.size() >= maxBatch || !lines.ready()) && !flush(batch, batchLastOffset)) {
+                    return; // cursor was moved (e.g. reset by time), reconnect from it
+                }
+            }
+            flush(batch, batchLastOffset);
+        }
+
+        /**
+         * @return false if the consumer rejected the batch and the stream must be reopened
+         */
+        private boolean flush(List<Event> batch, long lastOffset) {
+            if (batch.isEmpty()) {
+                return true;
+            }
+            boolean accepted = eventConsumerService.acceptStreamedEvents(partition, new ArrayList<>(batch), lastOffset);
+            batch.clear();
+            return accepted;
+        }
+
+        private void closeCurrentStream() {
+            InputStream stream = currentStream;
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {
+                    log.debug("Failed to close event stream", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.consumer.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Commits this consumer's cursors to the producer as a consumer group
+ * With consumer.group.id set, every partition's cursor is committed in one request
+ * per interval (see OffsetCommitScheduler), and only when a cursor moved, so commits
+ * cost nothing per event. The producer reports the group's lag and keeps events it
+ * has not committed from expiring by age. Without a local cursor file the consumer
+ * starts from the group's committed offsets instead of the beginning.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GroupOffsetCommitter {
+
+    private final RestTemplate restTemplate;
+    private final EventConsumerService eventConsumerService;
+
+    @Value("${producer.url:http://localhost:8080}")
+    private String producerUrl;
+
+    // Consumer group to commit as; empty disables commits
+    @Value("${consumer.group.id:}")
+    private String groupId;
+
+    private GroupOffsets lastCommitted;
+    private final AtomicLong commits = new AtomicLong(0);
+
+    /**
+     * Resume from the group's offsets when there are no local cursors
+     */
+    @PostConstruct
+    public void resumeFromGroup() {
+        if (!isEnabled() || eventConsumerService.getGroupOffsets() != null) {
+            return;
+        }
+        try {
+            GroupStatusResponse status = restTemplate.getForObject(groupUrl(), GroupStatusResponse.class);
+            if (status == null || status.getPartitions() == null) {
+                return;
+            }
+            Map<Integer, Long> offsets = new TreeMap<>();
+            status.getPartitions().forEach(p -> offsets.put(p.getPartition(), p.getCommittedOffset()));
+            eventConsumerService.resumeFrom(status.getEpoch(), offsets);
+        } catch (HttpClientErrorException.NotFound e) {
+            log.info("Consumer group {} has no committed offsets yet", groupId);
+        } catch (Exception e) {
+            log.warn("Failed to load offsets of consumer group {}: {}", groupId, e.toString());
+        }
+    }
+
+    /**
+     * Commit the cursors if any moved since the last commit
+     */
+    public synchronized void commit() {
+        if (!isEnabled()) {
+            return;
+        }
+        GroupOffsets offsets = eventConsumerService.getGroupOffsets();
+        if (offsets == null || offsets.getOffsets().isEmpty() || offsets.equals(lastCommitted)) {
+            return;
+        }
+        try {
+            restTemplate.postForObject(groupUrl() + "/offsets", offsets, GroupStatusResponse.class);
+            lastCommitted = offsets;
+            commits.incrementAndGet();
+            log.debug("Committed offsets {} for consumer group {}", offsets.getOffsets(), groupId);
+        } catch (HttpClientErrorException.Conflict e) {
+            // The next poll sees the new epoch and resets the cursors
+            log.info("Producer epoch changed, offsets of epoch {} not committed", offsets.getEpoch());
+        } catch (Exception e) {
+            log.warn("Failed to commit offsets of consumer group {}: {}", groupId, e.toString());
+        }
+    }
+
+    /**
+     * Final commit on shutdown, so a restart elsewhere resumes from the latest cursors
+     */
+    @PreDestroy
+    public void shutdown() {
+        commit();
+    }
+
+    public boolean isEnabled() {
+        return groupId != null && !groupId.isBlank();
+    }
+
+    /**
+     * Successful commits since start
+     */
+    public long getCommits() {
+        return commits.get();
+    }
+
+    private String groupUrl() {
+        return producerUrl + "/v1/groups/" + groupId;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.consumer.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Offsets committed for a consumer group: the request body of the producer's commit
+ * endpoint
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupOffsets {
+
+    /**
+     * Epoch the offsets were read in
+     */
+    private String epoch;
+
+    /**
+     * Last processed offset per partition
+     */
+    private Map<Integer, Long> offsets;
+}
@@ -0,0 +1,38 @@
+package com.example.consumer.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response model from producer consumer group endpoints (lag details are not needed here)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupStatusResponse {
+
+    private String groupId;
+
+    /**
+     * Epoch the committed offsets belong to
+     */
+    private String epoch;
+
+    private List<PartitionOffset> partitions;
+
+    /**
+     * Committed offset of one partition (-1 if none)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PartitionOffset {
+        private int partition;
+        private long committedOffset;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.consumer.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response model from producer partitions endpoint (per-partition offsets are not needed here)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PartitionsResponse {
+
+    /**
+     * Epoch identifier shared by all partitions
+     */
+    private String epoch;
+
+    /**
+     * Number of partitions; one cursor is kept per partition
+     */
+    private int partitionCount;
+}
@@ -0,0 +1,52 @@
+package com.example.consumer.service;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Bounds within which AdaptivePollController tunes polling
+ * Equal minimum and maximum pin a setting, e.g. minPageSize == maxPageSize for a
+ * fixed page size.
+ */
+@Value
+@Builder
+public class PollTuning {
+
+    public static final PollTuning DEFAULT = PollTuning.builder()
+            .minInterval(Duration.ofMillis(50))
+            .maxInterval(Duration.ofSeconds(5))
+            .minPageSize(100)
+            .maxPageSize(1000)
+            .targetLag(Duration.ofSeconds(1))
+            .maxPageTime(Duration.ofMillis(200))
+            .build();
+
+    /**
+     * Shortest delay between polls, used while behind
+     */
+    Duration minInterval;
+
+    /**
+     * Longest delay between polls, reached by backing off while idle
+     */
+    Duration maxInterval;
+
+    int minPageSize;
+
+    /**
+     * Largest page to request (the producer caps it at 1000)
+     */
+    int maxPageSize;
+
+    /**
+     * Event lag above which the consumer counts as behind even without hasMore
+     */
+    Duration targetLag;
+
+    /**
+     * Longest a page may take to aggregate before the page size is halved
+     */
+    Duration maxPageTime;
+}
@@ -0,0 +1,43 @@
+package com.example.consumer.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Response model from producer seek endpoint
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeekResponse {
+
+    /**
+     * Partition the offsets refer to
+     */
+    private int partition;
+
+    /**
+     * Requested point in time
+     */
+    private Instant time;
+
+    /**
+     * Offset of the first event stamped at or after time
+     */
+    private long offset;
+
+    /**
+     * Cursor to poll from to replay from time
+     */
+    private long cursor;
+
+    /**
+     * Epoch identifier for the producer's event sequence
+     */
+    private String epoch;
+}
@@ -0,0 +1,134 @@
+package com.example.consumer.aggregation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for LagHistogram and QueueLagHistograms
+ */
+@DisplayName("LagHistogram Unit Tests")
+class LagHistogramTest {
+
+    private static final long START = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(START);
+
+    @Test
+    @DisplayName("snapshot: Should report percentiles within the precision of the buckets")
+    void shouldReportPercentiles() {
+        // Given: lags 1..10000 ms, once each
+        LagHistogram histogram = new LagHistogram(7, Duration.ofMinutes(1), clock::get);
+        for (long lag = 1; lag <= 10_000; lag++) {
+            histogram.record(lag);
+        }
+
+        // When
+        LagSnapshot snapshot = histogram.snapshot();
+
+        // Then
+        assertThat(snapshot.getCount()).isEqualTo(10_000);
+        assertThat(snapshot.getP50()).isCloseTo(5_000, within(40L));
+        assertThat(snapshot.getP99()).isCloseTo(9_900, within(80L));
+        assertThat(snapshot.getP999()).isCloseTo(9_990, within(10L));
+        assertThat(snapshot.getMax()).isEqualTo(10_000);
+    }
+
+    @Test
+    @DisplayName("snapshot: Should expose a rare tail that a single last value would hide")
+    void shouldExposeTail() {
+        // Given: 999 fast events and one slow one, recorded first
+        LagHistogram histogram = new LagHistogram(4, Duration.ofMinutes(1), clock::get);
+        histogram.record(30_000);
+        for (int i = 0; i < 999; i++) {
+            histogram.record(5);
+        }
+
+        // When
+        LagSnapshot snapshot = histogram.snapshot();
+
+        // Then
+        assertThat(snapshot.getP50()).isEqualTo(5);
+        assertThat(snapshot.getP99()).isEqualTo(5);
+        assertThat(snapshot.getP999()).isEqualTo(5);
+        assertThat(snapshot.getMax()).isEqualTo(30_000);
+    }
+
+    @Test
+    @DisplayName("index: Should map values to buckets whose bounds contain them")
+    void shouldBucketValues() {
+        LagHistogram histogram = new LagHistogram(4, Duration.ofMinutes(1), clock::get);
+
+        for (long value : new long[]{0, 1, 31, 32, 33, 1_000, 65_535, 1_000_000, LagHistogram.HIGHEST_TRACKABLE}) {
+            int index = histogram.index(value);
+            assertThat(histogram.highestEquivalentValue(index)).isGreaterThanOrEqualTo(value);
+            assertThat(index == 0 ? -1 : histogram.highestEquivalentValue(index - 1)).isLessThan(value);
+        }
+        assertThat(histogram.index(LagHistogram.HIGHEST_TRACKABLE)).isEqualTo(383);
+    }
+
+    @Test
+    @DisplayName("snapshot: Should keep large lags exact in max and clamp them in the percentiles")
+    void shouldClampUntrackableValues() {
+        LagHistogram histogram = new LagHistogram(4, Duration.ofMinutes(1), clock::get);
+
+        histogram.record(Long.MAX_VALUE / 2);
+
+        LagSnapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getMax()).isEqualTo(Long.MAX_VALUE / 2);
+        assertThat(snapshot.getP50()).isEqualTo(LagHistogram.HIGHEST_TRACKABLE);
+    }
+
+    @Test
+    @DisplayName("snapshot: Should cover the current and the previous interval only")
+    void shouldRotateIntervals() {
+        // Given
+        LagHistogram histogram = new LagHistogram(4, Duration.ofMinutes(1), clock::get);
+        histogram.record(1_000);
+
+        // When: next interval, the old values are still reported
+        clock.set(START + 60_000);
+        histogram.record(10);
+
+        // Then
+        assertThat(histogram.snapshot().getCount()).isEqualTo(2);
+        assertThat(histogram.snapshot().getMax()).isEqualTo(1_000);
+
+        // When: one more interval, the first one is gone
+        clock.set(START + 120_000);
+        assertThat(histogram.snapshot().getCount()).isEqualTo(1);
+        assertThat(histogram.snapshot().getMax()).isEqualTo(10);
+
+        // When: idle for longer than two intervals
+        clock.set(START + 600_000);
+        assertThat(histogram.snapshot()).isEqualTo(LagSnapshot.EMPTY);
+    }
+
+    @Test
+    @DisplayName("QueueLagHistograms: Should record globally and per queue")
+    void shouldRecordPerQueue() {
+        // Given
+        QueueLagHistograms histograms = new QueueLagHistograms(Duration.ofMinutes(1), clock::get);
+
+        // When
+        histograms.record("queue-1", 10);
+        histograms.record("queue-1", 20);
+        histograms.record("queue-2", 5_000);
+
+        // Then
+        assertThat(histograms.global().getCount()).isEqualTo(3);
+        assertThat(histograms.global().getMax()).isEqualTo(5_000);
+        assertThat(histograms.queue("queue-1").getMax()).isEqualTo(20);
+        assertThat(histograms.queue("queue-3")).isEqualTo(LagSnapshot.EMPTY);
+        assertThat(histograms.queues()).containsOnlyKeys("queue-1", "queue-2");
+
+        histograms.clear();
+        assertThat(histograms.global()).isEqualTo(LagSnapshot.EMPTY);
+        assertThat(histograms.queues()).isEmpty();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.consumer.aggregation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for QueueCounters
+ */
+@DisplayName("QueueCounters Unit Tests")
+class QueueCountersTest {
+
+    @Test
+    @DisplayName("add: Should count per queue and report 0 for unknown queues")
+    void shouldCountPerQueue() {
+        // Given
+        QueueCounters counters = new QueueCounters();
+
+        // When
+        counters.add("queue-1", 1);
+        counters.add("queue-1", 1);
+        counters.add("queue-1", -1);
+        counters.add("queue-2", -1);
+
+        // Then
+        assertThat(counters.get("queue-1")).isEqualTo(1);
+        assertThat(counters.get("queue-2")).isEqualTo(-1);
+        assertThat(counters.get("queue-3")).isZero();
+        assertThat(counters.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("add: Should count past Integer.MAX_VALUE without overflowing")
+    void shouldNotOverflow() {
+        // Given
+        QueueCounters counters = new QueueCounters();
+
+        // When
+        counters.add("queue-1", Integer.MAX_VALUE);
+        counters.add("queue-1", 1);
+
+        // Then
+        assertThat(counters.get("queue-1")).isEqualTo(Integer.MAX_VALUE + 1L);
+    }
+
+    @Test
+    @DisplayName("add: Should not lose updates from concurrent threads")
+    void shouldCountConcurrently() throws Exception {
+        // Given
+        QueueCounters counters = new QueueCounters();
+        List<Thread> threads = new ArrayList<>();
+
+        // When: 4 threads count 10000 events each over 100 queues
+        for (int t = 0; t < 4; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counters.add("queue-" + (i % 100), 1);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        Map<String, Long> snapshot = counters.snapshot();
+        assertThat(snapshot).hasSize(100);
+        assertThat(snapshot.values()).allMatch(count -> count == 400);
+    }
+
+    @Test
+    @DisplayName("snapshot: Should be a copy that later updates do not change")
+    void shouldSnapshotACopy() {
+        // Given
+        QueueCounters counters = new QueueCounters();
+        counters.add("queue-1", 1);
+
+        // When
+        Map<String, Long> snapshot = counters.snapshot();
+        counters.add("queue-1", 1);
+        counters.clear();
+
+        // Then
+        assertThat(snapshot).containsExactly(Map.entry("queue-1", 1L));
+        assertThat(counters.size()).isZero();
+    }
+}
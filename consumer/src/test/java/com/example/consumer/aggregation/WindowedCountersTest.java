@@ -0,0 +1,118 @@
+package com.example.consumer.aggregation;
+
+import com.example.consumer.model.EventType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for WindowedCounters
+ */
+@DisplayName("WindowedCounters Unit Tests")
+class WindowedCountersTest {
+
+    // 1 s buckets, 60 of them: a one minute horizon
+    private static final long START = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(START);
+    private final WindowedCounters counters = new WindowedCounters(Duration.ofSeconds(1), 60, clock::get);
+
+    @Test
+    @DisplayName("sliding: Should count events per type over the last window and derive rates")
+    void shouldCountSlidingWindow() {
+        // Given: 10 enqueues 5 s ago, 4 dequeues now, 1 enqueue 30 s ago
+        for (int i = 0; i < 10; i++) {
+            counters.record("queue-1", EventType.ENQUEUED, START - 5_000);
+        }
+        for (int i = 0; i < 4; i++) {
+            counters.record("queue-1", EventType.DEQUEUED, START);
+        }
+        counters.record("queue-1", EventType.ENQUEUED, START - 30_000);
+
+        // When
+        WindowCounts last10s = counters.sliding("queue-1", Duration.ofSeconds(10));
+
+        // Then: the 10 s window is buckets START-9s .. START
+        assertThat(last10s.getCounts()).containsEntry(EventType.ENQUEUED, 10L).containsEntry(EventType.DEQUEUED, 4L);
+        assertThat(last10s.getStart()).isEqualTo(Instant.ofEpochMilli(START - 9_000));
+        assertThat(last10s.getEnd()).isEqualTo(Instant.ofEpochMilli(START));
+        assertThat(last10s.getRatesPerSecond().get(EventType.ENQUEUED)).isEqualTo(10 / 9.0);
+        assertThat(counters.sliding("queue-1", Duration.ofMinutes(1)).getCounts()).containsEntry(EventType.ENQUEUED, 11L);
+    }
+
+    @Test
+    @DisplayName("sliding: Should return zero counts for an unknown queue")
+    void shouldReturnZeroForUnknownQueue() {
+        WindowCounts window = counters.sliding("queue-x", Duration.ofSeconds(5));
+
+        assertThat(window.getCounts()).containsEntry(EventType.ENQUEUED, 0L).containsEntry(EventType.DEQUEUED, 0L);
+    }
+
+    @Test
+    @DisplayName("tumbling: Should return the last complete windows aligned to the window size, oldest first")
+    void shouldReturnTumblingWindows() {
+        // Given: now is 2.5 s into a 5 s window
+        clock.set(START + 2_500);
+        counters.record("queue-1", EventType.ENQUEUED, START - 1);       // window [START-5s, START)
+        counters.record("queue-1", EventType.ENQUEUED, START - 5_000);   // window [START-5s, START)
+        counters.record("queue-1", EventType.DEQUEUED, START - 7_000);   // window [START-10s, START-5s)
+        counters.record("queue-1", EventType.DEQUEUED, START + 1_000);   // current window, not complete
+
+        // When
+        List<WindowCounts> windows = counters.tumbling("queue-1", Duration.ofSeconds(5), 3);
+
+        // Then
+        assertThat(windows).hasSize(3);
+        assertThat(windows.get(2).getStart()).isEqualTo(Instant.ofEpochMilli(START - 5_000));
+        assertThat(windows.get(2).getEnd()).isEqualTo(Instant.ofEpochMilli(START));
+        assertThat(windows.get(2).getCounts()).containsEntry(EventType.ENQUEUED, 2L).containsEntry(EventType.DEQUEUED, 0L);
+        assertThat(windows.get(1).getCounts()).containsEntry(EventType.DEQUEUED, 1L);
+        assertThat(windows.get(0).getCounts()).containsEntry(EventType.ENQUEUED, 0L);
+        assertThat(windows.get(2).getRatesPerSecond().get(EventType.ENQUEUED)).isEqualTo(0.4);
+    }
+
+    @Test
+    @DisplayName("tumbling: Should stop at the horizon and reject sizes that are not whole buckets")
+    void shouldLimitTumblingWindows() {
+        assertThat(counters.tumbling("queue-1", Duration.ofSeconds(20), 10)).hasSize(2);
+        assertThatThrownBy(() -> counters.tumbling("queue-1", Duration.ofMillis(1500), 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("record: Should drop events older than the horizon and count future events now")
+    void shouldDropLateEvents() {
+        // When
+        boolean late = counters.record("queue-1", EventType.ENQUEUED, START - 60_000);
+        boolean future = counters.record("queue-1", EventType.ENQUEUED, START + 3_600_000);
+
+        // Then
+        assertThat(late).isFalse();
+        assertThat(future).isTrue();
+        assertThat(counters.getLateEvents()).isEqualTo(1);
+        assertThat(counters.sliding("queue-1", Duration.ofSeconds(1)).getCounts()).containsEntry(EventType.ENQUEUED, 1L);
+    }
+
+    @Test
+    @DisplayName("record: Should reuse ring slots as time passes, keeping memory per queue fixed")
+    void shouldRotateBuckets() {
+        // Given
+        counters.record("queue-1", EventType.ENQUEUED, START);
+
+        // When: a minute later the slot of START is taken by the new bucket
+        clock.set(START + 60_000);
+        counters.record("queue-1", EventType.DEQUEUED, START + 60_000);
+
+        // Then: the old event left the window, and its bucket is gone for late arrivals too
+        WindowCounts lastMinute = counters.sliding("queue-1", Duration.ofMinutes(1));
+        assertThat(lastMinute.getCounts()).containsEntry(EventType.ENQUEUED, 0L).containsEntry(EventType.DEQUEUED, 1L);
+        assertThat(counters.record("queue-1", EventType.ENQUEUED, START)).isFalse();
+    }
+}
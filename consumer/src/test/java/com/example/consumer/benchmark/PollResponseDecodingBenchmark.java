@@ -0,0 +1,73 @@
+package com.example.consumer.benchmark;
+
+import com.example.consumer.codec.PollResponseBinaryCodec;
+import com.example.consumer.model.Event;
+import com.example.consumer.model.EventType;
+import com.example.consumer.service.PollResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding cost of one poll page on the consumer: JSON (RestTemplate's default) vs the binary codec
+ * <p>
+ * Not part of the unit test run. Start main() from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PollResponseDecodingBenchmark {
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private JsonMapper jsonMapper;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        List<Event> events = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Event event = Event.create(i % 2 == 0 ? EventType.ENQUEUED : EventType.DEQUEUED,
+                    "queue-" + (i % 20), "agent-" + (i % 50));
+            event.setPayload(Map.of("priority", i % 5));
+            events.add(event);
+        }
+        PollResponse response = PollResponse.builder()
+                .events(events)
+                .nextCursor(pageSize - 1)
+                .epoch("3f6c2a8e-7a51-4d0e-9b7f-2d2b8f4c1e90")
+                .hasMore(true)
+                .build();
+        jsonBytes = jsonMapper.writeValueAsBytes(response);
+        binaryBytes = PollResponseBinaryCodec.encode(response);
+    }
+
+    @Benchmark
+    public PollResponse json() {
+        return jsonMapper.readValue(jsonBytes, PollResponse.class);
+    }
+
+    @Benchmark
+    public PollResponse binary() {
+        return PollResponseBinaryCodec.decode(binaryBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PollResponseDecodingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.consumer.benchmark;
+
+import com.example.consumer.aggregation.QueueCounters;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-queue counting on the consumer: the former synchronized map of boxed Integers vs QueueCounters
+ * <p>
+ * "mixed" runs three counting threads against one thread taking snapshots, as the poll
+ * threads and GET /v1/metrics/queues do; "count" is a single counting thread.
+ * <p>
+ * Not part of the unit test run. Start main() from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueCountersBenchmark {
+
+    @Param({"10000", "100000"})
+    private int queues;
+
+    @Param({"synchronizedMap", "queueCounters"})
+    private String implementation;
+
+    private String[] queueIds;
+    private Counters counters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        queueIds = new String[queues];
+        for (int i = 0; i < queues; i++) {
+            queueIds[i] = "queue-" + i;
+        }
+        counters = implementation.equals("queueCounters") ? new CounterTable() : new SynchronizedMap();
+        for (String queueId : queueIds) {
+            counters.add(queueId, 1);
+        }
+    }
+
+    /**
+     * Position of a counting thread in the queue ids; a fixed stride spreads the threads over the table
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next = (int) (Thread.currentThread().threadId() * 7919);
+
+        int nextIndex(int bound) {
+            next += 31;
+            return Math.floorMod(next, bound);
+        }
+    }
+
+    @Benchmark
+    public void count(Cursor cursor) {
+        int index = cursor.nextIndex(queues);
+        counters.add(queueIds[index], (index & 1) == 0 ? 1 : -1);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public void mixedCount(Cursor cursor) {
+        count(cursor);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Map<String, ?> mixedSnapshot() {
+        return counters.snapshot();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QueueCountersBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private interface Counters {
+        void add(String queueId, int delta);
+
+        Map<String, ?> snapshot();
+    }
+
+    private static final class SynchronizedMap implements Counters {
+        private final Map<String, Integer> counts = Collections.synchronizedMap(new HashMap<>());
+
+        @Override
+        public void add(String queueId, int delta) {
+            counts.merge(queueId, delta, Integer::sum);
+        }
+
+        @Override
+        public Map<String, ?> snapshot() {
+            return new HashMap<>(counts);
+        }
+    }
+
+    private static final class CounterTable implements Counters {
+        private final QueueCounters counts = new QueueCounters();
+
+        @Override
+        public void add(String queueId, int delta) {
+            counts.add(queueId, delta);
+        }
+
+        @Override
+        public Map<String, ?> snapshot() {
+            return counts.snapshot();
+        }
+    }
+}
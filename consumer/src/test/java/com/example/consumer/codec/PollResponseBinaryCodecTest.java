@@ -0,0 +1,121 @@
+package com.example.consumer.codec;
+
+import com.example.consumer.config.ConsumerConfig;
+import com.example.consumer.model.Event;
+import com.example.consumer.model.EventType;
+import com.example.consumer.service.PollResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+/**
+ * Unit tests for PollResponseBinaryCodec
+ */
+@DisplayName("PollResponseBinaryCodec Unit Tests")
+class PollResponseBinaryCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip events")
+    void shouldRoundTripEvents() {
+        // Given
+        Event first = Event.create(EventType.ENQUEUED, "queue-1", "agent-1");
+        first.setTimestamp(Instant.parse("2026-01-01T00:00:00.123456Z"));
+        first.setPayload(Map.of("priority", 3, "source", "web"));
+        Event second = Event.create(EventType.DEQUEUED, "queue-1", "agent-2");
+        second.setTimestamp(Instant.parse("2025-12-31T23:59:59Z"));
+        PollResponse response = PollResponse.builder()
+                .events(List.of(first, second))
+                .nextCursor(41)
+                .epoch("epoch-1")
+                .hasMore(true)
+                .build();
+
+        // When
+        PollResponse decoded = PollResponseBinaryCodec.decode(PollResponseBinaryCodec.encode(response));
+
+        // Then
+        assertThat(decoded).isEqualTo(response);
+    }
+
+    @Test
+    @DisplayName("Should keep null fields and non-UUID event ids")
+    void shouldKeepNullsAndCustomIds() {
+        // Given
+        Event event = new Event();
+        event.setEventId("custom-id");
+        PollResponse response = PollResponse.builder()
+                .events(List.of(event))
+                .nextCursor(-1)
+                .build();
+
+        // When
+        PollResponse decoded = PollResponseBinaryCodec.decode(PollResponseBinaryCodec.encode(response));
+
+        // Then
+        assertThat(decoded).isEqualTo(response);
+    }
+
+    @Test
+    @DisplayName("Should truncate timestamps to microseconds")
+    void shouldTruncateTimestampsToMicros() {
+        // Given
+        Event event = Event.create(EventType.ENQUEUED, "queue-1", "agent-1");
+        event.setTimestamp(Instant.parse("2026-01-01T00:00:00.123456789Z"));
+        PollResponse response = PollResponse.builder().events(List.of(event)).build();
+
+        // When
+        PollResponse decoded = PollResponseBinaryCodec.decode(PollResponseBinaryCodec.encode(response));
+
+        // Then
+        assertThat(decoded.getEvents().get(0).getTimestamp())
+                .isEqualTo(Instant.parse("2026-01-01T00:00:00.123456Z"));
+    }
+
+    @Test
+    @DisplayName("Should request and decode binary poll responses through RestTemplate")
+    void shouldDecodeThroughRestTemplate() {
+        // Given
+        ConsumerConfig config = new ConsumerConfig();
+        ReflectionTestUtils.setField(config, "pollFormat", "binary");
+        RestTemplate restTemplate = config.restTemplate();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        PollResponse response = PollResponse.builder()
+                .events(List.of(Event.create(EventType.ENQUEUED, "queue-1", "agent-1")))
+                .nextCursor(0)
+                .epoch("epoch-1")
+                .build();
+        server.expect(requestTo("http://producer/v1/events/poll?afterIndex=-1"))
+                .andExpect(header(HttpHeaders.ACCEPT, startsWith(PollResponseBinaryCodec.MEDIA_TYPE)))
+                .andRespond(withSuccess(PollResponseBinaryCodec.encode(response), BinaryPollResponseConverter.MEDIA_TYPE));
+
+        // When
+        PollResponse decoded = restTemplate.getForObject("http://producer/v1/events/poll?afterIndex=-1", PollResponse.class);
+
+        // Then
+        server.verify();
+        assertThat(decoded.getEvents()).hasSize(1);
+        assertThat(decoded.getEvents().get(0).getQueueId()).isEqualTo("queue-1");
+        assertThat(decoded.getEpoch()).isEqualTo("epoch-1");
+    }
+
+    @Test
+    @DisplayName("Should reject unknown input")
+    void shouldRejectUnknownInput() {
+        assertThatThrownBy(() -> PollResponseBinaryCodec.decode("{}".getBytes()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
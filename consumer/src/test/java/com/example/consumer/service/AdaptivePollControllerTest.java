@@ -0,0 +1,102 @@
+package com.example.consumer.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for AdaptivePollController
+ */
+@DisplayName("AdaptivePollController Unit Tests")
+class AdaptivePollControllerTest {
+
+    private static final long FAST_PAGE = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Test
+    @DisplayName("onPage: Should converge to the largest page at the shortest interval under a backlog")
+    void shouldConvergeUnderBacklog() {
+        // Given
+        AdaptivePollController controller = new AdaptivePollController(PollTuning.DEFAULT);
+
+        // When: every page is full and more is waiting
+        for (int i = 0; i < 10; i++) {
+            int requested = controller.getPageSize();
+            controller.onPage(requested, requested, true, FAST_PAGE, 0, false);
+        }
+
+        // Then
+        assertThat(controller.getPageSize()).isEqualTo(1000);
+        assertThat(controller.getIntervalMillis()).isEqualTo(50);
+        assertThat(controller.getPageSizeIncreases()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("onPage: Should halve the page size when a page takes too long to process")
+    void shouldShrinkSlowPages() {
+        // Given
+        AdaptivePollController controller = new AdaptivePollController(PollTuning.DEFAULT);
+        for (int i = 0; i < 4; i++) {
+            controller.onPage(controller.getPageSize(), controller.getPageSize(), true, FAST_PAGE, 0, false);
+        }
+
+        // When
+        controller.onPage(1000, 1000, true, TimeUnit.MILLISECONDS.toNanos(500), 0, false);
+
+        // Then: still behind, so the interval stays short
+        assertThat(controller.getPageSize()).isEqualTo(500);
+        assertThat(controller.getIntervalMillis()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("onPage: Should back off while idle and return to the minimum once events arrive")
+    void shouldBackOffWhileIdle() {
+        // Given
+        AdaptivePollController controller = new AdaptivePollController(PollTuning.DEFAULT);
+
+        // When: empty short polls
+        for (int i = 0; i < 10; i++) {
+            controller.onPage(100, 0, false, 0, 0, false);
+        }
+
+        // Then
+        assertThat(controller.getIntervalMillis()).isEqualTo(5000);
+        assertThat(controller.getBackoffs()).isEqualTo(7);
+
+        // When: lag above the target counts as behind
+        controller.onPage(100, 3, false, FAST_PAGE, 2000, false);
+
+        // Then
+        assertThat(controller.getIntervalMillis()).isEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("onPage: Should not back off after an empty long-poll")
+    void shouldNotBackOffAfterLongPoll() {
+        AdaptivePollController controller = new AdaptivePollController(PollTuning.DEFAULT);
+
+        controller.onError();
+        controller.onPage(100, 0, false, 0, 0, true);
+
+        assertThat(controller.getIntervalMillis()).isEqualTo(50);
+        assertThat(controller.getErrors()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject inverted bounds")
+    void shouldRejectInvertedBounds() {
+        assertThatThrownBy(() -> new AdaptivePollController(PollTuning.builder()
+                .minInterval(Duration.ofSeconds(1))
+                .maxInterval(Duration.ofMillis(10))
+                .minPageSize(100)
+                .maxPageSize(1000)
+                .targetLag(Duration.ofSeconds(1))
+                .maxPageTime(Duration.ofMillis(200))
+                .build()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -1,5 +1,9 @@
 package com.example.consumer.service;
 
+import com.example.consumer.aggregation.LagSnapshot;
+import com.example.consumer.aggregation.QueueLagHistograms;
+import com.example.consumer.aggregation.WindowCounts;
+import com.example.consumer.aggregation.WindowedCounters;
 import com.example.consumer.model.Event;
 import com.example.consumer.model.EventType;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +18,7 @@ import org.springframework.web.client.RestTemplate;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -36,13 +41,17 @@ class EventConsumerServiceTest {
     private RestTemplate restTemplate;
 
     private EventConsumerService service;
+    private WindowedCounters queueWindows;
+    private QueueLagHistograms lagHistograms;
 
     @TempDir
     Path tempDir;
 
     @BeforeEach
     void setUp() {
-        service = new EventConsumerService(restTemplate);
+        queueWindows = new WindowedCounters(Duration.ofSeconds(1), 120);
+        lagHistograms = new QueueLagHistograms(Duration.ofMinutes(1));
+        service = newService();
 
         // Set test configuration
         ReflectionTestUtils.setField(service, "producerUrl", "http://localhost:8080");
@@ -51,6 +60,10 @@ class EventConsumerServiceTest {
         String cursorFile = tempDir.resolve("test-cursor.txt").toString();
         ReflectionTestUtils.setField(service, "cursorFilePath", cursorFile);
 
+        // Single-partition producer unless a test says otherwise
+        lenient().when(restTemplate.getForObject("http://localhost:8080/v1/events/partitions", PartitionsResponse.class))
+                .thenReturn(PartitionsResponse.builder().partitionCount(1).build());
+
         // Initialize cursor
         service.initCursor();
     }
@@ -100,6 +113,28 @@ class EventConsumerServiceTest {
         assertThat(service.getLastCursor()).isEqualTo(-1); // Cursor should not be updated
     }
 
+    @Test
+    @DisplayName("pollOnce: Should skip to the earliest retained event when the cursor expired")
+    void shouldSkipToEarliestWhenCursorExpired() {
+        // Given
+        PollResponse mockResponse = new PollResponse();
+        mockResponse.setEvents(List.of());
+        mockResponse.setNextCursor(-1);
+        mockResponse.setCursorExpired(true);
+        mockResponse.setEarliestOffset(100);
+
+        when(restTemplate.getForObject(anyString(), eq(PollResponse.class)))
+                .thenReturn(mockResponse);
+
+        // When
+        service.pollOnce();
+
+        // Then: the next poll starts at the earliest retained event and the gap is counted
+        assertThat(service.getLastCursor()).isEqualTo(99);
+        assertThat(service.getSkippedEvents()).isEqualTo(100);
+        assertThat(service.getTotalConsumed()).isZero();
+    }
+
     @Test
     @DisplayName("pollOnce: Should handle null response gracefully")
     void shouldHandleNullResponse() {
@@ -174,7 +209,7 @@ class EventConsumerServiceTest {
         service.pollOnce();
 
         // When
-        Map<String, Integer> metrics = service.getQueueMetrics();
+        Map<String, Long> metrics = service.getQueueMetrics();
 
         // Then
         assertThat(metrics).hasSize(3);
@@ -183,11 +218,87 @@ class EventConsumerServiceTest {
         assertThat(metrics.get("queue-3")).isEqualTo(1);
     }
 
+    @Test
+    @DisplayName("pollOnce: Should count events in time windows by their timestamp")
+    void shouldCountEventsInWindows() {
+        // Given: one event older than the 2 minute horizon
+        Event enqueued = createEvent(EventType.ENQUEUED, "queue-1", "agent-1");
+        Event dequeued = createEvent(EventType.DEQUEUED, "queue-1", "agent-1");
+        Event old = createEvent(EventType.ENQUEUED, "queue-1", "agent-1");
+        old.setTimestamp(Instant.now().minus(Duration.ofMinutes(10)));
+
+        PollResponse mockResponse = new PollResponse();
+        mockResponse.setEvents(List.of(enqueued, dequeued, old));
+        mockResponse.setNextCursor(3);
+
+        when(restTemplate.getForObject(anyString(), eq(PollResponse.class)))
+                .thenReturn(mockResponse);
+
+        // When
+        service.pollOnce();
+        WindowCounts lastMinute = queueWindows.sliding("queue-1", Duration.ofMinutes(1));
+
+        // Then: the old event still counts towards the queue depth, not towards the window
+        assertThat(lastMinute.getCounts()).containsEntry(EventType.ENQUEUED, 1L).containsEntry(EventType.DEQUEUED, 1L);
+        assertThat(queueWindows.getLateEvents()).isEqualTo(1);
+        assertThat(service.getQueueCount("queue-1")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("pollOnce: Should record the lag of every event, globally and per queue")
+    void shouldRecordLagHistograms() {
+        // Given: a queue-2 event that waited 10 minutes
+        Event fresh = createEvent(EventType.ENQUEUED, "queue-1", "agent-1");
+        Event stale = createEvent(EventType.ENQUEUED, "queue-2", "agent-1");
+        stale.setTimestamp(Instant.now().minus(Duration.ofMinutes(10)));
+
+        PollResponse mockResponse = new PollResponse();
+        mockResponse.setEvents(List.of(fresh, stale));
+        mockResponse.setNextCursor(2);
+
+        when(restTemplate.getForObject(anyString(), eq(PollResponse.class)))
+                .thenReturn(mockResponse);
+
+        // When
+        service.pollOnce();
+
+        // Then: the tail shows up globally and only in queue-2
+        LagSnapshot global = lagHistograms.global();
+        assertThat(global.getCount()).isEqualTo(2);
+        assertThat(global.getMax()).isGreaterThanOrEqualTo(600_000);
+        assertThat(global.getP50()).isLessThan(1_000);
+        assertThat(lagHistograms.queue("queue-1").getMax()).isLessThan(1_000);
+        assertThat(lagHistograms.queue("queue-2").getP999()).isGreaterThanOrEqualTo(600_000);
+    }
+
+    @Test
+    @DisplayName("pollOnce: Should consume events without a queueId and move the cursor past them")
+    void shouldConsumeQueuelessEvents() {
+        // Given
+        Event queueless = createEvent(EventType.ENQUEUED, null, "agent-1");
+        Event queued = createEvent(EventType.ENQUEUED, "queue-1", "agent-1");
+
+        PollResponse mockResponse = new PollResponse();
+        mockResponse.setEvents(List.of(queueless, queued));
+        mockResponse.setNextCursor(2);
+
+        when(restTemplate.getForObject(anyString(), eq(PollResponse.class)))
+                .thenReturn(mockResponse);
+
+        // When
+        service.pollOnce();
+
+        // Then
+        assertThat(service.getLastCursor()).isEqualTo(2);
+        assertThat(service.getTotalConsumed()).isEqualTo(2);
+        assertThat(service.getQueueMetrics()).containsOnly(Map.entry("queue-1", 1L));
+    }
+
     @Test
     @DisplayName("getQueueCount: Non-existent queue should return 0")
     void shouldReturnZeroForNonExistentQueue() {
         // When
-        int count = service.getQueueCount("non-existent-queue");
+        long count = service.getQueueCount("non-existent-queue");
 
         // Then
         assertThat(count).isZero();
@@ -213,10 +324,10 @@ class EventConsumerServiceTest {
         Path cursorFile = Path.of(cursorFilePath);
         assertThat(Files.exists(cursorFile)).isTrue();
         String content = Files.readString(cursorFile);
-        assertThat(content).isEqualTo("42");
+        assertThat(content).contains("cursor=42");
 
         // Create new service instance to test loading
-        EventConsumerService newService = new EventConsumerService(restTemplate);
+        EventConsumerService newService = newService();
         ReflectionTestUtils.setField(newService, "producerUrl", "http://localhost:8080");
         ReflectionTestUtils.setField(newService, "cursorFilePath", cursorFilePath);
         newService.initCursor();
@@ -225,6 +336,63 @@ class EventConsumerServiceTest {
         assertThat(newService.getLastCursor()).isEqualTo(42);
     }
 
+    @Test
+    @DisplayName("Cursor persistence: Should keep 64-bit offsets across restarts")
+    void shouldPersistOffsetsBeyondIntRange() {
+        // Given: a cursor past Integer.MAX_VALUE
+        long offset = 5_000_000_000L;
+        PollResponse mockResponse = new PollResponse();
+        mockResponse.setEvents(List.of(createEvent(EventType.ENQUEUED, "queue-1", "agent-1")));
+        mockResponse.setNextCursor(offset);
+        when(restTemplate.getForObject(anyString(), eq(PollResponse.class))).thenReturn(mockResponse);
+
+        // When
+        service.pollOnce();
+        service.pollOnce();
+
+        // Then: the follow-up poll uses the full offset and a restart reloads it
+        verify(restTemplate).getForObject(
+                eq("http://localhost:8080/v1/events/poll?partition=0&after=" + offset + "&limit=100"),
+                eq(PollResponse.class));
+        EventConsumerService newService = newService();
+        ReflectionTestUtils.setField(newService, "cursorFilePath",
+                ReflectionTestUtils.getField(service, "cursorFilePath"));
+        newService.initCursor();
+        assertThat(newService.getLastCursor()).isEqualTo(offset);
+    }
+
+    @Test
+    @DisplayName("pollOnce: Should request long-poll when wait is configured")
+    void shouldRequestLongPollWhenConfigured() {
+        // Given
+        ReflectionTestUtils.setField(service, "pollWaitMs", 20000L);
+        when(restTemplate.getForObject(anyString(), eq(PollResponse.class))).thenReturn(null);
+
+        // When
+        service.pollOnce();
+
+        // Then
+        verify(restTemplate).getForObject(
+                eq("http://localhost:8080/v1/events/poll?partition=0&after=-1&limit=100&waitMs=20000"),
+                eq(PollResponse.class));
+    }
+
+    @Test
+    @DisplayName("pollOnce: Should ask the producer to filter configured queues")
+    void shouldRequestQueueFilterWhenConfigured() {
+        // Given
+        ReflectionTestUtils.setField(service, "pollQueueIds", "queue-1, queue-7");
+        when(restTemplate.getForObject(anyString(), eq(PollResponse.class))).thenReturn(null);
+
+        // When
+        service.pollOnce();
+
+        // Then
+        verify(restTemplate).getForObject(
+                eq("http://localhost:8080/v1/events/poll?partition=0&after=-1&limit=100&queueIds=queue-1,queue-7"),
+                eq(PollResponse.class));
+    }
+
     @Test
     @DisplayName("Exception handling: Should not crash on network error")
     void shouldHandleNetworkError() {
@@ -260,6 +428,36 @@ class EventConsumerServiceTest {
         assertThat(service.getLastLagMillis()).isGreaterThan(0);
     }
 
+    @Test
+    @DisplayName("pollOnce: Should back off on empty polls after a page with high lag")
+    void shouldBackOffAfterLaggingPage() {
+        // Given: a page whose event is 5 s old, then nothing new
+        AdaptivePollController pollController = new AdaptivePollController(PollTuning.DEFAULT);
+        EventConsumerService lagging = newService(pollController);
+        ReflectionTestUtils.setField(lagging, "producerUrl", "http://localhost:8080");
+        ReflectionTestUtils.setField(lagging, "cursorFilePath", tempDir.resolve("lagging-cursor.txt").toString());
+        lagging.initCursor();
+
+        Event event = createEvent(EventType.ENQUEUED, "queue-1", "agent-1");
+        event.setTimestamp(Instant.now().minusSeconds(5));
+        PollResponse empty = PollResponse.builder().events(List.of()).nextCursor(1).build();
+        when(restTemplate.getForObject(anyString(), eq(PollResponse.class)))
+                .thenReturn(PollResponse.builder().events(List.of(event)).nextCursor(1).build())
+                .thenReturn(empty);
+
+        // When
+        lagging.pollOnce();
+        assertThat(pollController.getIntervalMillis()).isEqualTo(50);
+        for (int i = 0; i < 3; i++) {
+            lagging.pollOnce();
+        }
+
+        // Then: the lag of the first page no longer counts as behind
+        assertThat(lagging.getLastLagMillis()).isGreaterThan(1000);
+        assertThat(pollController.getIntervalMillis()).isEqualTo(400);
+        assertThat(pollController.getBackoffs()).isEqualTo(3);
+    }
+
     @Test
     @DisplayName("Multiple polls: Cursor should increment across polls")
     void shouldIncrementCursorAcrossMultiplePolls() {
@@ -291,6 +489,174 @@ class EventConsumerServiceTest {
         verify(restTemplate, times(2)).getForObject(anyString(), eq(PollResponse.class));
     }
 
+    @Test
+    @DisplayName("Stream: Should apply streamed events and advance cursor")
+    void shouldApplyStreamedEvents() {
+        // Given
+        Event event1 = createEvent(EventType.ENQUEUED, "queue-1", "agent-1");
+        Event event2 = createEvent(EventType.ENQUEUED, "queue-1", "agent-1");
+
+        // When
+        boolean accepted = service.acceptStreamEpoch("epoch-1");
+        service.acceptStreamedEvents(0, List.of(event1, event2), 7);
+
+        // Then
+        assertThat(accepted).isTrue();
+        assertThat(service.getEpoch()).isEqualTo("epoch-1");
+        assertThat(service.getLastCursor()).isEqualTo(7);
+        assertThat(service.getQueueCount("queue-1")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Stream: Should reset cursor and metrics when streamed epoch changes")
+    void shouldResetOnStreamEpochChange() {
+        // Given
+        service.acceptStreamEpoch("epoch-1");
+        service.acceptStreamedEvents(0, List.of(createEvent(EventType.ENQUEUED, "queue-1", "agent-1")), 3);
+
+        // When
+        boolean accepted = service.acceptStreamEpoch("epoch-2");
+
+        // Then
+        assertThat(accepted).isFalse();
+        assertThat(service.getLastCursor()).isEqualTo(-1);
+        assertThat(service.getQueueCount("queue-1")).isZero();
+        assertThat(service.getEpoch()).isEqualTo("epoch-2");
+    }
+
+    @Test
+    @DisplayName("resetCursorToTime: Should move the cursor via seek and reopen the stream")
+    void shouldResetCursorToTime() {
+        // Given: some events consumed on the stream
+        service.acceptStreamEpoch("epoch-1");
+        service.acceptStreamedEvents(0, List.of(createEvent(EventType.ENQUEUED, "queue-1", "agent-1")), 900);
+        Instant time = Instant.parse("2026-10-16T09:00:00Z");
+        when(restTemplate.getForObject("http://localhost:8080/v1/events/seek?partition=0&time=2026-10-16T09:00:00Z",
+                SeekResponse.class))
+                .thenReturn(SeekResponse.builder().time(time).offset(120).cursor(119).epoch("epoch-1").build());
+
+        // When
+        Map<Integer, Long> cursors = service.resetCursorToTime(time);
+
+        // Then: counts rebuild from the replay, the open stream is told to reconnect
+        assertThat(cursors).containsExactly(Map.entry(0, 119L));
+        assertThat(service.getLastCursor()).isEqualTo(119);
+        assertThat(service.getQueueCount("queue-1")).isZero();
+        assertThat(service.acceptStreamedEvents(0, List.of(createEvent(EventType.ENQUEUED, "queue-1", "agent-1")), 901))
+                .isFalse();
+        assertThat(service.getLastCursor()).isEqualTo(119);
+        assertThat(service.acceptStreamedEvents(0, List.of(createEvent(EventType.ENQUEUED, "queue-1", "agent-1")), 120))
+                .isTrue();
+        assertThat(service.getLastCursor()).isEqualTo(120);
+    }
+
+    @Test
+    @DisplayName("Partitions: Should poll every partition and persist a cursor per partition")
+    void shouldTrackCursorPerPartition() throws Exception {
+        // Given: events on two partitions
+        PollResponse partition0 = new PollResponse();
+        partition0.setEvents(List.of(createEvent(EventType.ENQUEUED, "queue-1", "agent-1")));
+        partition0.setNextCursor(4);
+        PollResponse partition1 = new PollResponse();
+        partition1.setEvents(List.of(createEvent(EventType.ENQUEUED, "queue-2", "agent-2")));
+        partition1.setNextCursor(9);
+        when(restTemplate.getForObject("http://localhost:8080/v1/events/poll?partition=0&after=-1&limit=100",
+                PollResponse.class)).thenReturn(partition0);
+        when(restTemplate.getForObject("http://localhost:8080/v1/events/poll?partition=1&after=-1&limit=100",
+                PollResponse.class)).thenReturn(partition1);
+
+        // When
+        service.pollPartition(0);
+        service.pollPartition(1);
+
+        // Then: each partition advances its own cursor and both survive a restart
+        assertThat(service.getCursors()).containsExactly(Map.entry(0, 4L), Map.entry(1, 9L));
+        assertThat(service.getTotalConsumed()).isEqualTo(2);
+        String cursorFilePath = (String) ReflectionTestUtils.getField(service, "cursorFilePath");
+        assertThat(Files.readString(Path.of(cursorFilePath))).contains("cursor=4", "cursor.1=9");
+
+        EventConsumerService newService = newService();
+        ReflectionTestUtils.setField(newService, "cursorFilePath", cursorFilePath);
+        newService.initCursor();
+        assertThat(newService.getCursors()).containsExactly(Map.entry(0, 4L), Map.entry(1, 9L));
+    }
+
+    @Test
+    @DisplayName("pollOnce: Should drain a backlog page after page while hasMore, persisting the cursor at the end")
+    void shouldDrainBacklogWhileHasMore() throws Exception {
+        // Given: a backlog of three pages; the page size grows once the first reports hasMore
+        ReflectionTestUtils.setField(service, "drainEnabled", true);
+        ReflectionTestUtils.setField(service, "drainMaxPages", 100);
+        ReflectionTestUtils.setField(service, "drainCommitPages", 10);
+        when(restTemplate.getForObject("http://localhost:8080/v1/events/poll?partition=0&after=-1&limit=100",
+                PollResponse.class)).thenReturn(page(99, true));
+        when(restTemplate.getForObject("http://localhost:8080/v1/events/poll?partition=0&after=99&limit=100",
+                PollResponse.class)).thenReturn(page(1099, true));
+        when(restTemplate.getForObject("http://localhost:8080/v1/events/poll?partition=0&after=1099&limit=200",
+                PollResponse.class)).thenReturn(page(1500, false));
+
+        // When: a single tick
+        service.pollOnce();
+
+        // Then
+        assertThat(service.getLastCursor()).isEqualTo(1500);
+        assertThat(service.getTotalConsumed()).isEqualTo(3);
+        String cursorFilePath = (String) ReflectionTestUtils.getField(service, "cursorFilePath");
+        assertThat(Files.readString(Path.of(cursorFilePath))).contains("cursor=1500");
+        verify(restTemplate, times(3)).getForObject(anyString(), eq(PollResponse.class));
+    }
+
+    @Test
+    @DisplayName("pollOnce: Should stop a drain after the page limit")
+    void shouldBoundDrainPerPoll() {
+        // Given
+        ReflectionTestUtils.setField(service, "drainEnabled", true);
+        ReflectionTestUtils.setField(service, "drainMaxPages", 2);
+        ReflectionTestUtils.setField(service, "drainCommitPages", 10);
+        when(restTemplate.getForObject(anyString(), eq(PollResponse.class)))
+                .thenReturn(page(99, true), page(1099, true), page(2099, true));
+
+        // When
+        service.pollOnce();
+
+        // Then: page 3 is left for the next tick
+        assertThat(service.getLastCursor()).isEqualTo(1099);
+        verify(restTemplate, times(2)).getForObject(anyString(), eq(PollResponse.class));
+    }
+
+    @Test
+    @DisplayName("resumeFrom: Should start from group offsets only without local cursors")
+    void shouldResumeFromGroupOffsetsWithoutLocalCursors() {
+        // Given: no cursor file yet
+        assertThat(service.getGroupOffsets()).isNull();
+
+        // When
+        boolean resumed = service.resumeFrom("epoch-1", Map.of(0, 41L, 1, 7L));
+
+        // Then: the offsets become the cursors and are committed back as-is
+        assertThat(resumed).isTrue();
+        assertThat(service.getCursors()).containsExactly(Map.entry(0, 41L), Map.entry(1, 7L));
+        assertThat(service.getGroupOffsets()).isEqualTo(new GroupOffsets("epoch-1", Map.of(0, 41L, 1, 7L)));
+        assertThat(service.resumeFrom("epoch-1", Map.of(0, 3L))).isFalse();
+        assertThat(service.getLastCursor()).isEqualTo(41);
+    }
+
+    private EventConsumerService newService() {
+        return newService(new AdaptivePollController(PollTuning.DEFAULT));
+    }
+
+    private EventConsumerService newService(AdaptivePollController pollController) {
+        return new EventConsumerService(restTemplate, pollController, queueWindows, lagHistograms);
+    }
+
+    private PollResponse page(long nextCursor, boolean hasMore) {
+        return PollResponse.builder()
+                .events(List.of(createEvent(EventType.ENQUEUED, "queue-1", "agent-1")))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
     // Helper method
     private Event createEvent(EventType type, String queueId, String agentId) {
         Event event = new Event();
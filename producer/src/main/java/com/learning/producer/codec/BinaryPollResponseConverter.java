@@ -0,0 +1,61 @@
+package com.learning.producer.codec;
+
+import com.learning.producer.metrics.ProducerMetrics;
+import com.learning.producer.service.PollResponse;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * HTTP message converter for the binary poll response format
+ * Selected when a client sends Accept: {@value PollResponseBinaryCodec#MEDIA_TYPE};
+ * JSON stays the default.
+ */
+public class BinaryPollResponseConverter extends AbstractHttpMessageConverter<PollResponse> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(PollResponseBinaryCodec.MEDIA_TYPE);
+
+    private final ProducerMetrics producerMetrics;
+
+    public BinaryPollResponseConverter() {
+        this(null);
+    }
+
+    /**
+     * @param producerMetrics records encode time and size, may be null
+     */
+    public BinaryPollResponseConverter(ProducerMetrics producerMetrics) {
+        super(MEDIA_TYPE);
+        this.producerMetrics = producerMetrics;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return PollResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected PollResponse readInternal(Class<? extends PollResponse> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        try {
+            return PollResponseBinaryCodec.decode(inputMessage.getBody().readAllBytes());
+        } catch (RuntimeException e) {
+            throw new HttpMessageNotReadableException("Invalid binary poll response", e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(PollResponse response, HttpOutputMessage outputMessage) throws IOException {
+        long start = System.nanoTime();
+        byte[] bytes = PollResponseBinaryCodec.encode(response);
+        if (producerMetrics != null) {
+            producerMetrics.recordEncode(System.nanoTime() - start, bytes.length);
+        }
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+}
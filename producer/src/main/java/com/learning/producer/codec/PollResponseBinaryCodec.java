@@ -0,0 +1,320 @@
+package com.learning.producer.codec;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import com.learning.producer.service.PollResponse;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of PollResponse (media type {@value #MEDIA_TYPE})
+ * <p>
+ * Layout: magic "EP", version, flags (bit 0 = hasMore, bit 1 = cursorExpired), epoch,
+ * zigzag-varint nextCursor and earliestOffset, varint event count, then a string dictionary shared by queueId and agentId, then
+ * the events. Per event: presence flags, ID (16 raw bytes when it is a UUID),
+ * timestamp as a zigzag-varint delta of epoch-micros from the previous event,
+ * EventType ordinal, dictionary codes for queueId/agentId, inline interactionId and
+ * payload JSON. Strings are varint (length + 1) prefixed, 0 meaning null.
+ * Timestamps keep microsecond precision.
+ * <p>
+ * The consumer has a mirror of this class; keep both in sync.
+ */
+public final class PollResponseBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/x-event-poll-v1";
+
+    private static final byte MAGIC_0 = 'E';
+    private static final byte MAGIC_1 = 'P';
+    private static final byte VERSION = 1;
+
+    private static final int HAS_MORE = 1;
+    private static final int CURSOR_EXPIRED = 1 << 1;
+
+    private static final int HAS_TIMESTAMP = 1;
+    private static final int HAS_INTERACTION = 1 << 1;
+    private static final int HAS_PAYLOAD = 1 << 2;
+
+    private static final int ID_NULL = 0;
+    private static final int ID_UUID = 1;
+    private static final int ID_STRING = 2;
+
+    private static final int NO_TYPE = 0xFF;
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+
+    private PollResponseBinaryCodec() {
+    }
+
+    public static byte[] encode(PollResponse response) {
+        List<Event> events = response.getEvents() == null ? List.of() : response.getEvents();
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> symbols = new ArrayList<>();
+        for (Event event : events) {
+            intern(event.getQueueId(), dictionary, symbols);
+            intern(event.getAgentId(), dictionary, symbols);
+        }
+
+        Output out = new Output(64 + events.size() * 48);
+        out.writeByte(MAGIC_0);
+        out.writeByte(MAGIC_1);
+        out.writeByte(VERSION);
+        out.writeByte((response.isHasMore() ? HAS_MORE : 0) | (response.isCursorExpired() ? CURSOR_EXPIRED : 0));
+        out.writeString(response.getEpoch());
+        out.writeZigZag(response.getNextCursor());
+        out.writeZigZag(response.getEarliestOffset());
+        out.writeVarint(events.size());
+        out.writeVarint(symbols.size());
+        for (String symbol : symbols) {
+            out.writeString(symbol);
+        }
+
+        long previousMicros = 0;
+        for (Event event : events) {
+            int flags = (event.getTimestamp() != null ? HAS_TIMESTAMP : 0)
+                    | (event.getInteractionId() != null ? HAS_INTERACTION : 0)
+                    | (event.getPayload() != null ? HAS_PAYLOAD : 0);
+            out.writeByte(flags);
+            writeId(out, event.getEventId());
+            if (event.getTimestamp() != null) {
+                long micros = toEpochMicros(event.getTimestamp());
+                out.writeZigZag(micros - previousMicros);
+                previousMicros = micros;
+            }
+            out.writeByte(event.getEventType() == null ? NO_TYPE : event.getEventType().ordinal());
+            out.writeVarint(code(event.getQueueId(), dictionary));
+            out.writeVarint(code(event.getAgentId(), dictionary));
+            if (event.getInteractionId() != null) {
+                out.writeString(event.getInteractionId());
+            }
+            if (event.getPayload() != null) {
+                out.writeBlob(JSON.writeValueAsBytes(event.getPayload()));
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static PollResponse decode(byte[] bytes) {
+        Input in = new Input(bytes);
+        if (in.readByte() != MAGIC_0 || in.readByte() != MAGIC_1) {
+            throw new IllegalArgumentException("Not a binary poll response");
+        }
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary poll response version " + version);
+        }
+        int responseFlags = in.readByte();
+        String epoch = in.readString();
+        long nextCursor = in.readZigZag();
+        long earliestOffset = in.readZigZag();
+        int eventCount = in.readVarintInt();
+        String[] symbols = new String[in.readVarintInt()];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = in.readString();
+        }
+
+        List<Event> events = new ArrayList<>(eventCount);
+        long previousMicros = 0;
+        for (int i = 0; i < eventCount; i++) {
+            int flags = in.readByte();
+            Event event = new Event();
+            event.setEventId(readId(in));
+            if ((flags & HAS_TIMESTAMP) != 0) {
+                previousMicros += in.readZigZag();
+                event.setTimestamp(fromEpochMicros(previousMicros));
+            }
+            int type = in.readByte();
+            event.setEventType(type == NO_TYPE ? null : EventType.values()[type]);
+            event.setQueueId(symbol(in.readVarintInt(), symbols));
+            event.setAgentId(symbol(in.readVarintInt(), symbols));
+            if ((flags & HAS_INTERACTION) != 0) {
+                event.setInteractionId(in.readString());
+            }
+            if ((flags & HAS_PAYLOAD) != 0) {
+                event.setPayload(JSON.readValue(in.readBlob(), PAYLOAD_TYPE));
+            }
+            events.add(event);
+        }
+
+        return PollResponse.builder()
+                .events(events)
+                .nextCursor(nextCursor)
+                .epoch(epoch)
+                .hasMore((responseFlags & HAS_MORE) != 0)
+                .cursorExpired((responseFlags & CURSOR_EXPIRED) != 0)
+                .earliestOffset(earliestOffset)
+                .build();
+    }
+
+    private static void intern(String value, Map<String, Integer> dictionary, List<String> symbols) {
+        if (value != null && dictionary.putIfAbsent(value, symbols.size()) == null) {
+            symbols.add(value);
+        }
+    }
+
+    /**
+     * Dictionary code + 1, 0 meaning null
+     */
+    private static int code(String value, Map<String, Integer> dictionary) {
+        return value == null ? 0 : dictionary.get(value) + 1;
+    }
+
+    private static String symbol(int code, String[] symbols) {
+        return code == 0 ? null : symbols[code - 1];
+    }
+
+    private static void writeId(Output out, String eventId) {
+        if (eventId == null) {
+            out.writeByte(ID_NULL);
+            return;
+        }
+        UUID uuid = parseCanonicalUuid(eventId);
+        if (uuid == null) {
+            out.writeByte(ID_STRING);
+            out.writeString(eventId);
+        } else {
+            out.writeByte(ID_UUID);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+    }
+
+    private static String readId(Input in) {
+        int tag = in.readByte();
+        return switch (tag) {
+            case ID_NULL -> null;
+            case ID_UUID -> new UUID(in.readLong(), in.readLong()).toString();
+            case ID_STRING -> in.readString();
+            default -> throw new IllegalArgumentException("Unknown event id tag " + tag);
+        };
+    }
+
+    /**
+     * UUID only if it round-trips to the same text, so IDs are never altered
+     */
+    private static UUID parseCanonicalUuid(String value) {
+        if (value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long toEpochMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    private static Instant fromEpochMicros(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L);
+    }
+
+    private static final class Output extends ByteArrayOutputStream {
+
+        private Output(int size) {
+            super(size);
+        }
+
+        void writeByte(int value) {
+            write(value);
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                write((int) (value >>> shift));
+            }
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeZigZag(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeBlob(byte[] bytes) {
+            writeVarint(bytes.length + 1L);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+            } else {
+                writeBlob(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static final class Input {
+
+        private final ByteBuffer buffer;
+
+        private Input(byte[] bytes) {
+            this.buffer = ByteBuffer.wrap(bytes);
+        }
+
+        int readByte() {
+            return buffer.get() & 0xFF;
+        }
+
+        long readLong() {
+            return buffer.getLong();
+        }
+
+        long readVarint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        int readVarintInt() {
+            return Math.toIntExact(readVarint());
+        }
+
+        long readZigZag() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        byte[] readBlob() {
+            int length = readVarintInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        String readString() {
+            byte[] bytes = readBlob();
+            return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
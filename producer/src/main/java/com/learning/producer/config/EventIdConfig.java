@@ -0,0 +1,39 @@
+package com.learning.producer.config;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventIdGenerator;
+import com.learning.producer.model.TimeOrderedIdGenerator;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Event ID configuration for producer service
+ * producer.event-id.generator selects the generator used by Event.create:
+ * "time-ordered" (default, UUIDv7 layout) or "random" (UUIDv4).
+ */
+@Slf4j
+@Configuration
+public class EventIdConfig {
+
+    @Value("${producer.event-id.generator:time-ordered}")
+    private String generator;
+
+    @PostConstruct
+    public void configureIdGenerator() {
+        Event.useIdGenerator(idGenerator());
+        log.info("Event IDs: {}", generator);
+    }
+
+    private EventIdGenerator idGenerator() {
+        switch (generator) {
+            case "time-ordered":
+                return TimeOrderedIdGenerator.INSTANCE;
+            case "random":
+                return EventIdGenerator.RANDOM;
+            default:
+                throw new IllegalArgumentException("Unknown producer.event-id.generator: " + generator);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.learning.producer.config;
+
+import com.learning.producer.group.ConsumerGroupRegistry;
+import com.learning.producer.repository.EventPartitions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Consumer group configuration for producer service
+ * producer.groups.expire-ms drops groups that stop committing (0 keeps them), so an
+ * abandoned group does not hold retention back forever. With durable storage the
+ * committed offsets are kept next to the checkpoints in producer.checkpoint.dir.
+ */
+@Slf4j
+@Configuration
+public class GroupConfig {
+
+    private static final String STATE_FILE = "groups.properties";
+
+    @Value("${producer.groups.expire-ms:86400000}")
+    private long expireMs;
+
+    @Bean(destroyMethod = "close")
+    public ConsumerGroupRegistry consumerGroupRegistry(EventPartitions eventPartitions) {
+        Path checkpointDir = eventPartitions.getCheckpointDir();
+        log.info("Consumer groups: expire after {}, offsets {}",
+                expireMs > 0 ? expireMs + " ms idle" : "never",
+                checkpointDir == null ? "in memory" : "in " + checkpointDir.resolve(STATE_FILE));
+        return new ConsumerGroupRegistry(eventPartitions,
+                checkpointDir == null ? null : checkpointDir.resolve(STATE_FILE), Duration.ofMillis(expireMs));
+    }
+}
@@ -0,0 +1,77 @@
+package com.learning.producer.config;
+
+import com.learning.producer.ingest.AdmissionController;
+import com.learning.producer.ingest.AdmissionPolicy;
+import com.learning.producer.ingest.IdempotencyWindow;
+import com.learning.producer.service.IngestReceipt;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Ingest configuration for producer service
+ * producer.dedup.window-ms sets how long idempotency keys are remembered (0 disables
+ * deduplication); producer.dedup.max-keys bounds the keys held at once.
+ * producer.admission.* bounds the ingest pipeline, the heap it may fill and each
+ * client's rate; requests over a limit get 429 (see AdmissionController).
+ */
+@Slf4j
+@Configuration
+public class IngestConfig {
+
+    @Value("${producer.dedup.window-ms:300000}")
+    private long dedupWindowMs;
+
+    @Value("${producer.dedup.max-keys:200000}")
+    private int dedupMaxKeys;
+
+    @Value("${producer.admission.max-queued-events:50000}")
+    private int maxQueuedEvents;
+
+    @Value("${producer.admission.queue-wait-ms:50}")
+    private long queueWaitMs;
+
+    @Value("${producer.admission.heap-watermark:0.9}")
+    private double heapWatermark;
+
+    @Value("${producer.admission.client-rate:0}")
+    private double clientRate;
+
+    @Value("${producer.admission.client-burst:1000}")
+    private long clientBurst;
+
+    @Value("${producer.admission.max-clients:10000}")
+    private int maxClients;
+
+    @Value("${producer.admission.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Bean
+    public AdmissionController admissionController() {
+        AdmissionPolicy policy = AdmissionPolicy.builder()
+                .maxQueuedEvents(maxQueuedEvents)
+                .queueWait(Duration.ofMillis(queueWaitMs))
+                .heapWatermark(heapWatermark)
+                .clientRate(clientRate)
+                .clientBurst(clientBurst)
+                .maxClients(maxClients)
+                .retryAfter(Duration.ofSeconds(retryAfterSeconds))
+                .build();
+        log.info("Ingest admission: max {} queued events, heap watermark {}, client rate {}",
+                maxQueuedEvents > 0 ? maxQueuedEvents : "unlimited",
+                heapWatermark > 0 ? heapWatermark : "off",
+                clientRate > 0 ? clientRate + " events/s (burst " + clientBurst + ")" : "unlimited");
+        return new AdmissionController(policy);
+    }
+
+    @Bean
+    public IdempotencyWindow<IngestReceipt> idempotencyWindow() {
+        log.info("Ingest dedup: {}", dedupWindowMs > 0
+                ? "window " + dedupWindowMs + " ms, max " + dedupMaxKeys + " keys"
+                : "disabled");
+        return new IdempotencyWindow<>(dedupWindowMs, dedupMaxKeys);
+    }
+}
@@ -0,0 +1,136 @@
+package com.learning.producer.config;
+
+import com.learning.producer.repository.EventLog;
+import com.learning.producer.repository.EventPartitions;
+import com.learning.producer.repository.FlushPolicy;
+import com.learning.producer.repository.InMemoryEventLog;
+import com.learning.producer.repository.RetentionPolicy;
+import com.learning.producer.repository.SegmentedEventLog;
+import com.learning.producer.repository.WriteAheadLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storage configuration for producer service
+ * producer.storage.type selects the EventLog behind each partition:
+ * "memory" (default) or "segmented" (memory-mapped segment files, one directory per
+ * partition). producer.partitions sets the number of hash partitions.
+ * producer.wal.enabled adds a group-commit write-ahead log per partition, so
+ * acknowledged events survive a crash and are replayed on startup.
+ * Durable storage (segmented or with a write-ahead log) keeps its epoch and index
+ * checkpoints in producer.checkpoint.dir, so a restart neither rescans the whole log
+ * nor makes consumers rebuild; memory-only storage starts a new epoch every time.
+ */
+@Slf4j
+@Configuration
+public class StorageConfig {
+
+    @Value("${producer.storage.type:memory}")
+    private String storageType;
+
+    @Value("${producer.partitions:1}")
+    private int partitions;
+
+    @Value("${producer.storage.dir:data/producer-log}")
+    private String storageDir;
+
+    @Value("${producer.storage.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    @Value("${producer.storage.index-interval-bytes:4096}")
+    private int indexIntervalBytes;
+
+    @Value("${producer.wal.enabled:false}")
+    private boolean walEnabled;
+
+    @Value("${producer.wal.dir:data/producer-wal}")
+    private String walDir;
+
+    @Value("${producer.wal.segment-bytes:67108864}")
+    private long walSegmentBytes;
+
+    @Value("${producer.wal.max-latency-us:200}")
+    private long walMaxLatencyMicros;
+
+    @Value("${producer.wal.max-batch-bytes:1048576}")
+    private int walMaxBatchBytes;
+
+    @Value("${producer.checkpoint.dir:data/producer-meta}")
+    private String checkpointDir;
+
+    @Value("${producer.retention.max-events:0}")
+    private long retentionMaxEvents;
+
+    @Value("${producer.retention.max-age-ms:0}")
+    private long retentionMaxAgeMs;
+
+    @Value("${producer.retention.max-bytes:0}")
+    private long retentionMaxBytes;
+
+    @Bean(destroyMethod = "close")
+    public EventPartitions eventPartitions(RetentionPolicy retentionPolicy) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("producer.partitions must be positive: " + partitions);
+        }
+        List<EventLog> logs = new ArrayList<>(partitions);
+        List<WriteAheadLog> writeAheadLogs = new ArrayList<>(partitions);
+        for (int partition = 0; partition < partitions; partition++) {
+            WriteAheadLog writeAheadLog = walEnabled ? writeAheadLog(partition) : null;
+            logs.add(eventLog(partition, writeAheadLog));
+            if (writeAheadLog != null) {
+                writeAheadLogs.add(writeAheadLog);
+            }
+        }
+        log.info("Event store: {} partition(s), {} storage, write-ahead log {}", partitions, storageType,
+                walEnabled ? "in " + walDir : "disabled");
+        boolean durable = walEnabled || "segmented".equals(storageType);
+        return new EventPartitions(logs, writeAheadLogs, retentionPolicy, durable ? Path.of(checkpointDir) : null);
+    }
+
+    private WriteAheadLog writeAheadLog(int partition) {
+        FlushPolicy flushPolicy = FlushPolicy.builder()
+                .maxLatency(Duration.ofNanos(walMaxLatencyMicros * 1000))
+                .maxBatchBytes(walMaxBatchBytes)
+                .build();
+        return new WriteAheadLog(Path.of(walDir, "partition-" + partition), walSegmentBytes, flushPolicy);
+    }
+
+    /**
+     * @param writeAheadLog the partition's write-ahead log, null if disabled; a memory log
+     *                      starts where it starts so the replay lines up with its offsets
+     */
+    private EventLog eventLog(int partition, WriteAheadLog writeAheadLog) {
+        switch (storageType) {
+            case "memory":
+                return new InMemoryEventLog(writeAheadLog == null ? 0 : writeAheadLog.startOffset());
+            case "segmented":
+                Path dir = Path.of(storageDir, "partition-" + partition);
+                log.info("Using segmented event log in {}", dir);
+                return new SegmentedEventLog(dir, segmentBytes, indexIntervalBytes);
+            default:
+                throw new IllegalArgumentException("Unknown producer.storage.type: " + storageType);
+        }
+    }
+
+    /**
+     * Retention limits for the event store; 0 disables a limit
+     * Count and byte limits are split evenly across partitions. For segmented storage max-bytes counts segment file bytes, for memory an estimate of heap use.
+     */
+    @Bean
+    public RetentionPolicy retentionPolicy() {
+        RetentionPolicy policy = RetentionPolicy.builder()
+                .maxEvents(retentionMaxEvents)
+                .maxAge(Duration.ofMillis(retentionMaxAgeMs))
+                .maxBytes(retentionMaxBytes)
+                .build();
+        log.info("Event retention: {}", policy.isUnbounded() ? "unbounded" : policy);
+        return policy;
+    }
+}
@@ -0,0 +1,30 @@
+package com.learning.producer.config;
+
+import com.learning.producer.codec.BinaryPollResponseConverter;
+import com.learning.producer.metrics.ProducerMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web configuration for producer service
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ProducerMetrics producerMetrics;
+
+    /**
+     * Appends the binary poll response converter after the defaults, so clients
+     * that accept anything still get JSON and only an explicit Accept header
+     * selects the binary format
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new BinaryPollResponseConverter(producerMetrics));
+    }
+}
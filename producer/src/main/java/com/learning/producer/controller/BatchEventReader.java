@@ -0,0 +1,82 @@
+package com.learning.producer.controller;
+
+import com.learning.producer.model.Event;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Incremental reader for batch ingest bodies
+ * Accepts either a JSON array of events or NDJSON (one event object per line),
+ * binding one event at a time from the stream instead of buffering the whole body.
+ */
+public final class BatchEventReader {
+
+    // The parser stays open across events, so the value following the current one is expected
+    private static final JsonMapper JSON = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+            .build();
+
+    private BatchEventReader() {
+    }
+
+    /**
+     * @param body      request body stream
+     * @param maxEvents maximum number of events accepted in one batch
+     * @throws IllegalArgumentException if the body is malformed, empty or too large
+     */
+    public static List<Event> read(InputStream body, int maxEvents) {
+        return read(body, maxEvents, maxEvents, ignored -> {
+        });
+    }
+
+    /**
+     * Read a batch, announcing each chunk of events before it is bound
+     * The events of a chunk are only parsed once beforeChunk returns; an exception it
+     * throws (e.g. the batch being shed) stops reading, leaving the rest of the body unread.
+     *
+     * @param chunkSize   events per chunk
+     * @param beforeChunk called with the size of the next chunk (at most chunkSize, never
+     *                    past maxEvents) before its first event is bound
+     * @throws IllegalArgumentException if the body is malformed, empty or too large
+     */
+    public static List<Event> read(InputStream body, int maxEvents, int chunkSize, IntConsumer beforeChunk) {
+        List<Event> events = new ArrayList<>();
+        try (JsonParser parser = JSON.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("Expected an event object but found " + token);
+                }
+                if (events.size() == maxEvents) {
+                    throw new IllegalArgumentException("Batch exceeds " + maxEvents + " events");
+                }
+                if (events.size() % chunkSize == 0) {
+                    beforeChunk.accept(Math.min(chunkSize, maxEvents - events.size()));
+                }
+                events.add(JSON.readValue(parser, Event.class));
+                token = parser.nextToken();
+            }
+            if (array && token != JsonToken.END_ARRAY) {
+                throw new IllegalArgumentException("Unterminated JSON array");
+            }
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Malformed batch body: " + e.getOriginalMessage(), e);
+        }
+        if (events.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one event");
+        }
+        return events;
+    }
+}
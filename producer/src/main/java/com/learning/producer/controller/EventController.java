@@ -1,21 +1,43 @@
 package com.learning.producer.controller;
 
+import com.learning.producer.ingest.AdmissionController;
+import com.learning.producer.ingest.IngestRejectedException;
 import com.learning.producer.model.Event;
 import com.learning.producer.model.EventType;
+import com.learning.producer.service.BatchIngestResponse;
 import com.learning.producer.service.EventService;
+import com.learning.producer.service.EventStreamService;
+import com.learning.producer.service.IngestResult;
+import com.learning.producer.service.PartitionsResponse;
 import com.learning.producer.service.PollResponse;
+import com.learning.producer.service.SeekResponse;
 import com.learning.producer.service.SystemStats;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
+import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Event API controller for producer service
  * Handles event creation and polling
+ * Event creation passes through the AdmissionController first; shed requests get
+ * 429 Too Many Requests with Retry-After. Clients are identified by the X-Client-Id
+ * header, or else by remote address.
  */
 @Slf4j
 @RestController
@@ -23,44 +45,187 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class EventController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final String PARTITION_HEADER = "X-Event-Partition";
+    static final String OFFSET_HEADER = "X-Event-Offset";
+    static final String CLIENT_ID_HEADER = "X-Client-Id";
+    // Batch events admitted at a time while the body is read
+    static final int ADMISSION_CHUNK_EVENTS = 500;
+
     private final EventService eventService;
+    private final EventStreamService eventStreamService;
+    private final AdmissionController admissionController;
+
+    @Value("${producer.batch.max-events:10000}")
+    private int maxBatchEvents;
+
+    @Value("${producer.poll.max-wait-ms:30000}")
+    private long maxPollWaitMs;
 
     /**
      * Create a single event
      * POST /v1/events
+     * Requests carrying an idempotency key (the Idempotency-Key header, the body's
+     * idempotencyKey, or else interactionId + eventType) are deduplicated within
+     * producer.dedup.window-ms: a retry appends nothing and gets the original event.
+     * X-Event-Partition and X-Event-Offset give the stored position; duplicates are
+     * flagged with Idempotent-Replayed: true.
      *
-     * @param request event creation request
-     * @return created event
+     * @param request        event creation request
+     * @param idempotencyKey client-supplied key, takes precedence over the body's
+     * @return created (or original) event, or 429 if the request was shed
      */
     @PostMapping
-    public ResponseEntity<Event> createEvent(@RequestBody CreateEventRequest request) {
-        log.info("Creating event: type={}, queueId={}", request.getEventType(), request.getQueueId());
-        Event event = eventService.createEvent(
-                request.getEventType(),
-                request.getQueueId(),
-                request.getAgentId());
-        return ResponseEntity.ok(event);
+    public ResponseEntity<Event> createEvent(
+            @RequestBody CreateEventRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            HttpServletRequest httpRequest) {
+        log.debug("Creating event: type={}, queueId={}", request.getEventType(), request.getQueueId());
+        IngestResult result;
+        try (AdmissionController.Permit ignored = admissionController.admit(clientId(httpRequest), 1)) {
+            result = eventService.createEvent(
+                    request.getEventType(),
+                    request.getQueueId(),
+                    request.getAgentId(),
+                    request.getInteractionId(),
+                    idempotencyKey != null ? idempotencyKey : request.getIdempotencyKey());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(PARTITION_HEADER, String.valueOf(result.getPartition()))
+                .header(OFFSET_HEADER, String.valueOf(result.getOffset()));
+        if (result.isDuplicate()) {
+            response.header(REPLAYED_HEADER, "true");
+        }
+        return response.body(result.getEvent());
+    }
+
+    /**
+     * Create a batch of events
+     * POST /v1/events/batch
+     * Body is NDJSON (application/x-ndjson) or a JSON array (application/json);
+     * the whole batch is appended as one contiguous offset range.
+     *
+     * @param body request body stream
+     * @return assigned offset range, or 429 if the batch was shed (none of it is stored)
+     */
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<BatchIngestResponse> createEvents(InputStream body, HttpServletRequest httpRequest) {
+        try (AdmissionController.BatchPermit permit = admissionController.admitBatch(clientId(httpRequest))) {
+            List<Event> events;
+            try {
+                // Each chunk is admitted before it is parsed, so a shed batch is never fully read
+                events = BatchEventReader.read(body, maxBatchEvents, ADMISSION_CHUNK_EVENTS, permit::admit);
+            } catch (IllegalArgumentException e) {
+                permit.trim(0);
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+            }
+            permit.trim(events.size());
+            return ResponseEntity.ok(eventService.createEvents(events));
+        }
     }
 
     /**
-     * Poll events after a cursor
-     * GET /v1/events/poll?after=<index>&limit=<n>
+     * Shed ingest: 429 with the Retry-After hint and the reason
+     */
+    @ExceptionHandler(IngestRejectedException.class)
+    public ResponseEntity<Map<String, String>> ingestRejected(IngestRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", e.getMessage(), "reason", e.getReason().name()));
+    }
+
+    /**
+     * Poll events of a partition after a cursor
+     * GET /v1/events/poll?partition=<p>&after=<offset>&limit=<n>&waitMs=<ms>
+     * With waitMs > 0 and no events after the cursor, the request is parked
+     * asynchronously (no servlet thread held) until events arrive or waitMs elapses.
+     * A cursor behind retention returns cursorExpired=true with the earliest retained offset.
+     * With fromTime (ISO-8601, e.g. 2026-10-16T09:00:00Z) the cursor is resolved from
+     * the time index instead, replaying from the first event at or after that time.
+     * With queueIds=q1,q2 only those queues' events are returned; nextCursor then
+     * skips past non-matching events.
      *
-     * @param after cursor index (default -1, meaning from start)
-     * @param limit max events to return (default 100)
+     * @param partition partition to read (default 0); offsets are per partition
+     * @param after    cursor offset (default -1, meaning from start)
+     * @param fromTime replay from this time; takes precedence over after
+     * @param queueIds queues to include (default all)
+     * @param limit    max events to return (default 100)
+     * @param waitMs max time to wait for new events (default 0, capped by producer.poll.max-wait-ms)
      * @return PollResponse with events and nextCursor
      */
     @GetMapping("/poll")
-    public ResponseEntity<PollResponse> pollEvents(
-            @RequestParam(value = "after", defaultValue = "-1") int after,
-            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+    public CompletableFuture<ResponseEntity<PollResponse>> pollEvents(
+            @RequestParam(value = "partition", defaultValue = "0") int partition,
+            @RequestParam(value = "after", defaultValue = "-1") long after,
+            @RequestParam(value = "fromTime", required = false) Instant fromTime,
+            @RequestParam(value = "queueIds", required = false) Set<String> queueIds,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "waitMs", defaultValue = "0") long waitMs) {
 
         if (limit <= 0 || limit > 1000) {
             limit = 100;
         }
+        checkPartition(partition);
+        if (fromTime != null) {
+            after = eventService.seek(partition, fromTime).getCursor();
+        }
+        waitMs = Math.min(Math.max(waitMs, 0), maxPollWaitMs);
+
+        return eventService.pollEvents(partition, after, limit, waitMs, queueIds).thenApply(ResponseEntity::ok);
+    }
 
-        PollResponse response = eventService.pollEvents(after, limit);
-        return ResponseEntity.ok(response);
+    /**
+     * Resolve a point in time to a cursor without fetching events
+     * GET /v1/events/seek?partition=<p>&time=<ISO-8601 instant>
+     *
+     * @param partition partition to search (default 0)
+     * @param time      replay point
+     * @return first offset at or after time and the cursor to poll from
+     */
+    @GetMapping("/seek")
+    public ResponseEntity<SeekResponse> seek(
+            @RequestParam(value = "partition", defaultValue = "0") int partition,
+            @RequestParam("time") Instant time) {
+        checkPartition(partition);
+        return ResponseEntity.ok(eventService.seek(partition, time));
+    }
+
+    /**
+     * Partition count and per-partition offsets
+     * GET /v1/events/partitions
+     */
+    @GetMapping("/partitions")
+    public ResponseEntity<PartitionsResponse> getPartitions() {
+        return ResponseEntity.ok(eventService.getPartitions());
+    }
+
+    /**
+     * Push stream of a partition's events as Server-Sent Events
+     * GET /v1/events/stream?partition=<p>&after=<offset>
+     * Sends an "epoch" event first, then one "event" per appended event with the
+     * event offset as its id, plus comment heartbeats while idle. A reconnecting
+     * client resumes from its Last-Event-ID header, which takes precedence over after.
+     *
+     * @param partition   partition to follow (default 0)
+     * @param after       cursor offset (default -1, meaning from start)
+     * @param lastEventId last event id received by a reconnecting client
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @RequestParam(value = "partition", defaultValue = "0") int partition,
+            @RequestParam(value = "after", defaultValue = "-1") long after,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        long cursor = after;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                cursor = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Last-Event-ID: " + lastEventId);
+            }
+        }
+        checkPartition(partition);
+        return eventStreamService.subscribe(partition, cursor);
     }
 
     /**
@@ -81,6 +246,17 @@ public class EventController {
         return ResponseEntity.ok(Map.of("status", "UP"));
     }
 
+    private static String clientId(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        return clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+    }
+
+    private void checkPartition(int partition) {
+        if (partition < 0 || partition >= eventService.getPartitionCount()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown partition: " + partition);
+        }
+    }
+
     /**
      * Request model for creating an event
      */
@@ -91,5 +267,7 @@ public class EventController {
         private EventType eventType;
         private String queueId;
         private String agentId;
+        private String interactionId;
+        private String idempotencyKey;
     }
 }
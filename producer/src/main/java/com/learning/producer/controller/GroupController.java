@@ -0,0 +1,102 @@
+package com.learning.producer.controller;
+
+import com.learning.producer.group.ConsumerGroupRegistry;
+import com.learning.producer.group.ConsumerGroupStatus;
+import com.learning.producer.group.StaleEpochException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumer group API controller for producer service
+ * Groups commit the last processed offset per partition in batches; the producer
+ * reports each group's lag and keeps uncommitted events from expiring by age.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/v1/groups")
+@RequiredArgsConstructor
+public class GroupController {
+
+    private final ConsumerGroupRegistry consumerGroupRegistry;
+
+    /**
+     * Commit offsets for a group
+     * POST /v1/groups/{groupId}/offsets
+     * Body: {"epoch": "...", "offsets": {"0": 41, "1": 7}}, the last processed offset
+     * per partition; partitions left out keep their committed offset.
+     *
+     * @return the group's committed offsets and lag, 409 with the current epoch if
+     * the offsets belong to another epoch
+     */
+    @PostMapping("/{groupId}/offsets")
+    public ResponseEntity<ConsumerGroupStatus> commit(@PathVariable("groupId") String groupId,
+                                                      @RequestBody CommitRequest request) {
+        if (request.getOffsets() == null || request.getOffsets().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No offsets to commit");
+        }
+        try {
+            return ResponseEntity.ok(consumerGroupRegistry.commit(groupId, request.getEpoch(), request.getOffsets()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Committed offsets and lag of a group
+     * GET /v1/groups/{groupId}
+     */
+    @GetMapping("/{groupId}")
+    public ResponseEntity<ConsumerGroupStatus> getGroup(@PathVariable("groupId") String groupId) {
+        return consumerGroupRegistry.get(groupId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * All groups
+     * GET /v1/groups
+     */
+    @GetMapping
+    public ResponseEntity<List<ConsumerGroupStatus>> listGroups() {
+        return ResponseEntity.ok(consumerGroupRegistry.list());
+    }
+
+    /**
+     * Drop a group, releasing the retention it held
+     * DELETE /v1/groups/{groupId}
+     */
+    @DeleteMapping("/{groupId}")
+    public ResponseEntity<Void> deleteGroup(@PathVariable("groupId") String groupId) {
+        return consumerGroupRegistry.delete(groupId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Offsets of another epoch: 409 with the current epoch so the consumer can reset
+     */
+    @ExceptionHandler(StaleEpochException.class)
+    public ResponseEntity<Map<String, String>> staleEpoch(StaleEpochException e) {
+        log.debug("Rejected commit: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", e.getMessage(), "epoch", e.getCurrentEpoch()));
+    }
+
+    /**
+     * Request model for committing offsets
+     */
+    @lombok.Data
+    @lombok.NoArgsConstructor
+    @lombok.AllArgsConstructor
+    public static class CommitRequest {
+        private String epoch;
+        private Map<Integer, Long> offsets;
+    }
+}
@@ -0,0 +1,327 @@
+package com.learning.producer.group;
+
+import com.learning.producer.repository.EventPartitions;
+import com.learning.producer.repository.EventRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Consumer groups and their committed offsets, one per partition
+ * <p>
+ * A group commits the offset of the last event it has processed in each partition,
+ * in batches (one request for any number of partitions). Commits only move forward,
+ * so a late or retried commit never rewinds a group. The registry reports each
+ * group's lag (events stored after its commit) and holds retention back: events after
+ * the slowest group's commit are never evicted by age, only by the count and byte
+ * limits that protect the heap and disk (see EventRepository.setRetentionHold).
+ * <p>
+ * Groups that have not committed for expireAfter are dropped so an abandoned group
+ * does not hold retention forever. A commit and the expiry check of its group are
+ * atomic per group (map compute), so a group is never dropped while it commits. For durable storage the offsets are saved to a
+ * properties file on checkpoint and on close, and reloaded while the epoch is unchanged.
+ */
+@Slf4j
+public class ConsumerGroupRegistry implements AutoCloseable {
+
+    private static final Pattern GROUP_ID = Pattern.compile("[A-Za-z0-9._-]{1,128}");
+    private static final String GROUP_PREFIX = "group.";
+    private static final String COMMITTED_AT_SUFFIX = ".committed-at";
+    private static final String OFFSET_INFIX = ".offset.";
+
+    private final EventPartitions eventPartitions;
+    private final Path stateFile;
+    private final long expireAfterMillis;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, ConsumerGroup> groups = new ConcurrentHashMap<>();
+
+    /**
+     * @param stateFile   file the offsets are saved to, null to keep them in memory only
+     * @param expireAfter idle time after which a group is dropped, zero to keep groups
+     */
+    public ConsumerGroupRegistry(EventPartitions eventPartitions, Path stateFile, Duration expireAfter) {
+        this(eventPartitions, stateFile, expireAfter, System::currentTimeMillis);
+    }
+
+    ConsumerGroupRegistry(EventPartitions eventPartitions, Path stateFile, Duration expireAfter, LongSupplier clock) {
+        this.eventPartitions = eventPartitions;
+        this.stateFile = stateFile;
+        this.expireAfterMillis = expireAfter.toMillis();
+        this.clock = clock;
+        if (stateFile != null) {
+            load();
+        }
+        updateRetentionHolds();
+    }
+
+    /**
+     * Commit a batch of offsets for a group, creating the group on its first commit
+     *
+     * @param epoch   epoch the offsets were read in
+     * @param offsets last processed offset per partition; lower than the committed
+     *                offset leaves it unchanged
+     * @throws StaleEpochException      if the epoch is not the store's
+     * @throws IllegalArgumentException for an invalid group id, partition or offset
+     */
+    public ConsumerGroupStatus commit(String groupId, String epoch, Map<Integer, Long> offsets) {
+        checkGroupId(groupId);
+        String currentEpoch = eventPartitions.getEpoch();
+        if (!currentEpoch.equals(epoch)) {
+            throw new StaleEpochException(epoch, currentEpoch);
+        }
+        offsets.forEach((partition, offset) -> {
+            EventRepository repository = eventPartitions.partition(partition);
+            if (offset == null || offset < -1 || offset >= repository.getEndOffset()) {
+                throw new IllegalArgumentException("Offset " + offset + " is outside partition " + partition
+                        + " (end offset " + repository.getEndOffset() + ")");
+            }
+        });
+        long now = clock.getAsLong();
+        ConsumerGroup group = groups.compute(groupId, (id, existing) -> {
+            ConsumerGroup updated = existing == null ? new ConsumerGroup(eventPartitions.count(), now) : existing;
+            offsets.forEach(updated::commit);
+            updated.committedAt = now;
+            return updated;
+        });
+        updateRetentionHolds();
+        return status(groupId, group);
+    }
+
+    public Optional<ConsumerGroupStatus> get(String groupId) {
+        ConsumerGroup group = groups.get(groupId);
+        return group == null ? Optional.empty() : Optional.of(status(groupId, group));
+    }
+
+    /**
+     * All groups, by group id
+     */
+    public List<ConsumerGroupStatus> list() {
+        return groups.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> status(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    /**
+     * Drop a group and release the retention it held
+     *
+     * @return whether the group existed
+     */
+    public boolean delete(String groupId) {
+        boolean removed = groups.remove(groupId) != null;
+        if (removed) {
+            updateRetentionHolds();
+        }
+        return removed;
+    }
+
+    /**
+     * Drop groups that have not committed within expireAfter
+     */
+    public void expireIdleGroups() {
+        if (expireAfterMillis <= 0) {
+            return;
+        }
+        long idleSince = clock.getAsLong() - expireAfterMillis;
+        List<String> expired = new ArrayList<>();
+        for (String groupId : groups.keySet()) {
+            // Checked under the group's map entry so a commit in progress is never dropped
+            groups.computeIfPresent(groupId, (id, group) -> {
+                if (group.committedAt >= idleSince) {
+                    return group;
+                }
+                expired.add(id);
+                return null;
+            });
+        }
+        expired.forEach(groupId ->
+                log.info("Consumer group {} expired after {} ms without a commit", groupId, expireAfterMillis));
+        if (!expired.isEmpty()) {
+            updateRetentionHolds();
+        }
+    }
+
+    /**
+     * Largest lag of any group in a partition (0 without groups)
+     */
+    public long maxLag(int partition) {
+        long end = eventPartitions.partition(partition).getEndOffset();
+        long maxLag = 0;
+        for (ConsumerGroup group : groups.values()) {
+            maxLag = Math.max(maxLag, lag(end, group.committed.get(partition)));
+        }
+        return maxLag;
+    }
+
+    public int size() {
+        return groups.size();
+    }
+
+    /**
+     * Hold each partition's events after the slowest group's commit back from age-based
+     * eviction. Serialized so a slower recomputation cannot overwrite a newer one.
+     */
+    private synchronized void updateRetentionHolds() {
+        for (int partition = 0; partition < eventPartitions.count(); partition++) {
+            long slowest = Long.MAX_VALUE;
+            for (ConsumerGroup group : groups.values()) {
+                slowest = Math.min(slowest, group.committed.get(partition));
+            }
+            eventPartitions.partition(partition).setRetentionHold(slowest == Long.MAX_VALUE ? Long.MAX_VALUE : slowest + 1);
+        }
+    }
+
+    private ConsumerGroupStatus status(String groupId, ConsumerGroup group) {
+        List<PartitionLag> partitions = new ArrayList<>(eventPartitions.count());
+        long totalLag = 0;
+        for (int partition = 0; partition < eventPartitions.count(); partition++) {
+            EventRepository repository = eventPartitions.partition(partition);
+            long committed = group.committed.get(partition);
+            long end = repository.getEndOffset();
+            long lag = lag(end, committed);
+            totalLag += lag;
+            partitions.add(PartitionLag.builder()
+                    .partition(partition)
+                    .committedOffset(committed)
+                    .endOffset(end)
+                    .lag(lag)
+                    .expired(repository.isExpired(committed))
+                    .build());
+        }
+        return ConsumerGroupStatus.builder()
+                .groupId(groupId)
+                .epoch(eventPartitions.getEpoch())
+                .committedAt(Instant.ofEpochMilli(group.committedAt))
+                .totalLag(totalLag)
+                .partitions(partitions)
+                .build();
+    }
+
+    private static long lag(long endOffset, long committed) {
+        return Math.max(0, endOffset - 1 - committed);
+    }
+
+    private static void checkGroupId(String groupId) {
+        if (groupId == null || !GROUP_ID.matcher(groupId).matches()) {
+            throw new IllegalArgumentException("Group id must be 1-128 letters, digits, '.', '_' or '-': " + groupId);
+        }
+    }
+
+    /**
+     * Save the committed offsets (no-op without a state file)
+     */
+    public void save() throws IOException {
+        if (stateFile == null) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("epoch", eventPartitions.getEpoch());
+        groups.forEach((groupId, group) -> {
+            properties.setProperty(GROUP_PREFIX + groupId + COMMITTED_AT_SUFFIX, String.valueOf(group.committedAt));
+            for (int partition = 0; partition < group.committed.length(); partition++) {
+                properties.setProperty(GROUP_PREFIX + groupId + OFFSET_INFIX + partition,
+                        String.valueOf(group.committed.get(partition)));
+            }
+        });
+        Files.createDirectories(stateFile.toAbsolutePath().getParent());
+        Path temp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp)) {
+            properties.store(writer, "Consumer group offsets");
+        }
+        Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reload groups saved in the current epoch; offsets of another epoch are meaningless
+     */
+    private void load() {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(stateFile)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Ignoring unreadable consumer group offsets {}: {}", stateFile, e.toString());
+            return;
+        }
+        String epoch = properties.getProperty("epoch");
+        if (!eventPartitions.getEpoch().equals(epoch)) {
+            log.info("Discarding consumer group offsets of epoch {}", epoch);
+            return;
+        }
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith(GROUP_PREFIX)) {
+                continue;
+            }
+            try {
+                long value = Long.parseLong(properties.getProperty(key));
+                if (key.endsWith(COMMITTED_AT_SUFFIX)) {
+                    String groupId = key.substring(GROUP_PREFIX.length(), key.length() - COMMITTED_AT_SUFFIX.length());
+                    group(groupId).committedAt = value;
+                } else {
+                    int infix = key.lastIndexOf(OFFSET_INFIX);
+                    int partition = Integer.parseInt(key.substring(infix + OFFSET_INFIX.length()));
+                    if (partition < eventPartitions.count()) {
+                        long end = eventPartitions.partition(partition).getEndOffset();
+                        group(key.substring(GROUP_PREFIX.length(), infix)).commit(partition, Math.min(value, end - 1));
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Ignoring consumer group entry {}: {}", key, e.toString());
+            }
+        }
+        groups.keySet().removeIf(groupId -> !GROUP_ID.matcher(groupId).matches());
+        log.info("Restored {} consumer group(s) from {}", groups.size(), stateFile);
+    }
+
+    private ConsumerGroup group(String groupId) {
+        return groups.computeIfAbsent(groupId, ignored -> new ConsumerGroup(eventPartitions.count(), clock.getAsLong()));
+    }
+
+    @Override
+    public void close() {
+        try {
+            save();
+        } catch (IOException e) {
+            log.warn("Failed to save consumer group offsets to {}", stateFile, e);
+        }
+    }
+
+    /**
+     * Committed offset per partition, -1 until the group commits one
+     */
+    private static final class ConsumerGroup {
+
+        private final AtomicLongArray committed;
+        private volatile long committedAt;
+
+        private ConsumerGroup(int partitions, long committedAt) {
+            this.committed = new AtomicLongArray(partitions);
+            this.committedAt = committedAt;
+            for (int partition = 0; partition < partitions; partition++) {
+                committed.set(partition, -1);
+            }
+        }
+
+        private void commit(int partition, long offset) {
+            committed.accumulateAndGet(partition, offset, Math::max);
+        }
+    }
+}
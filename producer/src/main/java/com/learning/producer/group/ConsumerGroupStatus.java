@@ -0,0 +1,38 @@
+package com.learning.producer.group;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Committed offsets and lag of a consumer group
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ConsumerGroupStatus {
+
+    private String groupId;
+
+    /**
+     * Epoch the offsets belong to
+     */
+    private String epoch;
+
+    /**
+     * Time of the group's last commit
+     */
+    private Instant committedAt;
+
+    /**
+     * Lag summed over partitions
+     */
+    private long totalLag;
+
+    private List<PartitionLag> partitions;
+}
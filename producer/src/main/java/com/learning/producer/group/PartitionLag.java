@@ -0,0 +1,38 @@
+package com.learning.producer.group;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A consumer group's position in one partition
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PartitionLag {
+
+    private int partition;
+
+    /**
+     * Offset of the last event the group has committed (-1 if none)
+     */
+    private long committedOffset;
+
+    /**
+     * Offset the next event will get in this partition
+     */
+    private long endOffset;
+
+    /**
+     * Events stored after the committed offset
+     */
+    private long lag;
+
+    /**
+     * Whether retention evicted events the group had not committed
+     */
+    private boolean expired;
+}
@@ -0,0 +1,18 @@
+package com.learning.producer.group;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a consumer group commits offsets of another event store epoch
+ * Mapped to 409 Conflict with the current epoch, so the consumer can reset.
+ */
+@Getter
+public class StaleEpochException extends RuntimeException {
+
+    private final String currentEpoch;
+
+    public StaleEpochException(String committedEpoch, String currentEpoch) {
+        super("Offsets of epoch " + committedEpoch + " do not apply to epoch " + currentEpoch, null, false, false);
+        this.currentEpoch = currentEpoch;
+    }
+}
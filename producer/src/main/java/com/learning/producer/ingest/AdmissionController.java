@@ -0,0 +1,407 @@
+package com.learning.producer.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Admission control in front of ingest: sheds load instead of buffering it
+ * <p>
+ * Every ingest request is admitted for its number of events before it touches the
+ * event store, checking, cheapest first:
+ * <ol>
+ *     <li>the heap watermark: old-generation occupancy after the last collection,
+ *     sampled at most every HEAP_SAMPLE_NANOS, so garbage does not count</li>
+ *     <li>the client's token bucket (clientRate events/s, clientBurst capacity); a
+ *     batch larger than the burst is admitted from a full bucket and leaves it in
+ *     debt, so it cannot starve other clients for long</li>
+ *     <li>room in the bounded pipeline (maxQueuedEvents), waiting at most queueWait</li>
+ * </ol>
+ * A rejected request gets an IngestRejectedException with a Retry-After hint; tokens
+ * taken for it are given back. Batches, whose size is only known once read, are
+ * admitted chunk by chunk before each chunk is parsed (see admitBatch), so a shed
+ * batch is never materialized beyond one chunk. Polls are never admitted here, so shedding ingest
+ * keeps the store small and poll latency stable during a spike.
+ */
+@Slf4j
+public class AdmissionController {
+
+    /**
+     * Why a request was shed
+     */
+    public enum Reason {
+        QUEUE_FULL, MEMORY, RATE_LIMITED
+    }
+
+    private static final long HEAP_SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long CLIENT_SWEEP_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final String OVERFLOW_CLIENT = "*";
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final AdmissionPolicy policy;
+    private final Semaphore pipeline;
+    private final int maxQueuedEvents;
+    private final double tokensPerNano;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final DoubleSupplier heapUsage;
+    private volatile double sampledHeapUsage;
+    private volatile long heapSampledAt = NEVER;
+    private final AtomicLong sweptAt = new AtomicLong(NEVER);
+
+    private final LongAdder admittedEvents = new LongAdder();
+    private final LongAdder[] shedRequests = new LongAdder[Reason.values().length];
+    private final LongAdder[] shedEvents = new LongAdder[Reason.values().length];
+
+    public AdmissionController(AdmissionPolicy policy) {
+        this(policy, oldGenerationUsage());
+    }
+
+    /**
+     * @param heapUsage supplies the heap occupancy (0..1) checked against the watermark
+     */
+    AdmissionController(AdmissionPolicy policy, DoubleSupplier heapUsage) {
+        if (policy.getClientRate() > 0 && policy.getClientBurst() <= 0) {
+            throw new IllegalArgumentException("A client rate needs a positive burst");
+        }
+        this.policy = policy;
+        this.maxQueuedEvents = policy.getMaxQueuedEvents();
+        this.pipeline = maxQueuedEvents > 0 ? new Semaphore(maxQueuedEvents) : null;
+        this.tokensPerNano = policy.getClientRate() / TimeUnit.SECONDS.toNanos(1);
+        this.heapUsage = heapUsage;
+        for (int i = 0; i < shedRequests.length; i++) {
+            shedRequests[i] = new LongAdder();
+            shedEvents[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Admit events into the pipeline; close the permit once they are stored
+     *
+     * @param clientId client the events are charged to (null shares one bucket)
+     * @param events   number of events in the request
+     * @throws IngestRejectedException if any limit is exceeded
+     */
+    public Permit admit(String clientId, int events) {
+        return admit(clientId, events, System.nanoTime());
+    }
+
+    Permit admit(String clientId, int events, long nowNanos) {
+        int permits = Math.min(events, maxQueuedEvents);
+        admit(clientId, events, permits, false, nowNanos);
+        return pipeline == null ? Permit.NONE : new Permit(pipeline, permits);
+    }
+
+    /**
+     * Start admitting a batch of unknown size; admit each chunk before parsing it and
+     * close the permit once the batch is stored
+     *
+     * @param clientId client the events are charged to (null shares one bucket)
+     */
+    public BatchPermit admitBatch(String clientId) {
+        return new BatchPermit(clientId);
+    }
+
+    /**
+     * Check the limits for events and take pipeline permits for them
+     *
+     * @param continuation later chunk of an admitted batch: charged to the client's bucket
+     *                     without a rate check, as if the batch had been admitted whole
+     * @return the client's token bucket the events were charged to, null without a rate limit
+     */
+    private TokenBucket admit(String clientId, int events, int permits, boolean continuation, long nowNanos) {
+        if (policy.getHeapWatermark() > 0 && heapUsage(nowNanos) > policy.getHeapWatermark()) {
+            throw reject(Reason.MEMORY, events, retryAfterSeconds(),
+                    String.format("Heap above %.0f%% watermark", policy.getHeapWatermark() * 100));
+        }
+
+        TokenBucket bucket = null;
+        if (tokensPerNano > 0) {
+            bucket = bucket(clientId == null ? OVERFLOW_CLIENT : clientId, nowNanos);
+            long waitNanos = continuation
+                    ? bucket.charge(events, nowNanos, tokensPerNano, policy.getClientBurst())
+                    : bucket.take(events, nowNanos, tokensPerNano, policy.getClientBurst());
+            if (waitNanos > 0) {
+                long retryAfterSeconds = Math.ceilDiv(waitNanos, TimeUnit.SECONDS.toNanos(1));
+                throw reject(Reason.RATE_LIMITED, events, Math.max(1, retryAfterSeconds),
+                        "Client rate limit of " + policy.getClientRate() + " events/s exceeded");
+            }
+        }
+
+        if (pipeline != null && !acquire(permits)) {
+            if (bucket != null) {
+                bucket.refund(events);
+            }
+            throw reject(Reason.QUEUE_FULL, events, retryAfterSeconds(),
+                    "Ingest pipeline full (" + maxQueuedEvents + " events)");
+        }
+        admittedEvents.add(events);
+        return bucket;
+    }
+
+    private boolean acquire(int permits) {
+        if (pipeline.tryAcquire(permits)) {
+            return true;
+        }
+        long waitMillis = policy.getQueueWait() == null ? 0 : policy.getQueueWait().toMillis();
+        if (waitMillis <= 0) {
+            return false;
+        }
+        try {
+            return pipeline.tryAcquire(permits, waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private IngestRejectedException reject(Reason reason, int events, long retryAfterSeconds, String message) {
+        shedRequests[reason.ordinal()].increment();
+        shedEvents[reason.ordinal()].add(events);
+        log.debug("Shedding {} events: {}", events, message);
+        return new IngestRejectedException(reason, retryAfterSeconds, message);
+    }
+
+    private long retryAfterSeconds() {
+        return policy.getRetryAfter() == null ? 1 : Math.max(1, policy.getRetryAfter().toSeconds());
+    }
+
+    private double heapUsage(long nowNanos) {
+        long sampledAt = heapSampledAt;
+        if (sampledAt == NEVER || nowNanos - sampledAt >= HEAP_SAMPLE_NANOS) {
+            sampledHeapUsage = heapUsage.getAsDouble();
+            heapSampledAt = nowNanos;
+        }
+        return sampledHeapUsage;
+    }
+
+    /**
+     * Client's bucket; past maxClients, idle (refilled) buckets are dropped at most once
+     * a second and clients that still do not fit share the overflow bucket
+     */
+    private TokenBucket bucket(String clientId, long nowNanos) {
+        TokenBucket bucket = buckets.get(clientId);
+        if (bucket != null) {
+            return bucket;
+        }
+        int maxClients = policy.getMaxClients();
+        if (maxClients > 0 && buckets.size() >= maxClients) {
+            long swept = sweptAt.get();
+            if ((swept == NEVER || nowNanos - swept >= CLIENT_SWEEP_NANOS) && sweptAt.compareAndSet(swept, nowNanos)) {
+                buckets.values().removeIf(idle -> idle.isFull(nowNanos, tokensPerNano, policy.getClientBurst()));
+            }
+            if (buckets.size() >= maxClients) {
+                clientId = OVERFLOW_CLIENT;
+            }
+        }
+        return buckets.computeIfAbsent(clientId, ignored -> new TokenBucket(policy.getClientBurst(), nowNanos));
+    }
+
+    public boolean isEnabled() {
+        return pipeline != null || tokensPerNano > 0 || policy.getHeapWatermark() > 0;
+    }
+
+    public long getAdmittedEvents() {
+        return admittedEvents.sum();
+    }
+
+    /**
+     * Events currently in the pipeline
+     */
+    public long getQueuedEvents() {
+        return pipeline == null ? 0 : maxQueuedEvents - pipeline.availablePermits();
+    }
+
+    public long getShedRequests(Reason reason) {
+        return shedRequests[reason.ordinal()].sum();
+    }
+
+    public long getShedEvents(Reason reason) {
+        return shedEvents[reason.ordinal()].sum();
+    }
+
+    public int getTrackedClients() {
+        return buckets.size();
+    }
+
+    /**
+     * Old-generation occupancy after the last collection: the heap pool with the
+     * largest maximum that reports collection usage (0 if none does)
+     */
+    private static DoubleSupplier oldGenerationUsage() {
+        MemoryPoolMXBean oldGeneration = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported())
+                .filter(pool -> pool.getUsage().getMax() > 0)
+                .max(Comparator.comparingLong(pool -> pool.getUsage().getMax()))
+                .orElse(null);
+        if (oldGeneration == null) {
+            log.warn("No heap pool reports usage after collection, heap watermark disabled");
+            return () -> 0;
+        }
+        return () -> {
+            MemoryUsage afterCollection = oldGeneration.getCollectionUsage();
+            return afterCollection == null || afterCollection.getMax() <= 0
+                    ? 0 : (double) afterCollection.getUsed() / afterCollection.getMax();
+        };
+    }
+
+    /**
+     * Room in the pipeline held by an admitted request
+     */
+    public static final class Permit implements AutoCloseable {
+
+        static final Permit NONE = new Permit(null, 0);
+
+        private final Semaphore pipeline;
+        private final int permits;
+
+        private Permit(Semaphore pipeline, int permits) {
+            this.pipeline = pipeline;
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() {
+            if (pipeline != null) {
+                pipeline.release(permits);
+            }
+        }
+    }
+
+    /**
+     * Room in the pipeline held by a batch admitted chunk by chunk
+     * Like a single request, a batch holds at most maxQueuedEvents permits. Not thread-safe;
+     * one request uses it.
+     */
+    public final class BatchPermit implements AutoCloseable {
+
+        private final String clientId;
+        private TokenBucket bucket;
+        private int admitted;
+        private int permits;
+
+        private BatchPermit(String clientId) {
+            this.clientId = clientId;
+        }
+
+        /**
+         * Admit the next events of the batch, before they are parsed; if they are shed,
+         * everything admitted for the batch so far is given back. The rate limit applies
+         * to the first chunk only; later chunks put the client in debt like a whole batch.
+         *
+         * @throws IngestRejectedException if any limit is exceeded
+         */
+        public void admit(int events) {
+            int chunkPermits = pipeline == null ? 0 : Math.min(events, maxQueuedEvents - permits);
+            try {
+                TokenBucket charged = AdmissionController.this.admit(clientId, events, chunkPermits, admitted > 0,
+                        System.nanoTime());
+                bucket = charged != null ? charged : bucket;
+            } catch (IngestRejectedException e) {
+                trim(0);
+                throw e;
+            }
+            admitted += events;
+            permits += chunkPermits;
+        }
+
+        /**
+         * Give back what was admitted beyond the events the batch turned out to have
+         */
+        public void trim(int events) {
+            int unused = admitted - events;
+            if (unused > 0) {
+                if (bucket != null) {
+                    bucket.refund(unused);
+                }
+                admittedEvents.add(-unused);
+                admitted = events;
+            }
+            int needed = Math.min(events, maxQueuedEvents);
+            if (pipeline != null && permits > needed) {
+                pipeline.release(permits - needed);
+                permits = needed;
+            }
+        }
+
+        /**
+         * Events admitted so far
+         */
+        public int getAdmitted() {
+            return admitted;
+        }
+
+        @Override
+        public void close() {
+            if (pipeline != null && permits > 0) {
+                pipeline.release(permits);
+                permits = 0;
+            }
+        }
+    }
+
+    /**
+     * Token bucket refilled lazily from the elapsed time on each use
+     */
+    private static final class TokenBucket {
+
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(long burst, long nowNanos) {
+            this.tokens = burst;
+            this.refilledAt = nowNanos;
+        }
+
+        /**
+         * Take tokens if the bucket holds them (or is full, for requests above the burst)
+         *
+         * @return 0 if taken, otherwise nanos until enough tokens will have accrued
+         */
+        synchronized long take(int events, long nowNanos, double tokensPerNano, long burst) {
+            refill(nowNanos, tokensPerNano, burst);
+            double needed = Math.min(events, burst);
+            if (tokens >= needed) {
+                tokens -= events;
+                return 0;
+            }
+            return (long) Math.ceil((needed - tokens) / tokensPerNano);
+        }
+
+        /**
+         * Take tokens unconditionally, possibly into debt
+         *
+         * @return 0
+         */
+        synchronized long charge(int events, long nowNanos, double tokensPerNano, long burst) {
+            refill(nowNanos, tokensPerNano, burst);
+            tokens -= events;
+            return 0;
+        }
+
+        synchronized void refund(int events) {
+            tokens += events;
+        }
+
+        synchronized boolean isFull(long nowNanos, double tokensPerNano, long burst) {
+            refill(nowNanos, tokensPerNano, burst);
+            return tokens >= burst;
+        }
+
+        private void refill(long nowNanos, double tokensPerNano, long burst) {
+            if (nowNanos > refilledAt) {
+                tokens = Math.min(burst, tokens + (nowNanos - refilledAt) * tokensPerNano);
+                refilledAt = nowNanos;
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.learning.producer.ingest;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Limits applied by AdmissionController before events reach the event store
+ * A limit of 0 disables it.
+ */
+@Value
+@Builder
+public class AdmissionPolicy {
+
+    public static final AdmissionPolicy UNLIMITED = AdmissionPolicy.builder().build();
+
+    /**
+     * Events allowed in the ingest pipeline at once (being parsed, deduplicated and
+     * appended); further requests wait up to queueWait for room
+     */
+    int maxQueuedEvents;
+
+    /**
+     * How long a request waits for room in the pipeline before it is shed
+     */
+    Duration queueWait;
+
+    /**
+     * Fraction of the heap (old generation after the last collection) above which
+     * ingest is shed, e.g. 0.9
+     */
+    double heapWatermark;
+
+    /**
+     * Sustained events per second allowed per client
+     */
+    double clientRate;
+
+    /**
+     * Events a client may send at once after being idle (token bucket capacity)
+     */
+    long clientBurst;
+
+    /**
+     * Clients tracked individually; beyond it new clients share one bucket
+     */
+    int maxClients;
+
+    /**
+     * Retry-After sent when the pipeline is full or memory is short
+     */
+    Duration retryAfter;
+}
@@ -0,0 +1,309 @@
+package com.learning.producer.ingest;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bounded deduplication window for idempotent ingest
+ * <p>
+ * Keys live in two generations, current and previous, each an exact key map plus a
+ * Bloom filter. The current generation rotates to previous once the window has
+ * elapsed or it holds half of maxKeys, so a key is remembered for at least one
+ * window (unless the key limit forces an early rotation) and at most two, and
+ * memory never exceeds maxKeys entries. New keys, the common case, are rejected by
+ * the previous generation's Bloom filter without a map lookup.
+ * <p>
+ * claim is atomic per key: of concurrent requests with the same key exactly one
+ * owns it and appends; the others get the owner's result once it completes. If the
+ * owner fails, the key is released so a retry can append, and the waiting duplicates
+ * get no result, so they claim the key again themselves.
+ *
+ * @param <T> result remembered per key (e.g. the original offset), kept small
+ */
+public class IdempotencyWindow<T> {
+
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * Rough heap cost of one map entry besides the key's characters
+     * (map node, future, and a small result such as a location and a UUID string)
+     * Results must stay that small; they are not measured.
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 200;
+
+    private final long windowMillis;
+    private final int generationKeys;
+    private final ReentrantReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private volatile Generation<T> current;
+    private volatile Generation<T> previous;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong bloomFalsePositives = new AtomicLong();
+    private final AtomicLong earlyRotations = new AtomicLong();
+
+    /**
+     * @param windowMillis minimum time a key is remembered, 0 to disable deduplication
+     * @param maxKeys      keys held across both generations
+     */
+    public IdempotencyWindow(long windowMillis, int maxKeys) {
+        this(windowMillis, maxKeys, System.currentTimeMillis());
+    }
+
+    IdempotencyWindow(long windowMillis, int maxKeys, long nowMillis) {
+        if (windowMillis < 0 || (windowMillis > 0 && maxKeys < 2)) {
+            throw new IllegalArgumentException("Dedup window needs a non-negative window and at least 2 keys");
+        }
+        if (windowMillis == 0) {
+            maxKeys = 2;
+        }
+        this.windowMillis = windowMillis;
+        this.generationKeys = maxKeys / 2;
+        this.current = new Generation<>(generationKeys, nowMillis);
+        this.previous = new Generation<>(generationKeys, nowMillis);
+    }
+
+    /**
+     * Whether keys are remembered at all; callers skip claim when disabled
+     */
+    public boolean isEnabled() {
+        return windowMillis > 0;
+    }
+
+    /**
+     * Claim a key at the current time
+     */
+    public Claim<T> claim(String key) {
+        return claim(key, System.currentTimeMillis());
+    }
+
+    /**
+     * Claim a key: either the caller owns it and must complete or fail the claim,
+     * or the key was seen within the window and the claim is a duplicate
+     *
+     * @param nowMillis current time, drives rotation
+     */
+    public Claim<T> claim(String key, long nowMillis) {
+        maybeRotate(nowMillis);
+        checks.incrementAndGet();
+        long hash = hash64(key);
+        rotationLock.readLock().lock();
+        try {
+            Generation<T> older = previous;
+            if (older.bloom.mightContain(hash)) {
+                CompletableFuture<T> existing = older.entries.get(key);
+                if (existing != null) {
+                    hits.incrementAndGet();
+                    return new Claim<>(key, existing, null, true);
+                }
+                bloomFalsePositives.incrementAndGet();
+            }
+            Generation<T> generation = current;
+            CompletableFuture<T> pending = new CompletableFuture<>();
+            CompletableFuture<T> existing = generation.entries.putIfAbsent(key, pending);
+            if (existing != null) {
+                hits.incrementAndGet();
+                return new Claim<>(key, existing, null, true);
+            }
+            generation.bloom.add(hash);
+            generation.size.incrementAndGet();
+            generation.bytes.addAndGet(ENTRY_OVERHEAD_BYTES + 2L * key.length());
+            return new Claim<>(key, pending, generation, false);
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+    }
+
+    private void maybeRotate(long nowMillis) {
+        Generation<T> generation = current;
+        boolean expired = nowMillis - generation.startedAt >= windowMillis;
+        boolean full = generation.size.get() >= generationKeys;
+        if (!expired && !full) {
+            return;
+        }
+        rotationLock.writeLock().lock();
+        try {
+            if (current != generation) {
+                return;
+            }
+            if (!expired) {
+                earlyRotations.incrementAndGet();
+            }
+            // A window with no traffic forgets both generations
+            previous = nowMillis - generation.startedAt >= 2 * windowMillis
+                    ? new Generation<>(generationKeys, nowMillis)
+                    : generation;
+            current = new Generation<>(generationKeys, nowMillis);
+        } finally {
+            rotationLock.writeLock().unlock();
+        }
+    }
+
+    public long getChecks() {
+        return checks.get();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getBloomFalsePositives() {
+        return bloomFalsePositives.get();
+    }
+
+    /**
+     * Rotations forced by the key limit; each one shortens the effective window
+     */
+    public long getEarlyRotations() {
+        return earlyRotations.get();
+    }
+
+    public long getRetainedKeys() {
+        return (long) current.size.get() + previous.size.get();
+    }
+
+    /**
+     * Estimated heap held by keys, entries and Bloom filters
+     */
+    public long getRetainedBytes() {
+        return current.retainedBytes() + previous.retainedBytes();
+    }
+
+    /**
+     * 64-bit FNV-1a over the key's chars, finished with a murmur mix
+     */
+    static long hash64(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Outcome of claim
+     */
+    public static final class Claim<T> {
+
+        private final String key;
+        private final CompletableFuture<T> result;
+        private final Generation<T> owner;
+        private final boolean duplicate;
+
+        private Claim(String key, CompletableFuture<T> result, Generation<T> owner, boolean duplicate) {
+            this.key = key;
+            this.result = result;
+            this.owner = owner;
+            this.duplicate = duplicate;
+        }
+
+        public boolean isDuplicate() {
+            return duplicate;
+        }
+
+        /**
+         * Result stored by the key's owner, waiting for it if the owner is still appending
+         *
+         * @return null if the owner failed; the key is released then, so claim it again
+         */
+        public T original() {
+            try {
+                return result.join();
+            } catch (CompletionException | CancellationException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Remember the owner's result for later duplicates
+         */
+        public void complete(T value) {
+            result.complete(value);
+        }
+
+        /**
+         * Release the key after a failed append so a retry can claim it again
+         */
+        public void fail(Throwable cause) {
+            if (owner != null && owner.entries.remove(key, result)) {
+                owner.size.decrementAndGet();
+                owner.bytes.addAndGet(-(ENTRY_OVERHEAD_BYTES + 2L * key.length()));
+            }
+            result.completeExceptionally(cause);
+        }
+    }
+
+    private static final class Generation<T> {
+
+        private final ConcurrentHashMap<String, CompletableFuture<T>> entries;
+        private final BloomFilter bloom;
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final long startedAt;
+
+        private Generation(int expectedKeys, long startedAt) {
+            this.entries = new ConcurrentHashMap<>();
+            this.bloom = new BloomFilter(expectedKeys);
+            this.startedAt = startedAt;
+        }
+
+        private long retainedBytes() {
+            return bytes.get() + bloom.sizeInBytes();
+        }
+    }
+
+    /**
+     * Lock-free Bloom filter sized for about 1% false positives at its expected key
+     * count (10 bits and 7 probes per key, double hashing on one 64-bit hash)
+     */
+    private static final class BloomFilter {
+
+        private static final int BITS_PER_KEY = 10;
+        private static final int PROBES = 7;
+
+        private final long[] words;
+        private final long bitCount;
+
+        private BloomFilter(int expectedKeys) {
+            long bits = Math.max(64, (long) expectedKeys * BITS_PER_KEY);
+            this.words = new long[(int) ((bits + 63) >>> 6)];
+            this.bitCount = (long) words.length << 6;
+        }
+
+        private void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= PROBES; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                BITS.getAndBitwiseOr(words, (int) (bit >>> 6), 1L << bit);
+            }
+        }
+
+        private boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= PROBES; i++) {
+                long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+                if (((long) BITS.getVolatile(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private long sizeInBytes() {
+            return (long) words.length * Long.BYTES;
+        }
+    }
+}
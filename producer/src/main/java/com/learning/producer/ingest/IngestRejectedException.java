@@ -0,0 +1,24 @@
+package com.learning.producer.ingest;
+
+import lombok.Getter;
+
+/**
+ * Thrown by AdmissionController when an ingest request is shed
+ * Mapped to 429 Too Many Requests with a Retry-After header.
+ */
+@Getter
+public class IngestRejectedException extends RuntimeException {
+
+    private final AdmissionController.Reason reason;
+
+    /**
+     * Seconds the client should wait before retrying (at least 1)
+     */
+    private final long retryAfterSeconds;
+
+    public IngestRejectedException(AdmissionController.Reason reason, long retryAfterSeconds, String message) {
+        super(message, null, false, false);
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
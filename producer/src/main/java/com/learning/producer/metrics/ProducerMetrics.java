@@ -0,0 +1,147 @@
+package com.learning.producer.metrics;
+
+import com.learning.producer.group.ConsumerGroupRegistry;
+import com.learning.producer.ingest.AdmissionController;
+import com.learning.producer.repository.EventPartitions;
+import com.learning.producer.repository.EventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer instrumentation of the ingest and poll hot paths
+ * <p>
+ * Every meter is registered once at startup and callers pass in elapsed nanos from
+ * System.nanoTime, so recording allocates nothing per event (no Timer.Sample, no tag
+ * lookups). Timers publish percentile histograms for the Prometheus scrape endpoint
+ * (/actuator/prometheus); rates come from the counters. The controller round-trip is
+ * covered by Spring's http.server.requests timer. Shed ingest is read from the
+ * AdmissionController's own counters at scrape time, consumer group lag from the
+ * ConsumerGroupRegistry.
+ */
+@Component
+public class ProducerMetrics {
+
+    private final Timer appendTimer;
+    private final Timer batchAppendTimer;
+    private final Timer pollReadTimer;
+    private final Timer encodeTimer;
+    private final Counter ingestedEvents;
+    private final Counter polledEvents;
+    private final DistributionSummary pollPageSize;
+    private final DistributionSummary encodedBytes;
+
+    public ProducerMetrics(MeterRegistry registry, EventPartitions eventPartitions,
+                           AdmissionController admissionController, ConsumerGroupRegistry consumerGroupRegistry) {
+        this.appendTimer = timer(registry, "producer.repository.append", "Single event append, including indexing and retention");
+        this.batchAppendTimer = timer(registry, "producer.repository.append.batch", "Batch append across partitions");
+        this.pollReadTimer = timer(registry, "producer.poll.read", "Reading and copying a poll page out of the log");
+        this.encodeTimer = timer(registry, "producer.poll.encode", "Binary poll response serialization");
+        this.ingestedEvents = Counter.builder("producer.events.ingested")
+                .description("Events appended")
+                .register(registry);
+        this.polledEvents = Counter.builder("producer.events.polled")
+                .description("Events returned by polls")
+                .register(registry);
+        this.pollPageSize = DistributionSummary.builder("producer.poll.page.events")
+                .description("Events returned per poll")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.encodedBytes = DistributionSummary.builder("producer.poll.encode.bytes")
+                .description("Binary poll response size")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        for (AdmissionController.Reason reason : AdmissionController.Reason.values()) {
+            String tag = reason.name().toLowerCase();
+            FunctionCounter.builder("producer.ingest.shed.requests", admissionController, a -> a.getShedRequests(reason))
+                    .description("Ingest requests rejected with 429")
+                    .tag("reason", tag)
+                    .register(registry);
+            FunctionCounter.builder("producer.ingest.shed.events", admissionController, a -> a.getShedEvents(reason))
+                    .description("Events in ingest requests rejected with 429")
+                    .tag("reason", tag)
+                    .register(registry);
+        }
+        Gauge.builder("producer.ingest.queued.events", admissionController, AdmissionController::getQueuedEvents)
+                .description("Events admitted into the ingest pipeline and not yet stored")
+                .register(registry);
+
+        for (int partition = 0; partition < eventPartitions.count(); partition++) {
+            EventRepository repository = eventPartitions.partition(partition);
+            gauge(registry, "producer.partition.retained.events", partition, repository, EventRepository::getRetainedCount);
+            gauge(registry, "producer.partition.retained.bytes", partition, repository, EventRepository::getRetainedBytes);
+            gauge(registry, "producer.partition.end.offset", partition, repository, EventRepository::getEndOffset);
+            FunctionCounter.builder("producer.partition.evicted.unconsumed", repository, EventRepository::getEvictedUnconsumed)
+                    .description("Events evicted by a retention limit before every consumer group committed them")
+                    .tag("partition", String.valueOf(partition))
+                    .register(registry);
+            int lagPartition = partition;
+            Gauge.builder("producer.groups.max.lag", consumerGroupRegistry, groups -> groups.maxLag(lagPartition))
+                    .description("Events after the slowest consumer group's committed offset")
+                    .tag("partition", String.valueOf(partition))
+                    .register(registry);
+        }
+        Gauge.builder("producer.groups.count", consumerGroupRegistry, ConsumerGroupRegistry::size)
+                .description("Consumer groups with committed offsets")
+                .register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static void gauge(MeterRegistry registry, String name, int partition, EventRepository repository,
+                              ToDoubleFunction<EventRepository> value) {
+        Gauge.builder(name, repository, value)
+                .tag("partition", String.valueOf(partition))
+                .register(registry);
+    }
+
+    /**
+     * @param nanos time spent in EventRepository.add
+     */
+    public void recordAppend(long nanos) {
+        appendTimer.record(nanos, TimeUnit.NANOSECONDS);
+        ingestedEvents.increment();
+    }
+
+    /**
+     * @param nanos  time spent appending the whole batch
+     * @param events events in the batch
+     */
+    public void recordBatchAppend(long nanos, int events) {
+        batchAppendTimer.record(nanos, TimeUnit.NANOSECONDS);
+        ingestedEvents.increment(events);
+    }
+
+    /**
+     * @param nanos  time spent reading the page from the log
+     * @param events events returned
+     */
+    public void recordPoll(long nanos, int events) {
+        pollReadTimer.record(nanos, TimeUnit.NANOSECONDS);
+        pollPageSize.record(events);
+        polledEvents.increment(events);
+    }
+
+    /**
+     * @param nanos time spent encoding a binary poll response
+     * @param bytes encoded size
+     */
+    public void recordEncode(long nanos, int bytes) {
+        encodeTimer.record(nanos, TimeUnit.NANOSECONDS);
+        encodedBytes.record(bytes);
+    }
+}
@@ -7,7 +7,6 @@ import lombok.NoArgsConstructor;
 
 import java.time.Instant;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * Event model for realtime analytics system
@@ -19,8 +18,10 @@ import java.util.UUID;
 @Builder
 public class Event {
 
+    private static volatile EventIdGenerator idGenerator = TimeOrderedIdGenerator.INSTANCE;
+
     /**
-     * Unique event identifier (UUID)
+     * Unique event identifier (UUID; time-ordered UUIDv7 by default, see EventIdGenerator)
      */
     private String eventId;
 
@@ -54,14 +55,22 @@ public class Event {
      */
     private Map<String, Object> payload;
 
+    /**
+     * Select the generator used by create; intended to be set once at startup
+     */
+    public static void useIdGenerator(EventIdGenerator generator) {
+        idGenerator = generator;
+    }
+
     /**
      * Factory method to create an event with auto-generated ID and current
      * timestamp
      */
     public static Event create(EventType eventType, String queueId, String agentId) {
+        Instant now = Instant.now();
         return Event.builder()
-                .eventId(UUID.randomUUID().toString())
-                .timestamp(Instant.now())
+                .eventId(idGenerator.nextId(now.toEpochMilli()))
+                .timestamp(now)
                 .eventType(eventType)
                 .queueId(queueId)
                 .agentId(agentId)
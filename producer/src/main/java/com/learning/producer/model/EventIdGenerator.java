@@ -0,0 +1,22 @@
+package com.learning.producer.model;
+
+import java.util.UUID;
+
+/**
+ * Source of event IDs used by Event.create
+ * Implementations must be thread-safe; see Event.useIdGenerator.
+ */
+public interface EventIdGenerator {
+
+    /**
+     * Random UUIDv4 IDs (SecureRandom), the original scheme
+     */
+    EventIdGenerator RANDOM = timestampMillis -> UUID.randomUUID().toString();
+
+    /**
+     * @param timestampMillis event time in epoch millis; time-ordered generators
+     *                        embed it, others may ignore it
+     * @return a new unique ID
+     */
+    String nextId(long timestampMillis);
+}
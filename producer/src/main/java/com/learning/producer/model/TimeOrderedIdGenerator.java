@@ -0,0 +1,120 @@
+package com.learning.producer.model;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered 128-bit event IDs in the UUIDv7 layout
+ * <p>
+ * Bits, most significant first: 48-bit Unix millis, version 7, a 30-bit sequence
+ * (12 bits in rand_a, 18 bits after the variant) and a 44-bit node.
+ * Generator state lives in a fixed array of stripes (four per core), not per thread,
+ * so request-per-virtual-thread servers keep sequences running instead of starting a
+ * new state for every request. A thread always maps to the same stripe by its id and
+ * takes that stripe's monitor for a few field updates; SecureRandom is never touched.
+ * Each stripe's node is random in its high bits and the stripe index in its low bits,
+ * so stripes of one generator never share a node and IDs are unique within the
+ * process without relying on chance. IDs of one stripe, and therefore of one thread,
+ * are strictly increasing even when the clock steps back (the last millis is reused)
+ * or the sequence runs out within a millisecond (the millis is advanced). Across
+ * stripes IDs are ordered by millisecond.
+ * <p>
+ * The canonical lowercase string sorts in generation order, and the UUID form compares
+ * with two long comparisons. The binary poll codec still sends the ID as 16 raw bytes.
+ */
+public final class TimeOrderedIdGenerator implements EventIdGenerator {
+
+    public static final TimeOrderedIdGenerator INSTANCE = new TimeOrderedIdGenerator();
+
+    private static final int SEQUENCE_LOW_BITS = 18;
+    private static final long MAX_SEQUENCE = (1L << 30) - 1;
+    private static final long NODE_MASK = (1L << 44) - 1;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+
+    private final State[] stripes;
+    private final int stripeShift;
+
+    public TimeOrderedIdGenerator() {
+        this(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1);
+    }
+
+    /**
+     * @param stripeCount a power of two
+     */
+    TimeOrderedIdGenerator(int stripeCount) {
+        if (stripeCount < 2 || Integer.bitCount(stripeCount) != 1) {
+            throw new IllegalArgumentException("Stripe count must be a power of two of at least 2: " + stripeCount);
+        }
+        int stripeBits = Integer.numberOfTrailingZeros(stripeCount);
+        this.stripeShift = 64 - stripeBits;
+        this.stripes = new State[stripeCount];
+        for (int stripe = 0; stripe < stripeCount; stripe++) {
+            long random = ThreadLocalRandom.current().nextLong() & (NODE_MASK >>> stripeBits);
+            stripes[stripe] = new State((random << stripeBits) | stripe);
+        }
+    }
+
+    @Override
+    public String nextId(long timestampMillis) {
+        return next(timestampMillis).toString();
+    }
+
+    /**
+     * Next ID of the calling thread's stripe as a UUID
+     */
+    public UUID next(long timestampMillis) {
+        State state = stripes[stripeOf(Thread.currentThread())];
+        long millis;
+        long sequence;
+        synchronized (state) {
+            if (timestampMillis > state.lastMillis) {
+                state.lastMillis = timestampMillis;
+                state.sequence = 0;
+            } else if (++state.sequence > MAX_SEQUENCE) {
+                state.lastMillis++;
+                state.sequence = 0;
+            }
+            millis = state.lastMillis;
+            sequence = state.sequence;
+        }
+        long msb = (millis << 16) | VERSION | (sequence >>> SEQUENCE_LOW_BITS);
+        long lsb = VARIANT | ((sequence & ((1L << SEQUENCE_LOW_BITS) - 1)) << 44) | state.node;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Millis embedded in an ID produced by this generator
+     */
+    public static long timestampOf(UUID id) {
+        return id.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * Node embedded in an ID produced by this generator
+     */
+    static long nodeOf(UUID id) {
+        return id.getLeastSignificantBits() & NODE_MASK;
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Fibonacci hash of the thread id, so consecutive ids spread over the stripes
+     */
+    private int stripeOf(Thread thread) {
+        return (int) ((thread.threadId() * 0x9E3779B97F4A7C15L) >>> stripeShift);
+    }
+
+    private static final class State {
+        private final long node;
+        private long lastMillis = -1;
+        private long sequence;
+
+        private State(long node) {
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.learning.producer.repository;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wakes up parked pollers when new events are published
+ * Each waiter gets its own future, so a timed-out waiter can be dropped
+ * without touching the others and the append path only pays when someone waits.
+ */
+public class AppendNotifier {
+
+    private final Set<CompletableFuture<Void>> waiters = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Register a waiter for the next append
+     * Callers must re-check for data after registering to avoid missing a signal.
+     */
+    public CompletableFuture<Void> register() {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        return waiter;
+    }
+
+    /**
+     * Drop a waiter that is no longer interested (timed out or satisfied)
+     */
+    public void unregister(CompletableFuture<Void> waiter) {
+        waiters.remove(waiter);
+    }
+
+    /**
+     * Complete all current waiters; called after new events become visible
+     */
+    public void signal() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        for (CompletableFuture<Void> waiter : waiters) {
+            waiters.remove(waiter);
+            waiter.complete(null);
+        }
+    }
+
+    public int getWaiterCount() {
+        return waiters.size();
+    }
+}
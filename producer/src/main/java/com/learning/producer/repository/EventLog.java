@@ -0,0 +1,88 @@
+package com.learning.producer.repository;
+
+import com.learning.producer.model.Event;
+
+import java.io.Closeable;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Append-only storage engine behind EventRepository
+ * Events are addressed by 0-based offsets assigned in append order. Retention evicts
+ * from the head, so the readable range is [startOffset, endOffset); offsets are never
+ * reused or shifted.
+ * <p>
+ * Single-writer/multi-reader: callers serialize append and evict, while read and the
+ * offset/size accessors may run concurrently and only ever observe fully written events.
+ */
+public interface EventLog extends Closeable {
+
+    /**
+     * Append an event to the end of the log
+     *
+     * @return offset assigned to the event
+     */
+    long append(Event event);
+
+    /**
+     * Append a batch of events contiguously
+     *
+     * @return offset assigned to the first event of the batch
+     */
+    default long appendAll(List<Event> events) {
+        long first = -1;
+        for (Event event : events) {
+            long offset = append(event);
+            if (first < 0) {
+                first = offset;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Read events starting at an offset
+     *
+     * @param fromOffset first offset to return (inclusive)
+     * @param limit      maximum number of events to return
+     * @return events in offset order, empty if fromOffset is at or past the end or
+     * below startOffset (already evicted)
+     */
+    List<Event> read(long fromOffset, int limit);
+
+    /**
+     * Earliest offset still readable; equals endOffset when everything was evicted
+     */
+    long startOffset();
+
+    /**
+     * Offset the next appended event will get
+     */
+    long endOffset();
+
+    /**
+     * Bytes held by the retained events (heap estimate or file bytes, per implementation)
+     */
+    long retainedBytes();
+
+    /**
+     * Evict events from the head while the policy is exceeded
+     *
+     * @return number of events evicted
+     */
+    default long evict(RetentionPolicy policy, Instant now) {
+        return evict(policy, now, Long.MAX_VALUE);
+    }
+
+    /**
+     * Evict events from the head while the policy is exceeded, keeping events at or
+     * after holdFrom unless a count or byte limit forces them out (age alone never does)
+     *
+     * @param holdFrom first offset held back from age-based eviction
+     * @return number of events evicted
+     */
+    long evict(RetentionPolicy policy, Instant now, long holdFrom);
+
+    @Override
+    void close();
+}
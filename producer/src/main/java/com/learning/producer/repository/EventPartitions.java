@@ -0,0 +1,217 @@
+package com.learning.producer.repository;
+
+import com.learning.producer.model.Event;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hash-partitioned event store
+ * <p>
+ * Each partition is an EventRepository with its own log, append lock and offset
+ * space, so appends to different partitions never contend. Events are routed by
+ * queueId hash, which keeps every queue in one partition and therefore in order.
+ * Consumers track one cursor per partition. The partition count must stay the same
+ * for a given storage directory, otherwise queues move between partitions.
+ * <p>
+ * With a checkpoint directory (durable storage) the epoch survives restarts as long
+ * as no served event was lost (see StoreMetadata), and each partition restores its
+ * indexes from a checkpoint written by checkpoint() and on close. Without write-ahead
+ * logs that also requires a clean shutdown, recorded once close has forced the logs.
+ */
+@Slf4j
+public class EventPartitions implements AutoCloseable {
+
+    private final List<EventLog> logs;
+    private final List<WriteAheadLog> writeAheadLogs;
+    private final List<EventRepository> partitions;
+    private final StoreMetadata metadata;
+    private final Path checkpointDir;
+    private final String epoch;
+
+    /**
+     * Single in-memory partition without retention limits
+     */
+    public EventPartitions() {
+        this(List.of(new InMemoryEventLog()), RetentionPolicy.UNBOUNDED);
+    }
+
+    /**
+     * @param logs            one log per partition
+     * @param retentionPolicy limits for the whole store, split across partitions
+     */
+    public EventPartitions(List<EventLog> logs, RetentionPolicy retentionPolicy) {
+        this(logs, List.of(), retentionPolicy);
+    }
+
+    /**
+     * @param logs            one log per partition
+     * @param writeAheadLogs  one write-ahead log per partition, or empty for none
+     * @param retentionPolicy limits for the whole store, split across partitions
+     */
+    public EventPartitions(List<EventLog> logs, List<WriteAheadLog> writeAheadLogs, RetentionPolicy retentionPolicy) {
+        this(logs, writeAheadLogs, retentionPolicy, null);
+    }
+
+    /**
+     * @param checkpointDir directory for the store metadata and index checkpoints, null
+     *                      for storage that does not survive a restart (new epoch each start)
+     */
+    public EventPartitions(List<EventLog> logs, List<WriteAheadLog> writeAheadLogs, RetentionPolicy retentionPolicy,
+                           Path checkpointDir) {
+        if (logs.isEmpty()) {
+            throw new IllegalArgumentException("At least one partition is required");
+        }
+        if (!writeAheadLogs.isEmpty() && writeAheadLogs.size() != logs.size()) {
+            throw new IllegalArgumentException("Expected one write-ahead log per partition");
+        }
+        this.logs = List.copyOf(logs);
+        this.writeAheadLogs = List.copyOf(writeAheadLogs);
+        // Replay first: the epoch depends on how far each partition recovered
+        long[] recoveredEnds = new long[logs.size()];
+        for (int partition = 0; partition < logs.size(); partition++) {
+            if (!writeAheadLogs.isEmpty()) {
+                writeAheadLogs.get(partition).replay(logs.get(partition));
+            }
+            recoveredEnds[partition] = logs.get(partition).endOffset();
+        }
+        this.checkpointDir = checkpointDir;
+        this.metadata = checkpointDir == null ? null : new StoreMetadata(checkpointDir);
+        this.epoch = metadata == null
+                ? UUID.randomUUID().toString()
+                : metadata.resolveEpoch(recoveredEnds, !writeAheadLogs.isEmpty());
+
+        RetentionPolicy partitionPolicy = retentionPolicy.perPartition(logs.size());
+        List<EventRepository> repositories = new ArrayList<>(logs.size());
+        for (int partition = 0; partition < logs.size(); partition++) {
+            WriteAheadLog writeAheadLog = writeAheadLogs.isEmpty() ? null : writeAheadLogs.get(partition);
+            Path checkpointFile = checkpointDir == null ? null : checkpointDir.resolve("partition-" + partition + ".idx");
+            EventRepository repository = new EventRepository(logs.get(partition), partitionPolicy, epoch,
+                    writeAheadLog, checkpointFile);
+            if (checkpointFile != null) {
+                log.info("Partition {} recovered to offset {}: {} events indexed from checkpoint, {} scanned",
+                        partition, repository.getEndOffset(), repository.getRecoveredFromCheckpoint(),
+                        repository.getScannedOnStartup());
+            }
+            repositories.add(repository);
+        }
+        this.partitions = Collections.unmodifiableList(repositories);
+    }
+
+    public int count() {
+        return partitions.size();
+    }
+
+    /**
+     * Partition owning a queue; events without a queue go to partition 0
+     */
+    public int partitionFor(String queueId) {
+        if (queueId == null) {
+            return 0;
+        }
+        int hash = queueId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), partitions.size());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the partition does not exist
+     */
+    public EventRepository partition(int partition) {
+        if (partition < 0 || partition >= partitions.size()) {
+            throw new IllegalArgumentException("Unknown partition " + partition + ", partitions: " + partitions.size());
+        }
+        return partitions.get(partition);
+    }
+
+    public List<EventRepository> all() {
+        return partitions;
+    }
+
+    /**
+     * Append a batch, split by partition; each partition's share is contiguous
+     *
+     * @return offset of the first appended event per partition, in partition order
+     */
+    public Map<Integer, Long> addAll(List<Event> batch) {
+        Map<Integer, List<Event>> byPartition = new LinkedHashMap<>();
+        for (Event event : batch) {
+            byPartition.computeIfAbsent(partitionFor(event.getQueueId()), ignored -> new ArrayList<>()).add(event);
+        }
+        Map<Integer, Long> firstOffsets = new LinkedHashMap<>();
+        byPartition.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> firstOffsets.put(entry.getKey(), partitions.get(entry.getKey()).addAll(entry.getValue())));
+        return firstOffsets;
+    }
+
+    /**
+     * Evict from every partition (see EventRepository.enforceRetention)
+     */
+    public void enforceRetention() {
+        partitions.forEach(EventRepository::enforceRetention);
+    }
+
+    /**
+     * Write every partition's index checkpoint and the high-water offsets (no-op for
+     * storage without a checkpoint directory)
+     */
+    public void checkpoint() {
+        if (metadata == null) {
+            return;
+        }
+        for (int partition = 0; partition < partitions.size(); partition++) {
+            try {
+                partitions.get(partition).checkpoint();
+            } catch (IOException e) {
+                log.warn("Failed to checkpoint the indexes of partition {}", partition, e);
+            }
+        }
+        saveMetadata(endOffsets(), false);
+    }
+
+    private long[] endOffsets() {
+        return partitions.stream().mapToLong(EventRepository::getEndOffset).toArray();
+    }
+
+    private void saveMetadata(long[] endOffsets, boolean clean) {
+        try {
+            metadata.save(epoch, endOffsets, clean);
+        } catch (IOException e) {
+            log.warn("Failed to save the event store metadata", e);
+        }
+    }
+
+    /**
+     * Epoch shared by all partitions
+     */
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Directory of the store metadata and checkpoints, null if the store does not
+     * survive a restart
+     */
+    public Path getCheckpointDir() {
+        return checkpointDir;
+    }
+
+    @Override
+    public void close() {
+        checkpoint();
+        long[] endOffsets = endOffsets();
+        writeAheadLogs.forEach(WriteAheadLog::close);
+        logs.forEach(EventLog::close);
+        if (metadata != null) {
+            // The logs are forced now, so nothing served can be lost before the next start
+            saveMetadata(endOffsets, true);
+        }
+    }
+}
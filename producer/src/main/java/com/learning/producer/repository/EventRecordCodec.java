@@ -0,0 +1,118 @@
+package com.learning.producer.repository;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Binary encoding of a single event for segment files
+ * <p>
+ * Layout: timestamp (seconds + nanos), event type ordinal, then eventId, queueId,
+ * agentId, interactionId as length-prefixed UTF-8 and the payload as JSON bytes.
+ * A length of -1 encodes null.
+ */
+public final class EventRecordCodec {
+
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+    private static final TypeReference<Map<String, Object>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private EventRecordCodec() {
+    }
+
+    public static byte[] encode(Event event) {
+        byte[] eventId = utf8(event.getEventId());
+        byte[] queueId = utf8(event.getQueueId());
+        byte[] agentId = utf8(event.getAgentId());
+        byte[] interactionId = utf8(event.getInteractionId());
+        byte[] payload = event.getPayload() == null ? null : JSON.writeValueAsBytes(event.getPayload());
+
+        int size = Long.BYTES + Integer.BYTES + Byte.BYTES
+                + sizeOf(eventId) + sizeOf(queueId) + sizeOf(agentId) + sizeOf(interactionId) + sizeOf(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+
+        Instant timestamp = event.getTimestamp();
+        buffer.putLong(timestamp == null ? NO_TIMESTAMP : timestamp.getEpochSecond());
+        buffer.putInt(timestamp == null ? 0 : timestamp.getNano());
+        buffer.put(event.getEventType() == null ? -1 : (byte) event.getEventType().ordinal());
+        putBytes(buffer, eventId);
+        putBytes(buffer, queueId);
+        putBytes(buffer, agentId);
+        putBytes(buffer, interactionId);
+        putBytes(buffer, payload);
+        return buffer.array();
+    }
+
+    /**
+     * Decode an event from the buffer's current position, consuming exactly one record body
+     */
+    public static Event decode(ByteBuffer buffer) {
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        byte type = buffer.get();
+        String eventId = getString(buffer);
+        String queueId = getString(buffer);
+        String agentId = getString(buffer);
+        String interactionId = getString(buffer);
+        byte[] payload = getBytes(buffer);
+
+        return Event.builder()
+                .eventId(eventId)
+                .timestamp(seconds == NO_TIMESTAMP ? null : Instant.ofEpochSecond(seconds, nanos))
+                .eventType(type < 0 ? null : EventType.values()[type])
+                .queueId(queueId)
+                .agentId(agentId)
+                .interactionId(interactionId)
+                .payload(payload == null ? null : JSON.readValue(payload, PAYLOAD_TYPE))
+                .build();
+    }
+
+    /**
+     * Timestamp of an encoded record body starting at position, without decoding the rest
+     *
+     * @return the timestamp, or null if the event has none
+     */
+    public static Instant readTimestamp(ByteBuffer buffer, int position) {
+        long seconds = buffer.getLong(position);
+        return seconds == NO_TIMESTAMP ? null : Instant.ofEpochSecond(seconds, buffer.getInt(position + Long.BYTES));
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] bytes) {
+        return Integer.BYTES + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = getBytes(buffer);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,48 +1,428 @@
 package com.learning.producer.repository;
 
 import com.learning.producer.model.Event;
-import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.UUID;
 
 /**
- * In-memory event repository for Phase 1
- * Stores events in a simple list with cursor support
+ * Event repository with cursor support: one partition of the event store
+ * Delegates storage to an EventLog (in-memory pages or segmented log files) and owns
+ * its offset space; EventPartitions routes each queue to one repository.
+ * Only appends and eviction are serialized; polls read the log without locking, so
+ * a consumer poll never blocks ingest.
+ * <p>
+ * The retention policy is enforced after every append and by RetentionScheduler.
+ * Offsets are 64-bit and assigned once: eviction never renumbers events, and
+ * cursors below the start offset are reported as expired instead of being served
+ * different events.
+ * <p>
+ * A sparse TimeIndex sampled on append maps timestamps to offsets (see findOffset),
+ * so replays from a point in time never scan the whole log. A QueueIndex keeps each
+ * queue's offsets, so queue-filtered reads touch only matching events.
+ * <p>
+ * With a WriteAheadLog every append is logged under the append lock and acknowledged
+ * only once its group commit is durable; readers see events up to the durable end, so
+ * nothing served to a consumer can be lost by a crash. On startup the write-ahead log
+ * must already be replayed into the event log (EventPartitions does so before it
+ * resolves the epoch), so the indexes cover the recovered events.
+ * <p>
+ * Indexes for events already in the log at startup come from an IndexCheckpoint when
+ * one matches the log (see checkpoint), so only the events appended after it are
+ * scanned; without one the whole retained log is scanned once.
+ * <p>
+ * A retention hold (see setRetentionHold) keeps events consumer groups have not yet
+ * committed from expiring by age; count and byte limits still evict them, and such
+ * evictions are counted as evicted-unconsumed.
  */
-@Repository
 public class EventRepository {
 
-    private final List<Event> events = new ArrayList<>();
+    private static final int SCAN_BATCH = 256;
+
+    private final EventLog eventLog;
+    private final RetentionPolicy retentionPolicy;
+    private final AppendNotifier appendNotifier = new AppendNotifier();
+    private final TimeIndex timeIndex;
+    private final QueueIndex queueIndex;
     private final AtomicLong eventCounter = new AtomicLong(0);
-    private final String epoch = UUID.randomUUID().toString();
+    private final AtomicLong evictedEvents = new AtomicLong(0);
+    private final AtomicLong evictedBytes = new AtomicLong(0);
+    private final AtomicLong evictedUnconsumed = new AtomicLong(0);
+    private volatile long retentionHold = Long.MAX_VALUE;
+    private final String epoch;
+    private final WriteAheadLog writeAheadLog;
+    private final Path checkpointFile;
+    private long recoveredFromCheckpoint;
+    private long scannedOnStartup;
+
+    /**
+     * Repository backed by the in-memory log, without retention limits
+     */
+    public EventRepository() {
+        this(new InMemoryEventLog());
+    }
+
+    public EventRepository(EventLog eventLog) {
+        this(eventLog, RetentionPolicy.UNBOUNDED);
+    }
+
+    public EventRepository(EventLog eventLog, RetentionPolicy retentionPolicy) {
+        this(eventLog, retentionPolicy, UUID.randomUUID().toString());
+    }
 
     /**
-     * Add a new event to the store
+     * @param epoch epoch shared by all partitions of the store
      */
-    public synchronized Event add(Event event) {
-        events.add(event);
-        eventCounter.incrementAndGet();
+    public EventRepository(EventLog eventLog, RetentionPolicy retentionPolicy, String epoch) {
+        this(eventLog, retentionPolicy, epoch, null);
+    }
+
+    /**
+     * @param writeAheadLog durability log for the event log, null for none; already
+     *                      replayed into the event log (see WriteAheadLog.replay)
+     */
+    public EventRepository(EventLog eventLog, RetentionPolicy retentionPolicy, String epoch,
+                           WriteAheadLog writeAheadLog) {
+        this(eventLog, retentionPolicy, epoch, writeAheadLog, null);
+    }
+
+    /**
+     * @param checkpointFile index checkpoint to restore from and write to (see checkpoint),
+     *                       null for none
+     */
+    public EventRepository(EventLog eventLog, RetentionPolicy retentionPolicy, String epoch,
+                           WriteAheadLog writeAheadLog, Path checkpointFile) {
+        this.eventLog = eventLog;
+        this.retentionPolicy = retentionPolicy;
+        this.epoch = epoch;
+        this.writeAheadLog = writeAheadLog;
+        this.checkpointFile = checkpointFile;
+        IndexCheckpoint checkpoint = checkpointFile == null ? null : IndexCheckpoint.read(checkpointFile);
+        long start = eventLog.startOffset();
+        if (checkpoint != null && checkpoint.epoch.equals(epoch)
+                && checkpoint.endOffset >= start && checkpoint.endOffset <= eventLog.endOffset()) {
+            this.timeIndex = TimeIndex.restore(TimeIndex.DEFAULT_INTERVAL, checkpoint.timeIndex);
+            this.queueIndex = new QueueIndex(checkpoint.endOffset);
+            checkpoint.postings.forEach((queueId, offsets) -> queueIndex.restore(queueId, offsets, offsets.length));
+            recoveredFromCheckpoint = checkpoint.endOffset - start;
+            indexRecoveredEvents(checkpoint.endOffset);
+        } else {
+            this.timeIndex = new TimeIndex(TimeIndex.DEFAULT_INTERVAL);
+            this.queueIndex = new QueueIndex(start);
+            indexRecoveredEvents(start);
+        }
+    }
+
+    /**
+     * Index the events already in the log from an offset on (recovered segments or
+     * replayed write-ahead log records after the checkpoint)
+     * One sequential pass at startup; afterwards the indexes are maintained on append.
+     */
+    private void indexRecoveredEvents(long from) {
+        long start = eventLog.startOffset();
+        long end = eventLog.endOffset();
+        long offset = from;
+        while (offset < end) {
+            List<Event> batch = eventLog.read(offset, SCAN_BATCH);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (Event event : batch) {
+                timeIndex.onAppend(offset, event.getTimestamp(), start);
+                queueIndex.onAppend(offset++, event.getQueueId(), start);
+            }
+        }
+        scannedOnStartup = offset - from;
+        queueIndex.publish(offset);
+    }
+
+    /**
+     * Write the indexes to the checkpoint file, if there is one
+     * The index state is captured under the append lock (references only) and written
+     * outside it, so appends are blocked for O(queues), not O(events). Events appended
+     * after the checkpoint are re-indexed from the log on the next start.
+     */
+    public void checkpoint() throws IOException {
+        if (checkpointFile == null) {
+            return;
+        }
+        long endOffset;
+        long startOffset;
+        TimeIndex.State timeState;
+        Map<String, QueueIndex.Postings> postings;
+        synchronized (this) {
+            endOffset = queueIndex.indexedEnd();
+            startOffset = eventLog.startOffset();
+            timeState = timeIndex.state();
+            postings = queueIndex.snapshot();
+        }
+        IndexCheckpoint.write(checkpointFile, epoch, endOffset, timeState, postings, startOffset);
+    }
+
+    /**
+     * Add a new event to the store (appends are serialized on this repository's monitor)
+     */
+    public Event add(Event event) {
+        append(event);
         return event;
     }
 
     /**
-     * Get all events after a given index (cursor)
+     * Add a new event and return the offset it was stored at
+     */
+    public long append(Event event) {
+        // Encode outside the lock; only the submit has to follow offset order
+        byte[] record = writeAheadLog == null ? null : EventRecordCodec.encode(event);
+        long offset;
+        synchronized (this) {
+            offset = eventLog.append(event);
+            if (record != null) {
+                writeAheadLog.submit(offset, record);
+            }
+            long startOffset = eventLog.startOffset();
+            timeIndex.onAppend(offset, event.getTimestamp(), startOffset);
+            queueIndex.onAppend(offset, event.getQueueId(), startOffset);
+            queueIndex.publish(offset + 1);
+            eventCounter.incrementAndGet();
+            evict();
+        }
+        awaitDurable(offset + 1);
+        appendNotifier.signal();
+        return offset;
+    }
+
+    /**
+     * Add a batch of events contiguously with a single lock acquisition
+     *
+     * @return offset of the first event in the batch
+     */
+    public long addAll(List<Event> batch) {
+        List<byte[]> records = writeAheadLog == null ? null : batch.stream().map(EventRecordCodec::encode).toList();
+        long firstOffset;
+        synchronized (this) {
+            firstOffset = eventLog.appendAll(batch);
+            long startOffset = eventLog.startOffset();
+            for (int i = 0; i < batch.size(); i++) {
+                Event event = batch.get(i);
+                if (records != null) {
+                    writeAheadLog.submit(firstOffset + i, records.get(i));
+                }
+                timeIndex.onAppend(firstOffset + i, event.getTimestamp(), startOffset);
+                queueIndex.onAppend(firstOffset + i, event.getQueueId(), startOffset);
+            }
+            queueIndex.publish(firstOffset + batch.size());
+            eventCounter.addAndGet(batch.size());
+            evict();
+        }
+        awaitDurable(firstOffset + batch.size());
+        appendNotifier.signal();
+        return firstOffset;
+    }
+
+    private void awaitDurable(long endOffset) {
+        if (writeAheadLog != null) {
+            writeAheadLog.awaitDurable(endOffset);
+        }
+    }
+
+    /**
+     * End of the events readers may see: the durable end with a write-ahead log
+     */
+    private long readableEnd() {
+        return writeAheadLog == null ? eventLog.endOffset() : writeAheadLog.durableEnd();
+    }
+
+    /**
+     * Evict events outside the retention policy (also applies age limits while idle)
+     */
+    public synchronized void enforceRetention() {
+        evict();
+        queueIndex.prune(eventLog.startOffset());
+        if (writeAheadLog != null) {
+            writeAheadLog.truncateBefore(eventLog.startOffset());
+        }
+    }
+
+    private void evict() {
+        if (retentionPolicy.isUnbounded()) {
+            return;
+        }
+        long bytesBefore = eventLog.retainedBytes();
+        long startBefore = eventLog.startOffset();
+        long hold = retentionHold;
+        long evicted = eventLog.evict(retentionPolicy, Instant.now(), hold);
+        if (evicted > 0) {
+            evictedEvents.addAndGet(evicted);
+            evictedBytes.addAndGet(bytesBefore - eventLog.retainedBytes());
+            long unconsumed = eventLog.startOffset() - Math.max(startBefore, hold);
+            if (unconsumed > 0) {
+                evictedUnconsumed.addAndGet(unconsumed);
+            }
+        }
+    }
+
+    /**
+     * Hold events from the given offset on back from age-based eviction
+     * Set by ConsumerGroupRegistry to the offset after the slowest group's commit;
+     * Long.MAX_VALUE (the default) holds nothing.
+     */
+    public void setRetentionHold(long fromOffset) {
+        retentionHold = fromOffset;
+    }
+
+    public long getRetentionHold() {
+        return retentionHold;
+    }
+
+    /**
+     * Get all events after a given offset (cursor)
+     *
+     * @param afterOffset 0-based offset, fetch events after this offset (-1 for the start)
+     * @param limit       maximum number of events to return
+     * @return list of events, empty if the cursor has expired (see isExpired)
+     */
+    public List<Event> getAfter(long afterOffset, int limit) {
+        if (writeAheadLog != null) {
+            long readable = readableEnd() - (afterOffset + 1);
+            if (readable <= 0) {
+                return new ArrayList<>();
+            }
+            limit = (int) Math.min(limit, readable);
+        }
+        return eventLog.read(afterOffset + 1, limit);
+    }
+
+    /**
+     * Get events of the given queues after a cursor, using the per-queue index
+     * Only matching events are read from the log. If fewer than limit match, the cursor
+     * advances to the end of the indexed range so non-matching events are never
+     * revisited; otherwise it stops at the last returned event.
      *
-     * @param afterIndex 0-based index, fetch events after this index
-     * @param limit      maximum number of events to return
-     * @return list of events
+     * @param afterOffset cursor offset, fetch matching events after it (-1 for the start)
+     * @param limit       maximum number of events to return
+     * @param queueIds    queues to include
      */
-    public synchronized List<Event> getAfter(int afterIndex, int limit) {
-        int startIdx = afterIndex + 1;
-        if (startIdx >= events.size()) {
-            return new ArrayList<>();
+    public FilteredPage getAfter(long afterOffset, int limit, Collection<String> queueIds) {
+        long horizon = Math.min(queueIndex.indexedEnd(), readableEnd());
+        long from = Math.max(afterOffset + 1, eventLog.startOffset());
+        long[] offsets = queueIndex.select(queueIds, from, horizon, limit);
+        int matched = Math.min(offsets.length, limit);
+
+        List<Event> events = new ArrayList<>(matched);
+        int i = 0;
+        while (i < matched) {
+            // Read runs of adjacent offsets with one call
+            int runEnd = i + 1;
+            while (runEnd < matched && offsets[runEnd] == offsets[runEnd - 1] + 1) {
+                runEnd++;
+            }
+            List<Event> run = eventLog.read(offsets[i], runEnd - i);
+            events.addAll(run);
+            if (run.size() < runEnd - i) {
+                // Evicted while reading: stop here so the next poll reports the expired cursor
+                long last = events.isEmpty() ? afterOffset : offsets[events.size() - 1];
+                return new FilteredPage(events, last, true);
+            }
+            i = runEnd;
+        }
+        if (offsets.length > limit) {
+            return new FilteredPage(events, offsets[limit - 1], true);
         }
+        return new FilteredPage(events, Math.max(afterOffset, horizon - 1), false);
+    }
 
-        int endIdx = Math.min(startIdx + limit, events.size());
-        return new ArrayList<>(events.subList(startIdx, endIdx));
+    /**
+     * Offset of the first retained event stamped at or after the given time
+     * Binary-searches the time index, then scans at most one sample interval. Offsets
+     * the index does not cover (recovered from disk before this process started) are
+     * binary-searched in the log directly. Timestamps are assumed to follow append
+     * order, so with clock steps the result is the first event after the last one
+     * known to be older.
+     *
+     * @return the offset, or the end offset if every retained event is older
+     */
+    public long findOffset(Instant time) {
+        long start = eventLog.startOffset();
+        long end = readableEnd();
+        long sampled = timeIndex.lastOffsetBefore(time);
+        long from = Math.max(start, sampled + 1);
+        long covered = Math.min(end, timeIndex.firstOffset());
+        if (from < covered) {
+            from = searchLog(time, from, covered);
+            if (from < covered) {
+                return from;
+            }
+        }
+        return scanFrom(time, from, end);
+    }
+
+    /**
+     * Binary search for the first offset in [low, high) stamped at or after time
+     */
+    private long searchLog(Instant time, long low, long high) {
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            List<Event> probe = eventLog.read(mid, 1);
+            if (probe.isEmpty() || isBefore(probe.get(0), time)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private long scanFrom(Instant time, long from, long end) {
+        long offset = from;
+        while (offset < end) {
+            List<Event> batch = eventLog.read(offset, SCAN_BATCH);
+            if (batch.isEmpty()) {
+                // Evicted under us: nothing older than the new start is left
+                offset = Math.max(offset + 1, eventLog.startOffset());
+                continue;
+            }
+            for (Event event : batch) {
+                if (!isBefore(event, time)) {
+                    return offset;
+                }
+                offset++;
+            }
+        }
+        return offset;
+    }
+
+    private static boolean isBefore(Event event, Instant time) {
+        return event.getTimestamp() == null || event.getTimestamp().isBefore(time);
+    }
+
+    /**
+     * Future that completes once an event exists after the given offset
+     * Already complete if such an event is stored; otherwise completes on the next
+     * append. Pass the future to cancelAwait when giving up on it (e.g. on timeout).
+     */
+    public CompletableFuture<Void> awaitAfter(long afterOffset) {
+        CompletableFuture<Void> waiter = appendNotifier.register();
+        // Re-check after registering so an append racing with registration is not missed
+        if (readableEnd() - 1 > afterOffset) {
+            appendNotifier.unregister(waiter);
+            waiter.complete(null);
+        }
+        return waiter;
+    }
+
+    /**
+     * Release a waiter obtained from awaitAfter
+     */
+    public void cancelAwait(CompletableFuture<Void> waiter) {
+        appendNotifier.unregister(waiter);
     }
 
     /**
@@ -53,10 +433,84 @@ public class EventRepository {
     }
 
     /**
-     * Get current size of event list
+     * Offset the next event will get, i.e. the number of events ever stored
+     * (evicted events included); with a write-ahead log, the end of the durable events
+     */
+    public long getEndOffset() {
+        return readableEnd();
+    }
+
+    /**
+     * Offset of the earliest event still retained
+     */
+    public long getStartOffset() {
+        return eventLog.startOffset();
+    }
+
+    /**
+     * Whether events right after the cursor have already been evicted
+     */
+    public boolean isExpired(long afterOffset) {
+        return afterOffset + 1 < eventLog.startOffset();
+    }
+
+    /**
+     * Number of events currently retained
+     */
+    public long getRetainedCount() {
+        long start = eventLog.startOffset();
+        return Math.max(0, readableEnd() - start);
+    }
+
+    /**
+     * Bytes held by retained events (heap estimate for memory storage, file bytes for segmented)
+     */
+    public long getRetainedBytes() {
+        return eventLog.retainedBytes();
+    }
+
+    public long getEvictedEvents() {
+        return evictedEvents.get();
+    }
+
+    public long getEvictedBytes() {
+        return evictedBytes.get();
+    }
+
+    /**
+     * Events evicted by a count or byte limit before every consumer group committed them
+     */
+    public long getEvictedUnconsumed() {
+        return evictedUnconsumed.get();
+    }
+
+    /**
+     * Events whose indexes were restored from the checkpoint at startup
+     */
+    public long getRecoveredFromCheckpoint() {
+        return recoveredFromCheckpoint;
+    }
+
+    /**
+     * Events read from the log to build the indexes at startup (the tail after the
+     * checkpoint, or the whole retained log without one)
+     */
+    public long getScannedOnStartup() {
+        return scannedOnStartup;
+    }
+
+    /**
+     * Group commits (fsyncs) of the write-ahead log, 0 without one
+     */
+    public long getWalFlushes() {
+        return writeAheadLog == null ? 0 : writeAheadLog.getFlushes();
+    }
+
+    /**
+     * Events made durable by the write-ahead log, 0 without one
      */
-    public int getSize() {
-        return events.size();
+    public long getWalSyncedEvents() {
+        return writeAheadLog == null ? 0 : writeAheadLog.getSyncedRecords();
     }
 
     /**
@@ -0,0 +1,68 @@
+package com.learning.producer.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Rough heap footprint of a StoredEvent, used for the in-memory retention byte budget
+ * Assumes a 64-bit JVM with compressed oops and compact (Latin-1) strings; it is
+ * meant for sizing the heap, not for exact accounting. Interned queueId/agentId
+ * strings are shared by all events and not counted per event.
+ */
+final class EventSizeEstimator {
+
+    private static final int SLOT_BYTES = 4;
+    private static final int STORED_EVENT_BYTES = 40;
+    private static final int INSTANT_BYTES = 24;
+    private static final int STRING_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int MAP_BYTES = 48;
+    private static final int MAP_ENTRY_BYTES = 32;
+    private static final int BOXED_BYTES = 16;
+
+    private EventSizeEstimator() {
+    }
+
+    static long estimate(StoredEvent event) {
+        long bytes = SLOT_BYTES + STORED_EVENT_BYTES;
+        if (event.timestamp != null) {
+            bytes += INSTANT_BYTES;
+        }
+        bytes += string(event.eventId);
+        bytes += string(event.interactionId);
+        bytes += value(event.payload);
+        return bytes;
+    }
+
+    private static long string(String value) {
+        return value == null ? 0 : STRING_BYTES + align(ARRAY_HEADER_BYTES + value.length());
+    }
+
+    private static long value(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String string) {
+            return string(string);
+        }
+        if (value instanceof Map<?, ?> map) {
+            long bytes = MAP_BYTES + align(ARRAY_HEADER_BYTES + 4L * map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                bytes += MAP_ENTRY_BYTES + value(entry.getKey()) + value(entry.getValue());
+            }
+            return bytes;
+        }
+        if (value instanceof Collection<?> collection) {
+            long bytes = MAP_BYTES + align(ARRAY_HEADER_BYTES + 4L * collection.size());
+            for (Object element : collection) {
+                bytes += value(element);
+            }
+            return bytes;
+        }
+        return BOXED_BYTES;
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+}
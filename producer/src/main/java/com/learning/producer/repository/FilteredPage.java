@@ -0,0 +1,29 @@
+package com.learning.producer.repository;
+
+import com.learning.producer.model.Event;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Result of a queue-filtered read
+ */
+@Value
+public class FilteredPage {
+
+    /**
+     * Matching events in offset order
+     */
+    List<Event> events;
+
+    /**
+     * Cursor to continue from: every matching event up to it has been returned, so
+     * non-matching events are skipped instead of being scanned again
+     */
+    long nextCursor;
+
+    /**
+     * Whether more matching events exist after nextCursor
+     */
+    boolean hasMore;
+}
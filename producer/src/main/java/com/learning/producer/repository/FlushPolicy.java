@@ -0,0 +1,32 @@
+package com.learning.producer.repository;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * When the write-ahead log flusher writes and fsyncs a group of pending records
+ * A group is flushed once it reaches maxBatchBytes or its oldest record has waited
+ * maxLatency, whichever comes first. A zero latency flushes as soon as the previous
+ * fsync returns; records arriving during an fsync still share the next one.
+ */
+@Value
+@Builder
+public class FlushPolicy {
+
+    public static final FlushPolicy IMMEDIATE = FlushPolicy.builder()
+            .maxLatency(Duration.ZERO)
+            .maxBatchBytes(1 << 20)
+            .build();
+
+    /**
+     * Longest time a record waits for more records to share its fsync
+     */
+    Duration maxLatency;
+
+    /**
+     * Pending bytes that trigger a flush without waiting for maxLatency
+     */
+    int maxBatchBytes;
+}
@@ -0,0 +1,220 @@
+package com.learning.producer.repository;
+
+import com.learning.producer.model.Event;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Heap-backed event log (default storage)
+ * <p>
+ * Events live in pre-sized pages indexed by offset, as compact StoredEvents whose
+ * queueId and agentId are SymbolTable codes; reads rebuild Events that share the
+ * dictionary strings. The single writer fills the slot
+ * first and then publishes the new head through a volatile write, so readers never
+ * take a lock: anything below the head they read is fully written and never moves.
+ * <p>
+ * Eviction advances the start offset first and then clears slots, dropping whole pages
+ * once they are empty; the page directory is rebased on growth so it only spans live
+ * pages. A reader racing with eviction stops at the first cleared slot, so it returns
+ * a contiguous (possibly shorter) run of events.
+ */
+public class InMemoryEventLog implements EventLog {
+
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int MIN_DIRECTORY_PAGES = 16;
+
+    private final SymbolTable symbols = new SymbolTable();
+    private volatile Directory directory;
+    private volatile long start;
+    private volatile long head;
+    private volatile long retainedBytes;
+
+    public InMemoryEventLog() {
+        this(0);
+    }
+
+    /**
+     * Empty log whose first event gets startOffset (e.g. rebuilt from a write-ahead log
+     * whose older files were deleted by retention)
+     */
+    public InMemoryEventLog(long startOffset) {
+        this.directory = new Directory(startOffset >>> PAGE_SHIFT, new StoredEvent[MIN_DIRECTORY_PAGES][]);
+        this.start = startOffset;
+        this.head = startOffset;
+    }
+
+    @Override
+    public long append(Event event) {
+        long offset = head;
+        store(offset, event);
+        head = offset + 1;
+        return offset;
+    }
+
+    /**
+     * Fill all slots first and publish the batch with a single head update
+     */
+    @Override
+    public long appendAll(List<Event> events) {
+        long first = head;
+        long offset = first;
+        for (Event event : events) {
+            store(offset++, event);
+        }
+        head = offset;
+        return first;
+    }
+
+    @Override
+    public List<Event> read(long fromOffset, int limit) {
+        long end = head;
+        long from = Math.max(0, fromOffset);
+        if (from >= end || from < start) {
+            return new ArrayList<>();
+        }
+        int count = (int) Math.min(limit, end - from);
+        Directory snapshot = directory;
+        List<Event> result = new ArrayList<>(count);
+        for (long offset = from; offset < from + count; offset++) {
+            StoredEvent event = snapshot.get(offset);
+            if (event == null) {
+                break; // evicted concurrently
+            }
+            result.add(event.toEvent(symbols));
+        }
+        return result;
+    }
+
+    @Override
+    public long startOffset() {
+        return start;
+    }
+
+    @Override
+    public long endOffset() {
+        return head;
+    }
+
+    @Override
+    public long retainedBytes() {
+        return retainedBytes;
+    }
+
+    @Override
+    public long evict(RetentionPolicy policy, Instant now, long holdFrom) {
+        long end = head;
+        long from = start;
+        long bytes = retainedBytes;
+        Directory snapshot = directory;
+        long to = from;
+        while (to < end) {
+            StoredEvent oldest = snapshot.get(to);
+            if (!policy.exceedsCount(end - to) && !policy.exceedsBytes(bytes)
+                    && (to >= holdFrom || !policy.isExpired(oldest.timestamp, now))) {
+                break;
+            }
+            bytes -= EventSizeEstimator.estimate(oldest);
+            to++;
+        }
+        if (to == from) {
+            return 0;
+        }
+        start = to;
+        retainedBytes = bytes;
+        for (long offset = from; offset < to; offset++) {
+            snapshot.clear(offset);
+        }
+        return to - from;
+    }
+
+    private void store(long offset, Event event) {
+        Directory current = directory;
+        if (!current.covers(offset)) {
+            current = current.rebase(start >>> PAGE_SHIFT, offset >>> PAGE_SHIFT);
+            directory = current;
+        }
+        StoredEvent stored = StoredEvent.of(event, symbols);
+        current.put(offset, stored);
+        retainedBytes += EventSizeEstimator.estimate(stored);
+    }
+
+    /**
+     * Number of distinct queueId/agentId values interned
+     */
+    int symbolCount() {
+        return symbols.size();
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+
+    /**
+     * Page table covering pages [firstPage, firstPage + pages.length)
+     */
+    private static final class Directory {
+
+        private final long firstPage;
+        private final StoredEvent[][] pages;
+
+        private Directory(long firstPage, StoredEvent[][] pages) {
+            this.firstPage = firstPage;
+            this.pages = pages;
+        }
+
+        boolean covers(long offset) {
+            return (offset >>> PAGE_SHIFT) - firstPage < pages.length;
+        }
+
+        StoredEvent get(long offset) {
+            long index = (offset >>> PAGE_SHIFT) - firstPage;
+            if (index < 0) {
+                return null;
+            }
+            StoredEvent[] page = pages[(int) index];
+            return page == null ? null : page[(int) (offset & PAGE_MASK)];
+        }
+
+        void put(long offset, StoredEvent event) {
+            int index = (int) ((offset >>> PAGE_SHIFT) - firstPage);
+            if (pages[index] == null) {
+                pages[index] = new StoredEvent[PAGE_SIZE];
+            }
+            pages[index][(int) (offset & PAGE_MASK)] = event;
+        }
+
+        /**
+         * Clear an evicted slot, dropping the page once its last slot is cleared
+         */
+        void clear(long offset) {
+            int index = (int) ((offset >>> PAGE_SHIFT) - firstPage);
+            if (index < 0 || pages[index] == null) {
+                return;
+            }
+            if ((offset & PAGE_MASK) == PAGE_MASK) {
+                pages[index] = null;
+            } else {
+                pages[index][(int) (offset & PAGE_MASK)] = null;
+            }
+        }
+
+        /**
+         * New directory starting at the first live page and large enough for lastPage
+         */
+        Directory rebase(long newFirstPage, long lastPage) {
+            int live = (int) (lastPage - newFirstPage + 1);
+            StoredEvent[][] copy = new StoredEvent[Math.max(MIN_DIRECTORY_PAGES, Integer.highestOneBit(live) * 2)][];
+            for (long page = newFirstPage; page < firstPage + pages.length; page++) {
+                if (page >= firstPage) {
+                    copy[(int) (page - newFirstPage)] = pages[(int) (page - firstPage)];
+                }
+            }
+            return new Directory(newFirstPage, copy);
+        }
+    }
+}
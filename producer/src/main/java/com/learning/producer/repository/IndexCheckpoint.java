@@ -0,0 +1,164 @@
+package com.learning.producer.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * On-disk snapshot of one partition's TimeIndex and QueueIndex
+ * <p>
+ * Covers every offset below endOffset, so a restart restores it and indexes only
+ * the events appended after it (the tail) instead of scanning the whole log.
+ * Posting entries below the log's start offset at checkpoint time are left out.
+ * <p>
+ * Layout: magic, version, epoch, endOffset, the time index state, then each queue
+ * as (queueId, count, offsets delta-encoded), and a trailing CRC32C of everything
+ * before it. Written to a temporary file and renamed, so a crash leaves either the
+ * previous or the new checkpoint.
+ */
+@Slf4j
+final class IndexCheckpoint {
+
+    private static final int MAGIC = 0x45504958; // "EPIX"
+    private static final int VERSION = 1;
+
+    final String epoch;
+    final long endOffset;
+    final TimeIndex.State timeIndex;
+    final Map<String, long[]> postings;
+
+    private IndexCheckpoint(String epoch, long endOffset, TimeIndex.State timeIndex, Map<String, long[]> postings) {
+        this.epoch = epoch;
+        this.endOffset = endOffset;
+        this.timeIndex = timeIndex;
+        this.postings = postings;
+    }
+
+    /**
+     * @param startOffset posting entries below it are not written
+     */
+    static void write(Path file, String epoch, long endOffset, TimeIndex.State timeIndex,
+                      Map<String, QueueIndex.Postings> postings, long startOffset) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32C crc = new CRC32C();
+        try (OutputStream fileOut = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(fileOut), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(epoch);
+            out.writeLong(endOffset);
+
+            out.writeLong(timeIndex.maxTime());
+            out.writeLong(timeIndex.lastSampled());
+            out.writeInt(timeIndex.count());
+            for (int i = 0; i < timeIndex.count(); i++) {
+                out.writeLong(timeIndex.offsets()[i]);
+                out.writeLong(timeIndex.times()[i]);
+            }
+
+            out.writeInt(postings.size());
+            for (Map.Entry<String, QueueIndex.Postings> entry : postings.entrySet()) {
+                QueueIndex.Postings list = entry.getValue();
+                int from = list.ceilingIndex(startOffset);
+                out.writeUTF(entry.getKey());
+                out.writeInt(list.count - from);
+                long previous = 0;
+                for (int i = from; i < list.count; i++) {
+                    writeVarLong(out, list.offsets[i] - previous);
+                    previous = list.offsets[i];
+                }
+            }
+            out.flush();
+            // The checksum itself is written past the checked stream
+            new DataOutputStream(fileOut).writeInt((int) crc.getValue());
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the checkpoint, or null if the file is missing, corrupt or of another version
+     */
+    static IndexCheckpoint read(Path file) {
+        CRC32C crc = new CRC32C();
+        try (InputStream fileIn = new BufferedInputStream(Files.newInputStream(file));
+             DataInputStream in = new DataInputStream(new CheckedInputStream(fileIn, crc))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                log.warn("Ignoring index checkpoint {} of an unknown format", file);
+                return null;
+            }
+            String epoch = in.readUTF();
+            long endOffset = in.readLong();
+
+            long maxTime = in.readLong();
+            long lastSampled = in.readLong();
+            int sampleCount = in.readInt();
+            long[] offsets = new long[sampleCount];
+            long[] times = new long[sampleCount];
+            for (int i = 0; i < sampleCount; i++) {
+                offsets[i] = in.readLong();
+                times[i] = in.readLong();
+            }
+
+            int queueCount = in.readInt();
+            Map<String, long[]> postings = new HashMap<>(queueCount * 2);
+            for (int q = 0; q < queueCount; q++) {
+                String queueId = in.readUTF();
+                long[] list = new long[in.readInt()];
+                long previous = 0;
+                for (int i = 0; i < list.length; i++) {
+                    previous += readVarLong(in);
+                    list[i] = previous;
+                }
+                postings.put(queueId, list);
+            }
+
+            int expected = (int) crc.getValue();
+            if (new DataInputStream(fileIn).readInt() != expected) {
+                log.warn("Ignoring index checkpoint {} with a bad checksum", file);
+                return null;
+            }
+            return new IndexCheckpoint(epoch, endOffset,
+                    new TimeIndex.State(offsets, times, sampleCount, maxTime, lastSampled), postings);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable index checkpoint {}: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
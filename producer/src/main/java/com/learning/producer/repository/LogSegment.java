@@ -0,0 +1,280 @@
+package com.learning.producer.repository;
+
+import com.learning.producer.model.Event;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * One fixed-size, memory-mapped segment file of the event log
+ * <p>
+ * Record layout: [int bodyLength][int crc32c][long offset][body]. A zero length marks
+ * the end of written data (the file is pre-allocated and zero-filled). A sparse index
+ * keeps one (offset, position) entry roughly every indexIntervalBytes, so a read is a
+ * binary search followed by a short sequential scan.
+ * <p>
+ * One thread appends; readers run concurrently and only look at records below the
+ * published write position.
+ */
+public class LogSegment implements Closeable {
+
+    static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final String SUFFIX = ".log";
+
+    private final long baseOffset;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int indexIntervalBytes;
+
+    // Written only by the appending thread; indexSize and writePosition are published last
+    private long[] indexOffsets = new long[64];
+    private int[] indexPositions = new int[64];
+    private volatile int indexSize;
+    private int lastIndexedPosition = -1;
+
+    private volatile int writePosition;
+    private volatile long nextOffset;
+    private volatile Instant newestTimestamp;
+
+    private LogSegment(Path path, long baseOffset, int segmentBytes, int indexIntervalBytes) {
+        this.path = path;
+        this.baseOffset = baseOffset;
+        this.nextOffset = baseOffset;
+        this.indexIntervalBytes = indexIntervalBytes;
+        try {
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long mapSize = Math.max(channel.size(), segmentBytes);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, mapSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map segment " + path, e);
+        }
+    }
+
+    /**
+     * Create a new empty segment starting at baseOffset
+     */
+    static LogSegment create(Path directory, long baseOffset, int segmentBytes, int indexIntervalBytes) {
+        Path file = directory.resolve(fileName(baseOffset));
+        try {
+            // A leftover file with this name belongs to an abandoned tail, never reuse its bytes
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replace segment " + file, e);
+        }
+        return new LogSegment(file, baseOffset, segmentBytes, indexIntervalBytes);
+    }
+
+    /**
+     * Open an existing segment file and rebuild its index by scanning valid records
+     */
+    static LogSegment open(Path file, int segmentBytes, int indexIntervalBytes) {
+        LogSegment segment = new LogSegment(file, parseBaseOffset(file), segmentBytes, indexIntervalBytes);
+        segment.recover();
+        return segment;
+    }
+
+    static boolean isSegmentFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(SUFFIX) && name.length() > SUFFIX.length();
+    }
+
+    static long parseBaseOffset(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static String fileName(long baseOffset) {
+        return String.format("%020d%s", baseOffset, SUFFIX);
+    }
+
+    /**
+     * Append a record at the given offset
+     *
+     * @return false if the segment has no room left for the record
+     */
+    boolean tryAppend(long offset, byte[] body) {
+        int recordBytes = HEADER_BYTES + body.length;
+        if (writePosition + recordBytes > buffer.capacity()) {
+            return false;
+        }
+        int position = writePosition;
+        buffer.putInt(position + Integer.BYTES, checksum(offset, body));
+        buffer.putLong(position + 2 * Integer.BYTES, offset);
+        buffer.put(position + HEADER_BYTES, body);
+        // Length last: a non-zero length marks a fully written record
+        buffer.putInt(position, body.length);
+
+        maybeIndex(offset, position);
+        trackTimestamp(position);
+        writePosition = position + recordBytes;
+        nextOffset = offset + 1;
+        return true;
+    }
+
+    /**
+     * Read up to limit events starting at fromOffset into out
+     *
+     * @return number of events added
+     */
+    int read(long fromOffset, int limit, List<Event> out) {
+        int end = writePosition;
+        if (end == 0 || fromOffset >= nextOffset || limit <= 0) {
+            return 0;
+        }
+        ByteBuffer view = buffer.duplicate();
+        int position = floorPosition(fromOffset);
+        int added = 0;
+        while (position < end && added < limit) {
+            int length = view.getInt(position);
+            long offset = view.getLong(position + 2 * Integer.BYTES);
+            if (offset >= fromOffset) {
+                view.limit(position + HEADER_BYTES + length).position(position + HEADER_BYTES);
+                out.add(EventRecordCodec.decode(view));
+                view.limit(view.capacity());
+                added++;
+            }
+            position += HEADER_BYTES + length;
+        }
+        return added;
+    }
+
+    long baseOffset() {
+        return baseOffset;
+    }
+
+    long nextOffset() {
+        return nextOffset;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * Bytes of written records
+     */
+    int sizeBytes() {
+        return writePosition;
+    }
+
+    /**
+     * Latest event timestamp in this segment, null if no event has one
+     */
+    Instant newestTimestamp() {
+        return newestTimestamp;
+    }
+
+    /**
+     * Close and remove the segment file
+     * Readers still holding the mapping can finish; the OS frees it once unmapped.
+     */
+    void delete() {
+        try {
+            channel.close();
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete segment " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close segment " + path, e);
+        }
+    }
+
+    private void recover() {
+        int position = 0;
+        int capacity = buffer.capacity();
+        while (position + HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > capacity) {
+                break;
+            }
+            long offset = buffer.getLong(position + 2 * Integer.BYTES);
+            if (offset != nextOffset || buffer.getInt(position + Integer.BYTES) != checksum(position, length)) {
+                break; // torn or stale write at the tail
+            }
+            maybeIndex(offset, position);
+            trackTimestamp(position);
+            position += HEADER_BYTES + length;
+            nextOffset = offset + 1;
+        }
+        writePosition = position;
+        if (position + Integer.BYTES <= capacity) {
+            buffer.putInt(position, 0);
+        }
+    }
+
+    private void trackTimestamp(int position) {
+        Instant timestamp = EventRecordCodec.readTimestamp(buffer, position + HEADER_BYTES);
+        if (timestamp != null && (newestTimestamp == null || timestamp.isAfter(newestTimestamp))) {
+            newestTimestamp = timestamp;
+        }
+    }
+
+    private void maybeIndex(long offset, int position) {
+        if (lastIndexedPosition >= 0 && position - lastIndexedPosition < indexIntervalBytes) {
+            return;
+        }
+        int size = indexSize;
+        if (size == indexOffsets.length) {
+            indexOffsets = Arrays.copyOf(indexOffsets, size * 2);
+            indexPositions = Arrays.copyOf(indexPositions, size * 2);
+        }
+        indexOffsets[size] = offset;
+        indexPositions[size] = position;
+        indexSize = size + 1;
+        lastIndexedPosition = position;
+    }
+
+    /**
+     * File position of the last index entry whose offset is <= target
+     * (the first record if target precedes all entries)
+     */
+    private int floorPosition(long target) {
+        int size = indexSize;
+        long[] offsets = indexOffsets;
+        int low = 0;
+        int high = size - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= target) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return indexPositions[low];
+    }
+
+    private static int checksum(long offset, byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, offset));
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private int checksum(int position, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(position + 2 * Integer.BYTES, Long.BYTES + length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,170 @@
+package com.learning.producer.repository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-queue posting lists: the offsets of each queue's events, in append order
+ * <p>
+ * Written only by the appending thread; readers use published snapshots without
+ * locking. Offsets below indexedEnd are fully indexed, so a filtered read can skip
+ * every non-matching event up to that point. Entries below the log's start offset
+ * are compacted away as a list grows, and lists with no retained entries are dropped
+ * by prune.
+ */
+final class QueueIndex {
+
+    private final ConcurrentHashMap<String, PostingList> postings = new ConcurrentHashMap<>();
+    private volatile long indexedEnd;
+
+    QueueIndex(long indexedEnd) {
+        this.indexedEnd = indexedEnd;
+    }
+
+    /**
+     * Record an appended event; call publish once the whole append is indexed
+     */
+    void onAppend(long offset, String queueId, long startOffset) {
+        if (queueId == null) {
+            return;
+        }
+        postings.computeIfAbsent(queueId, ignored -> new PostingList()).add(offset, startOffset);
+    }
+
+    void publish(long endOffset) {
+        indexedEnd = endOffset;
+    }
+
+    /**
+     * Offset up to which (exclusive) every event is indexed
+     */
+    long indexedEnd() {
+        return indexedEnd;
+    }
+
+    /**
+     * Merge the posting lists of the given queues
+     *
+     * @param fromOffset first offset to consider
+     * @param horizon    offsets at or above it are ignored (snapshot of indexedEnd)
+     * @param limit      maximum number of offsets to return
+     * @return matching offsets in ascending order, plus one extra if more match before
+     * the horizon (so the caller can tell whether the page is complete)
+     */
+    long[] select(Collection<String> queueIds, long fromOffset, long horizon, int limit) {
+        Postings[] lists = new Postings[queueIds.size()];
+        int[] positions = new int[lists.length];
+        int count = 0;
+        for (String queueId : queueIds) {
+            PostingList list = postings.get(queueId);
+            if (list != null) {
+                Postings snapshot = list.snapshot;
+                lists[count] = snapshot;
+                positions[count] = snapshot.ceilingIndex(fromOffset);
+                count++;
+            }
+        }
+
+        long[] selected = new long[limit + 1];
+        int selectedCount = 0;
+        while (selectedCount <= limit) {
+            int min = -1;
+            long minOffset = horizon;
+            for (int i = 0; i < count; i++) {
+                if (positions[i] < lists[i].count && lists[i].offsets[positions[i]] < minOffset) {
+                    min = i;
+                    minOffset = lists[i].offsets[positions[i]];
+                }
+            }
+            if (min < 0) {
+                break;
+            }
+            selected[selectedCount++] = minOffset;
+            positions[min]++;
+        }
+        return Arrays.copyOf(selected, selectedCount);
+    }
+
+    /**
+     * Drop lists whose entries are all below the start offset (writer only)
+     */
+    void prune(long startOffset) {
+        postings.values().removeIf(list -> list.lastOffset() < startOffset);
+    }
+
+    int queueCount() {
+        return postings.size();
+    }
+
+    /**
+     * Capture every posting list for a checkpoint (appending thread; each array's first
+     * count entries never change, so they are not copied)
+     */
+    Map<String, Postings> snapshot() {
+        Map<String, Postings> snapshot = new HashMap<>(postings.size() * 2);
+        postings.forEach((queueId, list) -> snapshot.put(queueId, list.snapshot));
+        return snapshot;
+    }
+
+    /**
+     * Install a checkpointed posting list (before the index is used)
+     */
+    void restore(String queueId, long[] offsets, int count) {
+        PostingList list = new PostingList();
+        list.snapshot = new Postings(offsets, count);
+        postings.put(queueId, list);
+    }
+
+    /**
+     * Growable offset list for one queue (single writer)
+     */
+    private static final class PostingList {
+
+        private volatile Postings snapshot = new Postings(new long[16], 0);
+
+        void add(long offset, long startOffset) {
+            Postings current = snapshot;
+            long[] offsets = current.offsets;
+            int count = current.count;
+            if (count == offsets.length) {
+                int keepFrom = current.ceilingIndex(startOffset);
+                int kept = count - keepFrom;
+                int capacity = Math.max(16, Integer.highestOneBit(kept + 1) * 2);
+                offsets = Arrays.copyOfRange(offsets, keepFrom, keepFrom + capacity);
+                count = kept;
+            }
+            offsets[count] = offset;
+            snapshot = new Postings(offsets, count + 1);
+        }
+
+        long lastOffset() {
+            Postings current = snapshot;
+            return current.count == 0 ? -1 : current.offsets[current.count - 1];
+        }
+    }
+
+    /**
+     * Immutable view of the first count offsets of a posting array
+     */
+    static final class Postings {
+
+        final long[] offsets;
+        final int count;
+
+        private Postings(long[] offsets, int count) {
+            this.offsets = offsets;
+            this.count = count;
+        }
+
+        /**
+         * Index of the first offset at or above the given one
+         */
+        int ceilingIndex(long offset) {
+            int index = Arrays.binarySearch(offsets, 0, count, offset);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.learning.producer.repository;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Limits on what an EventLog keeps; a limit of 0 (or a null/zero age) means unlimited
+ * Events are evicted oldest first whenever any limit is exceeded.
+ */
+@Value
+@Builder
+public class RetentionPolicy {
+
+    public static final RetentionPolicy UNBOUNDED = RetentionPolicy.builder().build();
+
+    /**
+     * Maximum number of retained events
+     */
+    long maxEvents;
+
+    /**
+     * Maximum age of retained events, by event timestamp
+     */
+    Duration maxAge;
+
+    /**
+     * Maximum estimated bytes held by retained events
+     */
+    long maxBytes;
+
+    public boolean exceedsCount(long events) {
+        return maxEvents > 0 && events > maxEvents;
+    }
+
+    public boolean exceedsBytes(long bytes) {
+        return maxBytes > 0 && bytes > maxBytes;
+    }
+
+    public boolean isExpired(Instant timestamp, Instant now) {
+        return maxAge != null && !maxAge.isZero() && timestamp != null
+                && timestamp.isBefore(now.minus(maxAge));
+    }
+
+    /**
+     * Share of this policy for one of several partitions: count and byte limits are
+     * split evenly (rounded up), the age limit applies to each partition as is
+     */
+    public RetentionPolicy perPartition(int partitions) {
+        if (partitions <= 1) {
+            return this;
+        }
+        return RetentionPolicy.builder()
+                .maxEvents(maxEvents > 0 ? Math.ceilDiv(maxEvents, partitions) : maxEvents)
+                .maxAge(maxAge)
+                .maxBytes(maxBytes > 0 ? Math.ceilDiv(maxBytes, partitions) : maxBytes)
+                .build();
+    }
+
+    public boolean isUnbounded() {
+        return maxEvents <= 0 && maxBytes <= 0 && (maxAge == null || maxAge.isZero());
+    }
+}
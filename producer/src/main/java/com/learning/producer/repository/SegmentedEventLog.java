@@ -0,0 +1,186 @@
+package com.learning.producer.repository;
+
+import com.learning.producer.model.Event;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Disk-backed event log made of fixed-size, memory-mapped segment files
+ * <p>
+ * Segments are named by their base offset and rolled when full. A read locates the
+ * segment by binary search on base offsets, then uses the segment's sparse index,
+ * so getAfter is O(log n) plus a sequential read regardless of history size.
+ * Existing segments in the directory are recovered on startup.
+ * <p>
+ * Appends are serialized by EventRepository; readers work on a copy-on-write
+ * snapshot of the segment list and never block the writer.
+ * <p>
+ * Retention works on whole segments: the oldest sealed segment is deleted while the
+ * log is over its count or byte limit, or once its newest event is older than the
+ * maximum age. The active segment is never deleted, so limits hold to within one segment.
+ */
+@Slf4j
+public class SegmentedEventLog implements EventLog {
+
+    private static final int MIN_SEGMENT_BYTES = 4096;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int indexIntervalBytes;
+    private volatile LogSegment[] segments = new LogSegment[0];
+
+    public SegmentedEventLog(Path directory, int segmentBytes, int indexIntervalBytes) {
+        if (segmentBytes < MIN_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("segmentBytes must be at least " + MIN_SEGMENT_BYTES);
+        }
+        if (indexIntervalBytes <= 0) {
+            throw new IllegalArgumentException("indexIntervalBytes must be positive");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.indexIntervalBytes = indexIntervalBytes;
+        recoverSegments();
+    }
+
+    @Override
+    public long append(Event event) {
+        byte[] body = EventRecordCodec.encode(event);
+        if (LogSegment.HEADER_BYTES + body.length > segmentBytes) {
+            throw new IllegalArgumentException("Event record of " + body.length
+                    + " bytes does not fit in a segment of " + segmentBytes + " bytes");
+        }
+        LogSegment active = activeSegment();
+        long offset = active.nextOffset();
+        if (!active.tryAppend(offset, body)) {
+            active = LogSegment.create(directory, offset, segmentBytes, indexIntervalBytes);
+            active.tryAppend(offset, body);
+            addSegment(active);
+            log.debug("Rolled new segment {}", active.path());
+        }
+        return offset;
+    }
+
+    @Override
+    public List<Event> read(long fromOffset, int limit) {
+        List<Event> result = new ArrayList<>();
+        LogSegment[] snapshot = segments;
+        if (fromOffset >= snapshot[snapshot.length - 1].nextOffset() || fromOffset < snapshot[0].baseOffset()) {
+            return result;
+        }
+        for (int i = segmentIndexFor(snapshot, fromOffset); i < snapshot.length && result.size() < limit; i++) {
+            snapshot[i].read(fromOffset, limit - result.size(), result);
+        }
+        return result;
+    }
+
+    @Override
+    public long startOffset() {
+        return segments[0].baseOffset();
+    }
+
+    @Override
+    public long endOffset() {
+        return activeSegment().nextOffset();
+    }
+
+    @Override
+    public long retainedBytes() {
+        long bytes = 0;
+        for (LogSegment segment : segments) {
+            bytes += segment.sizeBytes();
+        }
+        return bytes;
+    }
+
+    @Override
+    public long evict(RetentionPolicy policy, Instant now, long holdFrom) {
+        long evicted = 0;
+        while (segments.length > 1) {
+            LogSegment oldest = segments[0];
+            if (!policy.exceedsCount(endOffset() - oldest.baseOffset()) && !policy.exceedsBytes(retainedBytes())
+                    && (oldest.nextOffset() > holdFrom || !policy.isExpired(oldest.newestTimestamp(), now))) {
+                break;
+            }
+            segments = Arrays.copyOfRange(segments, 1, segments.length);
+            oldest.delete();
+            evicted += oldest.nextOffset() - oldest.baseOffset();
+            log.debug("Deleted segment {} by retention", oldest.path());
+        }
+        return evicted;
+    }
+
+    @Override
+    public void close() {
+        for (LogSegment segment : segments) {
+            segment.close();
+        }
+    }
+
+    private LogSegment activeSegment() {
+        LogSegment[] snapshot = segments;
+        return snapshot[snapshot.length - 1];
+    }
+
+    private void addSegment(LogSegment segment) {
+        LogSegment[] snapshot = segments;
+        LogSegment[] updated = Arrays.copyOf(snapshot, snapshot.length + 1);
+        updated[snapshot.length] = segment;
+        segments = updated;
+    }
+
+    /**
+     * Index of the last segment whose base offset is <= offset
+     */
+    private static int segmentIndexFor(LogSegment[] segments, long offset) {
+        int low = 0;
+        int high = segments.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (segments[mid].baseOffset() <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private void recoverSegments() {
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(LogSegment::isSegmentFile)
+                        .sorted(Comparator.comparingLong(LogSegment::parseBaseOffset))
+                        .toList();
+            }
+            for (Path file : files) {
+                LogSegment segment = LogSegment.open(file, segmentBytes, indexIntervalBytes);
+                if (segments.length > 0 && segment.baseOffset() != endOffset()) {
+                    log.warn("Segment {} does not continue the log at offset {}, ignoring it and later segments",
+                            file, endOffset());
+                    segment.close();
+                    break;
+                }
+                addSegment(segment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open event log in " + directory, e);
+        }
+        if (segments.length == 0) {
+            addSegment(LogSegment.create(directory, 0, segmentBytes, indexIntervalBytes));
+        }
+        log.info("Opened event log in {}: {} segments, offsets {}..{}", directory, segments.length,
+                startOffset(), endOffset());
+    }
+}
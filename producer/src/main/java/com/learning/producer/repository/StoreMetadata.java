@@ -0,0 +1,130 @@
+package com.learning.producer.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Persistent identity of a durable event store: its epoch, per partition the end
+ * offset recorded at the last checkpoint or shutdown (high-water offset), and whether
+ * the store was shut down cleanly
+ * <p>
+ * Consumers reset their cursors and aggregates when the epoch changes, so the epoch
+ * is kept across restarts as long as the store still holds everything it served: the
+ * partition count is unchanged and every partition recovered at least up to its
+ * high-water offset. If events were lost, cursors could point past the data or at
+ * different events, and a new epoch is started instead.
+ * <p>
+ * Events served after the last checkpoint are only covered by the high-water offset
+ * if appends are crash-safe (write-ahead log). Without one, segments are forced to
+ * disk only on close, so an unclean stop may have lost served events above the
+ * high-water offset, and a new epoch is started as well. The clean flag is cleared
+ * on startup and set by the last save on close.
+ * <p>
+ * Stored as a properties file, replaced atomically on every save.
+ */
+@Slf4j
+final class StoreMetadata {
+
+    private static final String FILE_NAME = "store.properties";
+
+    private final Path file;
+
+    StoreMetadata(Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create checkpoint directory " + directory, e);
+        }
+        this.file = directory.resolve(FILE_NAME);
+    }
+
+    /**
+     * Decide the epoch after recovery and record it with the recovered end offsets
+     *
+     * @param endOffsets recovered end offset per partition
+     * @param crashSafe  whether every served event was durable (write-ahead log), so an
+     *                   unclean stop cannot have lost any
+     * @return the stored epoch if nothing was lost, otherwise a new one
+     */
+    String resolveEpoch(long[] endOffsets, boolean crashSafe) {
+        Properties stored = load();
+        String epoch = stored.getProperty("epoch");
+        String reason = null;
+        if (epoch == null) {
+            reason = "no stored epoch";
+        } else if (!String.valueOf(endOffsets.length).equals(stored.getProperty("partitions"))) {
+            reason = "partition count changed from " + stored.getProperty("partitions") + " to " + endOffsets.length;
+        } else {
+            for (int partition = 0; partition < endOffsets.length && reason == null; partition++) {
+                long highWater = Long.parseLong(stored.getProperty("partition." + partition + ".high-water", "0"));
+                if (endOffsets[partition] < highWater) {
+                    reason = "partition " + partition + " recovered up to offset " + endOffsets[partition]
+                            + " but had served up to " + highWater;
+                }
+            }
+            if (reason == null && !crashSafe && !Boolean.parseBoolean(stored.getProperty("clean"))) {
+                reason = "the previous run did not shut down cleanly and there is no write-ahead log";
+            }
+        }
+        if (reason == null) {
+            log.info("Resuming event store epoch {}", epoch);
+        } else {
+            String previous = epoch;
+            epoch = UUID.randomUUID().toString();
+            if (previous == null) {
+                log.info("Starting event store epoch {} ({})", epoch, reason);
+            } else {
+                log.warn("Starting new event store epoch {} instead of {}: {}", epoch, previous, reason);
+            }
+        }
+        try {
+            save(epoch, endOffsets, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + file, e);
+        }
+        return epoch;
+    }
+
+    /**
+     * Record the epoch and the end offsets served so far
+     *
+     * @param clean whether the store is shut down and every event is on disk
+     */
+    void save(String epoch, long[] endOffsets, boolean clean) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("epoch", epoch);
+        properties.setProperty("clean", String.valueOf(clean));
+        properties.setProperty("partitions", String.valueOf(endOffsets.length));
+        for (int partition = 0; partition < endOffsets.length; partition++) {
+            properties.setProperty("partition." + partition + ".high-water", String.valueOf(endOffsets[partition]));
+        }
+        Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp)) {
+            properties.store(writer, "Event store metadata");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Properties load() {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        } catch (NoSuchFileException e) {
+            // first start
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Ignoring unreadable event store metadata {}: {}", file, e.toString());
+            properties.clear();
+        }
+        return properties;
+    }
+}
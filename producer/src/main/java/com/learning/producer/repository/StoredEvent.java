@@ -0,0 +1,50 @@
+package com.learning.producer.repository;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Compact, immutable form of an Event held by InMemoryEventLog
+ * queueId and agentId are kept as SymbolTable codes instead of per-event strings;
+ * reads rematerialize an Event whose dimension strings are the shared dictionary
+ * instances.
+ */
+final class StoredEvent {
+
+    final String eventId;
+    final Instant timestamp;
+    final EventType eventType;
+    final int queueCode;
+    final int agentCode;
+    final String interactionId;
+    final Map<String, Object> payload;
+
+    private StoredEvent(Event event, int queueCode, int agentCode) {
+        this.eventId = event.getEventId();
+        this.timestamp = event.getTimestamp();
+        this.eventType = event.getEventType();
+        this.queueCode = queueCode;
+        this.agentCode = agentCode;
+        this.interactionId = event.getInteractionId();
+        this.payload = event.getPayload();
+    }
+
+    static StoredEvent of(Event event, SymbolTable symbols) {
+        return new StoredEvent(event, symbols.intern(event.getQueueId()), symbols.intern(event.getAgentId()));
+    }
+
+    Event toEvent(SymbolTable symbols) {
+        return Event.builder()
+                .eventId(eventId)
+                .timestamp(timestamp)
+                .eventType(eventType)
+                .queueId(symbols.lookup(queueCode))
+                .agentId(symbols.lookup(agentCode))
+                .interactionId(interactionId)
+                .payload(payload)
+                .build();
+    }
+}
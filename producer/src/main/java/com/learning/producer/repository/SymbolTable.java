@@ -0,0 +1,66 @@
+package com.learning.producer.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent dictionary mapping low-cardinality dimension values (queueId, agentId)
+ * to dense int codes
+ * <p>
+ * Interning is thread-safe: known values are a lock-free map lookup, new values are
+ * assigned under a lock. Decoding is a plain array read; a code only reaches readers
+ * through an event published after it was assigned, so the symbol is always visible.
+ * Codes are never reclaimed, so this is meant for dimensions with a bounded set of
+ * values, not for per-event identifiers.
+ */
+final class SymbolTable {
+
+    static final int NO_SYMBOL = -1;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] symbols = new String[64];
+    private int size;
+
+    /**
+     * Code for a value, assigning the next free code on first sight
+     *
+     * @return the code, or NO_SYMBOL for null
+     */
+    int intern(String value) {
+        if (value == null) {
+            return NO_SYMBOL;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            String[] table = symbols;
+            if (size == table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+                symbols = table;
+            }
+            table[size] = value;
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Value for a code returned by intern (the same instance for every event)
+     */
+    String lookup(int code) {
+        return code == NO_SYMBOL ? null : symbols[code];
+    }
+
+    /**
+     * Number of distinct values interned
+     */
+    int size() {
+        return codes.size();
+    }
+}
@@ -0,0 +1,150 @@
+package com.learning.producer.repository;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Sparse timestamp index: one (offset, time) sample every interval appended events
+ * <p>
+ * Each sample records the highest event time seen up to its offset (epoch millis),
+ * so sample times are non-decreasing even if the clock steps back, and a sample
+ * older than t proves every event up to its offset is older than t. A lookup is a
+ * binary search over the samples; the caller then scans at most one interval.
+ * <p>
+ * Written only by the appending thread. Readers use the published snapshot without
+ * locking; samples below the log's start offset are dropped when the arrays grow.
+ */
+final class TimeIndex {
+
+    static final int DEFAULT_INTERVAL = 1024;
+
+    private final int interval;
+    private volatile Samples samples = new Samples(new long[64], new long[64], 0);
+    private long maxTime = Long.MIN_VALUE;
+    private long lastSampled = Long.MIN_VALUE;
+
+    TimeIndex(int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.interval = interval;
+    }
+
+    /**
+     * Record an appended event
+     *
+     * @param startOffset current start of the log, used to drop stale samples on growth
+     */
+    void onAppend(long offset, Instant timestamp, long startOffset) {
+        if (timestamp != null) {
+            maxTime = Math.max(maxTime, timestamp.toEpochMilli());
+        }
+        if (lastSampled != Long.MIN_VALUE && offset - lastSampled < interval) {
+            return;
+        }
+        lastSampled = offset;
+        Samples current = samples;
+        long[] offsets = current.offsets;
+        long[] times = current.times;
+        int count = current.count;
+        if (count == offsets.length) {
+            int keepFrom = Math.max(0, current.floorIndexByOffset(startOffset));
+            int kept = count - keepFrom;
+            int capacity = Math.max(64, Integer.highestOneBit(kept + 1) * 2);
+            offsets = Arrays.copyOfRange(offsets, keepFrom, keepFrom + capacity);
+            times = Arrays.copyOfRange(times, keepFrom, keepFrom + capacity);
+            count = kept;
+        }
+        offsets[count] = offset;
+        times[count] = maxTime;
+        samples = new Samples(offsets, times, count + 1);
+    }
+
+    /**
+     * Offset of the latest sample whose events are all older than time
+     *
+     * @return the offset, or -1 if no sample qualifies
+     */
+    long lastOffsetBefore(Instant time) {
+        Samples snapshot = samples;
+        long target = time.toEpochMilli();
+        int low = 0;
+        int high = snapshot.count - 1;
+        long result = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (snapshot.times[mid] < target) {
+                result = snapshot.offsets[mid];
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Offset of the first sample, Long.MAX_VALUE if there is none
+     * Offsets below it (e.g. recovered from disk) are not covered by the index.
+     */
+    long firstOffset() {
+        Samples snapshot = samples;
+        return snapshot.count == 0 ? Long.MAX_VALUE : snapshot.offsets[0];
+    }
+
+    int size() {
+        return samples.count;
+    }
+
+    /**
+     * Capture the index for a checkpoint (appending thread; the captured arrays are not
+     * copied because their first count entries never change)
+     */
+    State state() {
+        Samples current = samples;
+        return new State(current.offsets, current.times, current.count, maxTime, lastSampled);
+    }
+
+    /**
+     * Index continuing from a checkpointed state
+     */
+    static TimeIndex restore(int interval, State state) {
+        TimeIndex index = new TimeIndex(interval);
+        int capacity = Math.max(64, Integer.highestOneBit(state.count() + 1) * 2);
+        index.samples = new Samples(Arrays.copyOf(state.offsets(), capacity), Arrays.copyOf(state.times(), capacity),
+                state.count());
+        index.maxTime = state.maxTime();
+        index.lastSampled = state.lastSampled();
+        return index;
+    }
+
+    /**
+     * Samples plus the writer's position, enough to continue sampling after a restart
+     */
+    record State(long[] offsets, long[] times, int count, long maxTime, long lastSampled) {
+    }
+
+    /**
+     * Immutable view of the first count entries of the sample arrays
+     */
+    private static final class Samples {
+
+        private final long[] offsets;
+        private final long[] times;
+        private final int count;
+
+        private Samples(long[] offsets, long[] times, int count) {
+            this.offsets = offsets;
+            this.times = times;
+            this.count = count;
+        }
+
+        /**
+         * Index of the last sample at or below offset, -1 if none
+         */
+        int floorIndexByOffset(long offset) {
+            int index = Arrays.binarySearch(offsets, 0, count, offset);
+            return index >= 0 ? index : -index - 2;
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package com.learning.producer.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log with group commit for one partition
+ * <p>
+ * EventRepository submits each appended event's record under its append lock, so
+ * records arrive in offset order, and then waits outside the lock until the record is
+ * durable. A single flusher thread takes every pending record at once, writes them
+ * with one call and one fsync, and releases all their waiters: concurrent appends
+ * share an fsync, and the FlushPolicy bounds how long a record waits for company.
+ * <p>
+ * Records use the segment file layout, [int bodyLength][int crc32c][long offset][body],
+ * in files named by their first offset and rolled at segmentBytes. On open the files
+ * are scanned; a torn or non-contiguous tail is truncated. replay feeds the records
+ * an EventLog does not have back into it. Files entirely below the log's start offset
+ * are deleted by truncateBefore (retention).
+ * <p>
+ * An I/O error is fatal: waiting and later appends fail, and records that never became
+ * durable stay invisible to readers (see EventRepository.getEndOffset).
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+
+    static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES;
+    private static final String SUFFIX = ".wal";
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxLatencyNanos;
+    private final int maxBatchBytes;
+
+    // Segment files by base offset; the flusher rolls, retention deletes
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel active;
+    private long activeBase = -1;
+    private long activeBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasPending = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private byte[] pending = new byte[INITIAL_BUFFER_BYTES];
+    private int pendingSize;
+    private int pendingRecords;
+    private long pendingFirstOffset = -1;
+    private long firstPendingNanos;
+    private long nextOffset;
+    private volatile long durableEnd;
+    private IOException failure;
+    private boolean running = true;
+
+    private long flushes;
+    private long syncedRecords;
+    private long syncedBytes;
+
+    private final Thread flusher;
+
+    /**
+     * Open (or create) the log in a directory and start its flusher
+     */
+    public WriteAheadLog(Path directory, long segmentBytes, FlushPolicy flushPolicy) {
+        if (segmentBytes <= HEADER_BYTES) {
+            throw new IllegalArgumentException("segmentBytes must exceed the record header");
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxLatencyNanos = flushPolicy.getMaxLatency().toNanos();
+        this.maxBatchBytes = flushPolicy.getMaxBatchBytes();
+        long end = recover();
+        this.nextOffset = end;
+        this.durableEnd = end;
+        this.flusher = Thread.ofPlatform().name("wal-flusher-" + directory.getFileName()).daemon()
+                .start(this::flushLoop);
+    }
+
+    /**
+     * Scan the segment files, truncating at the first torn or non-contiguous record
+     *
+     * @return offset after the last intact record (0 for an empty log)
+     */
+    private long recover() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> listing = Files.list(directory)) {
+                listing.filter(WriteAheadLog::isSegmentFile)
+                        .forEach(file -> segments.put(parseBaseOffset(file), file));
+            }
+            long expected = segments.isEmpty() ? 0 : segments.firstKey();
+            Iterator<Map.Entry<Long, Path>> files = segments.entrySet().iterator();
+            boolean truncated = false;
+            while (files.hasNext()) {
+                Map.Entry<Long, Path> entry = files.next();
+                if (truncated || entry.getKey() != expected) {
+                    log.warn("Write-ahead log file {} does not continue the log at offset {}, deleting it",
+                            entry.getValue(), expected);
+                    Files.deleteIfExists(entry.getValue());
+                    files.remove();
+                    truncated = true;
+                    continue;
+                }
+                long[] scan = scan(entry.getValue(), expected);
+                expected = scan[0];
+                if (scan[1] < Files.size(entry.getValue())) {
+                    log.warn("Truncating torn write-ahead log tail in {} at byte {}", entry.getValue(), scan[1]);
+                    try (FileChannel channel = FileChannel.open(entry.getValue(), StandardOpenOption.WRITE)) {
+                        channel.truncate(scan[1]);
+                    }
+                    truncated = true;
+                }
+            }
+            return expected;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open write-ahead log in " + directory, e);
+        }
+    }
+
+    /**
+     * @return {offset after the last intact record, byte position after it}
+     */
+    private static long[] scan(Path file, long firstOffset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            long expected = firstOffset;
+            int position = 0;
+            while (position + HEADER_BYTES <= size) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + HEADER_BYTES + (long) length > size
+                        || buffer.getLong(position + 2 * Integer.BYTES) != expected
+                        || buffer.getInt(position + Integer.BYTES) != checksum(buffer, position, length)) {
+                    break;
+                }
+                position += HEADER_BYTES + length;
+                expected++;
+            }
+            return new long[]{expected, position};
+        }
+    }
+
+    /**
+     * Append the logged events an EventLog is missing (offsets from its endOffset on)
+     * and continue logging from the log's end
+     * Records older than the log's end are already in it (e.g. a segmented log that
+     * survived the restart) and are skipped.
+     *
+     * @return number of events replayed into the log
+     */
+    public long replay(EventLog eventLog) {
+        long replayed = 0;
+        lock.lock();
+        try {
+            for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+                if (nextOffset <= eventLog.endOffset()) {
+                    break; // nothing beyond the log's end, e.g. already replayed
+                }
+                Long next = segments.higherKey(entry.getKey());
+                if (next != null && next <= eventLog.endOffset()) {
+                    continue;
+                }
+                replayed += replayFile(entry.getValue(), entry.getKey(), eventLog);
+            }
+            if (nextOffset != eventLog.endOffset()) {
+                log.warn("Write-ahead log in {} ends at offset {} but the event log at {}, restarting the log there",
+                        directory, nextOffset, eventLog.endOffset());
+                nextOffset = eventLog.endOffset();
+                durableEnd = nextOffset;
+                truncateBefore(Long.MAX_VALUE);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay write-ahead log in " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+        if (replayed > 0) {
+            log.info("Replayed {} events from the write-ahead log in {}, log now ends at offset {}",
+                    replayed, directory, eventLog.endOffset());
+        }
+        return replayed;
+    }
+
+    private static long replayFile(Path file, long firstOffset, EventLog eventLog) throws IOException {
+        long replayed = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int position = 0;
+            long offset = firstOffset;
+            while (position + HEADER_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (offset == eventLog.endOffset()) {
+                    ByteBuffer body = buffer.slice(position + HEADER_BYTES, length);
+                    eventLog.append(EventRecordCodec.decode(body));
+                    replayed++;
+                } else if (offset > eventLog.endOffset()) {
+                    break; // gap: the log lost events the write-ahead log does not start with
+                }
+                position += HEADER_BYTES + length;
+                offset++;
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Queue a record for the next group commit; callers submit in offset order
+     *
+     * @param offset offset the event was stored at
+     * @param body   record body (EventRecordCodec.encode)
+     * @throws UncheckedIOException if the log has failed
+     */
+    public void submit(long offset, byte[] body) {
+        lock.lock();
+        try {
+            checkHealthy();
+            if (offset != nextOffset) {
+                throw new IllegalStateException("Write-ahead log expected offset " + nextOffset + " but got " + offset);
+            }
+            int recordBytes = HEADER_BYTES + body.length;
+            if (pendingSize + recordBytes > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingSize + recordBytes));
+            }
+            ByteBuffer record = ByteBuffer.wrap(pending, pendingSize, recordBytes);
+            record.putInt(body.length).putInt(checksum(offset, body)).putLong(offset).put(body);
+            if (pendingSize == 0) {
+                pendingFirstOffset = offset;
+                firstPendingNanos = System.nanoTime();
+                hasPending.signal();
+            }
+            pendingSize += recordBytes;
+            pendingRecords++;
+            nextOffset = offset + 1;
+            if (pendingSize >= maxBatchBytes) {
+                hasPending.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Block until every record below endOffset is durable
+     *
+     * @throws UncheckedIOException if the log failed before that
+     */
+    public void awaitDurable(long endOffset) {
+        if (durableEnd >= endOffset) {
+            return;
+        }
+        lock.lock();
+        try {
+            // Closing drains what is pending, so only a failure ends the wait early
+            while (durableEnd < endOffset) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Write-ahead log in " + directory + " has failed", failure);
+                }
+                durable.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Offset of the first logged record (the end offset if nothing is logged)
+     */
+    public long startOffset() {
+        lock.lock();
+        try {
+            return segments.isEmpty() ? nextOffset : segments.firstKey();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Offset after the last durable record
+     */
+    public long durableEnd() {
+        return durableEnd;
+    }
+
+    /**
+     * Delete files whose records all lie below offset; the file being written is kept
+     */
+    public void truncateBefore(long offset) {
+        lock.lock();
+        try {
+            Iterator<Map.Entry<Long, Path>> files = segments.entrySet().iterator();
+            while (files.hasNext()) {
+                Map.Entry<Long, Path> entry = files.next();
+                Long next = segments.higherKey(entry.getKey());
+                boolean below = next != null ? next <= offset : nextOffset <= offset;
+                if (!below || entry.getKey() == activeBase) {
+                    break;
+                }
+                Files.deleteIfExists(entry.getValue());
+                files.remove();
+                log.debug("Deleted write-ahead log file {} below offset {}", entry.getValue(), offset);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete write-ahead log files below offset {} in {}", offset, directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        byte[] spare = new byte[INITIAL_BUFFER_BYTES];
+        while (true) {
+            byte[] batch;
+            int size;
+            int records;
+            long firstOffset;
+            long endOffset;
+            lock.lock();
+            try {
+                while (pendingSize == 0 && running) {
+                    hasPending.awaitUninterruptibly();
+                }
+                if (pendingSize == 0) {
+                    return;
+                }
+                long deadline = firstPendingNanos + maxLatencyNanos;
+                long remaining;
+                while (running && pendingSize < maxBatchBytes && (remaining = deadline - System.nanoTime()) > 0) {
+                    try {
+                        hasPending.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                batch = pending;
+                size = pendingSize;
+                records = pendingRecords;
+                firstOffset = pendingFirstOffset;
+                endOffset = nextOffset;
+                pending = spare;
+                pendingSize = 0;
+                pendingRecords = 0;
+                pendingFirstOffset = -1;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                write(batch, size, firstOffset);
+            } catch (IOException e) {
+                log.error("Write-ahead log in {} failed, rejecting further appends", directory, e);
+                lock.lock();
+                try {
+                    failure = e;
+                    durable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            spare = batch;
+
+            lock.lock();
+            try {
+                durableEnd = endOffset;
+                flushes++;
+                syncedRecords += records;
+                syncedBytes += size;
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Write one group and fsync it (flusher thread only)
+     */
+    private void write(byte[] batch, int size, long firstOffset) throws IOException {
+        if (active == null || activeBytes >= segmentBytes) {
+            roll(firstOffset);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(batch, 0, size);
+        while (buffer.hasRemaining()) {
+            active.write(buffer);
+        }
+        active.force(false);
+        activeBytes += size;
+    }
+
+    private void roll(long baseOffset) throws IOException {
+        if (active != null) {
+            active.close();
+        }
+        Path file = directory.resolve(String.format("%020d%s", baseOffset, SUFFIX));
+        active = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        activeBytes = 0;
+        lock.lock();
+        try {
+            segments.put(baseOffset, file);
+            activeBase = baseOffset;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkHealthy() {
+        if (failure != null) {
+            throw new UncheckedIOException("Write-ahead log in " + directory + " has failed", failure);
+        }
+        if (!running) {
+            throw new IllegalStateException("Write-ahead log in " + directory + " is closed");
+        }
+    }
+
+    public long getFlushes() {
+        lock.lock();
+        try {
+            return flushes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSyncedRecords() {
+        lock.lock();
+        try {
+            return syncedRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getSyncedBytes() {
+        lock.lock();
+        try {
+            return syncedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Flush what is pending, stop the flusher and close the file
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            hasPending.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+            if (active != null) {
+                active.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Failed to close write-ahead log in {}", directory, e);
+        }
+    }
+
+    static boolean isSegmentFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(SUFFIX) && name.length() > SUFFIX.length();
+    }
+
+    static long parseBaseOffset(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static int checksum(long offset, byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, offset));
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private static int checksum(ByteBuffer buffer, int position, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(position + 2 * Integer.BYTES, Long.BYTES + length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,36 @@
+package com.learning.producer.scheduler;
+
+import com.learning.producer.group.ConsumerGroupRegistry;
+import com.learning.producer.repository.EventPartitions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Scheduler for event store checkpoints
+ * Bounds how many events a restart has to re-index after a crash; a clean shutdown
+ * checkpoints on close anyway. Consumer group offsets are saved with each checkpoint.
+ */
+@Slf4j
+@Component
+@EnableScheduling
+@RequiredArgsConstructor
+public class CheckpointScheduler {
+
+    private final EventPartitions eventPartitions;
+    private final ConsumerGroupRegistry consumerGroupRegistry;
+
+    @Scheduled(fixedDelayString = "${producer.checkpoint.interval-ms:60000}")
+    public void checkpoint() {
+        eventPartitions.checkpoint();
+        try {
+            consumerGroupRegistry.save();
+        } catch (IOException e) {
+            log.warn("Failed to save consumer group offsets", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.learning.producer.scheduler;
+
+import com.learning.producer.group.ConsumerGroupRegistry;
+import com.learning.producer.repository.EventPartitions;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduler for event retention
+ * Appends already enforce the limits; this sweep makes age-based eviction happen
+ * while ingest is idle. Idle consumer groups are expired first, so the retention
+ * they held is released in the same sweep.
+ */
+@Component
+@EnableScheduling
+@RequiredArgsConstructor
+public class RetentionScheduler {
+
+    private final EventPartitions eventPartitions;
+    private final ConsumerGroupRegistry consumerGroupRegistry;
+
+    @Scheduled(fixedDelayString = "${producer.retention.check-interval-ms:1000}")
+    public void enforceRetention() {
+        consumerGroupRegistry.expireIdleGroups();
+        eventPartitions.enforceRetention();
+    }
+}
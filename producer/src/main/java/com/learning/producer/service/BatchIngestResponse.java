@@ -0,0 +1,43 @@
+package com.learning.producer.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response model for batch ingest endpoint
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchIngestResponse {
+
+    /**
+     * Number of events appended
+     */
+    private int count;
+
+    /**
+     * Offset of the first appended event, -1 if the batch spans several partitions
+     */
+    private long firstOffset;
+
+    /**
+     * Offset of the last appended event (inclusive), -1 if the batch spans several partitions
+     */
+    private long lastOffset;
+
+    /**
+     * Offset range assigned in each partition touched by the batch
+     */
+    private List<PartitionRange> ranges;
+
+    /**
+     * Epoch identifier for the current event sequence
+     */
+    private String epoch;
+}
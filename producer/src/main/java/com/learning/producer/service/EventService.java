@@ -1,64 +1,360 @@
 package com.learning.producer.service;
 
+import com.learning.producer.ingest.AdmissionController;
+import com.learning.producer.ingest.IdempotencyWindow;
+import com.learning.producer.metrics.ProducerMetrics;
 import com.learning.producer.model.Event;
 import com.learning.producer.model.EventType;
+import com.learning.producer.repository.EventPartitions;
 import com.learning.producer.repository.EventRepository;
+import com.learning.producer.repository.FilteredPage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
 /**
  * Service layer for event management
- * Handles business logic for creating and retrieving events
+ * Handles business logic for creating and retrieving events. Events are stored in
+ * hash partitions (by queueId); cursors, polls and seeks are per partition.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class EventService {
 
-    private final EventRepository eventRepository;
+    private final EventPartitions eventPartitions;
+    private final ProducerMetrics producerMetrics;
+    private final IdempotencyWindow<IngestReceipt> idempotencyWindow;
+    private final AdmissionController admissionController;
 
     /**
-     * Create and store a new event
+     * Create and store a new event in its queue's partition
      */
     public Event createEvent(EventType eventType, String queueId, String agentId) {
+        return createEvent(eventType, queueId, agentId, null, null).getEvent();
+    }
+
+    /**
+     * Create and store a new event unless its idempotency key was seen within the
+     * dedup window; a duplicate appends nothing and returns the original event and offset
+     * (read back from the log, see IngestReceipt)
+     *
+     * @param interactionId  optional; together with the event type it is the key when
+     *                       no idempotencyKey is given
+     * @param idempotencyKey client-supplied key, may be null
+     */
+    public IngestResult createEvent(EventType eventType, String queueId, String agentId,
+                                    String interactionId, String idempotencyKey) {
+        String key = idempotencyKey(eventType, interactionId, idempotencyKey);
+        if (key == null || !idempotencyWindow.isEnabled()) {
+            return append(eventType, queueId, agentId, interactionId);
+        }
+        IdempotencyWindow.Claim<IngestReceipt> claim = idempotencyWindow.claim(key);
+        while (claim.isDuplicate()) {
+            IngestReceipt original = claim.original();
+            if (original != null) {
+                log.debug("Duplicate event: key={}, partition={}, offset={}", key, original.getPartition(), original.getOffset());
+                return IngestResult.builder()
+                        .event(originalEvent(original, eventType, queueId, agentId, interactionId))
+                        .partition(original.getPartition())
+                        .offset(original.getOffset())
+                        .duplicate(true)
+                        .build();
+            }
+            // The owner's append failed and released the key: this request is a retry now
+            claim = idempotencyWindow.claim(key);
+        }
+        try {
+            IngestResult result = append(eventType, queueId, agentId, interactionId);
+            claim.complete(IngestReceipt.of(result));
+            return result;
+        } catch (RuntimeException e) {
+            claim.fail(e);
+            throw e;
+        }
+    }
+
+    private IngestResult append(EventType eventType, String queueId, String agentId, String interactionId) {
         Event event = Event.create(eventType, queueId, agentId);
-        eventRepository.add(event);
-        log.info("Event created: id={}, type={}, queueId={}", event.getEventId(), eventType, queueId);
-        return event;
+        event.setInteractionId(interactionId);
+        int partition = eventPartitions.partitionFor(queueId);
+        long start = System.nanoTime();
+        long offset = eventPartitions.partition(partition).append(event);
+        producerMetrics.recordAppend(System.nanoTime() - start);
+        log.debug("Event created: id={}, type={}, queueId={}", event.getEventId(), eventType, queueId);
+        return IngestResult.builder()
+                .event(event)
+                .partition(partition)
+                .offset(offset)
+                .build();
+    }
+
+    /**
+     * The stored event a duplicate refers to
+     * If retention has evicted it already, the event is rebuilt from the duplicate
+     * request with the original ID; only its timestamp and payload are missing then.
+     */
+    private Event originalEvent(IngestReceipt receipt, EventType eventType, String queueId, String agentId,
+                                String interactionId) {
+        List<Event> stored = eventPartitions.partition(receipt.getPartition()).getAfter(receipt.getOffset() - 1, 1);
+        if (!stored.isEmpty() && receipt.getEventId().equals(stored.get(0).getEventId())) {
+            return stored.get(0);
+        }
+        log.debug("Original event {} at offset {} is no longer retained", receipt.getEventId(), receipt.getOffset());
+        return Event.builder()
+                .eventId(receipt.getEventId())
+                .eventType(eventType)
+                .queueId(queueId)
+                .agentId(agentId)
+                .interactionId(interactionId)
+                .build();
+    }
+
+    private static String idempotencyKey(EventType eventType, String interactionId, String idempotencyKey) {
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            return idempotencyKey;
+        }
+        if (interactionId != null && !interactionId.isBlank()) {
+            return interactionId + "/" + eventType;
+        }
+        return null;
+    }
+
+    /**
+     * Create and store a batch of events, one contiguous offset range per partition
+     *
+     * @param requested events carrying eventType, queueId, agentId and optionally
+     *                  interactionId; IDs and timestamps are assigned here as for
+     *                  single events
+     * @return assigned offset ranges
+     */
+    public BatchIngestResponse createEvents(List<Event> requested) {
+        List<Event> events = new ArrayList<>(requested.size());
+        Map<Integer, Integer> counts = new TreeMap<>();
+        for (Event request : requested) {
+            Event event = Event.create(request.getEventType(), request.getQueueId(), request.getAgentId());
+            event.setInteractionId(request.getInteractionId());
+            events.add(event);
+            counts.merge(eventPartitions.partitionFor(request.getQueueId()), 1, Integer::sum);
+        }
+        long start = System.nanoTime();
+        Map<Integer, Long> firstOffsets = eventPartitions.addAll(events);
+        producerMetrics.recordBatchAppend(System.nanoTime() - start, events.size());
+
+        List<PartitionRange> ranges = new ArrayList<>(counts.size());
+        counts.forEach((partition, count) -> ranges.add(PartitionRange.builder()
+                .partition(partition)
+                .firstOffset(firstOffsets.get(partition))
+                .lastOffset(firstOffsets.get(partition) + count - 1)
+                .build()));
+        log.info("Batch created: count={}, ranges={}", events.size(), ranges);
+
+        boolean single = ranges.size() == 1;
+        return BatchIngestResponse.builder()
+                .count(events.size())
+                .firstOffset(single ? ranges.get(0).getFirstOffset() : -1)
+                .lastOffset(single ? ranges.get(0).getLastOffset() : -1)
+                .ranges(ranges)
+                .epoch(eventPartitions.getEpoch())
+                .build();
+    }
+
+    /**
+     * Poll events of a partition after a given cursor
+     *
+     * @param partition   partition to read
+     * @param afterOffset cursor offset (0-based) within the partition, events after this offset
+     * @param limit       number of events to fetch
+     * @return PollResponse containing events and nextCursor
+     */
+    public PollResponse pollEvents(int partition, long afterOffset, int limit) {
+        return pollEvents(partition, afterOffset, limit, (Collection<String>) null);
     }
 
     /**
-     * Poll events after a given cursor
+     * Poll events of selected queues after a given cursor
+     * With queueIds the per-queue index is used: only matching events are read, and
+     * nextCursor may move past non-matching events (see FilteredPage).
      *
-     * @param afterIndex cursor index (0-based), events after this index
-     * @param limit      number of events to fetch
+     * @param partition   partition to read
+     * @param afterOffset cursor offset (0-based), events after this offset
+     * @param limit       number of events to fetch
+     * @param queueIds    queues to include, null or empty for all
      * @return PollResponse containing events and nextCursor
      */
-    public PollResponse pollEvents(int afterIndex, int limit) {
-        List<Event> events = eventRepository.getAfter(afterIndex, limit);
-        int nextCursor = Math.max(afterIndex, eventRepository.getSize() - 1);
+    public PollResponse pollEvents(int partition, long afterOffset, int limit, Collection<String> queueIds) {
+        EventRepository eventRepository = eventPartitions.partition(partition);
+        long earliestOffset = eventRepository.getStartOffset();
+        if (eventRepository.isExpired(afterOffset)) {
+            log.debug("Poll request: afterOffset={} expired, earliest retained offset={}", afterOffset, earliestOffset);
+            return PollResponse.builder()
+                    .events(new ArrayList<>())
+                    .nextCursor(afterOffset)
+                    .epoch(eventRepository.getEpoch())
+                    .hasMore(true)
+                    .cursorExpired(true)
+                    .earliestOffset(earliestOffset)
+                    .build();
+        }
 
-        log.debug("Poll request: afterIndex={}, limit={}, returned {} events, nextCursor={}",
-                afterIndex, limit, events.size(), nextCursor);
+        long start = System.nanoTime();
+        if (queueIds != null && !queueIds.isEmpty()) {
+            FilteredPage page = eventRepository.getAfter(afterOffset, limit, queueIds);
+            producerMetrics.recordPoll(System.nanoTime() - start, page.getEvents().size());
+            log.debug("Poll request: afterOffset={}, limit={}, queueIds={}, returned {} events, nextCursor={}",
+                    afterOffset, limit, queueIds, page.getEvents().size(), page.getNextCursor());
+            return PollResponse.builder()
+                    .events(page.getEvents())
+                    .nextCursor(page.getNextCursor())
+                    .epoch(eventRepository.getEpoch())
+                    .hasMore(page.isHasMore())
+                    .earliestOffset(earliestOffset)
+                    .build();
+        }
+
+        List<Event> events = eventRepository.getAfter(afterOffset, limit);
+        producerMetrics.recordPoll(System.nanoTime() - start, events.size());
+        // Advance only past what is returned, so a short read never skips events
+        long nextCursor = afterOffset + events.size();
+
+        log.debug("Poll request: afterOffset={}, limit={}, returned {} events, nextCursor={}",
+                afterOffset, limit, events.size(), nextCursor);
 
         return PollResponse.builder()
                 .events(events)
                 .nextCursor(nextCursor)
                 .epoch(eventRepository.getEpoch())
-                .hasMore(nextCursor < eventRepository.getSize() - 1)
+                .hasMore(nextCursor < eventRepository.getEndOffset() - 1)
+                .earliestOffset(earliestOffset)
                 .build();
     }
 
     /**
-     * Get system stats
+     * Long-poll events after a given cursor
+     * Completes immediately when events are available or waitMs is 0; otherwise parks
+     * without holding a thread until an append arrives or waitMs elapses, then polls.
+     *
+     * @param partition   partition to read
+     * @param afterOffset cursor offset (0-based), events after this offset
+     * @param limit       number of events to fetch
+     * @param waitMs      maximum time to wait for new events
+     * @return future PollResponse (possibly with no events after a timeout)
+     */
+    public CompletableFuture<PollResponse> pollEvents(int partition, long afterOffset, int limit, long waitMs) {
+        return pollEvents(partition, afterOffset, limit, waitMs, null);
+    }
+
+    /**
+     * Long-poll events of selected queues after a given cursor
+     * Appends to other queues wake the poll but do not complete it; it parks again
+     * from the advanced cursor until a matching event arrives or waitMs elapses.
+     *
+     * @param queueIds queues to include, null or empty for all
+     */
+    public CompletableFuture<PollResponse> pollEvents(int partition, long afterOffset, int limit, long waitMs,
+                                                      Collection<String> queueIds) {
+        return pollUntil(partition, afterOffset, limit, queueIds,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs));
+    }
+
+    private CompletableFuture<PollResponse> pollUntil(int partition, long afterOffset, int limit,
+                                                      Collection<String> queueIds, long deadlineNanos) {
+        EventRepository eventRepository = eventPartitions.partition(partition);
+        PollResponse response = pollEvents(partition, afterOffset, limit, queueIds);
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (!response.getEvents().isEmpty() || response.isCursorExpired() || remainingMs <= 0) {
+            return CompletableFuture.completedFuture(response);
+        }
+        long cursor = response.getNextCursor();
+        CompletableFuture<Void> appended = eventRepository.awaitAfter(cursor);
+        return appended
+                .completeOnTimeout(null, remainingMs, TimeUnit.MILLISECONDS)
+                // Re-poll off the appending thread so ingest never runs poll work
+                .thenComposeAsync(ignored -> {
+                    eventRepository.cancelAwait(appended);
+                    return pollUntil(partition, cursor, limit, queueIds, deadlineNanos);
+                });
+    }
+
+    /**
+     * Resolve a point in time to a poll cursor within a partition
+     * Uses the repository time index, so the cost is logarithmic in the log size.
+     */
+    public SeekResponse seek(int partition, Instant time) {
+        EventRepository eventRepository = eventPartitions.partition(partition);
+        long offset = eventRepository.findOffset(time);
+        log.debug("Seek request: partition={}, time={}, offset={}", partition, time, offset);
+        return SeekResponse.builder()
+                .partition(partition)
+                .time(time)
+                .offset(offset)
+                .cursor(offset - 1)
+                .epoch(eventRepository.getEpoch())
+                .build();
+    }
+
+    /**
+     * Offsets of every partition, for consumers discovering the partition count
+     */
+    public PartitionsResponse getPartitions() {
+        List<PartitionInfo> partitions = new ArrayList<>(eventPartitions.count());
+        for (int partition = 0; partition < eventPartitions.count(); partition++) {
+            EventRepository eventRepository = eventPartitions.partition(partition);
+            partitions.add(PartitionInfo.builder()
+                    .partition(partition)
+                    .earliestOffset(eventRepository.getStartOffset())
+                    .endOffset(eventRepository.getEndOffset())
+                    .build());
+        }
+        return PartitionsResponse.builder()
+                .epoch(eventPartitions.getEpoch())
+                .partitionCount(partitions.size())
+                .partitions(partitions)
+                .build();
+    }
+
+    public int getPartitionCount() {
+        return eventPartitions.count();
+    }
+
+    /**
+     * Get system stats, summed over partitions
+     * Offsets are only meaningful per partition, see getPartitions.
      */
     public SystemStats getStats() {
         return SystemStats.builder()
-                .totalEventsCreated(eventRepository.getTotalCount())
-                .eventsInMemory(eventRepository.getSize())
+                .partitionCount(eventPartitions.count())
+                .totalEventsCreated(sum(EventRepository::getTotalCount))
+                .eventsInMemory(sum(EventRepository::getRetainedCount))
+                .retainedBytes(sum(EventRepository::getRetainedBytes))
+                .evictedEvents(sum(EventRepository::getEvictedEvents))
+                .evictedBytes(sum(EventRepository::getEvictedBytes))
+                .evictedUnconsumed(sum(EventRepository::getEvictedUnconsumed))
+                .walFlushes(sum(EventRepository::getWalFlushes))
+                .walSyncedEvents(sum(EventRepository::getWalSyncedEvents))
+                .admittedEvents(admissionController.getAdmittedEvents())
+                .queuedEvents(admissionController.getQueuedEvents())
+                .shedQueueFull(admissionController.getShedRequests(AdmissionController.Reason.QUEUE_FULL))
+                .shedMemory(admissionController.getShedRequests(AdmissionController.Reason.MEMORY))
+                .shedRateLimited(admissionController.getShedRequests(AdmissionController.Reason.RATE_LIMITED))
+                .dedupChecks(idempotencyWindow.getChecks())
+                .dedupHits(idempotencyWindow.getHits())
+                .dedupKeys(idempotencyWindow.getRetainedKeys())
+                .dedupBytes(idempotencyWindow.getRetainedBytes())
                 .build();
     }
+
+    private long sum(ToLongFunction<EventRepository> metric) {
+        return eventPartitions.all().stream().mapToLong(metric).sum();
+    }
 }
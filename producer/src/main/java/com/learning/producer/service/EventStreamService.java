@@ -0,0 +1,296 @@
+package com.learning.producer.service;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.repository.EventPartitions;
+import com.learning.producer.repository.EventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Server-Sent Events push stream of appended events
+ * <p>
+ * A stream follows one partition. Each partition has a dispatcher thread that waits
+ * for appends (or the heartbeat interval) and then signals the partition's subscribers.
+ * Every subscriber has its own writer (a virtual thread) that sends the events after
+ * its cursor, so a slow or stalled client only holds up itself. A subscriber stuck in
+ * a send for longer than stall-timeout-ms is dropped; the client reconnects with its
+ * cursor. Each SSE event id is the event's offset within the partition, so clients
+ * resume with Last-Event-ID or ?after=N.
+ * A subscriber whose cursor fell behind retention gets an "expired" event carrying
+ * the earliest retained offset and continues from there.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EventStreamService {
+
+    static final String EPOCH_EVENT = "epoch";
+    static final String EVENT_EVENT = "event";
+    static final String EXPIRED_EVENT = "expired";
+
+    private final EventPartitions eventPartitions;
+
+    @Value("${producer.stream.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${producer.stream.batch-size:500}")
+    private int batchSize;
+
+    // A subscriber blocked in one send for longer than this is dropped
+    @Value("${producer.stream.stall-timeout-ms:30000}")
+    private long stallTimeoutMs;
+
+    private final List<Dispatcher> dispatchers = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int partition = 0; partition < eventPartitions.count(); partition++) {
+            dispatchers.add(new Dispatcher(partition, eventPartitions.partition(partition)));
+        }
+    }
+
+    /**
+     * Close streams as soon as the context starts closing; open SSE requests would
+     * otherwise hold up the web server's graceful shutdown
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void onContextClosed() {
+        stop();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatchers.forEach(Dispatcher::stop);
+    }
+
+    /**
+     * Open a stream of one partition that starts after the given cursor
+     *
+     * @param partition   partition to follow
+     * @param afterOffset cursor offset (0-based), events after this offset are pushed
+     */
+    public SseEmitter subscribe(int partition, long afterOffset) {
+        return subscribe(partition, afterOffset, new SseEmitter(0L));
+    }
+
+    SseEmitter subscribe(int partition, long afterOffset, SseEmitter emitter) {
+        Dispatcher dispatcher = dispatchers.get(partition);
+        Subscription subscription = new Subscription(emitter, afterOffset);
+        emitter.onCompletion(() -> dispatcher.remove(subscription));
+        emitter.onTimeout(() -> dispatcher.remove(subscription));
+        emitter.onError(e -> dispatcher.remove(subscription));
+        try {
+            emitter.send(SseEmitter.event().name(EPOCH_EVENT).data(eventPartitions.getEpoch()));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        subscription.writer = Thread.ofVirtual().name("event-stream-writer-" + partition)
+                .unstarted(() -> dispatcher.writeLoop(subscription));
+        dispatcher.subscriptions.add(subscription);
+        subscription.signal();
+        subscription.writer.start();
+        log.info("Stream subscriber added to partition {} after cursor {}, subscribers={}",
+                partition, afterOffset, dispatcher.subscriptions.size());
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return dispatchers.stream().mapToInt(dispatcher -> dispatcher.subscriptions.size()).sum();
+    }
+
+    /**
+     * Wakes one partition's subscribers on appends and heartbeats, and drops stalled ones
+     */
+    private final class Dispatcher {
+
+        private final int partition;
+        private final EventRepository eventRepository;
+        private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+        private final Thread thread;
+
+        private Dispatcher(int partition, EventRepository eventRepository) {
+            this.partition = partition;
+            this.eventRepository = eventRepository;
+            this.thread = Thread.ofPlatform().name("event-stream-dispatcher-" + partition).daemon()
+                    .start(this::dispatchLoop);
+        }
+
+        private void stop() {
+            thread.interrupt();
+            subscriptions.forEach(subscription -> {
+                subscription.close();
+                subscription.emitter.complete();
+            });
+            subscriptions.clear();
+        }
+
+        private void remove(Subscription subscription) {
+            subscriptions.remove(subscription);
+            subscription.close();
+        }
+
+        private void drop(Subscription subscription, Exception cause) {
+            remove(subscription);
+            subscription.emitter.completeWithError(cause);
+        }
+
+        private void dispatchLoop() {
+            long head = eventRepository.getEndOffset() - 1;
+            while (running) {
+                awaitAppendOrHeartbeat(head);
+                head = eventRepository.getEndOffset() - 1;
+                long now = System.currentTimeMillis();
+                for (Subscription subscription : subscriptions) {
+                    if (subscription.isStalled(now, stallTimeoutMs)) {
+                        log.info("Dropping stream subscriber of partition {} at cursor {}: stalled in a send for over {} ms",
+                                partition, subscription.cursor, stallTimeoutMs);
+                        drop(subscription, new IOException("Stream subscriber stalled"));
+                    } else {
+                        subscription.signal();
+                    }
+                }
+            }
+        }
+
+        private void awaitAppendOrHeartbeat(long head) {
+            CompletableFuture<Void> appended = eventRepository.awaitAfter(head);
+            try {
+                appended.get(heartbeatMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // heartbeat round
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                log.warn("Unexpected error while waiting for appends", e);
+            } finally {
+                eventRepository.cancelAwait(appended);
+            }
+        }
+
+        /**
+         * Writer of one subscriber: on every signal, send until caught up
+         */
+        private void writeLoop(Subscription subscription) {
+            try {
+                while (running && !subscription.closed) {
+                    subscription.signals.acquire();
+                    while (!subscription.closed && deliver(subscription, System.currentTimeMillis())) {
+                        // full batch, more backlog for this subscriber
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } catch (IOException | IllegalStateException e) {
+                if (!subscription.closed) {
+                    log.debug("Dropping stream subscriber of partition {} at cursor {}: {}",
+                            partition, subscription.cursor, e.getMessage());
+                    drop(subscription, e);
+                }
+            }
+        }
+
+        /**
+         * @return whether a full batch was sent, i.e. more events may be waiting
+         */
+        private boolean deliver(Subscription subscription, long now) throws IOException {
+            if (eventRepository.isExpired(subscription.cursor)) {
+                long earliestOffset = eventRepository.getStartOffset();
+                subscription.send(SseEmitter.event().name(EXPIRED_EVENT).data(String.valueOf(earliestOffset)));
+                log.info("Stream subscriber of partition {} cursor {} expired, continuing from {}",
+                        partition, subscription.cursor, earliestOffset);
+                subscription.cursor = earliestOffset - 1;
+            }
+            List<Event> events = eventRepository.getAfter(subscription.cursor, batchSize);
+            if (events.isEmpty()) {
+                if (now - subscription.lastSentAt >= heartbeatMs) {
+                    subscription.send(SseEmitter.event().comment("heartbeat"));
+                    subscription.lastSentAt = now;
+                }
+                return false;
+            }
+            for (Event event : events) {
+                long offset = subscription.cursor + 1;
+                subscription.send(SseEmitter.event()
+                        .id(String.valueOf(offset))
+                        .name(EVENT_EVENT)
+                        .data(event, MediaType.APPLICATION_JSON));
+                subscription.cursor = offset;
+            }
+            subscription.lastSentAt = now;
+            return events.size() == batchSize;
+        }
+    }
+
+    /**
+     * A subscriber; cursor and lastSentAt are only touched by its writer
+     */
+    private static final class Subscription {
+        private final SseEmitter emitter;
+        private final Semaphore signals = new Semaphore(0);
+        private long cursor;
+        private long lastSentAt = System.currentTimeMillis();
+        // Start of the send in progress, 0 between sends
+        private volatile long sendingSince;
+        private volatile boolean closed;
+        private volatile Thread writer;
+
+        private Subscription(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        /**
+         * Ask the writer for another round; pending signals collapse into one
+         */
+        private void signal() {
+            if (signals.availablePermits() == 0) {
+                signals.release();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendingSince = System.currentTimeMillis();
+            try {
+                emitter.send(event);
+            } finally {
+                sendingSince = 0;
+            }
+        }
+
+        private boolean isStalled(long now, long stallTimeoutMs) {
+            long since = sendingSince;
+            return since != 0 && now - since > stallTimeoutMs;
+        }
+
+        private void close() {
+            closed = true;
+            Thread thread = writer;
+            if (thread != null && thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.learning.producer.service;
+
+import lombok.Value;
+
+/**
+ * What the idempotency window remembers of an ingested event: where it was stored
+ * and its ID
+ * A duplicate reads the original event back from the log, so the window holds a few
+ * fields per key instead of the whole event.
+ */
+@Value
+public class IngestReceipt {
+
+    int partition;
+
+    long offset;
+
+    String eventId;
+
+    static IngestReceipt of(IngestResult result) {
+        return new IngestReceipt(result.getPartition(), result.getOffset(), result.getEvent().getEventId());
+    }
+}
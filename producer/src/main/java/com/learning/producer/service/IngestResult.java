@@ -0,0 +1,32 @@
+package com.learning.producer.service;
+
+import com.learning.producer.model.Event;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single-event ingest: where the event was stored, and whether the
+ * request was a duplicate answered from the idempotency window
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IngestResult {
+
+    /**
+     * The stored event (the original one for a duplicate)
+     */
+    private Event event;
+
+    private int partition;
+
+    private long offset;
+
+    /**
+     * True if the idempotency key was seen within the dedup window; nothing was appended
+     */
+    private boolean duplicate;
+}
@@ -0,0 +1,28 @@
+package com.learning.producer.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Offsets of one partition
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PartitionInfo {
+
+    private int partition;
+
+    /**
+     * Offset of the earliest retained event
+     */
+    private long earliestOffset;
+
+    /**
+     * Offset the next event will get
+     */
+    private long endOffset;
+}
@@ -0,0 +1,25 @@
+package com.learning.producer.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Offset range assigned to a batch within one partition
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PartitionRange {
+
+    private int partition;
+
+    private long firstOffset;
+
+    /**
+     * Inclusive
+     */
+    private long lastOffset;
+}
@@ -0,0 +1,30 @@
+package com.learning.producer.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response model for the partitions endpoint
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PartitionsResponse {
+
+    /**
+     * Epoch identifier shared by all partitions
+     */
+    private String epoch;
+
+    /**
+     * Number of partitions; consumers keep one cursor per partition
+     */
+    private int partitionCount;
+
+    private List<PartitionInfo> partitions;
+}
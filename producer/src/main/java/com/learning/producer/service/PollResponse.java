@@ -25,7 +25,7 @@ public class PollResponse {
     /**
      * Cursor for next poll (to avoid re-fetching)
      */
-    private int nextCursor;
+    private long nextCursor;
 
     /**
      * Epoch identifier for the current event sequence
@@ -36,4 +36,15 @@ public class PollResponse {
      * Whether there are more events available
      */
     private boolean hasMore;
+
+    /**
+     * Whether the events after the requested cursor were already evicted by retention
+     * When set, no events are returned; resume from earliestOffset - 1.
+     */
+    private boolean cursorExpired;
+
+    /**
+     * Offset of the earliest event still retained
+     */
+    private long earliestOffset;
 }
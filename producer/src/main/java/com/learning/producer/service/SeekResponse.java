@@ -0,0 +1,44 @@
+package com.learning.producer.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Response model for the seek endpoint
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeekResponse {
+
+    /**
+     * Partition the offsets refer to
+     */
+    private int partition;
+
+    /**
+     * Requested point in time
+     */
+    private Instant time;
+
+    /**
+     * Offset of the first retained event stamped at or after time
+     * Equals the end offset when every retained event is older.
+     */
+    private long offset;
+
+    /**
+     * Cursor to poll from to replay from time (offset - 1)
+     */
+    private long cursor;
+
+    /**
+     * Epoch identifier for the current event sequence
+     */
+    private String epoch;
+}
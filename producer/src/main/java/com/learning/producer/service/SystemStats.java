@@ -14,6 +14,12 @@ import lombok.NoArgsConstructor;
 @Builder
 public class SystemStats {
 
+    /**
+     * Number of hash partitions; the counters below are summed over partitions
+     * (offsets are per partition, see /v1/events/partitions)
+     */
+    private int partitionCount;
+
     /**
      * Total events created since service start
      */
@@ -22,5 +28,87 @@ public class SystemStats {
     /**
      * Events currently in memory
      */
-    private int eventsInMemory;
+    private long eventsInMemory;
+
+    /**
+     * Bytes held by retained events (heap estimate, or file bytes for segmented storage)
+     */
+    private long retainedBytes;
+
+    /**
+     * Events evicted by retention since service start
+     */
+    private long evictedEvents;
+
+    /**
+     * Bytes released by retention since service start
+     */
+    private long evictedBytes;
+
+    /**
+     * Events evicted by a count or byte limit before every consumer group committed them
+     */
+    private long evictedUnconsumed;
+
+    /**
+     * Write-ahead log group commits (fsyncs) since service start, 0 without a write-ahead log
+     */
+    private long walFlushes;
+
+    /**
+     * Events made durable by those group commits; divided by walFlushes, the average group size
+     */
+    private long walSyncedEvents;
+
+    /**
+     * Events admitted into the ingest pipeline
+     */
+    private long admittedEvents;
+
+    /**
+     * Events currently in the ingest pipeline (admitted, not yet stored)
+     */
+    private long queuedEvents;
+
+    /**
+     * Requests shed with 429 because the ingest pipeline was full
+     */
+    private long shedQueueFull;
+
+    /**
+     * Requests shed with 429 because the heap was above the watermark
+     */
+    private long shedMemory;
+
+    /**
+     * Requests shed with 429 by a client's rate limit
+     */
+    private long shedRateLimited;
+
+    /**
+     * Single-event ingests that carried an idempotency key
+     */
+    private long dedupChecks;
+
+    /**
+     * Duplicates answered from the dedup window instead of being appended
+     */
+    private long dedupHits;
+
+    /**
+     * Keys currently held by the dedup window
+     */
+    private long dedupKeys;
+
+    /**
+     * Estimated heap held by the dedup window (keys, entries and Bloom filters)
+     */
+    private long dedupBytes;
+
+    /**
+     * Share of keyed ingests that were duplicates
+     */
+    public double getDedupHitRate() {
+        return dedupChecks == 0 ? 0 : (double) dedupHits / dedupChecks;
+    }
 }
@@ -0,0 +1,174 @@
+package com.learning.producer.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load test against a running producer: tens of thousands of concurrent long-pollers
+ * plus a set of producers posting events
+ * <p>
+ * Every client is a virtual thread here, so the load side scales regardless of the
+ * server mode. Run it once against a producer started with
+ * spring.threads.virtual.enabled=false and once with true, and compare the printed
+ * request rates and the server's peak live threads and heap, sampled from
+ * /actuator/prometheus. Raise the open-file limit (ulimit -n) on both sides first.
+ * <p>
+ * Not part of the unit test run. Start main() from the IDE or with
+ * {@code args: [baseUrl] [pollers] [producers] [seconds]}, e.g.
+ * {@code http://localhost:8080 20000 200 60}.
+ */
+public class ConcurrentClientsLoadBenchmark {
+
+    private static final Pattern THREADS = Pattern.compile("(?m)^jvm_threads_live_threads(?:\\{[^}]*})? ([0-9.eE+]+)");
+    private static final Pattern END_OFFSET = Pattern.compile("\"endOffset\":(\\d+)");
+    private static final Pattern NEXT_CURSOR = Pattern.compile("\"nextCursor\":(-?\\d+)");
+    private static final Pattern HEAP = Pattern.compile("(?m)^jvm_memory_used_bytes\\{[^}]*area=\"heap\"[^}]*} ([0-9.eE+]+)");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int pollers = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int producers = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 60;
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        AtomicLong polls = new AtomicLong();
+        AtomicLong polledBytes = new AtomicLong();
+        AtomicLong posts = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        LongAccumulator maxPostMicros = new LongAccumulator(Math::max, 0);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < pollers; i++) {
+                clients.submit(() -> poll(client, baseUrl, deadline, polls, polledBytes, errors));
+            }
+            for (int i = 0; i < producers; i++) {
+                int producer = i;
+                clients.submit(() -> produce(client, baseUrl, producer, deadline, posts, maxPostMicros, errors));
+            }
+
+            List<double[]> samples = new ArrayList<>();
+            long started = System.nanoTime();
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(5_000);
+                double[] sample = sampleServer(client, baseUrl);
+                samples.add(sample);
+                double elapsed = (System.nanoTime() - started) / 1e9;
+                System.out.printf("t=%4.0fs polls/s=%8.0f posts/s=%8.0f errors=%d server threads=%.0f heap=%.1f MB%n",
+                        elapsed, polls.get() / elapsed, posts.get() / elapsed, errors.get(),
+                        sample[0], sample[1] / (1024 * 1024));
+            }
+            double peakThreads = samples.stream().mapToDouble(sample -> sample[0]).max().orElse(0);
+            double peakHeap = samples.stream().mapToDouble(sample -> sample[1]).max().orElse(0);
+            System.out.printf("%n%d pollers, %d producers, %d s: %d polls (%d KB), %d posts (max %d us), %d errors%n",
+                    pollers, producers, seconds, polls.get(), polledBytes.get() / 1024, posts.get(),
+                    maxPostMicros.get(), errors.get());
+            System.out.printf("server peak live threads=%.0f, peak heap=%.1f MB%n", peakThreads, peakHeap / (1024 * 1024));
+            clients.shutdownNow();
+        }
+    }
+
+    /**
+     * Long-poll the tail of partition 0 until the deadline, following nextCursor
+     */
+    private static void poll(HttpClient client, String baseUrl, long deadline,
+                             AtomicLong polls, AtomicLong polledBytes, AtomicLong errors) {
+        long cursor;
+        try {
+            String partitions = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/v1/events/partitions")).build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+            Matcher matcher = END_OFFSET.matcher(partitions);
+            cursor = matcher.find() ? Long.parseLong(matcher.group(1)) - 1 : -1;
+        } catch (InterruptedException e) {
+            return;
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            return;
+        }
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(
+                            baseUrl + "/v1/events/poll?after=" + cursor + "&limit=10&waitMs=20000"))
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                polls.incrementAndGet();
+                polledBytes.addAndGet(response.body().length());
+                Matcher matcher = NEXT_CURSOR.matcher(response.body());
+                if (response.statusCode() != 200 || !matcher.find()) {
+                    errors.incrementAndGet();
+                    continue;
+                }
+                cursor = Long.parseLong(matcher.group(1));
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    private static void produce(HttpClient client, String baseUrl, int producer, long deadline,
+                                AtomicLong posts, LongAccumulator maxPostMicros, AtomicLong errors) {
+        String body = "{\"eventType\":\"ENQUEUED\",\"queueId\":\"load-q" + (producer % 64)
+                + "\",\"agentId\":\"load-agent-" + producer + "\"}";
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/v1/events"))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                maxPostMicros.accumulate(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                posts.incrementAndGet();
+                if (response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return live threads and used heap bytes of the server, 0 if not available
+     */
+    private static double[] sampleServer(HttpClient client, String baseUrl) {
+        try {
+            String metrics = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/prometheus")).build(),
+                    HttpResponse.BodyHandlers.ofString()).body();
+            double threads = 0;
+            Matcher matcher = THREADS.matcher(metrics);
+            if (matcher.find()) {
+                threads = Double.parseDouble(matcher.group(1));
+            }
+            double heap = 0;
+            matcher = HEAP.matcher(metrics);
+            while (matcher.find()) {
+                heap += Double.parseDouble(matcher.group(1));
+            }
+            return new double[]{threads, heap};
+        } catch (Exception e) {
+            return new double[]{0, 0};
+        }
+    }
+}
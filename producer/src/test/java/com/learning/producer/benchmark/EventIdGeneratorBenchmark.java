@@ -0,0 +1,57 @@
+package com.learning.producer.benchmark;
+
+import com.learning.producer.model.EventIdGenerator;
+import com.learning.producer.model.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event ID generation: UUID.randomUUID (SecureRandom) vs the time-ordered generator
+ * Runs with 4 threads so contention on the shared SecureRandom shows up; the
+ * uuid* variants skip string formatting.
+ * <p>
+ * Not part of the unit test run. Start main() from the IDE, or change the thread
+ * count with JMH's -t option.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class EventIdGeneratorBenchmark {
+
+    private final TimeOrderedIdGenerator timeOrdered = new TimeOrderedIdGenerator();
+
+    @Benchmark
+    public String randomId() {
+        return EventIdGenerator.RANDOM.nextId(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public String timeOrderedId() {
+        return timeOrdered.nextId(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public UUID randomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID timeOrderedUuid() {
+        return timeOrdered.next(System.currentTimeMillis());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EventIdGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,132 @@
+package com.learning.producer.benchmark;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import com.learning.producer.repository.EventRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention benchmark: N ingest threads appending while M pollers read pages
+ * Compares EventRepository against the original fully synchronized ArrayList store.
+ * <p>
+ * Not part of the unit test run. Start main() from the IDE, or change the thread mix
+ * with JMH's -tg option, e.g. {@code -tg 2,6} for 2 writers and 6 pollers.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventRepositoryContentionBenchmark {
+
+    private static final int POLL_LIMIT = 100;
+    private static final int PREFILL = 10_000;
+
+    @Param({"synchronized", "lockFree"})
+    private String store;
+
+    private Store target;
+    private Event event;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        target = "synchronized".equals(store) ? new SynchronizedStore() : new RepositoryStore();
+        event = Event.create(EventType.ENQUEUED, "queue-1", "agent-1");
+        for (int i = 0; i < PREFILL; i++) {
+            target.add(event);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PollerCursor {
+        int cursor = -1;
+    }
+
+    @Benchmark
+    @Group("ingestAndPoll")
+    @GroupThreads(4)
+    public Event ingest() {
+        return target.add(event);
+    }
+
+    @Benchmark
+    @Group("ingestAndPoll")
+    @GroupThreads(4)
+    public List<Event> poll(PollerCursor pollerCursor) {
+        List<Event> events = target.getAfter(pollerCursor.cursor, POLL_LIMIT);
+        // Follow the tail like a consumer; rewind once caught up so pages stay full
+        pollerCursor.cursor = events.size() < POLL_LIMIT
+                ? Math.max(-1, target.size() - PREFILL)
+                : pollerCursor.cursor + events.size();
+        return events;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EventRepositoryContentionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private interface Store {
+        Event add(Event event);
+
+        List<Event> getAfter(int afterIndex, int limit);
+
+        int size();
+    }
+
+    private static final class RepositoryStore implements Store {
+        private final EventRepository repository = new EventRepository();
+
+        @Override
+        public Event add(Event event) {
+            return repository.add(event);
+        }
+
+        @Override
+        public List<Event> getAfter(int afterIndex, int limit) {
+            return repository.getAfter(afterIndex, limit);
+        }
+
+        @Override
+        public int size() {
+            return (int) repository.getEndOffset();
+        }
+    }
+
+    /**
+     * The original repository: one monitor shared by ingest and poll
+     */
+    private static final class SynchronizedStore implements Store {
+        private final List<Event> events = new ArrayList<>();
+
+        @Override
+        public synchronized Event add(Event event) {
+            events.add(event);
+            return event;
+        }
+
+        @Override
+        public synchronized List<Event> getAfter(int afterIndex, int limit) {
+            int startIdx = afterIndex + 1;
+            if (startIdx >= events.size()) {
+                return new ArrayList<>();
+            }
+            int endIdx = Math.min(startIdx + limit, events.size());
+            return new ArrayList<>(events.subList(startIdx, endIdx));
+        }
+
+        @Override
+        public synchronized int size() {
+            return events.size();
+        }
+    }
+}
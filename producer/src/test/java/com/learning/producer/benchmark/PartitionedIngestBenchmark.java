@@ -0,0 +1,74 @@
+package com.learning.producer.benchmark;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import com.learning.producer.repository.EventLog;
+import com.learning.producer.repository.EventPartitions;
+import com.learning.producer.repository.InMemoryEventLog;
+import com.learning.producer.repository.RetentionPolicy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingest scaling benchmark: 8 threads appending, each to its own queue
+ * With one partition every append takes the same lock; with more partitions the
+ * queues spread over independent logs.
+ * <p>
+ * Not part of the unit test run. Start main() from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class PartitionedIngestBenchmark {
+
+    @Param({"1", "4", "8"})
+    private int partitionCount;
+
+    private EventPartitions partitions;
+    private final AtomicInteger threadIds = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        List<EventLog> logs = new ArrayList<>();
+        for (int i = 0; i < partitionCount; i++) {
+            logs.add(new InMemoryEventLog());
+        }
+        partitions = new EventPartitions(logs, RetentionPolicy.UNBOUNDED);
+    }
+
+    @State(Scope.Thread)
+    public static class Producer {
+        Event event;
+        int partition;
+
+        @Setup(Level.Iteration)
+        public void setUp(PartitionedIngestBenchmark benchmark) {
+            // Pick a queue per thread so threads spread over partitions like real traffic
+            String queueId = "queue-" + benchmark.threadIds.getAndIncrement();
+            event = Event.create(EventType.ENQUEUED, queueId, "agent-1");
+            partition = benchmark.partitions.partitionFor(queueId);
+        }
+    }
+
+    @Benchmark
+    public Event ingest(Producer producer) {
+        return partitions.partition(producer.partition).add(producer.event);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PartitionedIngestBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
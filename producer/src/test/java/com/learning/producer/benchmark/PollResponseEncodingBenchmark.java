@@ -0,0 +1,73 @@
+package com.learning.producer.benchmark;
+
+import com.learning.producer.codec.PollResponseBinaryCodec;
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import com.learning.producer.service.PollResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding cost of one poll page: JSON (what Spring MVC writes by default) vs the binary codec
+ * The encoded sizes of both formats are printed once per fork in setUp.
+ * <p>
+ * Not part of the unit test run. Start main() from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PollResponseEncodingBenchmark {
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private JsonMapper jsonMapper;
+    private PollResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        List<Event> events = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Event event = Event.create(i % 2 == 0 ? EventType.ENQUEUED : EventType.DEQUEUED,
+                    "queue-" + (i % 20), "agent-" + (i % 50));
+            event.setPayload(Map.of("priority", i % 5));
+            events.add(event);
+        }
+        response = PollResponse.builder()
+                .events(events)
+                .nextCursor(pageSize - 1)
+                .epoch("3f6c2a8e-7a51-4d0e-9b7f-2d2b8f4c1e90")
+                .hasMore(true)
+                .build();
+        System.out.printf("%n[pageSize=%d] json=%d bytes, binary=%d bytes%n", pageSize,
+                json().length, binary().length);
+    }
+
+    @Benchmark
+    public byte[] json() {
+        return jsonMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] binary() {
+        return PollResponseBinaryCodec.encode(response);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PollResponseEncodingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,106 @@
+package com.learning.producer.codec;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import com.learning.producer.service.PollResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for PollResponseBinaryCodec
+ */
+@DisplayName("PollResponseBinaryCodec Unit Tests")
+class PollResponseBinaryCodecTest {
+
+    @Test
+    @DisplayName("Should round-trip events")
+    void shouldRoundTripEvents() {
+        // Given
+        Event first = Event.create(EventType.ENQUEUED, "queue-1", "agent-1");
+        first.setTimestamp(Instant.parse("2026-01-01T00:00:00.123456Z"));
+        first.setPayload(Map.of("priority", 3, "source", "web"));
+        Event second = Event.create(EventType.DEQUEUED, "queue-1", "agent-2");
+        second.setTimestamp(Instant.parse("2025-12-31T23:59:59Z"));
+        PollResponse response = PollResponse.builder()
+                .events(List.of(first, second))
+                .nextCursor(5_000_000_041L)
+                .earliestOffset(4_000_000_000L)
+                .epoch("epoch-1")
+                .hasMore(true)
+                .build();
+
+        // When
+        PollResponse decoded = PollResponseBinaryCodec.decode(PollResponseBinaryCodec.encode(response));
+
+        // Then
+        assertThat(decoded).isEqualTo(response);
+    }
+
+    @Test
+    @DisplayName("Should keep null fields and non-UUID event ids")
+    void shouldKeepNullsAndCustomIds() {
+        // Given
+        Event event = new Event();
+        event.setEventId("custom-id");
+        PollResponse response = PollResponse.builder()
+                .events(List.of(event))
+                .nextCursor(-1)
+                .build();
+
+        // When
+        PollResponse decoded = PollResponseBinaryCodec.decode(PollResponseBinaryCodec.encode(response));
+
+        // Then
+        assertThat(decoded).isEqualTo(response);
+    }
+
+    @Test
+    @DisplayName("Should truncate timestamps to microseconds")
+    void shouldTruncateTimestampsToMicros() {
+        // Given
+        Event event = Event.create(EventType.ENQUEUED, "queue-1", "agent-1");
+        event.setTimestamp(Instant.parse("2026-01-01T00:00:00.123456789Z"));
+        PollResponse response = PollResponse.builder().events(List.of(event)).build();
+
+        // When
+        PollResponse decoded = PollResponseBinaryCodec.decode(PollResponseBinaryCodec.encode(response));
+
+        // Then
+        assertThat(decoded.getEvents().get(0).getTimestamp())
+                .isEqualTo(Instant.parse("2026-01-01T00:00:00.123456Z"));
+    }
+
+    @Test
+    @DisplayName("Should be smaller than JSON")
+    void shouldBeSmallerThanJson() {
+        // Given
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(Event.create(EventType.ENQUEUED, "queue-" + (i % 5), "agent-" + (i % 10)));
+        }
+        PollResponse response = PollResponse.builder().events(events).nextCursor(99).epoch("epoch-1").build();
+
+        // When
+        int binarySize = PollResponseBinaryCodec.encode(response).length;
+        int jsonSize = JsonMapper.builder().build().writeValueAsBytes(response).length;
+
+        // Then
+        assertThat(binarySize).isLessThan(jsonSize / 3);
+    }
+
+    @Test
+    @DisplayName("Should reject unknown input")
+    void shouldRejectUnknownInput() {
+        assertThatThrownBy(() -> PollResponseBinaryCodec.decode("{}".getBytes()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
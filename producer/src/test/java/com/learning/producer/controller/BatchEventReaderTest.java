@@ -0,0 +1,153 @@
+package com.learning.producer.controller;
+
+import com.learning.producer.ingest.AdmissionController;
+import com.learning.producer.ingest.IngestRejectedException;
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Unit tests for BatchEventReader
+ */
+@DisplayName("BatchEventReader Unit Tests")
+class BatchEventReaderTest {
+
+    @Test
+    @DisplayName("Should read NDJSON body")
+    void shouldReadNdjson() {
+        // Given
+        String body = """
+                {"eventType":"ENQUEUED","queueId":"queue-1","agentId":"agent-1"}
+                {"eventType":"DEQUEUED","queueId":"queue-2","agentId":"agent-2"}
+                """;
+
+        // When
+        List<Event> events = BatchEventReader.read(stream(body), 100);
+
+        // Then
+        assertThat(events).extracting(Event::getEventType, Event::getQueueId)
+                .containsExactly(
+                        tuple(EventType.ENQUEUED, "queue-1"),
+                        tuple(EventType.DEQUEUED, "queue-2"));
+    }
+
+    @Test
+    @DisplayName("Should read JSON array body")
+    void shouldReadJsonArray() {
+        // Given
+        String body = "[{\"eventType\":\"ENQUEUED\",\"queueId\":\"queue-1\"},"
+                + "{\"eventType\":\"ENQUEUED\",\"queueId\":\"queue-3\"}]";
+
+        // When
+        List<Event> events = BatchEventReader.read(stream(body), 100);
+
+        // Then
+        assertThat(events).extracting(Event::getQueueId).containsExactly("queue-1", "queue-3");
+    }
+
+    @Test
+    @DisplayName("Should reject batches over the limit")
+    void shouldRejectOversizedBatch() {
+        // Given
+        String body = "{\"queueId\":\"q1\"}\n{\"queueId\":\"q2\"}\n{\"queueId\":\"q3\"}";
+
+        // When & Then
+        assertThatThrownBy(() -> BatchEventReader.read(stream(body), 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("exceeds 2");
+    }
+
+    @Test
+    @DisplayName("Should reject empty and malformed bodies")
+    void shouldRejectEmptyAndMalformedBodies() {
+        assertThatThrownBy(() -> BatchEventReader.read(stream(""), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BatchEventReader.read(stream("[]"), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BatchEventReader.read(stream("[{\"queueId\":"), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BatchEventReader.read(stream("[1, 2]"), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should announce each chunk before binding it and stop reading when a chunk is shed")
+    void shouldStopReadingShedBatch() {
+        // Given: 10000 events; the second chunk of 100 is shed
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            body.append("{\"eventType\":\"ENQUEUED\",\"queueId\":\"queue-").append(i).append("\"}\n");
+        }
+        byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        CountingInputStream counting = new CountingInputStream(new ByteArrayInputStream(bytes));
+        List<Integer> chunks = new ArrayList<>();
+
+        // When & Then
+        assertThatThrownBy(() -> BatchEventReader.read(counting, 10_000, 100, size -> {
+            chunks.add(size);
+            if (chunks.size() == 2) {
+                throw new IngestRejectedException(AdmissionController.Reason.QUEUE_FULL, 1, "Ingest pipeline full");
+            }
+        })).isInstanceOf(IngestRejectedException.class);
+        assertThat(chunks).containsExactly(100, 100);
+        assertThat(counting.bytesRead).isLessThan(bytes.length / 10);
+    }
+
+    @Test
+    @DisplayName("Should size the last chunk to the event limit")
+    void shouldCapLastChunkAtLimit() {
+        // Given
+        String body = "{\"queueId\":\"q1\"}\n{\"queueId\":\"q2\"}\n{\"queueId\":\"q3\"}";
+        List<Integer> chunks = new ArrayList<>();
+
+        // When
+        List<Event> events = BatchEventReader.read(stream(body), 3, 2, chunks::add);
+
+        // Then
+        assertThat(events).hasSize(3);
+        assertThat(chunks).containsExactly(2, 1);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private long bytesRead;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                bytesRead++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                bytesRead += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.learning.producer.controller;
+
+import com.learning.producer.model.EventType;
+import com.learning.producer.service.EventService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for the SSE push stream
+ * Runs the producer on a random port and reads the raw text/event-stream
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@DisplayName("Event Stream Integration Tests")
+class EventStreamIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EventService eventService;
+
+    @Test
+    @DisplayName("stream: Should push epoch, backlog after cursor and newly appended events")
+    void shouldStreamBacklogAndNewEvents() throws Exception {
+        // Given: two events already stored
+        eventService.createEvent(EventType.ENQUEUED, "stream-q0", "agent-1");
+        eventService.createEvent(EventType.ENQUEUED, "stream-q1", "agent-1");
+        long after = eventService.getPartitions().getPartitions().get(0).getEndOffset() - 2;
+
+        HttpRequest request = HttpRequest.newBuilder(
+                        URI.create("http://localhost:" + port + "/v1/events/stream?after=" + after))
+                .header("Accept", "text/event-stream")
+                .build();
+        HttpResponse<InputStream> response = HttpClient.newHttpClient()
+                .send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            // When: one more event is appended while connected
+            eventService.createEvent(EventType.DEQUEUED, "stream-q2", "agent-1");
+
+            // Then
+            List<String> ids = new ArrayList<>();
+            List<String> names = new ArrayList<>();
+            String line;
+            while (ids.size() < 2 && (line = reader.readLine()) != null) {
+                if (line.startsWith("event:")) {
+                    names.add(line.substring("event:".length()));
+                } else if (line.startsWith("id:")) {
+                    ids.add(line.substring("id:".length()));
+                }
+            }
+            assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                    type -> assertThat(type).startsWith("text/event-stream"));
+            assertThat(names).startsWith("epoch", "event");
+            assertThat(ids).containsExactly(String.valueOf(after + 1), String.valueOf(after + 2));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.learning.producer.group;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import com.learning.producer.repository.EventPartitions;
+import com.learning.producer.repository.InMemoryEventLog;
+import com.learning.producer.repository.RetentionPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for ConsumerGroupRegistry
+ */
+@DisplayName("ConsumerGroupRegistry Unit Tests")
+class ConsumerGroupRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private EventPartitions partitions;
+
+    @BeforeEach
+    void setUp() {
+        partitions = new EventPartitions(List.of(new InMemoryEventLog(), new InMemoryEventLog()),
+                RetentionPolicy.UNBOUNDED);
+        for (int i = 0; i < 10; i++) {
+            partitions.partition(0).add(Event.create(EventType.ENQUEUED, "queue-a", "agent-1"));
+            partitions.partition(1).add(Event.create(EventType.ENQUEUED, "queue-b", "agent-1"));
+        }
+    }
+
+    @Test
+    @DisplayName("commit: Should track lag per partition and never move a group backwards")
+    void shouldTrackLagAndOnlyMoveForward() {
+        // Given
+        ConsumerGroupRegistry registry = registry(null);
+
+        // When
+        registry.commit("billing", partitions.getEpoch(), Map.of(0, 4L, 1, 9L));
+        ConsumerGroupStatus status = registry.commit("billing", partitions.getEpoch(), Map.of(0, 2L));
+
+        // Then
+        assertThat(status.getPartitions()).extracting(PartitionLag::getCommittedOffset).containsExactly(4L, 9L);
+        assertThat(status.getPartitions()).extracting(PartitionLag::getLag).containsExactly(5L, 0L);
+        assertThat(status.getTotalLag()).isEqualTo(5);
+        assertThat(registry.maxLag(0)).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("commit: Should reject offsets of another epoch or beyond the end")
+    void shouldRejectInvalidCommits() {
+        ConsumerGroupRegistry registry = registry(null);
+
+        assertThatThrownBy(() -> registry.commit("billing", "old-epoch", Map.of(0, 1L)))
+                .isInstanceOfSatisfying(StaleEpochException.class,
+                        e -> assertThat(e.getCurrentEpoch()).isEqualTo(partitions.getEpoch()));
+        assertThatThrownBy(() -> registry.commit("billing", partitions.getEpoch(), Map.of(0, 10L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> registry.commit("billing", partitions.getEpoch(), Map.of(2, 0L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> registry.commit("bad group", partitions.getEpoch(), Map.of(0, 0L)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(registry.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hold retention after the slowest group and release it when groups go away")
+    void shouldHoldRetentionAtSlowestGroup() {
+        // Given
+        ConsumerGroupRegistry registry = registry(null);
+
+        // When
+        registry.commit("fast", partitions.getEpoch(), Map.of(0, 9L, 1, 9L));
+        registry.commit("slow", partitions.getEpoch(), Map.of(0, 3L));
+
+        // Then: slow has not committed partition 1 at all
+        assertThat(partitions.partition(0).getRetentionHold()).isEqualTo(4);
+        assertThat(partitions.partition(1).getRetentionHold()).isZero();
+
+        // When: slow stops committing
+        clock.addAndGet(Duration.ofHours(1).toMillis());
+        registry.commit("fast", partitions.getEpoch(), Map.of(0, 9L));
+        registry.expireIdleGroups();
+
+        // Then
+        assertThat(registry.get("slow")).isEmpty();
+        assertThat(partitions.partition(0).getRetentionHold()).isEqualTo(10);
+        assertThat(registry.delete("fast")).isTrue();
+        assertThat(partitions.partition(0).getRetentionHold()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    @DisplayName("expireIdleGroups: Should never drop a group that is committing for the first time")
+    void shouldKeepNewGroupsDuringExpiry() throws Exception {
+        // Given: every committed group is recent, so nothing may expire
+        ConsumerGroupRegistry registry = registry(null);
+        AtomicBoolean committing = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            // When: new groups commit while expiry runs continuously
+            Future<?> expiry = executor.submit(() -> {
+                while (committing.get()) {
+                    registry.expireIdleGroups();
+                }
+            });
+            for (int i = 0; i < 2_000; i++) {
+                registry.commit("group-" + i, partitions.getEpoch(), Map.of(0, 1L));
+            }
+            committing.set(false);
+            expiry.get();
+
+            // Then
+            assertThat(registry.size()).isEqualTo(2_000);
+            assertThat(partitions.partition(0).getRetentionHold()).isEqualTo(2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("save: Should restore committed offsets in the same epoch only")
+    void shouldRestoreOffsetsInSameEpoch() throws Exception {
+        // Given
+        Path stateFile = tempDir.resolve("groups.properties");
+        ConsumerGroupRegistry registry = registry(stateFile);
+        registry.commit("billing.v2", partitions.getEpoch(), Map.of(0, 4L, 1, 7L));
+
+        // When
+        registry.close();
+        ConsumerGroupRegistry restored = registry(stateFile);
+
+        // Then
+        assertThat(restored.get("billing.v2")).hasValueSatisfying(status ->
+                assertThat(status.getPartitions()).extracting(PartitionLag::getCommittedOffset).containsExactly(4L, 7L));
+        assertThat(partitions.partition(1).getRetentionHold()).isEqualTo(8);
+
+        // When: the store starts a new epoch
+        partitions = new EventPartitions(List.of(new InMemoryEventLog(), new InMemoryEventLog()),
+                RetentionPolicy.UNBOUNDED);
+
+        // Then
+        assertThat(registry(stateFile).size()).isZero();
+    }
+
+    private ConsumerGroupRegistry registry(Path stateFile) {
+        return new ConsumerGroupRegistry(partitions, stateFile, Duration.ofMinutes(10), clock::get);
+    }
+}
@@ -0,0 +1,183 @@
+package com.learning.producer.ingest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for AdmissionController
+ */
+@DisplayName("AdmissionController Unit Tests")
+class AdmissionControllerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("admit: Should rate-limit each client by its own token bucket")
+    void shouldRateLimitPerClient() {
+        // Given: 10 events/s with a burst of 5
+        AdmissionController admission = new AdmissionController(AdmissionPolicy.builder()
+                .clientRate(10)
+                .clientBurst(5)
+                .build(), () -> 0);
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            admission.admit("client-a", 1, 0).close();
+        }
+
+        // Then: client-a is out of tokens until they accrue, client-b is unaffected
+        assertThatThrownBy(() -> admission.admit("client-a", 1, 0))
+                .isInstanceOfSatisfying(IngestRejectedException.class, e -> {
+                    assertThat(e.getReason()).isEqualTo(AdmissionController.Reason.RATE_LIMITED);
+                    assertThat(e.getRetryAfterSeconds()).isEqualTo(1);
+                });
+        admission.admit("client-b", 5, 0).close();
+        admission.admit("client-a", 1, SECOND / 10).close();
+        assertThat(admission.getShedRequests(AdmissionController.Reason.RATE_LIMITED)).isEqualTo(1);
+        assertThat(admission.getAdmittedEvents()).isEqualTo(11);
+    }
+
+    @Test
+    @DisplayName("admit: Should admit a batch above the burst from a full bucket and leave it in debt")
+    void shouldAdmitLargeBatchIntoDebt() {
+        // Given
+        AdmissionController admission = new AdmissionController(AdmissionPolicy.builder()
+                .clientRate(100)
+                .clientBurst(50)
+                .build(), () -> 0);
+
+        // When
+        admission.admit("client-a", 250, 0).close();
+
+        // Then: 200 events of debt plus 50 for the next burst take 2.5 s to accrue
+        assertThatThrownBy(() -> admission.admit("client-a", 50, SECOND))
+                .isInstanceOfSatisfying(IngestRejectedException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(2));
+        admission.admit("client-a", 50, 5 * SECOND / 2).close();
+    }
+
+    @Test
+    @DisplayName("admit: Should shed when the pipeline is full and admit again once permits are released")
+    void shouldBoundPipeline() {
+        // Given
+        AdmissionController admission = new AdmissionController(AdmissionPolicy.builder()
+                .maxQueuedEvents(100)
+                .retryAfter(Duration.ofSeconds(3))
+                .build(), () -> 0);
+        AdmissionController.Permit first = admission.admit("client-a", 60, 0);
+
+        // When / Then
+        assertThat(admission.getQueuedEvents()).isEqualTo(60);
+        assertThatThrownBy(() -> admission.admit("client-b", 60, 0))
+                .isInstanceOfSatisfying(IngestRejectedException.class, e -> {
+                    assertThat(e.getReason()).isEqualTo(AdmissionController.Reason.QUEUE_FULL);
+                    assertThat(e.getRetryAfterSeconds()).isEqualTo(3);
+                });
+        first.close();
+        admission.admit("client-b", 60, 0).close();
+        assertThat(admission.getQueuedEvents()).isZero();
+        assertThat(admission.getShedEvents(AdmissionController.Reason.QUEUE_FULL)).isEqualTo(60);
+    }
+
+    @Test
+    @DisplayName("admit: Should refund tokens when the pipeline sheds a rate-admitted request")
+    void shouldRefundTokensWhenPipelineIsFull() {
+        // Given
+        AdmissionController admission = new AdmissionController(AdmissionPolicy.builder()
+                .maxQueuedEvents(10)
+                .clientRate(1)
+                .clientBurst(10)
+                .build(), () -> 0);
+        AdmissionController.Permit other = admission.admit("client-b", 10, 0);
+
+        // When
+        assertThatThrownBy(() -> admission.admit("client-a", 10, 0)).isInstanceOf(IngestRejectedException.class);
+        other.close();
+
+        // Then: client-a still has its full burst
+        admission.admit("client-a", 10, 0).close();
+    }
+
+    @Test
+    @DisplayName("admitBatch: Should admit chunk by chunk and give back the unused part of the last chunk")
+    void shouldAdmitBatchInChunks() {
+        // Given
+        AdmissionController admission = new AdmissionController(AdmissionPolicy.builder()
+                .maxQueuedEvents(1_000)
+                .clientRate(1)
+                .clientBurst(100)
+                .build(), () -> 0);
+
+        // When: two chunks of 100 admitted, the batch turns out to have 150 events
+        try (AdmissionController.BatchPermit batch = admission.admitBatch("client-a")) {
+            batch.admit(100);
+            batch.admit(100);
+            batch.trim(150);
+
+            // Then: the second chunk went into debt like a whole batch would
+            assertThat(batch.getAdmitted()).isEqualTo(150);
+            assertThat(admission.getQueuedEvents()).isEqualTo(150);
+            assertThat(admission.getAdmittedEvents()).isEqualTo(150);
+        }
+        assertThat(admission.getQueuedEvents()).isZero();
+    }
+
+    @Test
+    @DisplayName("admitBatch: Should give back earlier chunks when a later chunk is shed")
+    void shouldReleaseBatchWhenChunkIsShed() {
+        // Given: a pipeline of 150 events
+        AdmissionController admission = new AdmissionController(AdmissionPolicy.builder()
+                .maxQueuedEvents(150)
+                .build(), () -> 0);
+        AdmissionController.Permit other = admission.admit("client-b", 50, 0);
+
+        // When
+        try (AdmissionController.BatchPermit batch = admission.admitBatch("client-a")) {
+            batch.admit(100);
+            assertThatThrownBy(() -> batch.admit(100)).isInstanceOf(IngestRejectedException.class);
+
+            // Then: nothing of the shed batch stays in the pipeline
+            assertThat(batch.getAdmitted()).isZero();
+            assertThat(admission.getQueuedEvents()).isEqualTo(50);
+            assertThat(admission.getAdmittedEvents()).isEqualTo(50);
+        }
+        other.close();
+        assertThat(admission.getQueuedEvents()).isZero();
+    }
+
+    @Test
+    @DisplayName("admit: Should shed while the heap is above the watermark, sampling it at most every 100 ms")
+    void shouldShedAboveHeapWatermark() {
+        // Given
+        AtomicReference<Double> heap = new AtomicReference<>(0.95);
+        AdmissionController admission = new AdmissionController(AdmissionPolicy.builder()
+                .heapWatermark(0.9)
+                .build(), heap::get);
+
+        // When / Then
+        assertThatThrownBy(() -> admission.admit("client-a", 1, 0))
+                .isInstanceOfSatisfying(IngestRejectedException.class,
+                        e -> assertThat(e.getReason()).isEqualTo(AdmissionController.Reason.MEMORY));
+        heap.set(0.5);
+        assertThatThrownBy(() -> admission.admit("client-a", 1, SECOND / 20)).isInstanceOf(IngestRejectedException.class);
+        admission.admit("client-a", 1, SECOND / 5).close();
+        assertThat(admission.getShedRequests(AdmissionController.Reason.MEMORY)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("isEnabled: Should be disabled without limits")
+    void shouldBeDisabledWithoutLimits() {
+        AdmissionController admission = new AdmissionController(AdmissionPolicy.UNLIMITED, () -> 1.0);
+
+        assertThat(admission.isEnabled()).isFalse();
+        admission.admit(null, 1_000_000, 0).close();
+        assertThat(admission.getQueuedEvents()).isZero();
+    }
+}
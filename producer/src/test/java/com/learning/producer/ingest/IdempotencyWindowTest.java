@@ -0,0 +1,131 @@
+package com.learning.producer.ingest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for IdempotencyWindow
+ */
+@DisplayName("IdempotencyWindow Unit Tests")
+class IdempotencyWindowTest {
+
+    @Test
+    @DisplayName("claim: Should report duplicates with the owner's result until two windows have passed")
+    void shouldRememberKeysForTheWindow() {
+        // Given
+        IdempotencyWindow<Long> window = new IdempotencyWindow<>(1_000, 100, 0);
+        IdempotencyWindow.Claim<Long> owner = window.claim("key-1", 0);
+        owner.complete(7L);
+
+        // When
+        IdempotencyWindow.Claim<Long> sameWindow = window.claim("key-1", 500);
+        IdempotencyWindow.Claim<Long> nextWindow = window.claim("key-1", 1_500);
+        IdempotencyWindow.Claim<Long> afterTwoWindows = window.claim("key-1", 2_600);
+
+        // Then
+        assertThat(owner.isDuplicate()).isFalse();
+        assertThat(sameWindow.isDuplicate()).isTrue();
+        assertThat(sameWindow.original()).isEqualTo(7L);
+        assertThat(nextWindow.isDuplicate()).isTrue();
+        assertThat(afterTwoWindows.isDuplicate()).isFalse();
+        assertThat(window.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("claim: Should never hold more than maxKeys, rotating early when full")
+    void shouldBoundRetainedKeys() {
+        // Given
+        IdempotencyWindow<Long> window = new IdempotencyWindow<>(60_000, 100, 0);
+
+        // When
+        for (int i = 0; i < 1_000; i++) {
+            window.claim("key-" + i, 0).complete((long) i);
+        }
+
+        // Then
+        assertThat(window.getRetainedKeys()).isLessThanOrEqualTo(100);
+        assertThat(window.getEarlyRotations()).isPositive();
+        assertThat(window.claim("key-999", 0).isDuplicate()).isTrue();
+        assertThat(window.claim("key-0", 0).isDuplicate()).isFalse();
+    }
+
+    @Test
+    @DisplayName("fail: Should release the key so a retry can append")
+    void shouldReleaseKeyOnFailure() {
+        // Given
+        IdempotencyWindow<Long> window = new IdempotencyWindow<>(60_000, 100, 0);
+        IdempotencyWindow.Claim<Long> owner = window.claim("key-1", 0);
+
+        // When
+        owner.fail(new IllegalStateException("append failed"));
+        IdempotencyWindow.Claim<Long> retry = window.claim("key-1", 0);
+
+        // Then
+        assertThat(retry.isDuplicate()).isFalse();
+        assertThat(window.getRetainedKeys()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("original: Should give a waiting duplicate no result when the owner fails, so it can claim again")
+    void shouldReleaseWaitingDuplicateOnFailure() {
+        // Given: a duplicate claimed while the owner is still appending
+        IdempotencyWindow<Long> window = new IdempotencyWindow<>(60_000, 100, 0);
+        IdempotencyWindow.Claim<Long> owner = window.claim("key-1", 0);
+        IdempotencyWindow.Claim<Long> duplicate = window.claim("key-1", 0);
+
+        // When
+        owner.fail(new IllegalStateException("append failed"));
+
+        // Then
+        assertThat(duplicate.isDuplicate()).isTrue();
+        assertThat(duplicate.original()).isNull();
+        assertThat(window.claim("key-1", 0).isDuplicate()).isFalse();
+    }
+
+    @Test
+    @DisplayName("claim: Should let exactly one of many concurrent requests with one key own it")
+    void shouldGrantOneOwnerUnderContention() throws Exception {
+        // Given
+        IdempotencyWindow<Long> window = new IdempotencyWindow<>(60_000, 10_000);
+        AtomicInteger owners = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<Long>> results = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            results.add(executor.submit(() -> {
+                IdempotencyWindow.Claim<Long> claim = window.claim("shared");
+                if (claim.isDuplicate()) {
+                    return claim.original();
+                }
+                owners.incrementAndGet();
+                claim.complete(42L);
+                return 42L;
+            }));
+        }
+        for (Future<Long> result : results) {
+            assertThat(result.get()).isEqualTo(42L);
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(owners.get()).isEqualTo(1);
+        assertThat(window.getHits()).isEqualTo(63);
+    }
+
+    @Test
+    @DisplayName("isEnabled: Should be disabled with a zero window")
+    void shouldBeDisabledWithZeroWindow() {
+        assertThat(new IdempotencyWindow<Long>(0, 0).isEnabled()).isFalse();
+        assertThat(new IdempotencyWindow<Long>(1_000, 10).isEnabled()).isTrue();
+    }
+}
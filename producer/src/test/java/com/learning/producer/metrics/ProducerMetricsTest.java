@@ -0,0 +1,71 @@
+package com.learning.producer.metrics;
+
+import com.learning.producer.group.ConsumerGroupRegistry;
+import com.learning.producer.ingest.AdmissionController;
+import com.learning.producer.ingest.AdmissionPolicy;
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import com.learning.producer.repository.EventPartitions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ProducerMetrics
+ */
+@DisplayName("ProducerMetrics Unit Tests")
+class ProducerMetricsTest {
+
+    @Test
+    @DisplayName("record: Should feed hot-path timers, rate counters and page size summary")
+    void shouldRecordTimersAndCounters() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EventPartitions partitions = new EventPartitions();
+        ProducerMetrics metrics = new ProducerMetrics(registry, partitions,
+                new AdmissionController(AdmissionPolicy.UNLIMITED), groups(partitions));
+
+        // When
+        metrics.recordAppend(TimeUnit.MICROSECONDS.toNanos(5));
+        metrics.recordBatchAppend(TimeUnit.MICROSECONDS.toNanos(20), 10);
+        metrics.recordPoll(TimeUnit.MICROSECONDS.toNanos(3), 7);
+
+        // Then
+        assertThat(registry.get("producer.repository.append").timer().count()).isEqualTo(1);
+        assertThat(registry.get("producer.repository.append").timer().totalTime(TimeUnit.MICROSECONDS)).isEqualTo(5);
+        assertThat(registry.get("producer.repository.append.batch").timer().count()).isEqualTo(1);
+        assertThat(registry.get("producer.events.ingested").counter().count()).isEqualTo(11);
+        assertThat(registry.get("producer.events.polled").counter().count()).isEqualTo(7);
+        assertThat(registry.get("producer.poll.page.events").summary().max()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("gauges: Should report repository size per partition")
+    void shouldReportRepositorySizeGauges() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        EventPartitions partitions = new EventPartitions();
+        new ProducerMetrics(registry, partitions, new AdmissionController(AdmissionPolicy.UNLIMITED), groups(partitions));
+
+        // When
+        partitions.partition(0).add(Event.create(EventType.ENQUEUED, "queue-1", "agent-1"));
+        partitions.partition(0).add(Event.create(EventType.DEQUEUED, "queue-1", "agent-1"));
+
+        // Then
+        assertThat(registry.get("producer.partition.retained.events").tag("partition", "0").gauge().value())
+                .isEqualTo(2);
+        assertThat(registry.get("producer.partition.end.offset").tag("partition", "0").gauge().value())
+                .isEqualTo(2);
+        assertThat(registry.get("producer.partition.retained.bytes").tag("partition", "0").gauge().value())
+                .isPositive();
+    }
+
+    private static ConsumerGroupRegistry groups(EventPartitions partitions) {
+        return new ConsumerGroupRegistry(partitions, null, Duration.ZERO);
+    }
+}
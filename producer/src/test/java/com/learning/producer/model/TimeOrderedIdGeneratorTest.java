@@ -0,0 +1,108 @@
+package com.learning.producer.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for TimeOrderedIdGenerator
+ */
+@DisplayName("TimeOrderedIdGenerator Unit Tests")
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    @DisplayName("next: Should produce version 7 IDs that embed the timestamp")
+    void shouldEmbedTimestampInVersion7Layout() {
+        // Given
+        long millis = 1_760_000_000_000L;
+
+        // When
+        UUID id = new TimeOrderedIdGenerator().next(millis);
+
+        // Then
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(TimeOrderedIdGenerator.timestampOf(id)).isEqualTo(millis);
+    }
+
+    @Test
+    @DisplayName("nextId: Should sort in generation order within a millisecond and across a clock step back")
+    void shouldStayMonotonicPerThread() {
+        // Given
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        long millis = 1_760_000_000_000L;
+
+        // When
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(generator.nextId(millis));
+        }
+        ids.add(generator.nextId(millis - 5));
+        ids.add(generator.nextId(millis + 1));
+
+        // Then
+        assertThat(ids).isSorted().doesNotHaveDuplicates();
+        assertThat(ids).allSatisfy(id -> assertThat(UUID.fromString(id).toString()).isEqualTo(id));
+    }
+
+    @Test
+    @DisplayName("nextId: Should stay unique across threads sharing a millisecond")
+    void shouldStayUniqueAcrossThreads() throws Exception {
+        // Given
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(generator.nextId(1_760_000_000_000L));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(ids).hasSize(80_000);
+    }
+
+    @Test
+    @DisplayName("nextId: Should keep sequences running across short-lived virtual threads")
+    void shouldShareStateAcrossVirtualThreads() throws Exception {
+        // Given: one virtual thread per ID, as with a request per virtual thread
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(4);
+        List<UUID> ids = new ArrayList<>();
+
+        // When
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<UUID>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                futures.add(executor.submit(() -> generator.next(1_760_000_000_000L)));
+            }
+            for (Future<UUID> future : futures) {
+                ids.add(future.get());
+            }
+        }
+
+        // Then: the IDs come from the four stripes and no stripe started over
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(ids.stream().map(TimeOrderedIdGenerator::nodeOf).collect(Collectors.toSet()))
+                .hasSizeLessThanOrEqualTo(generator.stripeCount());
+    }
+}
@@ -0,0 +1,252 @@
+package com.learning.producer.repository;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for EventPartitions
+ */
+@DisplayName("EventPartitions Unit Tests")
+class EventPartitionsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should route each queue to one partition with its own offsets, in order")
+    void shouldRouteQueuesToPartitions() {
+        // Given
+        EventPartitions partitions = partitions(4, RetentionPolicy.UNBOUNDED);
+
+        // When
+        for (int i = 0; i < 400; i++) {
+            String queueId = "queue-" + (i % 20);
+            partitions.partition(partitions.partitionFor(queueId))
+                    .add(Event.create(EventType.ENQUEUED, queueId, "agent-" + i));
+        }
+
+        // Then: offsets start at 0 in every partition and add up to all events
+        assertThat(partitions.all()).allMatch(partition -> partition.getEndOffset() > 0);
+        assertThat(partitions.all().stream().mapToLong(EventRepository::getEndOffset).sum()).isEqualTo(400);
+        assertThat(partitions.all()).extracting(EventRepository::getEpoch).containsOnly(partitions.getEpoch());
+        for (int q = 0; q < 20; q++) {
+            String queueId = "queue-" + q;
+            List<Event> events = partitions.partition(partitions.partitionFor(queueId)).getAfter(-1, 1000);
+            List<String> agents = events.stream().filter(e -> e.getQueueId().equals(queueId))
+                    .map(Event::getAgentId).toList();
+            assertThat(agents).hasSize(20).first().isEqualTo("agent-" + q);
+            assertThat(agents).last().isEqualTo("agent-" + (380 + q));
+        }
+    }
+
+    @Test
+    @DisplayName("addAll: Should split a batch into contiguous per-partition appends")
+    void shouldSplitBatchByPartition() {
+        // Given
+        EventPartitions partitions = partitions(3, RetentionPolicy.UNBOUNDED);
+        List<Event> batch = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            batch.add(Event.create(EventType.ENQUEUED, "queue-" + i, "agent-1"));
+        }
+
+        // When
+        Map<Integer, Long> firstOffsets = partitions.addAll(batch);
+
+        // Then
+        assertThat(firstOffsets).containsOnlyKeys(0, 1, 2).allSatisfy((partition, offset) -> assertThat(offset).isZero());
+        for (Event event : batch) {
+            assertThat(partitions.partition(partitions.partitionFor(event.getQueueId())).getAfter(-1, 30))
+                    .contains(event);
+        }
+    }
+
+    @Test
+    @DisplayName("Should split count retention across partitions and reject unknown partitions")
+    void shouldSplitRetentionAndValidatePartition() {
+        // Given: 100 events retained in total over 2 partitions
+        EventPartitions partitions = partitions(2, RetentionPolicy.builder().maxEvents(100).build());
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            String queueId = "queue-" + (i % 10);
+            partitions.partition(partitions.partitionFor(queueId)).add(Event.create(EventType.ENQUEUED, queueId, "a"));
+        }
+
+        // Then
+        assertThat(partitions.all()).allMatch(partition -> partition.getRetainedCount() <= 50);
+        assertThatThrownBy(() -> partitions.partition(2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should append to different partitions concurrently without losing events")
+    void shouldAppendConcurrentlyAcrossPartitions() throws InterruptedException {
+        // Given
+        EventPartitions partitions = partitions(4, RetentionPolicy.UNBOUNDED);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            String queueId = "queue-" + t;
+            writers.add(Thread.ofPlatform().unstarted(() -> {
+                try {
+                    for (int i = 0; i < 5000; i++) {
+                        partitions.partition(partitions.partitionFor(queueId))
+                                .add(Event.create(EventType.ENQUEUED, queueId, String.valueOf(i)));
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+
+        // When
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Then
+        assertThat(failures).isEmpty();
+        assertThat(partitions.all().stream().mapToLong(EventRepository::getTotalCount).sum()).isEqualTo(40_000);
+    }
+
+    @Test
+    @DisplayName("restart: Should keep the epoch and index only the events after the checkpoint")
+    void shouldResumeEpochFromCheckpoint() {
+        // Given
+        EventPartitions partitions = durablePartitions(2);
+        String epoch = partitions.getEpoch();
+        for (int i = 0; i < 3000; i++) {
+            partitions.addAll(List.of(Event.create(EventType.ENQUEUED, "queue-" + (i % 10), "agent-" + i)));
+        }
+        partitions.checkpoint();
+        for (int i = 0; i < 100; i++) {
+            partitions.addAll(List.of(Event.create(EventType.DEQUEUED, "queue-" + (i % 10), "agent-" + i)));
+        }
+        partitions.close();
+
+        // When: the checkpoint on close covers everything
+        EventPartitions restarted = durablePartitions(2);
+
+        // Then
+        assertThat(restarted.getEpoch()).isEqualTo(epoch);
+        assertThat(restarted.all()).allMatch(partition -> partition.getScannedOnStartup() == 0);
+        assertThat(restarted.all().stream().mapToLong(EventRepository::getRecoveredFromCheckpoint).sum())
+                .isEqualTo(3100);
+        EventRepository partition = restarted.partition(restarted.partitionFor("queue-3"));
+        assertThat(partition.getAfter(-1, 1000, List.of("queue-3")).getEvents()).hasSize(310);
+        partition.add(Event.create(EventType.ENQUEUED, "queue-3", "agent-new"));
+        assertThat(partition.getAfter(-1, 1000, List.of("queue-3")).getEvents()).hasSize(311);
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("restart: Should scan only the tail when events were appended after the last checkpoint")
+    void shouldScanTailAfterCheckpoint() throws Exception {
+        // Given: the checkpoint is copied aside and restored after more appends
+        EventPartitions partitions = durablePartitions(1);
+        for (int i = 0; i < 500; i++) {
+            partitions.addAll(List.of(Event.create(EventType.ENQUEUED, "queue-" + (i % 5), null)));
+        }
+        partitions.checkpoint();
+        Path checkpoint = tempDir.resolve("meta/partition-0.idx");
+        Files.copy(checkpoint, tempDir.resolve("saved.idx"));
+        for (int i = 0; i < 40; i++) {
+            partitions.addAll(List.of(Event.create(EventType.DEQUEUED, "queue-1", null)));
+        }
+        partitions.close();
+        Files.copy(tempDir.resolve("saved.idx"), checkpoint, StandardCopyOption.REPLACE_EXISTING);
+
+        // When
+        EventPartitions restarted = durablePartitions(1);
+
+        // Then
+        EventRepository partition = restarted.partition(0);
+        assertThat(partition.getRecoveredFromCheckpoint()).isEqualTo(500);
+        assertThat(partition.getScannedOnStartup()).isEqualTo(40);
+        assertThat(partition.getAfter(-1, 1000, List.of("queue-1")).getEvents()).hasSize(140);
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("restart: Should start a new epoch when a partition lost events it had served")
+    void shouldStartNewEpochAfterLoss() throws Exception {
+        // Given
+        EventPartitions partitions = durablePartitions(1);
+        for (int i = 0; i < 100; i++) {
+            partitions.addAll(List.of(Event.create(EventType.ENQUEUED, "queue-1", null)));
+        }
+        String epoch = partitions.getEpoch();
+        partitions.close();
+
+        // When: the log is gone but the metadata is not
+        try (Stream<Path> files = Files.walk(tempDir.resolve("log"))) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        EventPartitions restarted = durablePartitions(1);
+
+        // Then
+        assertThat(restarted.getEpoch()).isNotEqualTo(epoch);
+        assertThat(restarted.partition(0).getEndOffset()).isZero();
+        assertThat(restarted.partition(0).getRecoveredFromCheckpoint()).isZero();
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("restart: Should start a new epoch after an unclean stop without a write-ahead log")
+    void shouldStartNewEpochAfterUncleanStop() throws Exception {
+        // Given: the metadata as a periodic checkpoint left it, before the shutdown
+        EventPartitions partitions = durablePartitions(1);
+        for (int i = 0; i < 100; i++) {
+            partitions.addAll(List.of(Event.create(EventType.ENQUEUED, "queue-1", null)));
+        }
+        partitions.checkpoint();
+        Path metadata = tempDir.resolve("meta/store.properties");
+        Files.copy(metadata, tempDir.resolve("saved.properties"));
+        String epoch = partitions.getEpoch();
+        partitions.close();
+
+        // When
+        Files.copy(tempDir.resolve("saved.properties"), metadata, StandardCopyOption.REPLACE_EXISTING);
+        EventPartitions restarted = durablePartitions(1);
+
+        // Then: served events above the high-water offset may be gone, so cursors are reset
+        assertThat(restarted.getEpoch()).isNotEqualTo(epoch);
+        String newEpoch = restarted.getEpoch();
+        restarted.close();
+        EventPartitions cleanRestart = durablePartitions(1);
+        assertThat(cleanRestart.getEpoch()).isEqualTo(newEpoch);
+        cleanRestart.close();
+    }
+
+    private EventPartitions durablePartitions(int count) {
+        List<EventLog> logs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            logs.add(new SegmentedEventLog(tempDir.resolve("log/partition-" + i), 1 << 20, 4096));
+        }
+        return new EventPartitions(logs, List.of(), RetentionPolicy.UNBOUNDED, tempDir.resolve("meta"));
+    }
+
+    private static EventPartitions partitions(int count, RetentionPolicy policy) {
+        List<EventLog> logs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            logs.add(new InMemoryEventLog());
+        }
+        return new EventPartitions(logs, policy);
+    }
+}
@@ -6,7 +6,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -34,7 +39,7 @@ class EventRepositoryTest {
         repository.add(event);
 
         // Then
-        assertThat(repository.getSize()).isEqualTo(1);
+        assertThat(repository.getEndOffset()).isEqualTo(1);
         assertThat(repository.getTotalCount()).isEqualTo(1);
     }
 
@@ -52,10 +57,29 @@ class EventRepositoryTest {
         repository.add(event3);
 
         // Then
-        assertThat(repository.getSize()).isEqualTo(3);
+        assertThat(repository.getEndOffset()).isEqualTo(3);
         assertThat(repository.getTotalCount()).isEqualTo(3);
     }
 
+    @Test
+    @DisplayName("addAll: Should append batch contiguously and return first offset")
+    void shouldAppendBatchContiguously() {
+        // Given
+        repository.add(Event.create(EventType.ENQUEUED, "queue-0", "agent-0"));
+        List<Event> batch = List.of(
+                Event.create(EventType.ENQUEUED, "queue-1", "agent-1"),
+                Event.create(EventType.DEQUEUED, "queue-2", "agent-2"));
+
+        // When
+        long firstOffset = repository.addAll(batch);
+
+        // Then
+        assertThat(firstOffset).isEqualTo(1);
+        assertThat(repository.getEndOffset()).isEqualTo(3);
+        assertThat(repository.getTotalCount()).isEqualTo(3);
+        assertThat(repository.getAfter(0, 10)).containsExactlyElementsOf(batch);
+    }
+
     @Test
     @DisplayName("getAfter: Should get events after index 0")
     void shouldGetEventsAfterIndex() {
@@ -139,15 +163,346 @@ class EventRepositoryTest {
         }
 
         // Then: should have 1000 events
-        assertThat(repository.getSize()).isEqualTo(threadCount * eventsPerThread);
+        assertThat(repository.getEndOffset()).isEqualTo(threadCount * eventsPerThread);
         assertThat(repository.getTotalCount()).isEqualTo(threadCount * eventsPerThread);
     }
 
+    @Test
+    @DisplayName("getAfter: Should read across page boundaries")
+    void shouldReadAcrossPageBoundaries() {
+        // Given: more events than fit in one page
+        for (int i = 0; i < 3000; i++) {
+            repository.add(Event.create(EventType.ENQUEUED, "queue-" + i, "agent-" + i));
+        }
+
+        // When
+        List<Event> events = repository.getAfter(1019, 10);
+
+        // Then
+        assertThat(events).extracting(Event::getQueueId)
+                .containsExactly("queue-1020", "queue-1021", "queue-1022", "queue-1023", "queue-1024",
+                        "queue-1025", "queue-1026", "queue-1027", "queue-1028", "queue-1029");
+    }
+
+    @Test
+    @DisplayName("Should only expose fully written events to concurrent pollers")
+    void shouldExposeOnlyCompleteEventsToConcurrentPollers() throws InterruptedException {
+        // Given: one writer appending while readers poll from the start
+        int total = 20_000;
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                repository.add(Event.create(EventType.ENQUEUED, "queue-" + i, "agent-1"));
+            }
+        });
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                long cursor = -1;
+                while (cursor < total - 1) {
+                    for (Event event : repository.getAfter(cursor, 100)) {
+                        cursor++;
+                        if (event == null || !event.getQueueId().equals("queue-" + cursor)) {
+                            failures.add("unexpected event at " + cursor);
+                            return;
+                        }
+                    }
+                }
+            });
+        }
+
+        // When
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        // Then
+        assertThat(failures).isEmpty();
+        assertThat(repository.getEndOffset()).isEqualTo(total);
+    }
+
+    @Test
+    @DisplayName("awaitAfter: Should complete on the next append or immediately if data exists")
+    void shouldCompleteAwaitOnAppend() {
+        // Given
+        repository.add(Event.create(EventType.ENQUEUED, "queue-1", "agent-1"));
+
+        // When
+        CompletableFuture<Void> alreadyAvailable = repository.awaitAfter(-1);
+        CompletableFuture<Void> waiting = repository.awaitAfter(0);
+
+        // Then
+        assertThat(alreadyAvailable).isCompleted();
+        assertThat(waiting).isNotDone();
+        repository.add(Event.create(EventType.DEQUEUED, "queue-1", "agent-1"));
+        assertThat(waiting).isCompleted();
+    }
+
+    @Test
+    @DisplayName("Should store dimensions once and share them across polled events")
+    void shouldInternDimensions() {
+        // Given: every event carries its own copies of the same ids
+        InMemoryEventLog eventLog = new InMemoryEventLog();
+        repository = new EventRepository(eventLog);
+        for (int i = 0; i < 100; i++) {
+            repository.add(Event.create(EventType.ENQUEUED, new String("queue-" + (i % 3)), new String("agent-1")));
+        }
+
+        // When
+        List<Event> events = repository.getAfter(-1, 100);
+
+        // Then: values are preserved, and equal values are the same instance
+        assertThat(eventLog.symbolCount()).isEqualTo(4);
+        assertThat(events.get(3).getQueueId()).isEqualTo("queue-0").isSameAs(events.get(0).getQueueId());
+        assertThat(events.get(99).getAgentId()).isEqualTo("agent-1").isSameAs(events.get(0).getAgentId());
+    }
+
+    @Test
+    @DisplayName("Retention: Should evict from the head by count without renumbering")
+    void shouldEvictByCount() {
+        // Given
+        repository = new EventRepository(new InMemoryEventLog(), RetentionPolicy.builder().maxEvents(1500).build());
+
+        // When
+        for (int i = 0; i < 3000; i++) {
+            repository.add(Event.create(EventType.ENQUEUED, "queue-" + i, "agent-1"));
+        }
+
+        // Then: indexes stay stable, evicted cursors are reported as expired
+        assertThat(repository.getStartOffset()).isEqualTo(1500);
+        assertThat(repository.getRetainedCount()).isEqualTo(1500);
+        assertThat(repository.getEndOffset()).isEqualTo(3000);
+        assertThat(repository.getEvictedEvents()).isEqualTo(1500);
+        assertThat(repository.isExpired(1000)).isTrue();
+        assertThat(repository.isExpired(1499)).isFalse();
+        assertThat(repository.getAfter(1000, 10)).isEmpty();
+        assertThat(repository.getAfter(1499, 2)).extracting(Event::getQueueId)
+                .containsExactly("queue-1500", "queue-1501");
+    }
+
+    @Test
+    @DisplayName("Retention: Should keep retained bytes within the budget")
+    void shouldEvictByBytes() {
+        // Given
+        long maxBytes = 64 * 1024;
+        repository = new EventRepository(new InMemoryEventLog(), RetentionPolicy.builder().maxBytes(maxBytes).build());
+
+        // When
+        for (int i = 0; i < 5000; i++) {
+            repository.add(Event.create(EventType.ENQUEUED, "queue-" + i, "agent-1"));
+        }
+
+        // Then
+        assertThat(repository.getRetainedBytes()).isPositive().isLessThanOrEqualTo(maxBytes);
+        assertThat(repository.getEvictedEvents()).isPositive();
+        assertThat(repository.getEvictedBytes()).isPositive();
+        assertThat(repository.getRetainedCount() + repository.getEvictedEvents()).isEqualTo(5000);
+    }
+
+    @Test
+    @DisplayName("Retention: Should evict events older than the maximum age")
+    void shouldEvictByAge() {
+        // Given
+        repository = new EventRepository(new InMemoryEventLog(),
+                RetentionPolicy.builder().maxAge(Duration.ofHours(1)).build());
+        for (int i = 0; i < 3; i++) {
+            Event old = Event.create(EventType.ENQUEUED, "old-" + i, "agent-1");
+            old.setTimestamp(Instant.now().minus(Duration.ofHours(2)));
+            repository.add(old);
+        }
+        repository.add(Event.create(EventType.ENQUEUED, "fresh", "agent-1"));
+
+        // When
+        repository.enforceRetention();
+
+        // Then
+        assertThat(repository.getStartOffset()).isEqualTo(3);
+        assertThat(repository.getAfter(2, 10)).extracting(Event::getQueueId).containsExactly("fresh");
+    }
+
+    @Test
+    @DisplayName("Retention: Should keep held events past their age but not past a count limit")
+    void shouldHoldUncommittedEventsFromAgeEviction() {
+        // Given: four expired events, the first two committed by every group
+        repository = new EventRepository(new InMemoryEventLog(),
+                RetentionPolicy.builder().maxAge(Duration.ofHours(1)).maxEvents(6).build());
+        for (int i = 0; i < 4; i++) {
+            Event old = Event.create(EventType.ENQUEUED, "old-" + i, "agent-1");
+            old.setTimestamp(Instant.now().minus(Duration.ofHours(2)));
+            repository.add(old);
+        }
+        repository.setRetentionHold(2);
+
+        // When
+        repository.enforceRetention();
+
+        // Then: only the committed events expire
+        assertThat(repository.getStartOffset()).isEqualTo(2);
+        assertThat(repository.getEvictedUnconsumed()).isZero();
+
+        // When: the count limit is exceeded
+        for (int i = 0; i < 5; i++) {
+            repository.add(Event.create(EventType.ENQUEUED, "fresh-" + i, "agent-1"));
+        }
+
+        // Then: the limit wins over the hold and the loss is counted
+        assertThat(repository.getStartOffset()).isEqualTo(3);
+        assertThat(repository.getEvictedUnconsumed()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Retention: Concurrent pollers never see wrong events while the head is evicted")
+    void shouldNeverServeWrongEventsDuringEviction() throws InterruptedException {
+        // Given: a small window so eviction runs constantly
+        repository = new EventRepository(new InMemoryEventLog(), RetentionPolicy.builder().maxEvents(1000).build());
+        int total = 50_000;
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                repository.add(Event.create(EventType.ENQUEUED, "queue-" + i, "agent-1"));
+            }
+        });
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread[] readers = new Thread[4];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                long cursor = -1;
+                while (cursor < total - 1) {
+                    if (repository.isExpired(cursor)) {
+                        cursor = repository.getStartOffset() - 1;
+                        continue;
+                    }
+                    for (Event event : repository.getAfter(cursor, 100)) {
+                        cursor++;
+                        if (event == null || !event.getQueueId().equals("queue-" + cursor)) {
+                            failures.add("unexpected event at " + cursor);
+                            return;
+                        }
+                    }
+                }
+            });
+        }
+
+        // When
+        writer.start();
+        for (Thread reader : readers) {
+            reader.start();
+        }
+        writer.join();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        // Then
+        assertThat(failures).isEmpty();
+        assertThat(repository.getRetainedCount()).isEqualTo(1000);
+    }
+
+    @Test
+    @DisplayName("getAfter (filtered): Should return only matching queues and skip the rest with the cursor")
+    void shouldFilterByQueue() {
+        // Given: queue-a at every 10th offset, queue-b at every 7th, queue-c elsewhere
+        for (int i = 0; i < 100; i++) {
+            String queueId = i % 10 == 0 ? "queue-a" : i % 7 == 0 ? "queue-b" : "queue-c";
+            repository.add(Event.create(EventType.ENQUEUED, queueId, "agent-1"));
+        }
+
+        // When: a full page stops at the last returned match
+        FilteredPage first = repository.getAfter(-1, 5, List.of("queue-a", "queue-b"));
+        // And: a partial page moves the cursor to the end of the log
+        FilteredPage rest = repository.getAfter(first.getNextCursor(), 100, List.of("queue-a", "queue-b"));
+
+        // Then
+        assertThat(first.getEvents()).extracting(Event::getQueueId)
+                .containsExactly("queue-a", "queue-b", "queue-a", "queue-b", "queue-a");
+        assertThat(first.getNextCursor()).isEqualTo(20);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(rest.getEvents()).hasSize(10 + 13 - 5)
+                .allMatch(e -> !e.getQueueId().equals("queue-c"));
+        assertThat(rest.getNextCursor()).isEqualTo(99);
+        assertThat(rest.isHasMore()).isFalse();
+        assertThat(repository.getAfter(99, 10, List.of("queue-a")).getEvents()).isEmpty();
+        assertThat(repository.getAfter(-1, 10, List.of("unknown")).getNextCursor()).isEqualTo(99);
+    }
+
+    @Test
+    @DisplayName("getAfter (filtered): Should index recovered events and skip evicted postings")
+    void shouldFilterRecoveredAndEvictedEvents() {
+        // Given: events in the log before the repository existed, then more under retention
+        EventLog log = new InMemoryEventLog();
+        for (int i = 0; i < 50; i++) {
+            log.append(Event.create(EventType.ENQUEUED, "queue-" + (i % 2), "agent-1"));
+        }
+        repository = new EventRepository(log, RetentionPolicy.builder().maxEvents(60).build());
+        for (int i = 50; i < 100; i++) {
+            repository.add(Event.create(EventType.ENQUEUED, "queue-" + (i % 2), "agent-1"));
+        }
+        repository.enforceRetention();
+
+        // When
+        FilteredPage page = repository.getAfter(39, 100, List.of("queue-1"));
+
+        // Then: offsets 40..99 are retained, queue-1 holds the odd ones
+        assertThat(page.getEvents()).hasSize(30);
+        assertThat(page.getNextCursor()).isEqualTo(99);
+    }
+
+    @Test
+    @DisplayName("findOffset: Should resolve a time to the first event at or after it")
+    void shouldFindOffsetForTime() {
+        // Given: 5000 events one second apart, spanning several index samples
+        Instant base = Instant.parse("2026-10-16T09:00:00Z");
+        List<Event> batch = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            batch.add(eventAt(base.plusSeconds(i), "queue-" + i));
+        }
+        repository.addAll(batch);
+
+        // When & Then
+        assertThat(repository.findOffset(base.minusSeconds(60))).isZero();
+        assertThat(repository.findOffset(base)).isZero();
+        assertThat(repository.findOffset(base.plusSeconds(3071))).isEqualTo(3071);
+        assertThat(repository.findOffset(base.plusMillis(2_500_500))).isEqualTo(2501);
+        assertThat(repository.findOffset(base.plusSeconds(4999))).isEqualTo(4999);
+        assertThat(repository.findOffset(base.plusSeconds(5000))).isEqualTo(5000);
+    }
+
+    @Test
+    @DisplayName("findOffset: Should search events the index does not cover and respect retention")
+    void shouldFindOffsetOutsideIndexAndAfterEviction() {
+        // Given: 3000 events written to the log before the repository existed
+        Instant base = Instant.parse("2026-10-16T09:00:00Z");
+        EventLog log = new InMemoryEventLog();
+        for (int i = 0; i < 3000; i++) {
+            log.append(eventAt(base.plusSeconds(i), "queue-" + i));
+        }
+        repository = new EventRepository(log, RetentionPolicy.builder().maxEvents(4000).build());
+        for (int i = 3000; i < 6000; i++) {
+            repository.add(eventAt(base.plusSeconds(i), "queue-" + i));
+        }
+
+        // When & Then: recovered range is binary-searched, indexed range uses samples
+        assertThat(repository.getStartOffset()).isEqualTo(2000);
+        assertThat(repository.findOffset(base)).isEqualTo(2000);
+        assertThat(repository.findOffset(base.plusSeconds(2500))).isEqualTo(2500);
+        assertThat(repository.findOffset(base.plusSeconds(4500))).isEqualTo(4500);
+    }
+
     @Test
     @DisplayName("Should return zero for empty repository")
     void shouldReturnZeroForEmptyRepository() {
         // When & Then
-        assertThat(repository.getSize()).isZero();
+        assertThat(repository.getEndOffset()).isZero();
         assertThat(repository.getTotalCount()).isZero();
     }
+
+    private static Event eventAt(Instant timestamp, String queueId) {
+        Event event = Event.create(EventType.ENQUEUED, queueId, "agent-1");
+        event.setTimestamp(timestamp);
+        return event;
+    }
 }
@@ -0,0 +1,183 @@
+package com.learning.producer.repository;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SegmentedEventLog
+ * Uses small segments so rolling and index seeks are exercised
+ */
+@DisplayName("SegmentedEventLog Unit Tests")
+class SegmentedEventLogTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+    private static final int INDEX_INTERVAL_BYTES = 256;
+
+    @TempDir
+    Path tempDir;
+
+    private SegmentedEventLog eventLog;
+
+    @BeforeEach
+    void setUp() {
+        eventLog = new SegmentedEventLog(tempDir, SEGMENT_BYTES, INDEX_INTERVAL_BYTES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        eventLog.close();
+    }
+
+    @Test
+    @DisplayName("append: Should assign sequential offsets and round-trip all fields")
+    void shouldAppendAndReadBack() {
+        // Given
+        Event event = Event.create(EventType.DEQUEUED, "queue-1", "agent-1");
+        event.setInteractionId("interaction-1");
+        event.setPayload(Map.of("reason", "timeout", "attempts", 3));
+
+        // When
+        long first = eventLog.append(Event.create(EventType.ENQUEUED, "queue-0", null));
+        long second = eventLog.append(event);
+        List<Event> events = eventLog.read(1, 10);
+
+        // Then
+        assertThat(first).isZero();
+        assertThat(second).isEqualTo(1);
+        assertThat(events).containsExactly(event);
+        assertThat(eventLog.endOffset()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("read: Should seek into the middle of the log across segment boundaries")
+    void shouldSeekAcrossSegments() throws Exception {
+        // Given: enough events to roll several segments
+        for (int i = 0; i < 500; i++) {
+            eventLog.append(Event.create(EventType.ENQUEUED, "queue-" + i, "agent-" + i));
+        }
+
+        // When
+        List<Event> events = eventLog.read(250, 100);
+
+        // Then
+        assertThat(segmentFileCount()).isGreaterThan(1);
+        assertThat(events).hasSize(100);
+        assertThat(events.get(0).getQueueId()).isEqualTo("queue-250");
+        assertThat(events.get(99).getQueueId()).isEqualTo("queue-349");
+    }
+
+    @Test
+    @DisplayName("read: Should return empty list at or past the end")
+    void shouldReturnEmptyListPastEnd() {
+        // Given
+        eventLog.append(Event.create(EventType.ENQUEUED, "queue-1", "agent-1"));
+
+        // When & Then
+        assertThat(eventLog.read(1, 10)).isEmpty();
+        assertThat(eventLog.read(100, 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Recovery: Should reopen existing segments and continue offsets")
+    void shouldRecoverExistingSegments() {
+        // Given
+        for (int i = 0; i < 200; i++) {
+            eventLog.append(Event.create(EventType.ENQUEUED, "queue-" + i, "agent-" + i));
+        }
+        eventLog.close();
+
+        // When
+        eventLog = new SegmentedEventLog(tempDir, SEGMENT_BYTES, INDEX_INTERVAL_BYTES);
+        long next = eventLog.append(Event.create(EventType.DEQUEUED, "queue-200", "agent-200"));
+
+        // Then
+        assertThat(next).isEqualTo(200);
+        assertThat(eventLog.endOffset()).isEqualTo(201);
+        assertThat(eventLog.read(199, 2)).extracting(Event::getQueueId)
+                .containsExactly("queue-199", "queue-200");
+    }
+
+    @Test
+    @DisplayName("append: Should reject events larger than a segment")
+    void shouldRejectOversizedEvent() {
+        // Given
+        Event event = Event.create(EventType.ENQUEUED, "q".repeat(SEGMENT_BYTES), "agent-1");
+
+        // When & Then
+        assertThatThrownBy(() -> eventLog.append(event)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("evict: Should delete whole sealed segments and keep offsets stable")
+    void shouldEvictWholeSegments() throws Exception {
+        // Given
+        for (int i = 0; i < 300; i++) {
+            eventLog.append(Event.create(EventType.ENQUEUED, "queue-" + i, "agent-" + i));
+        }
+        long filesBefore = segmentFileCount();
+
+        // When
+        long evicted = eventLog.evict(RetentionPolicy.builder().maxEvents(100).build(), Instant.now());
+
+        // Then: at most 100 events left, never the active segment, and reads below start are empty
+        long start = eventLog.startOffset();
+        assertThat(evicted).isEqualTo(start);
+        assertThat(eventLog.endOffset() - start).isLessThanOrEqualTo(100).isPositive();
+        assertThat(segmentFileCount()).isLessThan(filesBefore);
+        assertThat(eventLog.read(start - 1, 10)).isEmpty();
+        assertThat(eventLog.read(start, 1)).extracting(Event::getQueueId).containsExactly("queue-" + start);
+
+        // And: a reopened log starts at the retained start offset
+        eventLog.close();
+        eventLog = new SegmentedEventLog(tempDir, SEGMENT_BYTES, INDEX_INTERVAL_BYTES);
+        assertThat(eventLog.startOffset()).isEqualTo(start);
+        assertThat(eventLog.endOffset()).isEqualTo(300);
+    }
+
+    @Test
+    @DisplayName("Recovery: Should continue 64-bit offsets beyond the int range")
+    void shouldContinueOffsetsBeyondIntRange() throws Exception {
+        // Given: a log whose only segment starts past Integer.MAX_VALUE
+        long baseOffset = 3_000_000_000L;
+        eventLog.close();
+        try (Stream<Path> files = Files.list(tempDir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        LogSegment segment = LogSegment.create(tempDir, baseOffset, SEGMENT_BYTES, INDEX_INTERVAL_BYTES);
+        segment.tryAppend(baseOffset, EventRecordCodec.encode(Event.create(EventType.ENQUEUED, "queue-a", "agent-1")));
+        segment.close();
+
+        // When
+        eventLog = new SegmentedEventLog(tempDir, SEGMENT_BYTES, INDEX_INTERVAL_BYTES);
+        long next = eventLog.append(Event.create(EventType.ENQUEUED, "queue-b", "agent-1"));
+
+        // Then
+        assertThat(eventLog.startOffset()).isEqualTo(baseOffset);
+        assertThat(next).isEqualTo(baseOffset + 1);
+        assertThat(eventLog.read(baseOffset, 10)).extracting(Event::getQueueId)
+                .containsExactly("queue-a", "queue-b");
+    }
+
+    private long segmentFileCount() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(LogSegment::isSegmentFile).count();
+        }
+    }
+}
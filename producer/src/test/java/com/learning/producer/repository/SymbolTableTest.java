@@ -0,0 +1,75 @@
+package com.learning.producer.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for SymbolTable
+ */
+@DisplayName("SymbolTable Unit Tests")
+class SymbolTableTest {
+
+    @Test
+    @DisplayName("intern: Should assign dense, stable codes and map null to NO_SYMBOL")
+    void shouldAssignStableCodes() {
+        // Given
+        SymbolTable symbols = new SymbolTable();
+
+        // When
+        int queue1 = symbols.intern("queue-1");
+        int queue2 = symbols.intern("queue-2");
+        int again = symbols.intern(new String("queue-1"));
+
+        // Then
+        assertThat(queue1).isZero();
+        assertThat(queue2).isEqualTo(1);
+        assertThat(again).isEqualTo(queue1);
+        assertThat(symbols.intern(null)).isEqualTo(SymbolTable.NO_SYMBOL);
+        assertThat(symbols.lookup(queue2)).isEqualTo("queue-2");
+        assertThat(symbols.lookup(SymbolTable.NO_SYMBOL)).isNull();
+        assertThat(symbols.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("intern: Concurrent interning should give every value exactly one code")
+    void shouldInternConcurrently() throws InterruptedException {
+        // Given
+        SymbolTable symbols = new SymbolTable();
+        Map<String, Integer> seen = new ConcurrentHashMap<>();
+        List<String> conflicts = new ArrayList<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) {
+                    String value = "agent-" + (i % 1000);
+                    int code = symbols.intern(value);
+                    Integer previous = seen.putIfAbsent(value, code);
+                    if ((previous != null && previous != code) || !value.equals(symbols.lookup(code))) {
+                        synchronized (conflicts) {
+                            conflicts.add(value);
+                        }
+                    }
+                }
+            });
+        }
+
+        // When
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertThat(conflicts).isEmpty();
+        assertThat(symbols.size()).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,149 @@
+package com.learning.producer.repository;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for WriteAheadLog and its use by EventRepository
+ * Uses small files so rolling and retention are exercised
+ */
+@DisplayName("WriteAheadLog Unit Tests")
+class WriteAheadLogTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+    private static final FlushPolicy GROUPED = FlushPolicy.builder()
+            .maxLatency(Duration.ofMillis(2))
+            .maxBatchBytes(1 << 20)
+            .build();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("append: Should share fsyncs between concurrent appends and acknowledge only durable events")
+    void shouldGroupConcurrentAppends() throws Exception {
+        // Given
+        WriteAheadLog writeAheadLog = new WriteAheadLog(tempDir, SEGMENT_BYTES, GROUPED);
+        EventRepository repository = repository(new InMemoryEventLog(), writeAheadLog);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        // When
+        List<Future<Long>> offsets = new ArrayList<>();
+        for (int i = 0; i < 800; i++) {
+            String queueId = "queue-" + i;
+            offsets.add(executor.submit(() -> repository.append(Event.create(EventType.ENQUEUED, queueId, null))));
+        }
+        for (Future<Long> offset : offsets) {
+            assertThat(writeAheadLog.durableEnd()).isGreaterThan(offset.get());
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(writeAheadLog.getSyncedRecords()).isEqualTo(800);
+        assertThat(writeAheadLog.getFlushes()).isLessThan(800);
+        assertThat(repository.getEndOffset()).isEqualTo(800);
+        writeAheadLog.close();
+    }
+
+    @Test
+    @DisplayName("replay: Should rebuild an in-memory log from the write-ahead log after a restart")
+    void shouldReplayAfterRestart() throws Exception {
+        // Given
+        WriteAheadLog writeAheadLog = new WriteAheadLog(tempDir, SEGMENT_BYTES, FlushPolicy.IMMEDIATE);
+        EventRepository repository = repository(new InMemoryEventLog(), writeAheadLog);
+        for (int i = 0; i < 200; i++) {
+            repository.append(Event.create(EventType.ENQUEUED, "queue-" + (i % 4), "agent-" + i));
+        }
+        repository.addAll(List.of(Event.create(EventType.DEQUEUED, "queue-1", "agent-x")));
+        writeAheadLog.close();
+
+        // When
+        WriteAheadLog reopened = new WriteAheadLog(tempDir, SEGMENT_BYTES, FlushPolicy.IMMEDIATE);
+        EventRepository restarted = repository(new InMemoryEventLog(reopened.startOffset()), reopened);
+
+        // Then
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+        assertThat(restarted.getEndOffset()).isEqualTo(201);
+        assertThat(restarted.getAfter(-1, 1).get(0).getAgentId()).isEqualTo("agent-0");
+        assertThat(restarted.getAfter(199, 10)).extracting(Event::getAgentId).containsExactly("agent-x");
+        assertThat(restarted.getAfter(-1, 300, List.of("queue-1")).getEvents()).hasSize(51);
+        assertThat(restarted.append(Event.create(EventType.ENQUEUED, "queue-0", null))).isEqualTo(201);
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("recover: Should truncate a torn tail and continue from the last intact record")
+    void shouldTruncateTornTail() throws Exception {
+        // Given
+        WriteAheadLog writeAheadLog = new WriteAheadLog(tempDir, 1 << 20, FlushPolicy.IMMEDIATE);
+        EventRepository repository = repository(new InMemoryEventLog(), writeAheadLog);
+        for (int i = 0; i < 10; i++) {
+            repository.append(Event.create(EventType.ENQUEUED, "queue-" + i, null));
+        }
+        writeAheadLog.close();
+        Path file = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        // When
+        WriteAheadLog reopened = new WriteAheadLog(tempDir, 1 << 20, FlushPolicy.IMMEDIATE);
+        EventRepository restarted = repository(new InMemoryEventLog(), reopened);
+
+        // Then
+        assertThat(restarted.getEndOffset()).isEqualTo(9);
+        assertThat(restarted.append(Event.create(EventType.ENQUEUED, "queue-again", null))).isEqualTo(9);
+        assertThat(restarted.getAfter(8, 10)).extracting(Event::getQueueId).containsExactly("queue-again");
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("truncateBefore: Should delete files below the retained range but keep the active file")
+    void shouldDeleteFilesBelowRetention() throws Exception {
+        // Given
+        WriteAheadLog writeAheadLog = new WriteAheadLog(tempDir, SEGMENT_BYTES, FlushPolicy.IMMEDIATE);
+        EventRepository repository = repository(new InMemoryEventLog(), writeAheadLog);
+        for (int i = 0; i < 300; i++) {
+            repository.append(Event.create(EventType.ENQUEUED, "queue-" + i, null));
+        }
+        int filesBefore = segmentFiles().size();
+
+        // When
+        writeAheadLog.truncateBefore(250);
+
+        // Then
+        assertThat(segmentFiles()).hasSizeLessThan(filesBefore).isNotEmpty();
+        assertThat(writeAheadLog.startOffset()).isBetween(1L, 250L);
+        writeAheadLog.truncateBefore(Long.MAX_VALUE);
+        assertThat(segmentFiles()).hasSize(1);
+        writeAheadLog.close();
+    }
+
+    private static EventRepository repository(EventLog eventLog, WriteAheadLog writeAheadLog) {
+        writeAheadLog.replay(eventLog);
+        return new EventRepository(eventLog, RetentionPolicy.UNBOUNDED, "test-epoch", writeAheadLog);
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(WriteAheadLog::isSegmentFile).sorted().toList();
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.learning.producer.service;
 
+import com.learning.producer.ingest.AdmissionController;
+import com.learning.producer.ingest.IdempotencyWindow;
+import com.learning.producer.metrics.ProducerMetrics;
 import com.learning.producer.model.Event;
 import com.learning.producer.model.EventType;
+import com.learning.producer.repository.EventPartitions;
 import com.learning.producer.repository.EventRepository;
+import com.learning.producer.repository.FilteredPage;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,28 +16,56 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for EventService
- * Uses Mockito to mock Repository layer
+ * Uses Mockito to mock Repository layer (a single partition unless stated otherwise)
  */
 @ExtendWith(MockitoExtension.class)
 @DisplayName("EventService Unit Tests")
 class EventServiceTest {
 
+    @Mock
+    private EventPartitions eventPartitions;
+
     @Mock
     private EventRepository eventRepository;
 
+    @Mock
+    private ProducerMetrics producerMetrics;
+
+    @Mock
+    private IdempotencyWindow<IngestReceipt> idempotencyWindow;
+
+    @Mock
+    private AdmissionController admissionController;
+
     @InjectMocks
     private EventService eventService;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(eventPartitions.count()).thenReturn(1);
+        lenient().when(eventPartitions.partition(0)).thenReturn(eventRepository);
+        lenient().when(eventPartitions.all()).thenReturn(List.of(eventRepository));
+    }
+
     @Test
     @DisplayName("createEvent: Should create event and save to repository")
     void shouldCreateAndSaveEvent() {
@@ -49,15 +83,62 @@ class EventServiceTest {
         assertThat(result.getQueueId()).isEqualTo(queueId);
         assertThat(result.getAgentId()).isEqualTo(agentId);
 
-        // Verify repository.add was called once
-        verify(eventRepository, times(1)).add(any(Event.class));
+        // Verify repository.append was called once
+        verify(eventRepository, times(1)).append(any(Event.class));
+    }
+
+    @Test
+    @DisplayName("createEvents: Should append batch once and report offset range")
+    void shouldCreateBatchAndReportOffsetRange() {
+        // Given
+        List<Event> requested = List.of(
+                Event.builder().eventType(EventType.ENQUEUED).queueId("queue-1").agentId("agent-1")
+                        .interactionId("call-1").build(),
+                Event.builder().eventType(EventType.DEQUEUED).queueId("queue-2").agentId("agent-2").build());
+        when(eventPartitions.addAll(anyList())).thenReturn(Map.of(0, 7L));
+        when(eventPartitions.getEpoch()).thenReturn("epoch-1");
+
+        // When
+        BatchIngestResponse response = eventService.createEvents(requested);
+
+        // Then
+        assertThat(response.getCount()).isEqualTo(2);
+        assertThat(response.getFirstOffset()).isEqualTo(7);
+        assertThat(response.getLastOffset()).isEqualTo(8);
+        assertThat(response.getRanges()).containsExactly(new PartitionRange(0, 7, 8));
+        assertThat(response.getEpoch()).isEqualTo("epoch-1");
+        verify(eventPartitions, times(1)).addAll(argThat(events -> events.size() == 2
+                && events.stream().allMatch(e -> e.getEventId() != null && e.getTimestamp() != null)
+                && "call-1".equals(events.get(0).getInteractionId())));
+        verify(eventRepository, never()).append(any(Event.class));
+    }
+
+    @Test
+    @DisplayName("createEvents: Should report one offset range per partition")
+    void shouldReportRangePerPartition() {
+        // Given: queue-1 hashes to partition 0, queue-2 to partition 1
+        List<Event> requested = List.of(
+                Event.builder().eventType(EventType.ENQUEUED).queueId("queue-1").build(),
+                Event.builder().eventType(EventType.ENQUEUED).queueId("queue-2").build(),
+                Event.builder().eventType(EventType.DEQUEUED).queueId("queue-2").build());
+        when(eventPartitions.partitionFor("queue-1")).thenReturn(0);
+        when(eventPartitions.partitionFor("queue-2")).thenReturn(1);
+        when(eventPartitions.addAll(anyList())).thenReturn(Map.of(0, 3L, 1, 10L));
+
+        // When
+        BatchIngestResponse response = eventService.createEvents(requested);
+
+        // Then
+        assertThat(response.getCount()).isEqualTo(3);
+        assertThat(response.getFirstOffset()).isEqualTo(-1);
+        assertThat(response.getRanges()).containsExactly(new PartitionRange(0, 3, 3), new PartitionRange(1, 10, 11));
     }
 
     @Test
     @DisplayName("pollEvents: Should return events with correct cursor")
     void shouldPollEventsWithCorrectCursor() {
         // Given
-        int afterIndex = 0;
+        long afterIndex = 0;
         int limit = 10;
         List<Event> mockEvents = Arrays.asList(
                 Event.create(EventType.ENQUEUED, "queue-1", "agent-1"),
@@ -65,21 +146,22 @@ class EventServiceTest {
         );
 
         when(eventRepository.getAfter(eq(afterIndex), eq(limit))).thenReturn(mockEvents);
-        when(eventRepository.getSize()).thenReturn(5);
+        when(eventRepository.getEndOffset()).thenReturn(3L);
         when(eventRepository.getEpoch()).thenReturn("epoch-1");
 
         // When
-        PollResponse response = eventService.pollEvents(afterIndex, limit);
+        PollResponse response = eventService.pollEvents(0, afterIndex, limit);
 
         // Then
         assertThat(response).isNotNull();
         assertThat(response.getEvents()).hasSize(2);
-        assertThat(response.getNextCursor()).isEqualTo(4); // size - 1
+        assertThat(response.getNextCursor()).isEqualTo(2); // afterIndex + returned events
         assertThat(response.getEpoch()).isEqualTo("epoch-1");
         assertThat(response.isHasMore()).isFalse();
+        assertThat(response.isCursorExpired()).isFalse();
 
         verify(eventRepository, times(1)).getAfter(eq(afterIndex), eq(limit));
-        verify(eventRepository, times(2)).getSize();
+        verify(eventRepository, times(1)).getEndOffset();
         verify(eventRepository, times(1)).getEpoch();
     }
 
@@ -87,12 +169,12 @@ class EventServiceTest {
     @DisplayName("pollEvents: Should return empty list when no events available")
     void shouldReturnEmptyListWhenNoEventsAvailable() {
         // Given
-        when(eventRepository.getAfter(anyInt(), anyInt())).thenReturn(List.of());
-        when(eventRepository.getSize()).thenReturn(0);
+        when(eventRepository.getAfter(anyLong(), anyInt())).thenReturn(List.of());
+        when(eventRepository.getEndOffset()).thenReturn(0L);
         when(eventRepository.getEpoch()).thenReturn("epoch-1");
 
         // When
-        PollResponse response = eventService.pollEvents(10, 10);
+        PollResponse response = eventService.pollEvents(0, 10, 10);
 
         // Then
         assertThat(response.getEvents()).isEmpty();
@@ -104,24 +186,152 @@ class EventServiceTest {
     @DisplayName("pollEvents: Should calculate hasMore flag correctly")
     void shouldCalculateHasMoreCorrectly() {
         // Given: 11 events, polling with afterIndex=4
-        when(eventRepository.getAfter(eq(4), eq(5))).thenReturn(List.of(
+        when(eventRepository.getAfter(eq(4L), eq(5))).thenReturn(List.of(
                 Event.create(EventType.ENQUEUED, "q1", "a1"),
                 Event.create(EventType.ENQUEUED, "q2", "a2"),
                 Event.create(EventType.ENQUEUED, "q3", "a3"),
                 Event.create(EventType.ENQUEUED, "q4", "a4"),
                 Event.create(EventType.ENQUEUED, "q5", "a5")
         ));
-        when(eventRepository.getSize()).thenReturn(11);
+        when(eventRepository.getEndOffset()).thenReturn(11L);
         when(eventRepository.getEpoch()).thenReturn("epoch-1");
 
         // When: poll from index 4
-        PollResponse response = eventService.pollEvents(4, 5);
+        PollResponse response = eventService.pollEvents(0, 4, 5);
+
+        // Then: nextCursor = 4 + 5 = 9, hasMore = 9 < 11-1 = true
+        // Index 10 is still left for the next poll
+        assertThat(response.getNextCursor()).isEqualTo(9);
+        assertThat(response.getEpoch()).isEqualTo("epoch-1");
+        assertThat(response.isHasMore()).isTrue();
+    }
 
-        // Then: nextCursor = max(4, 11-1) = 10, hasMore = 10 < 10 = false
-        // Already at the end
+    @Test
+    @DisplayName("pollEvents: Should report an expired cursor instead of skipping evicted events")
+    void shouldReportExpiredCursor() {
+        // Given: events up to index 99 were evicted
+        when(eventRepository.isExpired(10)).thenReturn(true);
+        when(eventRepository.getStartOffset()).thenReturn(100L);
+        when(eventRepository.getEpoch()).thenReturn("epoch-1");
+
+        // When
+        PollResponse response = eventService.pollEvents(0, 10, 10, 30_000).join();
+
+        // Then: returned immediately, without events and without moving the cursor
+        assertThat(response.isCursorExpired()).isTrue();
+        assertThat(response.getEarliestOffset()).isEqualTo(100);
+        assertThat(response.getEvents()).isEmpty();
         assertThat(response.getNextCursor()).isEqualTo(10);
+        verify(eventRepository, never()).getAfter(anyLong(), anyInt());
+        verify(eventRepository, never()).awaitAfter(anyLong());
+    }
+
+    @Test
+    @DisplayName("pollEvents (long-poll): Should complete immediately when events are available")
+    void shouldCompleteLongPollImmediatelyWhenEventsAvailable() {
+        // Given
+        when(eventRepository.getAfter(eq(-1L), eq(10)))
+                .thenReturn(List.of(Event.create(EventType.ENQUEUED, "q1", "a1")));
+        when(eventRepository.getEndOffset()).thenReturn(1L);
+        when(eventRepository.getEpoch()).thenReturn("epoch-1");
+
+        // When
+        CompletableFuture<PollResponse> future = eventService.pollEvents(0, -1, 10, 30_000);
+
+        // Then
+        assertThat(future).isCompleted();
+        assertThat(future.join().getEvents()).hasSize(1);
+        verify(eventRepository, never()).awaitAfter(anyLong());
+    }
+
+    @Test
+    @DisplayName("pollEvents (long-poll): Should park until an append is signalled")
+    void shouldParkLongPollUntilAppend() {
+        // Given: nothing after cursor 4 on the first poll
+        CompletableFuture<Void> appended = new CompletableFuture<>();
+        when(eventRepository.getAfter(eq(4L), eq(10)))
+                .thenReturn(List.of())
+                .thenReturn(List.of(Event.create(EventType.ENQUEUED, "q1", "a1")));
+        when(eventRepository.getEndOffset()).thenReturn(5L, 5L, 6L, 6L);
+        when(eventRepository.getEpoch()).thenReturn("epoch-1");
+        when(eventRepository.awaitAfter(4)).thenReturn(appended);
+
+        // When
+        CompletableFuture<PollResponse> future = eventService.pollEvents(0, 4, 10, 30_000);
+
+        // Then: parked until the repository signals
+        assertThat(future).isNotDone();
+        appended.complete(null);
+        PollResponse response = future.orTimeout(5, TimeUnit.SECONDS).join();
+        assertThat(response.getEvents()).hasSize(1);
+        assertThat(response.getNextCursor()).isEqualTo(5);
+        verify(eventRepository).cancelAwait(appended);
+    }
+
+    @Test
+    @DisplayName("pollEvents (filtered long-poll): Should park again when only other queues were appended")
+    void shouldKeepParkingFilteredLongPollUntilMatch() {
+        // Given: the first append is for another queue, the second matches
+        List<String> queueIds = List.of("queue-1");
+        CompletableFuture<Void> otherQueue = new CompletableFuture<>();
+        CompletableFuture<Void> matchingQueue = new CompletableFuture<>();
+        when(eventRepository.getAfter(4L, 10, queueIds))
+                .thenReturn(new FilteredPage(List.of(), 4, false))
+                .thenReturn(new FilteredPage(List.of(), 5, false));
+        when(eventRepository.getAfter(5L, 10, queueIds))
+                .thenReturn(new FilteredPage(List.of(Event.create(EventType.ENQUEUED, "queue-1", "a1")), 6, false));
+        when(eventRepository.getEpoch()).thenReturn("epoch-1");
+        when(eventRepository.awaitAfter(4)).thenReturn(otherQueue);
+        when(eventRepository.awaitAfter(5)).thenReturn(matchingQueue);
+
+        // When
+        CompletableFuture<PollResponse> future = eventService.pollEvents(0, 4, 10, 30_000, queueIds);
+        otherQueue.complete(null);
+
+        // Then: still parked, now after the skipped event
+        verify(eventRepository, timeout(5000)).awaitAfter(5);
+        assertThat(future).isNotDone();
+        matchingQueue.complete(null);
+        PollResponse response = future.orTimeout(5, TimeUnit.SECONDS).join();
+        assertThat(response.getEvents()).extracting(Event::getQueueId).containsExactly("queue-1");
+        assertThat(response.getNextCursor()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("pollEvents (long-poll): Should return an empty poll after waitMs")
+    void shouldReturnEmptyPollAfterTimeout() {
+        // Given
+        when(eventRepository.getAfter(eq(4L), eq(10))).thenReturn(List.of());
+        when(eventRepository.getEndOffset()).thenReturn(5L);
+        when(eventRepository.getEpoch()).thenReturn("epoch-1");
+        when(eventRepository.awaitAfter(4)).thenReturn(new CompletableFuture<>());
+
+        // When
+        PollResponse response = eventService.pollEvents(0, 4, 10, 50).orTimeout(5, TimeUnit.SECONDS).join();
+
+        // Then
+        assertThat(response.getEvents()).isEmpty();
+        assertThat(response.getNextCursor()).isEqualTo(4);
+        verify(eventRepository).cancelAwait(any());
+    }
+
+    @Test
+    @DisplayName("seek: Should resolve a time to the cursor before the first matching event")
+    void shouldSeekByTime() {
+        // Given
+        Instant time = Instant.parse("2026-10-16T09:00:00Z");
+        when(eventRepository.findOffset(time)).thenReturn(42L);
+        when(eventRepository.getEpoch()).thenReturn("epoch-1");
+
+        // When
+        SeekResponse response = eventService.seek(0, time);
+
+        // Then
+        assertThat(response.getPartition()).isZero();
+        assertThat(response.getOffset()).isEqualTo(42);
+        assertThat(response.getCursor()).isEqualTo(41);
+        assertThat(response.getTime()).isEqualTo(time);
         assertThat(response.getEpoch()).isEqualTo("epoch-1");
-        assertThat(response.isHasMore()).isFalse();
     }
 
     @Test
@@ -129,18 +339,44 @@ class EventServiceTest {
     void shouldReturnSystemStats() {
         // Given
         when(eventRepository.getTotalCount()).thenReturn(100L);
-        when(eventRepository.getSize()).thenReturn(95);
+        when(eventRepository.getRetainedCount()).thenReturn(95L);
+        when(eventRepository.getRetainedBytes()).thenReturn(20_000L);
+        when(eventRepository.getEvictedEvents()).thenReturn(5L);
+        when(eventRepository.getEvictedBytes()).thenReturn(1_000L);
 
         // When
         SystemStats stats = eventService.getStats();
 
         // Then
         assertThat(stats).isNotNull();
+        assertThat(stats.getPartitionCount()).isEqualTo(1);
         assertThat(stats.getTotalEventsCreated()).isEqualTo(100L);
         assertThat(stats.getEventsInMemory()).isEqualTo(95);
+        assertThat(stats.getRetainedBytes()).isEqualTo(20_000L);
+        assertThat(stats.getEvictedEvents()).isEqualTo(5L);
+        assertThat(stats.getEvictedBytes()).isEqualTo(1_000L);
 
         verify(eventRepository, times(1)).getTotalCount();
-        verify(eventRepository, times(1)).getSize();
+        verify(eventRepository, times(1)).getRetainedCount();
+    }
+
+    @Test
+    @DisplayName("getPartitions: Should report offsets of each partition")
+    void shouldReportOffsetsPerPartition() {
+        // Given
+        when(eventRepository.getStartOffset()).thenReturn(5L);
+        when(eventRepository.getEndOffset()).thenReturn(42L);
+
+        // When
+        PartitionsResponse response = eventService.getPartitions();
+
+        // Then
+        assertThat(response.getPartitionCount()).isEqualTo(1);
+        assertThat(response.getPartitions()).singleElement().satisfies(partition -> {
+            assertThat(partition.getPartition()).isZero();
+            assertThat(partition.getEarliestOffset()).isEqualTo(5);
+            assertThat(partition.getEndOffset()).isEqualTo(42);
+        });
     }
 
     @Test
@@ -154,6 +390,116 @@ class EventServiceTest {
         Event dequeuedEvent = eventService.createEvent(EventType.DEQUEUED, "q2", "a2");
         assertThat(dequeuedEvent.getEventType()).isEqualTo(EventType.DEQUEUED);
 
-        verify(eventRepository, times(2)).add(any(Event.class));
+        verify(eventRepository, times(2)).append(any(Event.class));
+    }
+
+    @Test
+    @DisplayName("createEvent: Should append a keyed event once and replay the original offset for a retry")
+    void shouldDeduplicateRetriesWithinWindow() {
+        // Given
+        EventService dedupService = new EventService(eventPartitions, producerMetrics,
+                new IdempotencyWindow<>(60_000, 100), admissionController);
+        when(eventRepository.append(any(Event.class))).thenReturn(41L);
+
+        // When
+        IngestResult first = dedupService.createEvent(EventType.ENQUEUED, "q1", "a1", null, "req-1");
+        when(eventRepository.getAfter(40L, 1)).thenReturn(List.of(first.getEvent()));
+        IngestResult retry = dedupService.createEvent(EventType.ENQUEUED, "q1", "a1", null, "req-1");
+        IngestResult other = dedupService.createEvent(EventType.ENQUEUED, "q1", "a1", null, "req-2");
+
+        // Then: the retry gets the original event back from the log
+        assertThat(first.isDuplicate()).isFalse();
+        assertThat(first.getOffset()).isEqualTo(41L);
+        assertThat(retry.isDuplicate()).isTrue();
+        assertThat(retry.getOffset()).isEqualTo(41L);
+        assertThat(retry.getEvent()).isSameAs(first.getEvent());
+        assertThat(other.isDuplicate()).isFalse();
+        verify(eventRepository, times(2)).append(any(Event.class));
+
+        SystemStats stats = dedupService.getStats();
+        assertThat(stats.getDedupChecks()).isEqualTo(3);
+        assertThat(stats.getDedupHits()).isEqualTo(1);
+        assertThat(stats.getDedupKeys()).isEqualTo(2);
+        assertThat(stats.getDedupBytes()).isPositive();
+    }
+
+    @Test
+    @DisplayName("createEvent: Should append a concurrent duplicate itself when the owner's append fails")
+    void shouldRetryDuplicateWhenOwnerFails() throws Exception {
+        // Given: the first append blocks until released, then fails
+        IdempotencyWindow<IngestReceipt> window = new IdempotencyWindow<>(60_000, 100);
+        EventService dedupService = new EventService(eventPartitions, producerMetrics, window, admissionController);
+        CountDownLatch appending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(eventRepository.append(any(Event.class)))
+                .thenAnswer(invocation -> {
+                    appending.countDown();
+                    release.await();
+                    throw new IllegalStateException("append failed");
+                })
+                .thenReturn(7L);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // When: a duplicate arrives while the owner is appending, then the owner fails
+            Future<IngestResult> owner = executor.submit(
+                    () -> dedupService.createEvent(EventType.ENQUEUED, "q1", "a1", null, "req-1"));
+            assertThat(appending.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<IngestResult> duplicate = executor.submit(
+                    () -> dedupService.createEvent(EventType.ENQUEUED, "q1", "a1", null, "req-1"));
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (window.getHits() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            // Then: the owner's client sees the failure, the duplicate appends instead of failing
+            assertThatThrownBy(() -> owner.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+            IngestResult result = duplicate.get(5, TimeUnit.SECONDS);
+            assertThat(result.isDuplicate()).isFalse();
+            assertThat(result.getOffset()).isEqualTo(7L);
+            verify(eventRepository, times(2)).append(any(Event.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("createEvent: Should key on interactionId and event type when no idempotency key is given")
+    void shouldDeduplicateByInteractionIdAndType() {
+        // Given
+        EventService dedupService = new EventService(eventPartitions, producerMetrics,
+                new IdempotencyWindow<>(60_000, 100), admissionController);
+
+        // When
+        IngestResult enqueued = dedupService.createEvent(EventType.ENQUEUED, "q1", "a1", "call-7", null);
+        IngestResult retry = dedupService.createEvent(EventType.ENQUEUED, "q1", "a1", "call-7", null);
+        IngestResult dequeued = dedupService.createEvent(EventType.DEQUEUED, "q1", "a1", "call-7", null);
+
+        // Then
+        assertThat(enqueued.getEvent().getInteractionId()).isEqualTo("call-7");
+        assertThat(retry.isDuplicate()).isTrue();
+        assertThat(dequeued.isDuplicate()).isFalse();
+        verify(eventRepository, times(2)).append(any(Event.class));
+    }
+
+    @Test
+    @DisplayName("createEvent: Should answer a duplicate of an evicted event with the original ID")
+    void shouldRebuildEvictedOriginal() {
+        // Given: the original event is no longer in the log
+        EventService dedupService = new EventService(eventPartitions, producerMetrics,
+                new IdempotencyWindow<>(60_000, 100), admissionController);
+        when(eventRepository.append(any(Event.class))).thenReturn(3L);
+        IngestResult first = dedupService.createEvent(EventType.ENQUEUED, "q1", "a1", "call-7", "req-1");
+
+        // When
+        IngestResult retry = dedupService.createEvent(EventType.ENQUEUED, "q1", "a1", "call-7", "req-1");
+
+        // Then
+        assertThat(retry.isDuplicate()).isTrue();
+        assertThat(retry.getOffset()).isEqualTo(3L);
+        assertThat(retry.getEvent().getEventId()).isEqualTo(first.getEvent().getEventId());
+        assertThat(retry.getEvent().getInteractionId()).isEqualTo("call-7");
+        verify(eventRepository).getAfter(2L, 1);
     }
 }
@@ -0,0 +1,116 @@
+package com.learning.producer.service;
+
+import com.learning.producer.model.Event;
+import com.learning.producer.model.EventType;
+import com.learning.producer.repository.EventPartitions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for EventStreamService
+ * Emitters are stubs that record or block sends instead of writing to a response
+ */
+@DisplayName("EventStreamService Unit Tests")
+class EventStreamServiceTest {
+
+    private final EventPartitions eventPartitions = new EventPartitions();
+    private EventStreamService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new EventStreamService(eventPartitions);
+        ReflectionTestUtils.setField(service, "heartbeatMs", 100L);
+        ReflectionTestUtils.setField(service, "batchSize", 500);
+        ReflectionTestUtils.setField(service, "stallTimeoutMs", 500L);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    @DisplayName("subscribe: A stalled subscriber should not delay others and should be dropped")
+    void shouldIsolateStalledSubscriber() throws Exception {
+        // Given: one client that stops reading after the epoch, one healthy client
+        StalledEmitter stalled = new StalledEmitter();
+        RecordingEmitter healthy = new RecordingEmitter(3);
+        service.subscribe(0, -1, stalled);
+        service.subscribe(0, -1, healthy);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            eventPartitions.partition(0).add(Event.create(EventType.ENQUEUED, "queue-1", "agent-" + i));
+        }
+
+        // Then: the healthy client gets every event while the other is stuck in a send
+        assertThat(stalled.blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(healthy.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(healthy.events.get()).isEqualTo(3);
+
+        // And: past the stall timeout the stalled client is dropped, the healthy one stays
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (service.getSubscriberCount() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(service.getSubscriberCount()).isEqualTo(1);
+        stalled.release.countDown();
+    }
+
+    /**
+     * Accepts the epoch, then blocks in every send like a client with a full send buffer
+     */
+    private static final class StalledEmitter extends SseEmitter {
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private int sends;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (sends++ == 0) {
+                return;
+            }
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException("send interrupted");
+            }
+        }
+    }
+
+    /**
+     * Counts the "event" events sent to it
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final AtomicInteger events = new AtomicInteger();
+        private final CountDownLatch received;
+
+        private RecordingEmitter(int expected) {
+            this.received = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            boolean event = builder.build().stream()
+                    .anyMatch(data -> data.getData().toString().contains("event:" + EventStreamService.EVENT_EVENT));
+            if (event) {
+                events.incrementAndGet();
+                received.countDown();
+            }
+        }
+    }
+}